@@ -0,0 +1,437 @@
+package mapper.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+
+/**
+ * Generates a plain Java GeneratedMapper for every source/result type pair
+ * declared with GenerateMapper, and lists them in META-INF/services
+ * so that Mapper finds them at runtime.
+ * Fields are matched the same way MapperUtil matches them at runtime:
+ * by name and by type, through a public getter of the source
+ * and a public setter of the result.
+ * A pair whose runtime MappingPlan the generated code can not reproduce exactly
+ * (a MappingNames or MappingAccess other than the default, boxing or widening,
+ * nested Mappable, collection or array mapping, different type arguments)
+ * is not generated, and a warning names the reason.
+ * Fields of the same name and different types, which only a converter registered
+ * at runtime would map, make the generated mapper inapplicable once such a converter
+ * is registered, so that the plan is used instead.
+ */
+@SupportedAnnotationTypes(MapperProcessor.GENERATE_MAPPER)
+public class MapperProcessor extends AbstractProcessor {
+
+  static final String GENERATE_MAPPER = "mapper.GenerateMapper";
+
+  private static final String MAPPABLE = "mapper.Mappable";
+  private static final String MAPPING_NAMES = "mapper.MappingNames";
+  private static final String MAPPING_ACCESS = "mapper.MappingAccess";
+  private static final String GENERATED_MAPPER = "mapper.plan.GeneratedMapper";
+  private static final String CONVERTER_REGISTRY = "mapper.plan.ConverterRegistry";
+  private static final String RESULT_TYPE_INSTANTIATION_EXCEPTION =
+      "mapper.exception.ResultTypeInstantiationException";
+
+  private final Set<String> generatedMappers = new TreeSet<>();
+
+  private Elements elements;
+  private Types types;
+
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latestSupported();
+  }
+
+  @Override
+  public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+    elements = processingEnv.getElementUtils();
+    types = processingEnv.getTypeUtils();
+
+    if (roundEnv.processingOver()) {
+      writeServiceFile();
+      return false;
+    }
+
+    for (TypeElement annotation : annotations) {
+      for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+        if (element.getKind() != ElementKind.CLASS) {
+          continue;
+        }
+        TypeElement sourceType = (TypeElement) element;
+        for (TypeElement resultType : getResultTypes(sourceType)) {
+          generate(sourceType, resultType);
+        }
+      }
+    }
+    return true;
+  }
+
+  private List<TypeElement> getResultTypes(TypeElement sourceType) {
+    List<TypeElement> resultTypes = new ArrayList<>();
+    for (AnnotationMirror annotationMirror : sourceType.getAnnotationMirrors()) {
+      TypeElement annotationType = (TypeElement) annotationMirror.getAnnotationType().asElement();
+      if (!annotationType.getQualifiedName().contentEquals(GENERATE_MAPPER)) {
+        continue;
+      }
+      for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry
+          : annotationMirror.getElementValues().entrySet()) {
+        List<?> values = (List<?>) entry.getValue().getValue();
+        for (Object value : values) {
+          TypeMirror resultType = (TypeMirror) ((AnnotationValue) value).getValue();
+          resultTypes.add((TypeElement) types.asElement(resultType));
+        }
+      }
+    }
+    return resultTypes;
+  }
+
+  private void generate(TypeElement sourceType, TypeElement resultType) {
+    TypeMirror mappable = elements.getTypeElement(MAPPABLE).asType();
+    if (!types.isAssignable(sourceType.asType(), mappable)
+        || !types.isAssignable(resultType.asType(), mappable)) {
+      error(sourceType, "Both " + sourceType + " and " + resultType + " must be Mappable.");
+      return;
+    }
+
+    String unsupportedReason = getUnsupportedAnnotation(sourceType);
+    if (unsupportedReason == null) {
+      unsupportedReason = getUnsupportedAnnotation(resultType);
+    }
+    Matching matching = unsupportedReason == null ? match(sourceType, resultType) : null;
+    if (matching != null) {
+      unsupportedReason = matching.unsupportedReason;
+    }
+    if (unsupportedReason != null) {
+      processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+          "No mapper is generated from " + sourceType + " to " + resultType + ", "
+              + unsupportedReason + ". It is mapped by its MappingPlan at runtime.",
+          sourceType);
+      return;
+    }
+
+    String packageName = getPackageName(sourceType);
+    String mapperName = getFlatName(sourceType) + "To" + getFlatName(resultType) + "Mapper";
+    String qualifiedMapperName = packageName.isEmpty()
+        ? mapperName
+        : packageName + "." + mapperName;
+
+    String sourceName = types.erasure(sourceType.asType()).toString();
+    String resultName = types.erasure(resultType.asType()).toString();
+
+    StringBuilder code = new StringBuilder();
+    if (!packageName.isEmpty()) {
+      code.append("package ").append(packageName).append(";\n\n");
+    }
+    code.append("/**\n")
+        .append(" * Generated by ").append(getClass().getName()).append(".\n")
+        .append(" */\n")
+        .append("public final class ").append(mapperName)
+        .append(" implements ").append(GENERATED_MAPPER)
+        .append("<").append(sourceName).append(", ").append(resultName).append("> {\n\n")
+        .append("  @Override\n")
+        .append("  public Class<").append(sourceName).append("> getSourceType() {\n")
+        .append("    return ").append(sourceName).append(".class;\n")
+        .append("  }\n\n")
+        .append("  @Override\n")
+        .append("  public Class<").append(resultName).append("> getResultType() {\n")
+        .append("    return ").append(resultName).append(".class;\n")
+        .append("  }\n\n")
+        .append("  @Override\n")
+        .append("  public ").append(resultName).append(" newResult()\n")
+        .append("      throws ").append(RESULT_TYPE_INSTANTIATION_EXCEPTION).append(" {\n");
+    if (hasPublicNoArgsConstructor(resultType)) {
+      code.append("    return new ").append(resultName).append("();\n");
+    } else {
+      code.append("    throw new ").append(RESULT_TYPE_INSTANTIATION_EXCEPTION)
+          .append("(").append(resultName).append(".class);\n");
+    }
+    code.append("  }\n\n");
+    if (!matching.convertibleTypes.isEmpty()) {
+      code.append("  @Override\n")
+          .append("  public boolean isApplicable() {\n")
+          .append("    return true");
+      for (String[] convertibleType : matching.convertibleTypes) {
+        code.append("\n        && !").append(CONVERTER_REGISTRY).append(".canConvert(")
+            .append(convertibleType[0]).append(".class, ")
+            .append(convertibleType[1]).append(".class)");
+      }
+      code.append(";\n")
+          .append("  }\n\n");
+    }
+    code.append("  @Override\n")
+        .append("  public void map(").append(sourceName).append(" source, ")
+        .append(resultName).append(" result) {\n");
+    for (Map.Entry<ExecutableElement, ExecutableElement> accessors
+        : matching.accessors.entrySet()) {
+      code.append("    result.").append(accessors.getValue().getSimpleName())
+          .append("(source.").append(accessors.getKey().getSimpleName()).append("());\n");
+    }
+    code.append("  }\n\n")
+        .append("  @Override\n")
+        .append("  public int getPropertyCount() {\n")
+        .append("    return ").append(matching.accessors.size()).append(";\n")
+        .append("  }\n")
+        .append("}\n");
+
+    try (Writer writer = processingEnv.getFiler()
+        .createSourceFile(qualifiedMapperName, sourceType, resultType).openWriter()) {
+      writer.write(code.toString());
+    } catch (IOException e) {
+      error(sourceType, "Can not write " + qualifiedMapperName + ". " + e.getMessage());
+      return;
+    }
+    generatedMappers.add(qualifiedMapperName);
+  }
+
+  /**
+   * Gets the reason why the runtime mapping of the given type can not be generated:
+   * a MappingNames or MappingAccess annotation, declared or inherited,
+   * other than the default EXACT and GETTER_SETTER.
+   *
+   * @return the reason, or null if the type uses the default matching and access.
+   */
+  private String getUnsupportedAnnotation(TypeElement type) {
+    for (AnnotationMirror annotationMirror : elements.getAllAnnotationMirrors(type)) {
+      String annotationName = ((TypeElement) annotationMirror.getAnnotationType().asElement())
+          .getQualifiedName().toString();
+      String defaultValue = annotationName.equals(MAPPING_NAMES) ? "EXACT"
+          : annotationName.equals(MAPPING_ACCESS) ? "GETTER_SETTER"
+          : null;
+      if (defaultValue == null) {
+        continue;
+      }
+      for (AnnotationValue value : annotationMirror.getElementValues().values()) {
+        String constant = ((VariableElement) value.getValue()).getSimpleName().toString();
+        if (!constant.equals(defaultValue)) {
+          return type + " is annotated with @" + annotationName + "(" + constant + ")";
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Matches the fields of the given types by name and by erased type,
+   * and collects the source getter and result setter of each match.
+   * Fields of the same name and different types are checked against
+   * the conversions a MappingPlan does, see Matching.
+   */
+  private Matching match(TypeElement sourceType, TypeElement resultType) {
+    Matching matching = new Matching();
+    Map<String, VariableElement> resultFields = getAllFields(resultType);
+    for (VariableElement sourceField : getAllFields(sourceType).values()) {
+      String fieldName = sourceField.getSimpleName().toString();
+      VariableElement resultField = resultFields.get(fieldName);
+      if (resultField == null) {
+        continue;
+      }
+      TypeMirror fieldType = types.erasure(sourceField.asType());
+      TypeMirror resultFieldType = types.erasure(resultField.asType());
+      ExecutableElement getter = findAccessor(sourceType, "get", fieldName, null);
+      ExecutableElement setter = findAccessor(resultType, "set", fieldName, resultFieldType);
+
+      if (!types.isSameType(fieldType, resultFieldType)) {
+        if (isConvertedByPlan(fieldType, resultFieldType)) {
+          matching.unsupportedReason = "field '" + fieldName + "' is converted from "
+              + fieldType + " to " + resultFieldType;
+          return matching;
+        }
+        if (getter != null && setter != null) {
+          if (!isPublic(fieldType) || !isPublic(resultFieldType)) {
+            matching.unsupportedReason = "the type of field '" + fieldName + "' is not public";
+            return matching;
+          }
+          matching.convertibleTypes.add(
+              new String[] {fieldType.toString(), resultFieldType.toString()});
+        }
+        continue;
+      }
+      if (getter == null || setter == null) {
+        continue;
+      }
+
+      TypeMirror valueType = ((ExecutableType) types.asMemberOf(
+          (DeclaredType) sourceType.asType(), getter)).getReturnType();
+      TypeMirror parameterType = ((ExecutableType) types.asMemberOf(
+          (DeclaredType) resultType.asType(), setter)).getParameterTypes().get(0);
+      if (!types.isAssignable(valueType, parameterType)) {
+        matching.unsupportedReason = "field '" + fieldName + "' has the type arguments "
+            + valueType + " and " + parameterType;
+        return matching;
+      }
+      matching.accessors.put(getter, setter);
+    }
+    return matching;
+  }
+
+  /**
+   * Whether a MappingPlan may convert a value between the given different types by itself:
+   * boxing, unboxing and widening of a primitive,
+   * or mapping nested Mappables, collections or arrays.
+   */
+  private boolean isConvertedByPlan(TypeMirror sourceType, TypeMirror resultType) {
+    if (sourceType.getKind().isPrimitive() || resultType.getKind().isPrimitive()
+        || sourceType.getKind() == TypeKind.ARRAY || resultType.getKind() == TypeKind.ARRAY) {
+      return true;
+    }
+    TypeMirror collection = types.erasure(
+        elements.getTypeElement("java.util.Collection").asType());
+    if (types.isAssignable(sourceType, collection) || types.isAssignable(resultType, collection)) {
+      return true;
+    }
+    TypeMirror mappable = elements.getTypeElement(MAPPABLE).asType();
+    return types.isAssignable(sourceType, mappable) && types.isAssignable(resultType, mappable);
+  }
+
+  private boolean isPublic(TypeMirror type) {
+    Element element = types.asElement(type);
+    while (element instanceof TypeElement) {
+      if (!element.getModifiers().contains(Modifier.PUBLIC)) {
+        return false;
+      }
+      element = element.getEnclosingElement();
+    }
+    return true;
+  }
+
+  /**
+   * Gets the fields of the given type and of its super classes,
+   * a field shadows the field of a super class with the same name.
+   */
+  private Map<String, VariableElement> getAllFields(TypeElement type) {
+    Map<String, VariableElement> fields = new LinkedHashMap<>();
+    TypeMirror superclass = type.getSuperclass();
+    if (superclass.getKind() == TypeKind.DECLARED) {
+      fields.putAll(getAllFields((TypeElement) types.asElement(superclass)));
+    }
+    for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+      String fieldName = field.getSimpleName().toString();
+      fields.remove(fieldName);
+      fields.put(fieldName, field);
+    }
+    return fields;
+  }
+
+  /**
+   * Finds the public accessor of the given field the same way MappingPlan does
+   * with EXACT name matching, the only matching mappers are generated for.
+   */
+  private ExecutableElement findAccessor(TypeElement type, String prefix, String fieldName,
+      TypeMirror erasedParameterType) {
+    return findPublicMethod(type, prefix + capitalize(fieldName), erasedParameterType);
+  }
+
+  private static String capitalize(String name) {
+    return Character.toTitleCase(name.charAt(0)) + name.substring(1);
+  }
+
+  private ExecutableElement findPublicMethod(TypeElement type, String name,
+      TypeMirror erasedParameterType) {
+    for (ExecutableElement method : ElementFilter.methodsIn(elements.getAllMembers(type))) {
+      if (!method.getSimpleName().contentEquals(name)
+          || !method.getModifiers().contains(Modifier.PUBLIC)
+          || method.getModifiers().contains(Modifier.STATIC)) {
+        continue;
+      }
+      List<? extends VariableElement> parameters = method.getParameters();
+      if (erasedParameterType == null
+          ? parameters.isEmpty()
+          : parameters.size() == 1
+              && types.isSameType(erasedParameterType, types.erasure(parameters.get(0).asType()))) {
+        return method;
+      }
+    }
+    return null;
+  }
+
+  private boolean hasPublicNoArgsConstructor(TypeElement type) {
+    if (type.getModifiers().contains(Modifier.ABSTRACT)) {
+      return false;
+    }
+    for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+      if (constructor.getParameters().isEmpty()
+          && constructor.getModifiers().contains(Modifier.PUBLIC)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private String getPackageName(TypeElement type) {
+    PackageElement packageElement = elements.getPackageOf(type);
+    return packageElement.isUnnamed() ? "" : packageElement.getQualifiedName().toString();
+  }
+
+  private String getFlatName(TypeElement type) {
+    String packageName = getPackageName(type);
+    String qualifiedName = type.getQualifiedName().toString();
+    String nestedName = packageName.isEmpty()
+        ? qualifiedName
+        : qualifiedName.substring(packageName.length() + 1);
+    return nestedName.replace('.', '_');
+  }
+
+  private void writeServiceFile() {
+    if (generatedMappers.isEmpty()) {
+      return;
+    }
+    try {
+      FileObject serviceFile = processingEnv.getFiler().createResource(
+          StandardLocation.CLASS_OUTPUT, "", "META-INF/services/" + GENERATED_MAPPER);
+      try (Writer writer = serviceFile.openWriter()) {
+        for (String generatedMapper : generatedMappers) {
+          writer.write(generatedMapper);
+          writer.write("\n");
+        }
+      }
+    } catch (IOException e) {
+      processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+          "Can not write the service file of the generated mappers. " + e.getMessage());
+    }
+  }
+
+  private void error(Element element, String message) {
+    processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+  }
+
+
+  /**
+   * The getter/setter pairs a generated mapper copies,
+   * and the types of the fields which only a registered converter maps.
+   */
+  private static final class Matching {
+    private final Map<ExecutableElement, ExecutableElement> accessors = new LinkedHashMap<>();
+    private final List<String[]> convertibleTypes = new ArrayList<>();
+    private String unsupportedReason;
+  }
+}
@@ -0,0 +1,82 @@
+package mapper.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import mapper.Mappable;
+import mapper.Mapper;
+import mapper.exception.ResultTypeInstantiationException;
+import mapper.offheap.OffHeapRecords;
+import mapper.plan.ColumnarResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Maps a list of objects of every DTO shape into result objects, into columns
+ * and into reused off-heap records.
+ * The scores are per mapped element, not per list.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ColumnarMappingBenchmark {
+
+  @Param({"FLAT", "PRIMITIVE", "WIDE"})
+  public DtoShape shape;
+
+  private List<Mappable> sources;
+  private Class<? extends Mappable> resultType;
+  private OffHeapRecords<? extends Mappable> records;
+
+  /**
+   * Creates the source list and warms up its mapping plan.
+   */
+  @Setup
+  public void setUp() {
+    sources = new ArrayList<>(ListMappingBenchmark.SIZE);
+    for (int i = 0; i < ListMappingBenchmark.SIZE; i++) {
+      sources.add(shape.newSource(i));
+    }
+    resultType = shape.getType();
+    Mapper.getMapperFromList(sources).mapToColumns(resultType);
+    records = OffHeapRecords.allocate(resultType, ListMappingBenchmark.SIZE);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(ListMappingBenchmark.SIZE)
+  public Iterable<? extends Mappable> mapToListOfClass() throws ResultTypeInstantiationException {
+    return Mapper.getMapperFromList(sources).mapToList(resultType);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(ListMappingBenchmark.SIZE)
+  public ColumnarResult mapToColumns() {
+    return Mapper.getMapperFromList(sources).mapToColumns(resultType);
+  }
+
+  /**
+   * Maps the sources into off-heap records which are allocated once.
+   */
+  @Benchmark
+  @OperationsPerInvocation(ListMappingBenchmark.SIZE)
+  public OffHeapRecords<? extends Mappable> mapIntoOffHeapRecords() {
+    records.clear();
+    records.addAll(sources);
+    return records;
+  }
+}
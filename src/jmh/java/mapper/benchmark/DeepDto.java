@@ -0,0 +1,25 @@
+package mapper.benchmark;
+
+/**
+ * Leaf of a four level deep class hierarchy.
+ */
+public class DeepDto extends DeepLevel3 {
+  private Double level4Field1;
+  private Long level4Field2;
+
+  public Double getLevel4Field1() {
+    return level4Field1;
+  }
+
+  public void setLevel4Field1(Double level4Field1) {
+    this.level4Field1 = level4Field1;
+  }
+
+  public Long getLevel4Field2() {
+    return level4Field2;
+  }
+
+  public void setLevel4Field2(Long level4Field2) {
+    this.level4Field2 = level4Field2;
+  }
+}
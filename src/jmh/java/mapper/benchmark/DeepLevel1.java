@@ -0,0 +1,27 @@
+package mapper.benchmark;
+
+import mapper.Mappable;
+
+/**
+ * Root of a four level deep class hierarchy.
+ */
+public class DeepLevel1 implements Mappable {
+  private String level1Field1;
+  private Integer level1Field2;
+
+  public String getLevel1Field1() {
+    return level1Field1;
+  }
+
+  public void setLevel1Field1(String level1Field1) {
+    this.level1Field1 = level1Field1;
+  }
+
+  public Integer getLevel1Field2() {
+    return level1Field2;
+  }
+
+  public void setLevel1Field2(Integer level1Field2) {
+    this.level1Field2 = level1Field2;
+  }
+}
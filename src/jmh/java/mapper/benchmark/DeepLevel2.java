@@ -0,0 +1,25 @@
+package mapper.benchmark;
+
+/**
+ * Second level of a four level deep class hierarchy.
+ */
+public class DeepLevel2 extends DeepLevel1 {
+  private Double level2Field1;
+  private Long level2Field2;
+
+  public Double getLevel2Field1() {
+    return level2Field1;
+  }
+
+  public void setLevel2Field1(Double level2Field1) {
+    this.level2Field1 = level2Field1;
+  }
+
+  public Long getLevel2Field2() {
+    return level2Field2;
+  }
+
+  public void setLevel2Field2(Long level2Field2) {
+    this.level2Field2 = level2Field2;
+  }
+}
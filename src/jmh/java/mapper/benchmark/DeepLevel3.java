@@ -0,0 +1,25 @@
+package mapper.benchmark;
+
+/**
+ * Third level of a four level deep class hierarchy.
+ */
+public class DeepLevel3 extends DeepLevel2 {
+  private String level3Field1;
+  private Integer level3Field2;
+
+  public String getLevel3Field1() {
+    return level3Field1;
+  }
+
+  public void setLevel3Field1(String level3Field1) {
+    this.level3Field1 = level3Field1;
+  }
+
+  public Integer getLevel3Field2() {
+    return level3Field2;
+  }
+
+  public void setLevel3Field2(Integer level3Field2) {
+    this.level3Field2 = level3Field2;
+  }
+}
@@ -0,0 +1,85 @@
+package mapper.benchmark;
+
+import java.lang.reflect.Field;
+import java.util.function.Supplier;
+
+import mapper.Mappable;
+import mapper.util.MapperUtil;
+
+
+/**
+ * The DTO shapes which are benchmarked.
+ * Every shape is mapped to its own type, so all of its fields are matched.
+ */
+public enum DtoShape {
+  FLAT(FlatDto.class, FlatDto::new),
+  PRIMITIVE(PrimitiveDto.class, PrimitiveDto::new),
+  DEEP(DeepDto.class, DeepDto::new),
+  WIDE(WideDto.class, WideDto::new);
+
+  private final Class<? extends Mappable> type;
+  private final Supplier<? extends Mappable> supplier;
+
+  DtoShape(Class<? extends Mappable> type, Supplier<? extends Mappable> supplier) {
+    this.type = type;
+    this.supplier = supplier;
+  }
+
+  public Class<? extends Mappable> getType() {
+    return type;
+  }
+
+  public Supplier<? extends Mappable> getSupplier() {
+    return supplier;
+  }
+
+  /**
+   * Creates a new object of this shape which's fields all have a value.
+   *
+   * @param seed the value the fields are derived from.
+   * @return a new source object.
+   */
+  public Mappable newSource(int seed) {
+    Mappable source = supplier.get();
+    try {
+      for (Field field : MapperUtil.getAllFields(type)) {
+        field.setAccessible(true);
+        field.set(source, sampleValue(field.getType(), seed));
+      }
+    } catch (IllegalAccessException e) {
+      throw new IllegalStateException(e);
+    }
+    return source;
+  }
+
+  private static Object sampleValue(Class<?> type, int seed) {
+    if (type == String.class) {
+      return "value" + seed;
+    }
+    if (type == int.class || type == Integer.class) {
+      return seed;
+    }
+    if (type == long.class || type == Long.class) {
+      return (long) seed;
+    }
+    if (type == double.class || type == Double.class) {
+      return (double) seed;
+    }
+    if (type == float.class) {
+      return (float) seed;
+    }
+    if (type == boolean.class) {
+      return seed % 2 == 0;
+    }
+    if (type == char.class) {
+      return (char) ('a' + seed % 26);
+    }
+    if (type == short.class) {
+      return (short) seed;
+    }
+    if (type == byte.class) {
+      return (byte) seed;
+    }
+    return null;
+  }
+}
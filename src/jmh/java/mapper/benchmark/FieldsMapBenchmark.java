@@ -0,0 +1,61 @@
+package mapper.benchmark;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import mapper.Mappable;
+import mapper.exception.ResultTypeInstantiationException;
+import mapper.util.MapperUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Extracts the fields map of an object of every DTO shape,
+ * and populates a new object from it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FieldsMapBenchmark {
+
+  @Param
+  public DtoShape shape;
+
+  private Mappable source;
+  private Map<String, Object> fieldsMap;
+
+  @Setup
+  public void setUp() {
+    source = shape.newSource(42);
+    fieldsMap = new HashMap<>(MapperUtil.toMap(source));
+  }
+
+  @Benchmark
+  public Map<String, Object> getFieldsMap() throws IllegalAccessException {
+    return MapperUtil.getFieldsMap(source);
+  }
+
+  @Benchmark
+  public Map<String, Object> toMap() {
+    return MapperUtil.toMap(source);
+  }
+
+  @Benchmark
+  public Mappable fromMap() throws ResultTypeInstantiationException {
+    return MapperUtil.fromMap(fieldsMap, source.getClass());
+  }
+}
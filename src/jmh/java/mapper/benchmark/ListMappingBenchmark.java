@@ -0,0 +1,75 @@
+package mapper.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import mapper.Mappable;
+import mapper.Mapper;
+import mapper.exception.ResultTypeInstantiationException;
+import mapper.plan.MappingEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Maps a list of objects of every DTO shape with every mapping engine.
+ * The scores are per mapped element, not per list.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ListMappingBenchmark {
+
+  static final int SIZE = 1000;
+
+  @Param
+  public DtoShape shape;
+
+  @Param
+  public MappingEngine engine;
+
+  private List<Mappable> sources;
+  private Class<? extends Mappable> resultType;
+  private Supplier<? extends Mappable> supplier;
+
+  /**
+   * Creates the source list and warms up its mapping plan.
+   */
+  @Setup
+  public void setUp() throws ResultTypeInstantiationException {
+    sources = new ArrayList<>(SIZE);
+    for (int i = 0; i < SIZE; i++) {
+      sources.add(shape.newSource(i));
+    }
+    resultType = shape.getType();
+    supplier = shape.getSupplier();
+    Mapper.getMapperFromList(sources, engine).mapToList(resultType);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(SIZE)
+  public Iterable<? extends Mappable> mapToListOfClass() throws ResultTypeInstantiationException {
+    return Mapper.getMapperFromList(sources, engine).mapToList(resultType);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(SIZE)
+  public Iterable<? extends Mappable> mapToListOfSupplier() {
+    return Mapper.getMapperFromList(sources, engine).mapToList(supplier);
+  }
+}
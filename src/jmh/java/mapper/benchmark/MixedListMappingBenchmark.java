@@ -0,0 +1,89 @@
+package mapper.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import mapper.Mappable;
+import mapper.Mapper;
+import mapper.exception.ResultTypeInstantiationException;
+import mapper.util.MapperUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Maps a list of FlatDto objects whose elements alternate between
+ * the given number of source classes (FlatDto and its sub classes),
+ * to compare mixed lists with single-class lists.
+ * The scores are per mapped element, not per list.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MixedListMappingBenchmark {
+
+  private static final List<Supplier<FlatDto>> suppliers = Arrays.asList(
+      FlatDto::new, Flat1::new, Flat2::new, Flat3::new,
+      Flat4::new, Flat5::new, Flat6::new, Flat7::new);
+
+  @Param({"1", "2", "4", "8"})
+  public int sourceClassCount;
+
+  private List<Mappable> sources;
+
+  /**
+   * Creates the source list and warms up its mapping plans.
+   */
+  @Setup
+  public void setUp() throws ResultTypeInstantiationException {
+    sources = new ArrayList<>(ListMappingBenchmark.SIZE);
+    for (int i = 0; i < ListMappingBenchmark.SIZE; i++) {
+      FlatDto source = suppliers.get(i % sourceClassCount).get();
+      sources.add(MapperUtil.map(DtoShape.FLAT.newSource(i), source));
+    }
+    Mapper.getMapperFromList(sources).mapToList(FlatDto.class);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(ListMappingBenchmark.SIZE)
+  public Iterable<FlatDto> mapToListOfClass() throws ResultTypeInstantiationException {
+    return Mapper.getMapperFromList(sources).mapToList(FlatDto.class);
+  }
+
+  public static class Flat1 extends FlatDto {
+  }
+
+  public static class Flat2 extends FlatDto {
+  }
+
+  public static class Flat3 extends FlatDto {
+  }
+
+  public static class Flat4 extends FlatDto {
+  }
+
+  public static class Flat5 extends FlatDto {
+  }
+
+  public static class Flat6 extends FlatDto {
+  }
+
+  public static class Flat7 extends FlatDto {
+  }
+}
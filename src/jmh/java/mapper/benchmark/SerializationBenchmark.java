@@ -0,0 +1,100 @@
+package mapper.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.concurrent.TimeUnit;
+
+import mapper.Mappable;
+import mapper.serialization.BinaryOutput;
+import mapper.serialization.MappableSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Serializes an object of every DTO shape with MappableSerializer and with
+ * ObjectOutputStream, and deserializes it back.
+ * Both write to a reused ByteArrayOutputStream, so the serializers themselves are measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+  @Param
+  public DtoShape shape;
+
+  private Mappable source;
+  private MappableSerializer<Mappable> serializer;
+  private final ByteArrayOutputStream stream = new ByteArrayOutputStream(4096);
+  private final BinaryOutput output = BinaryOutput.of(stream);
+  private byte[] binaryBytes;
+  private byte[] javaBytes;
+
+  /**
+   * Creates the source object and serializes it once with both serializers.
+   */
+  @Setup
+  @SuppressWarnings("unchecked")
+  public void setUp() throws IOException {
+    source = shape.newSource(42);
+    serializer = MappableSerializer.of((Class<Mappable>) shape.getType());
+    binaryBytes = serializer.toBytes(source);
+    serializeObjectStream();
+    javaBytes = stream.toByteArray();
+  }
+
+  /**
+   * Writes the source object through the reused BinaryOutput.
+   */
+  @Benchmark
+  public int serializeBinary() throws IOException {
+    stream.reset();
+    serializer.write(source, output);
+    output.flush();
+    return stream.size();
+  }
+
+  /**
+   * Writes the source object through a new ObjectOutputStream.
+   */
+  @Benchmark
+  public int serializeObjectStream() throws IOException {
+    stream.reset();
+    try (ObjectOutputStream output = new ObjectOutputStream(stream)) {
+      output.writeObject(source);
+    }
+    return stream.size();
+  }
+
+  @Benchmark
+  public Mappable deserializeBinary() throws IOException {
+    return serializer.fromBytes(binaryBytes);
+  }
+
+  /**
+   * Reads the source object through a new ObjectInputStream.
+   */
+  @Benchmark
+  public Object deserializeObjectStream() throws IOException, ClassNotFoundException {
+    try (ObjectInputStream input =
+        new ObjectInputStream(new ByteArrayInputStream(javaBytes))) {
+      return input.readObject();
+    }
+  }
+}
@@ -0,0 +1,64 @@
+package mapper.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import mapper.Mappable;
+import mapper.Mapper;
+import mapper.exception.ResultTypeInstantiationException;
+import mapper.plan.MappingEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Maps a single object of every DTO shape with every mapping engine.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SingleMappingBenchmark {
+
+  @Param
+  public DtoShape shape;
+
+  @Param
+  public MappingEngine engine;
+
+  private Mappable source;
+  private Class<? extends Mappable> resultType;
+  private Supplier<? extends Mappable> supplier;
+
+  /**
+   * Creates the source object and warms up its mapping plan.
+   */
+  @Setup
+  public void setUp() throws ResultTypeInstantiationException {
+    source = shape.newSource(42);
+    resultType = shape.getType();
+    supplier = shape.getSupplier();
+    Mapper.getMapperFrom(source, engine).mapTo(resultType);
+  }
+
+  @Benchmark
+  public Mappable mapToClass() throws ResultTypeInstantiationException {
+    return Mapper.getMapperFrom(source, engine).mapTo(resultType);
+  }
+
+  @Benchmark
+  public Mappable mapToSupplier() {
+    return Mapper.getMapperFrom(source, engine).mapTo(supplier);
+  }
+}
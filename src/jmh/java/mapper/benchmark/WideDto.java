@@ -0,0 +1,513 @@
+package mapper.benchmark;
+
+import mapper.Mappable;
+
+/**
+ * Has 56 fields of boxed, primitive and String types.
+ */
+public class WideDto implements Mappable {
+  private String field00;
+  private Integer field01;
+  private Long field02;
+  private Double field03;
+  private int field04;
+  private long field05;
+  private double field06;
+  private boolean field07;
+  private String field08;
+  private Integer field09;
+  private Long field10;
+  private Double field11;
+  private int field12;
+  private long field13;
+  private double field14;
+  private boolean field15;
+  private String field16;
+  private Integer field17;
+  private Long field18;
+  private Double field19;
+  private int field20;
+  private long field21;
+  private double field22;
+  private boolean field23;
+  private String field24;
+  private Integer field25;
+  private Long field26;
+  private Double field27;
+  private int field28;
+  private long field29;
+  private double field30;
+  private boolean field31;
+  private String field32;
+  private Integer field33;
+  private Long field34;
+  private Double field35;
+  private int field36;
+  private long field37;
+  private double field38;
+  private boolean field39;
+  private String field40;
+  private Integer field41;
+  private Long field42;
+  private Double field43;
+  private int field44;
+  private long field45;
+  private double field46;
+  private boolean field47;
+  private String field48;
+  private Integer field49;
+  private Long field50;
+  private Double field51;
+  private int field52;
+  private long field53;
+  private double field54;
+  private boolean field55;
+
+  public String getField00() {
+    return field00;
+  }
+
+  public void setField00(String field00) {
+    this.field00 = field00;
+  }
+
+  public Integer getField01() {
+    return field01;
+  }
+
+  public void setField01(Integer field01) {
+    this.field01 = field01;
+  }
+
+  public Long getField02() {
+    return field02;
+  }
+
+  public void setField02(Long field02) {
+    this.field02 = field02;
+  }
+
+  public Double getField03() {
+    return field03;
+  }
+
+  public void setField03(Double field03) {
+    this.field03 = field03;
+  }
+
+  public int getField04() {
+    return field04;
+  }
+
+  public void setField04(int field04) {
+    this.field04 = field04;
+  }
+
+  public long getField05() {
+    return field05;
+  }
+
+  public void setField05(long field05) {
+    this.field05 = field05;
+  }
+
+  public double getField06() {
+    return field06;
+  }
+
+  public void setField06(double field06) {
+    this.field06 = field06;
+  }
+
+  public boolean getField07() {
+    return field07;
+  }
+
+  public void setField07(boolean field07) {
+    this.field07 = field07;
+  }
+
+  public String getField08() {
+    return field08;
+  }
+
+  public void setField08(String field08) {
+    this.field08 = field08;
+  }
+
+  public Integer getField09() {
+    return field09;
+  }
+
+  public void setField09(Integer field09) {
+    this.field09 = field09;
+  }
+
+  public Long getField10() {
+    return field10;
+  }
+
+  public void setField10(Long field10) {
+    this.field10 = field10;
+  }
+
+  public Double getField11() {
+    return field11;
+  }
+
+  public void setField11(Double field11) {
+    this.field11 = field11;
+  }
+
+  public int getField12() {
+    return field12;
+  }
+
+  public void setField12(int field12) {
+    this.field12 = field12;
+  }
+
+  public long getField13() {
+    return field13;
+  }
+
+  public void setField13(long field13) {
+    this.field13 = field13;
+  }
+
+  public double getField14() {
+    return field14;
+  }
+
+  public void setField14(double field14) {
+    this.field14 = field14;
+  }
+
+  public boolean getField15() {
+    return field15;
+  }
+
+  public void setField15(boolean field15) {
+    this.field15 = field15;
+  }
+
+  public String getField16() {
+    return field16;
+  }
+
+  public void setField16(String field16) {
+    this.field16 = field16;
+  }
+
+  public Integer getField17() {
+    return field17;
+  }
+
+  public void setField17(Integer field17) {
+    this.field17 = field17;
+  }
+
+  public Long getField18() {
+    return field18;
+  }
+
+  public void setField18(Long field18) {
+    this.field18 = field18;
+  }
+
+  public Double getField19() {
+    return field19;
+  }
+
+  public void setField19(Double field19) {
+    this.field19 = field19;
+  }
+
+  public int getField20() {
+    return field20;
+  }
+
+  public void setField20(int field20) {
+    this.field20 = field20;
+  }
+
+  public long getField21() {
+    return field21;
+  }
+
+  public void setField21(long field21) {
+    this.field21 = field21;
+  }
+
+  public double getField22() {
+    return field22;
+  }
+
+  public void setField22(double field22) {
+    this.field22 = field22;
+  }
+
+  public boolean getField23() {
+    return field23;
+  }
+
+  public void setField23(boolean field23) {
+    this.field23 = field23;
+  }
+
+  public String getField24() {
+    return field24;
+  }
+
+  public void setField24(String field24) {
+    this.field24 = field24;
+  }
+
+  public Integer getField25() {
+    return field25;
+  }
+
+  public void setField25(Integer field25) {
+    this.field25 = field25;
+  }
+
+  public Long getField26() {
+    return field26;
+  }
+
+  public void setField26(Long field26) {
+    this.field26 = field26;
+  }
+
+  public Double getField27() {
+    return field27;
+  }
+
+  public void setField27(Double field27) {
+    this.field27 = field27;
+  }
+
+  public int getField28() {
+    return field28;
+  }
+
+  public void setField28(int field28) {
+    this.field28 = field28;
+  }
+
+  public long getField29() {
+    return field29;
+  }
+
+  public void setField29(long field29) {
+    this.field29 = field29;
+  }
+
+  public double getField30() {
+    return field30;
+  }
+
+  public void setField30(double field30) {
+    this.field30 = field30;
+  }
+
+  public boolean getField31() {
+    return field31;
+  }
+
+  public void setField31(boolean field31) {
+    this.field31 = field31;
+  }
+
+  public String getField32() {
+    return field32;
+  }
+
+  public void setField32(String field32) {
+    this.field32 = field32;
+  }
+
+  public Integer getField33() {
+    return field33;
+  }
+
+  public void setField33(Integer field33) {
+    this.field33 = field33;
+  }
+
+  public Long getField34() {
+    return field34;
+  }
+
+  public void setField34(Long field34) {
+    this.field34 = field34;
+  }
+
+  public Double getField35() {
+    return field35;
+  }
+
+  public void setField35(Double field35) {
+    this.field35 = field35;
+  }
+
+  public int getField36() {
+    return field36;
+  }
+
+  public void setField36(int field36) {
+    this.field36 = field36;
+  }
+
+  public long getField37() {
+    return field37;
+  }
+
+  public void setField37(long field37) {
+    this.field37 = field37;
+  }
+
+  public double getField38() {
+    return field38;
+  }
+
+  public void setField38(double field38) {
+    this.field38 = field38;
+  }
+
+  public boolean getField39() {
+    return field39;
+  }
+
+  public void setField39(boolean field39) {
+    this.field39 = field39;
+  }
+
+  public String getField40() {
+    return field40;
+  }
+
+  public void setField40(String field40) {
+    this.field40 = field40;
+  }
+
+  public Integer getField41() {
+    return field41;
+  }
+
+  public void setField41(Integer field41) {
+    this.field41 = field41;
+  }
+
+  public Long getField42() {
+    return field42;
+  }
+
+  public void setField42(Long field42) {
+    this.field42 = field42;
+  }
+
+  public Double getField43() {
+    return field43;
+  }
+
+  public void setField43(Double field43) {
+    this.field43 = field43;
+  }
+
+  public int getField44() {
+    return field44;
+  }
+
+  public void setField44(int field44) {
+    this.field44 = field44;
+  }
+
+  public long getField45() {
+    return field45;
+  }
+
+  public void setField45(long field45) {
+    this.field45 = field45;
+  }
+
+  public double getField46() {
+    return field46;
+  }
+
+  public void setField46(double field46) {
+    this.field46 = field46;
+  }
+
+  public boolean getField47() {
+    return field47;
+  }
+
+  public void setField47(boolean field47) {
+    this.field47 = field47;
+  }
+
+  public String getField48() {
+    return field48;
+  }
+
+  public void setField48(String field48) {
+    this.field48 = field48;
+  }
+
+  public Integer getField49() {
+    return field49;
+  }
+
+  public void setField49(Integer field49) {
+    this.field49 = field49;
+  }
+
+  public Long getField50() {
+    return field50;
+  }
+
+  public void setField50(Long field50) {
+    this.field50 = field50;
+  }
+
+  public Double getField51() {
+    return field51;
+  }
+
+  public void setField51(Double field51) {
+    this.field51 = field51;
+  }
+
+  public int getField52() {
+    return field52;
+  }
+
+  public void setField52(int field52) {
+    this.field52 = field52;
+  }
+
+  public long getField53() {
+    return field53;
+  }
+
+  public void setField53(long field53) {
+    this.field53 = field53;
+  }
+
+  public double getField54() {
+    return field54;
+  }
+
+  public void setField54(double field54) {
+    this.field54 = field54;
+  }
+
+  public boolean getField55() {
+    return field55;
+  }
+
+  public void setField55(boolean field55) {
+    this.field55 = field55;
+  }
+}
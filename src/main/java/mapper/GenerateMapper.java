@@ -0,0 +1,27 @@
+package mapper;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+
+/**
+ * Declares the result types which the annotated Mappable source type is mapped to.
+ * When the mapper-processor module is on the annotation processor path,
+ * a plain Java mapper is generated at compile time for every declared pair.
+ * The generated mappers are registered through ServiceLoader and used by Mapper
+ * automatically, without any runtime reflection.
+ * A pair is only generated when the generated code maps exactly what its MappingPlan maps;
+ * otherwise the processor warns and the pair is mapped by its plan.
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface GenerateMapper {
+  /**
+   * Result types which the annotated source type is mapped to.
+   */
+  Class<? extends Mappable>[] value();
+}
@@ -13,4 +13,6 @@ public interface MapTo {
   <T extends Mappable> T mapTo(Class<T> resultType) throws ResultTypeInstantiationException;
 
   <T extends Mappable> T mapTo(Supplier<T> supplier);
+
+  <T extends Mappable> T mapInto(T target);
 }
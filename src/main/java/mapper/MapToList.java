@@ -2,8 +2,11 @@ package mapper;
 
 import java.util.List;
 import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 import mapper.exception.ResultTypeInstantiationException;
+import mapper.offheap.OffHeapRecords;
+import mapper.plan.ColumnarResult;
 
 
 /**
@@ -14,4 +17,33 @@ public interface MapToList {
       throws ResultTypeInstantiationException;
 
   <T extends Mappable> Iterable<T> mapToList(Supplier<T> supplier);
+
+  <T extends Mappable> List<T> mapToList(List<T> targets);
+
+  <T extends Mappable> T[] mapToList(T[] targets);
+
+  <T extends Mappable> ColumnarResult mapToColumns(Class<T> resultType);
+
+  <T extends Mappable> OffHeapRecords<T> mapToOffHeap(Class<T> resultType);
+
+  <T extends Mappable> Iterable<T> mapToListParallel(Class<T> resultType)
+      throws ResultTypeInstantiationException;
+
+  <T extends Mappable> Iterable<T> mapToListParallel(Class<T> resultType,
+      ParallelOptions options) throws ResultTypeInstantiationException;
+
+  <T extends Mappable> Iterable<T> mapToListParallel(Supplier<T> supplier);
+
+  <T extends Mappable> Iterable<T> mapToListParallel(Supplier<T> supplier,
+      ParallelOptions options);
+
+  <T extends Mappable> Iterable<T> mapToLazyList(Class<T> resultType)
+      throws ResultTypeInstantiationException;
+
+  <T extends Mappable> Iterable<T> mapToLazyList(Supplier<T> supplier);
+
+  <T extends Mappable> Stream<T> mapToStream(Class<T> resultType)
+      throws ResultTypeInstantiationException;
+
+  <T extends Mappable> Stream<T> mapToStream(Supplier<T> supplier);
 }
@@ -1,10 +1,18 @@
 package mapper;
 
+import java.util.Iterator;
 import java.util.List;
 import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import mapper.exception.ResultTypeInstantiationException;
+import mapper.offheap.OffHeapRecords;
+import mapper.plan.ColumnarResult;
+import mapper.plan.MappingEngine;
 import mapper.util.MapperUtil;
+import mapper.util.ParallelMapperUtil;
+import mapper.util.StreamMapperUtil;
 
 
 /**
@@ -14,13 +22,23 @@ import mapper.util.MapperUtil;
 public class Mapper implements MapTo, MapToList {
   private Mappable source;
   private Iterable<? extends Mappable> sources;
+  private Stream<? extends Mappable> sourceStream;
+  private MappingEngine engine;
 
-  private Mapper(Mappable source) {
+  private Mapper(Mappable source, MappingEngine engine) {
     this.source = source;
+    this.engine = engine;
   }
 
-  private Mapper(Iterable<? extends Mappable> sources) {
+  private Mapper(Iterable<? extends Mappable> sources, MappingEngine engine) {
     this.sources = sources;
+    this.engine = engine;
+  }
+
+  private Mapper(Stream<? extends Mappable> sourceStream, MappingEngine engine) {
+    this.sources = asIterable(sourceStream);
+    this.sourceStream = sourceStream;
+    this.engine = engine;
   }
 
 
@@ -32,7 +50,19 @@ public class Mapper implements MapTo, MapToList {
    * @return a new Mapper instance.
    */
   public static MapTo getMapperFrom(Mappable source) {
-    return new Mapper(source);
+    return new Mapper(source, MappingEngine.DEFAULT);
+  }
+
+  /**
+   * Creates a new Mapper instance which maps using the given engine.
+   *
+   * @param source Mappable object which will be used
+   *               as source when mapping.
+   * @param engine MappingEngine which will run the mapping.
+   * @return a new Mapper instance.
+   */
+  public static MapTo getMapperFrom(Mappable source, MappingEngine engine) {
+    return new Mapper(source, engine);
   }
 
   /**
@@ -43,9 +73,74 @@ public class Mapper implements MapTo, MapToList {
    * @return a new Mapper instance.
    */
   public static MapToList getMapperFromList(Iterable<? extends Mappable> sources) {
-    return new Mapper(sources);
+    return new Mapper(sources, MappingEngine.DEFAULT);
+  }
+
+  /**
+   * Creates a new Mapper instance which maps using the given engine.
+   *
+   * @param sources List&lt;Mappable&gt; object which will be used
+   *                as source when mapping.
+   * @param engine  MappingEngine which will run the mapping.
+   * @return a new Mapper instance.
+   */
+  public static MapToList getMapperFromList(Iterable<? extends Mappable> sources,
+      MappingEngine engine) {
+    return new Mapper(sources, engine);
+  }
+
+
+  /**
+   * Creates a new Mapper instance which maps the elements of a stream, e.g. a database cursor.
+   * The stream can be consumed only once, so only one of the mapping methods can be called.
+   * mapToStream and mapToLazyList map each element only when it is consumed.
+   *
+   * @param sourceStream Stream&lt;Mappable&gt; object which will be used
+   *                     as source when mapping.
+   * @return a new Mapper instance.
+   */
+  public static MapToList getMapperFromStream(Stream<? extends Mappable> sourceStream) {
+    return new Mapper(sourceStream, MappingEngine.DEFAULT);
+  }
+
+  /**
+   * Creates a new Mapper instance which maps the elements of a stream using the given engine.
+   *
+   * @param sourceStream Stream&lt;Mappable&gt; object which will be used
+   *                     as source when mapping.
+   * @param engine       MappingEngine which will run the mapping.
+   * @return a new Mapper instance.
+   */
+  public static MapToList getMapperFromStream(Stream<? extends Mappable> sourceStream,
+      MappingEngine engine) {
+    return new Mapper(sourceStream, engine);
   }
 
+  /**
+   * Creates a new Mapper instance which maps the remaining elements of an iterator.
+   * The iterator can be consumed only once, so only one of the mapping methods can be called.
+   *
+   * @param sourceIterator Iterator&lt;Mappable&gt; object which will be used
+   *                       as source when mapping.
+   * @return a new Mapper instance.
+   */
+  public static MapToList getMapperFromIterator(Iterator<? extends Mappable> sourceIterator) {
+    return getMapperFromIterator(sourceIterator, MappingEngine.DEFAULT);
+  }
+
+  /**
+   * Creates a new Mapper instance which maps the remaining elements of an iterator
+   * using the given engine.
+   *
+   * @param sourceIterator Iterator&lt;Mappable&gt; object which will be used
+   *                       as source when mapping.
+   * @param engine         MappingEngine which will run the mapping.
+   * @return a new Mapper instance.
+   */
+  public static MapToList getMapperFromIterator(Iterator<? extends Mappable> sourceIterator,
+      MappingEngine engine) {
+    return new Mapper(asIterable(sourceIterator), engine);
+  }
 
   /**
    * Maps the given source Mappable object
@@ -61,23 +156,171 @@ public class Mapper implements MapTo, MapToList {
    */
   @Override
   public <T extends Mappable> T mapTo(Class<T> resultType) throws ResultTypeInstantiationException {
-    return MapperUtil.map(source, resultType);
+    return MapperUtil.map(source, resultType, engine);
   }
 
   @Override
   public <T extends Mappable> T mapTo(Supplier<T> supplier) {
-    return MapperUtil.map(source, supplier);
+    return MapperUtil.map(source, supplier, engine);
+  }
+
+  /**
+   * Maps the given source Mappable object to the given existing object,
+   * e.g. one which is reused for every message or taken from an ObjectPool.
+   *
+   * @param target the object which will be written.
+   * @param <T>    Target type which implements Mappable
+   * @return the given target object.
+   */
+  @Override
+  public <T extends Mappable> T mapInto(T target) {
+    return MapperUtil.map(source, target, engine);
   }
 
   @Override
   public <T extends Mappable> Iterable<T> mapToList(Class<T> resultType)
       throws ResultTypeInstantiationException {
-    return MapperUtil.map(sources, resultType);
+    return MapperUtil.map(sources, resultType, engine);
   }
 
   @Override
   public <T extends Mappable> Iterable<T> mapToList(Supplier<T> supplier) {
-    return MapperUtil.map(sources, supplier);
+    return MapperUtil.map(sources, supplier, engine);
+  }
+
+  /**
+   * Maps every source to the target at the same index of the given list,
+   * without instantiating any object.
+   *
+   * @param targets existing objects, at least as many as the sources.
+   * @param <T>     Target type which implements Mappable
+   * @return the given targets list.
+   */
+  @Override
+  public <T extends Mappable> List<T> mapToList(List<T> targets) {
+    return MapperUtil.map(sources, targets, engine);
+  }
+
+  /**
+   * Maps every source to the target at the same index of the given array,
+   * without instantiating any object.
+   *
+   * @param targets existing objects, at least as many as the sources.
+   * @param <T>     Target type which implements Mappable
+   * @return the given targets array.
+   */
+  @Override
+  public <T extends Mappable> T[] mapToList(T[] targets) {
+    return MapperUtil.map(sources, targets, engine);
+  }
+
+  /**
+   * Maps the sources into a column per matched property of the result type,
+   * e.g. an int[] of every int property, without instantiating any result object.
+   *
+   * @param resultType the type which's properties the columns are made of.
+   * @param <T>        Target type which implements Mappable
+   * @return the columns of the mapped rows.
+   */
+  @Override
+  public <T extends Mappable> ColumnarResult mapToColumns(Class<T> resultType) {
+    return MapperUtil.mapToColumns(sources, resultType);
+  }
+
+  /**
+   * Maps the sources into fixed-layout records of the result type in a direct buffer,
+   * without instantiating any result object.
+   *
+   * @param resultType the type which's layout the records have.
+   * @param <T>        Target type which implements Mappable
+   * @return the records, a record per source.
+   */
+  @Override
+  public <T extends Mappable> OffHeapRecords<T> mapToOffHeap(Class<T> resultType) {
+    return MapperUtil.mapToOffHeap(sources, resultType);
+  }
+
+  @Override
+  public <T extends Mappable> Iterable<T> mapToListParallel(Class<T> resultType)
+      throws ResultTypeInstantiationException {
+    return mapToListParallel(resultType, ParallelOptions.defaults());
+  }
+
+  /**
+   * Maps the source list in parallel to newly instantiated objects of the given resultType.
+   * The list is split into chunks which are mapped on the executor of the options,
+   * lists smaller than the threshold of the options are mapped sequentially.
+   *
+   * @param resultType Target object's class.
+   *                   Result type must have a public no-arg
+   *                   constructor. Otherwise a ResultTypeInstantiationException
+   *                   will be thrown.
+   * @param options    executor, threshold and chunk size of the mapping.
+   * @param <T>        Target type which implements Mappable
+   * @return results in the order of the sources.
+   * @throws ResultTypeInstantiationException throws this when resultType can not be instantiated.
+   */
+  @Override
+  public <T extends Mappable> Iterable<T> mapToListParallel(Class<T> resultType,
+      ParallelOptions options) throws ResultTypeInstantiationException {
+    return ParallelMapperUtil.map(sources, resultType, engine, options);
+  }
+
+  @Override
+  public <T extends Mappable> Iterable<T> mapToListParallel(Supplier<T> supplier) {
+    return mapToListParallel(supplier, ParallelOptions.defaults());
+  }
+
+  /**
+   * Maps the source list in parallel to the objects supplied by supplier.
+   * The supplier is called from the threads of the executor, so it must be thread-safe.
+   *
+   * @param supplier Target type's supplier function.
+   * @param options  executor, threshold and chunk size of the mapping.
+   * @param <T>      Target type which implements Mappable
+   * @return results in the order of the sources.
+   */
+  @Override
+  public <T extends Mappable> Iterable<T> mapToListParallel(Supplier<T> supplier,
+      ParallelOptions options) {
+    return ParallelMapperUtil.map(sources, supplier, engine, options);
+  }
+
+  @Override
+  public <T extends Mappable> Iterable<T> mapToLazyList(Class<T> resultType)
+      throws ResultTypeInstantiationException {
+    return StreamMapperUtil.mapLazily(sources, resultType, engine);
+  }
+
+  @Override
+  public <T extends Mappable> Iterable<T> mapToLazyList(Supplier<T> supplier) {
+    return StreamMapperUtil.mapLazily(sources, supplier, engine);
+  }
+
+  @Override
+  public <T extends Mappable> Stream<T> mapToStream(Class<T> resultType)
+      throws ResultTypeInstantiationException {
+    return StreamMapperUtil.map(getSourceStream(), resultType, engine);
+  }
+
+  @Override
+  public <T extends Mappable> Stream<T> mapToStream(Supplier<T> supplier) {
+    return StreamMapperUtil.map(getSourceStream(), supplier, engine);
+  }
+
+  private static <T> Iterable<T> asIterable(Stream<T> stream) {
+    return stream::iterator;
+  }
+
+  private static <T> Iterable<T> asIterable(Iterator<T> iterator) {
+    return () -> iterator;
+  }
+
+  private Stream<? extends Mappable> getSourceStream() {
+    if (sourceStream != null || sources == null) {
+      return sourceStream;
+    }
+    return StreamSupport.stream(sources.spliterator(), false);
   }
 
 }
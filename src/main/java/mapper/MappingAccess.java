@@ -0,0 +1,28 @@
+package mapper;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import mapper.plan.AccessStrategy;
+
+
+/**
+ * Declares how the fields of the annotated Mappable type are accessed when it is mapped,
+ * e.g. directly for plain structs without getters and setters.
+ * The strategy is resolved once, when the MappingPlan of a type pair is built.
+ * No mapper is generated by GenerateMapper for a type with a strategy other than GETTER_SETTER.
+ */
+@Documented
+@Inherited
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface MappingAccess {
+  /**
+   * The access strategy of the annotated type.
+   */
+  AccessStrategy value();
+}
@@ -0,0 +1,29 @@
+package mapper;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import mapper.plan.NameMatching;
+
+
+/**
+ * Declares how the field names of the annotated Mappable type are matched
+ * to the field names of the type it is mapped from or to,
+ * e.g. RELAXED for row DTOs with snake_case names.
+ * The matching is resolved once, when the MappingPlan of a type pair is built.
+ * No mapper is generated by GenerateMapper for a type with a matching other than EXACT.
+ */
+@Documented
+@Inherited
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface MappingNames {
+  /**
+   * The name matching of the annotated type.
+   */
+  NameMatching value();
+}
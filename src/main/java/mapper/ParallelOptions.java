@@ -0,0 +1,148 @@
+package mapper;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+import mapper.util.VirtualThreads;
+
+
+/**
+ * Options of the parallel list mapping of MapToList.
+ * The source list is split into chunks, which are mapped on the executor.
+ * Lists smaller than the threshold are mapped sequentially on the calling thread.
+ * With a max concurrency, the calling thread waits before submitting a chunk
+ * while that many chunks are running.
+ * Instances are immutable, every with method returns a new instance.
+ */
+public final class ParallelOptions {
+
+  public static final int DEFAULT_THRESHOLD = 2048;
+
+  private static final ParallelOptions defaults =
+      new ParallelOptions(ForkJoinPool.commonPool(), DEFAULT_THRESHOLD, 0, 0);
+
+  private final Executor executor;
+  private final int threshold;
+  private final int chunkSize;
+  private final int maxConcurrency;
+
+  private ParallelOptions(Executor executor, int threshold, int chunkSize, int maxConcurrency) {
+    this.executor = executor;
+    this.threshold = threshold;
+    this.chunkSize = chunkSize;
+    this.maxConcurrency = maxConcurrency;
+  }
+
+  /**
+   * Default options: the common ForkJoinPool, a threshold of DEFAULT_THRESHOLD elements
+   * and chunks sized by the parallelism of the pool.
+   */
+  public static ParallelOptions defaults() {
+    return defaults;
+  }
+
+  /**
+   * Options for suppliers which block, e.g. on I/O: every element is mapped
+   * as a task of its own on a virtual thread (on a bounded pool of platform threads
+   * before JDK 21), with at most maxConcurrency elements mapped at once.
+   *
+   * @param maxConcurrency maximum number of elements mapped at once, must be positive.
+   * @return new options.
+   * @throws IllegalArgumentException when maxConcurrency is not positive.
+   */
+  public static ParallelOptions virtualThreads(int maxConcurrency) {
+    if (maxConcurrency < 1) {
+      throw new IllegalArgumentException("maxConcurrency must be positive");
+    }
+    return defaults.withExecutor(VirtualThreads.executor())
+        .withThreshold(2)
+        .withChunkSize(1)
+        .withMaxConcurrency(maxConcurrency);
+  }
+
+  /**
+   * Returns new options which map the chunks on the given executor.
+   *
+   * @param executor a ForkJoinPool or any other Executor.
+   * @return new options.
+   */
+  public ParallelOptions withExecutor(Executor executor) {
+    if (executor == null) {
+      throw new IllegalArgumentException("executor must not be null");
+    }
+    return new ParallelOptions(executor, threshold, chunkSize, maxConcurrency);
+  }
+
+  /**
+   * Returns new options which map the lists smaller than the given size sequentially.
+   *
+   * @param threshold minimum list size which is mapped in parallel.
+   * @return new options.
+   */
+  public ParallelOptions withThreshold(int threshold) {
+    if (threshold < 0) {
+      throw new IllegalArgumentException("threshold must not be negative");
+    }
+    return new ParallelOptions(executor, threshold, chunkSize, maxConcurrency);
+  }
+
+  /**
+   * Returns new options which split the lists into chunks of the given size.
+   *
+   * @param chunkSize number of elements mapped by a task, 0 to size the chunks
+   *                  by the parallelism of the executor.
+   * @return new options.
+   */
+  public ParallelOptions withChunkSize(int chunkSize) {
+    if (chunkSize < 0) {
+      throw new IllegalArgumentException("chunkSize must not be negative");
+    }
+    return new ParallelOptions(executor, threshold, chunkSize, maxConcurrency);
+  }
+
+  /**
+   * Returns new options which run at most the given number of chunks at once.
+   *
+   * @param maxConcurrency maximum number of chunks running at once, 0 for no limit.
+   * @return new options.
+   */
+  public ParallelOptions withMaxConcurrency(int maxConcurrency) {
+    if (maxConcurrency < 0) {
+      throw new IllegalArgumentException("maxConcurrency must not be negative");
+    }
+    return new ParallelOptions(executor, threshold, chunkSize, maxConcurrency);
+  }
+
+  public Executor getExecutor() {
+    return executor;
+  }
+
+  public int getThreshold() {
+    return threshold;
+  }
+
+  public int getMaxConcurrency() {
+    return maxConcurrency;
+  }
+
+  public int getChunkSize() {
+    return chunkSize;
+  }
+
+  /**
+   * Gets the chunk size which will be used for a list of the given size.
+   *
+   * @param size size of the source list.
+   * @return the configured chunk size, or one which splits the list
+   *         into four chunks per thread of the executor.
+   */
+  public int getChunkSize(int size) {
+    if (chunkSize > 0) {
+      return chunkSize;
+    }
+    int parallelism = executor instanceof ForkJoinPool
+        ? ((ForkJoinPool) executor).getParallelism()
+        : Runtime.getRuntime().availableProcessors();
+    return Math.max(1, (size + parallelism * 4 - 1) / (parallelism * 4));
+  }
+}
@@ -5,7 +5,7 @@ package mapper.exception;
  */
 public class ResultTypeInstantiationException extends Exception {
 
-  private String resultTypeInstantiationExceptionMessage = "Can not "
+  private static final String resultTypeInstantiationExceptionMessage = "Can not "
       + "instantiate a new object of given result type: "
       + "%s. The result type must have a public no-args constructor.";
 
@@ -15,9 +15,7 @@ public class ResultTypeInstantiationException extends Exception {
    * @param resultType The type which couldn't be instantiated.
    */
   public ResultTypeInstantiationException(Class<?> resultType) {
-    String message = String.format(resultTypeInstantiationExceptionMessage,
-        resultType.getTypeName());
-    new ResultTypeInstantiationException(message);
+    super(String.format(resultTypeInstantiationExceptionMessage, resultType.getTypeName()));
   }
 
   /**
@@ -26,9 +24,8 @@ public class ResultTypeInstantiationException extends Exception {
    * @param cause Throwable object, if any, which has caused the exception.
    */
   public ResultTypeInstantiationException(Class<?> resultType, Throwable cause) {
-    String message = String.format(resultTypeInstantiationExceptionMessage,
-        resultType.getTypeName());
-    new ResultTypeInstantiationException(message, cause);
+    super(String.format(resultTypeInstantiationExceptionMessage, resultType.getTypeName()),
+        cause);
   }
 
   public ResultTypeInstantiationException(String message) {
@@ -0,0 +1,151 @@
+package mapper.flow;
+
+import java.time.Duration;
+
+
+/**
+ * Options of the micro-batching of MappingProcessor.
+ * Items are collected into batches of batchSize items; a batch is handed to the executor
+ * when it is full, or maxLatency after its first item was received.
+ * At most maxPendingBatches batches are requested from the upstream publisher
+ * and not yet published at once.
+ * By default, publishing waits while a subscriber has no room for a result,
+ * so upstream items are requested only as fast as the subscribers consume them.
+ * With the opt-in DROP or ERROR overflow policies, a result is waited for up to offerTimeout,
+ * then it is dropped or the processor fails.
+ * Instances are immutable, every with method returns a new instance.
+ */
+public final class FlowOptions {
+
+  /**
+   * What is done when a subscriber's buffer is full.
+   */
+  public enum OverflowPolicy {
+    /**
+     * Publishing waits until the subscriber has room, the offer timeout is not used.
+     * The next items are requested from upstream after the results are published,
+     * so a slow subscriber slows the upstream publisher down.
+     */
+    BLOCK,
+    /**
+     * After the offer timeout, the result is not delivered to that subscriber
+     * and is counted as dropped.
+     */
+    DROP,
+    /**
+     * After the offer timeout, the processor cancels its subscription
+     * and completes exceptionally.
+     */
+    ERROR
+  }
+
+  private static final FlowOptions defaults = new FlowOptions(1, Duration.ofMillis(10), 2,
+      Duration.ofSeconds(1), OverflowPolicy.BLOCK);
+
+  private final int batchSize;
+  private final Duration maxLatency;
+  private final int maxPendingBatches;
+  private final Duration offerTimeout;
+  private final OverflowPolicy overflowPolicy;
+
+  private FlowOptions(int batchSize, Duration maxLatency, int maxPendingBatches,
+      Duration offerTimeout, OverflowPolicy overflowPolicy) {
+    this.batchSize = batchSize;
+    this.maxLatency = maxLatency;
+    this.maxPendingBatches = maxPendingBatches;
+    this.offerTimeout = offerTimeout;
+    this.overflowPolicy = overflowPolicy;
+  }
+
+  /**
+   * Default options: every item is a batch of its own, a max latency of 10 milliseconds,
+   * 2 pending batches, and publishing which waits for a full subscriber.
+   */
+  public static FlowOptions defaults() {
+    return defaults;
+  }
+
+  /**
+   * Returns new options which map the items in batches of the given size.
+   *
+   * @param batchSize number of items mapped at once.
+   * @return new options.
+   */
+  public FlowOptions withBatchSize(int batchSize) {
+    if (batchSize < 1) {
+      throw new IllegalArgumentException("batchSize must be positive");
+    }
+    return new FlowOptions(batchSize, maxLatency, maxPendingBatches, offerTimeout,
+        overflowPolicy);
+  }
+
+  /**
+   * Returns new options which map a batch which is not full
+   * the given time after its first item was received.
+   *
+   * @param maxLatency maximum time an item waits for its batch to be filled.
+   * @return new options.
+   */
+  public FlowOptions withMaxLatency(Duration maxLatency) {
+    if (maxLatency == null || maxLatency.isNegative() || maxLatency.isZero()) {
+      throw new IllegalArgumentException("maxLatency must be positive");
+    }
+    return new FlowOptions(batchSize, maxLatency, maxPendingBatches, offerTimeout,
+        overflowPolicy);
+  }
+
+  /**
+   * Returns new options which request at most the given number of batches
+   * from the upstream publisher before the earlier ones are published.
+   *
+   * @param maxPendingBatches maximum number of batches received and not yet published.
+   * @return new options.
+   */
+  public FlowOptions withMaxPendingBatches(int maxPendingBatches) {
+    if (maxPendingBatches < 1) {
+      throw new IllegalArgumentException("maxPendingBatches must be positive");
+    }
+    return new FlowOptions(batchSize, maxLatency, maxPendingBatches, offerTimeout,
+        overflowPolicy);
+  }
+
+  /**
+   * Returns new options which wait up to the given time for a full subscriber,
+   * then apply the given policy.
+   *
+   * @param offerTimeout   maximum time a result waits for room in a subscriber's buffer,
+   *                       not used by BLOCK.
+   * @param overflowPolicy what is done with a result which did not fit in that time.
+   * @return new options.
+   */
+  public FlowOptions withOverflow(Duration offerTimeout, OverflowPolicy overflowPolicy) {
+    if (offerTimeout == null || offerTimeout.isNegative()) {
+      throw new IllegalArgumentException("offerTimeout must not be negative");
+    }
+    if (overflowPolicy == null) {
+      throw new IllegalArgumentException("overflowPolicy must not be null");
+    }
+    return new FlowOptions(batchSize, maxLatency, maxPendingBatches, offerTimeout,
+        overflowPolicy);
+  }
+
+  public int getBatchSize() {
+    return batchSize;
+  }
+
+  public Duration getMaxLatency() {
+    return maxLatency;
+  }
+
+  public int getMaxPendingBatches() {
+    return maxPendingBatches;
+  }
+
+  public Duration getOfferTimeout() {
+    return offerTimeout;
+  }
+
+  public OverflowPolicy getOverflowPolicy() {
+    return overflowPolicy;
+  }
+}
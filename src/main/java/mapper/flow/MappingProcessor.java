@@ -0,0 +1,261 @@
+package mapper.flow;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import mapper.Mappable;
+import mapper.ParallelOptions;
+import mapper.plan.MappingEngine;
+import mapper.util.ParallelMapperUtil;
+
+
+/**
+ * A Flow.Processor which maps the Mappable items of a publisher
+ * and publishes the results to its subscribers, in the order of the items.
+ *
+ * <p>Items are collected into micro-batches, as configured by FlowOptions.
+ * A batch is handed to the executor of the ParallelOptions when it is full,
+ * when its max latency has elapsed or when the upstream publisher completes,
+ * so items are never mapped on the upstream publisher's thread.
+ * Large batches are split further as configured by the ParallelOptions.
+ *
+ * <p>Backpressure: at most batchSize * maxPendingBatches items are requested
+ * from the upstream publisher and not yet published; the demand is renewed
+ * as the results are published. By default publishing waits while a subscriber's buffer
+ * is full, so the upstream demand follows the demand of the subscribers.
+ * With the opt-in DROP or ERROR overflow policies, a result which a subscriber has no room for
+ * is waited for up to the offer timeout, then it is dropped or the processor fails.
+ *
+ * <p>When a mapping fails, the processor cancels its subscription
+ * and completes exceptionally; batches which are still pending are not published.
+ *
+ * @param <SourceT> source object's type.
+ * @param <ResultT> result object's type.
+ */
+public class MappingProcessor<SourceT extends Mappable, ResultT extends Mappable>
+    extends SubmissionPublisher<ResultT> implements Flow.Processor<SourceT, ResultT> {
+
+  private final Supplier<ResultT> supplier;
+  private final MappingEngine engine;
+  private final ParallelOptions options;
+  private final FlowOptions flowOptions;
+  private final Executor latencyExecutor;
+
+  private final LongAdder receivedCount = new LongAdder();
+  private final LongAdder publishedCount = new LongAdder();
+  private final LongAdder droppedCount = new LongAdder();
+  private final LongAdder batchCount = new LongAdder();
+
+  private final Object lock = new Object();
+  private volatile Flow.Subscription subscription;
+  private List<SourceT> batch;
+  private long batchGeneration;
+  private CompletableFuture<Void> publishing = CompletableFuture.completedFuture(null);
+
+  /**
+   * Creates a processor which maps every item as a batch of its own,
+   * on the common ForkJoinPool.
+   *
+   * @param supplier Target type's supplier function.
+   */
+  public MappingProcessor(Supplier<ResultT> supplier) {
+    this(supplier, MappingEngine.DEFAULT, ParallelOptions.defaults(), FlowOptions.defaults());
+  }
+
+  /**
+   * Creates a processor which maps the items in batches of the given size,
+   * with the other FlowOptions defaults.
+   *
+   * @param supplier  Target type's supplier function, called from the executor's threads.
+   * @param engine    the engine which will run the mapping plans.
+   * @param batchSize number of items mapped at once.
+   * @param options   executor, threshold and chunk size of the batch mapping.
+   */
+  public MappingProcessor(Supplier<ResultT> supplier, MappingEngine engine, int batchSize,
+      ParallelOptions options) {
+    this(supplier, engine, options, FlowOptions.defaults().withBatchSize(batchSize));
+  }
+
+  /**
+   * Creates a processor which maps the items in batches as the flow options say.
+   * Batches are mapped and results are published on the executor of the options.
+   *
+   * @param supplier    Target type's supplier function, called from the executor's threads.
+   * @param engine      the engine which will run the mapping plans.
+   * @param options     executor, threshold and chunk size of the batch mapping.
+   * @param flowOptions batch size, max latency, pending batches and overflow policy.
+   */
+  public MappingProcessor(Supplier<ResultT> supplier, MappingEngine engine,
+      ParallelOptions options, FlowOptions flowOptions) {
+    super(options.getExecutor(), Flow.defaultBufferSize());
+    this.supplier = supplier;
+    this.engine = engine;
+    this.options = options;
+    this.flowOptions = flowOptions;
+    this.latencyExecutor = CompletableFuture.delayedExecutor(
+        flowOptions.getMaxLatency().toNanos(), TimeUnit.NANOSECONDS, options.getExecutor());
+    this.batch = new ArrayList<>(flowOptions.getBatchSize());
+  }
+
+  @Override
+  public void onSubscribe(Flow.Subscription subscription) {
+    if (this.subscription != null) {
+      subscription.cancel();
+      return;
+    }
+    this.subscription = subscription;
+    subscription.request((long) flowOptions.getBatchSize() * flowOptions.getMaxPendingBatches());
+  }
+
+  @Override
+  public void onNext(SourceT item) {
+    receivedCount.increment();
+    synchronized (lock) {
+      batch.add(item);
+      if (batch.size() >= flowOptions.getBatchSize()) {
+        flush();
+      } else if (batch.size() == 1) {
+        final long generation = batchGeneration;
+        latencyExecutor.execute(() -> flushIfPending(generation));
+      }
+    }
+  }
+
+  @Override
+  public void onError(Throwable throwable) {
+    synchronized (lock) {
+      flush();
+      publishing.thenRun(() -> closeExceptionally(throwable));
+    }
+  }
+
+  @Override
+  public void onComplete() {
+    synchronized (lock) {
+      flush();
+      publishing.thenRun(this::close);
+    }
+  }
+
+  public long getReceivedCount() {
+    return receivedCount.sum();
+  }
+
+  public long getPublishedCount() {
+    return publishedCount.sum();
+  }
+
+  /**
+   * Gets the number of results which were not delivered to a subscriber
+   * by the DROP overflow policy, counted once per subscriber.
+   */
+  public long getDroppedCount() {
+    return droppedCount.sum();
+  }
+
+  public long getBatchCount() {
+    return batchCount.sum();
+  }
+
+  private void flushIfPending(long generation) {
+    synchronized (lock) {
+      if (generation == batchGeneration) {
+        flush();
+      }
+    }
+  }
+
+  /**
+   * Hands the collected batch to the executor, and chains its publishing
+   * after the publishing of the batches before it. Called holding the lock.
+   */
+  private void flush() {
+    if (batch.isEmpty()) {
+      return;
+    }
+    final List<SourceT> items = batch;
+    batch = new ArrayList<>(flowOptions.getBatchSize());
+    batchGeneration++;
+    if (isClosed()) {
+      return;
+    }
+    CompletableFuture<Iterable<ResultT>> mapped;
+    try {
+      mapped = CompletableFuture.supplyAsync(
+          () -> ParallelMapperUtil.map(items, supplier, engine, options), options.getExecutor());
+    } catch (RuntimeException e) {
+      mapped = CompletableFuture.failedFuture(e);
+    }
+    final CompletableFuture<Iterable<ResultT>> results = mapped;
+    publishing = publishing.thenCompose(ignored -> results)
+        .thenAcceptAsync(resultList -> publishAll(resultList, items.size()),
+            options.getExecutor())
+        .exceptionally(throwable -> {
+          fail(throwable);
+          return null;
+        });
+  }
+
+  private void publishAll(Iterable<ResultT> results, int count) {
+    for (ResultT result : results) {
+      publish(result);
+    }
+    batchCount.increment();
+    if (!isClosed()) {
+      subscription.request(count);
+    }
+  }
+
+  /**
+   * Submits or offers the result to the subscribers, as the overflow policy says.
+   * It is a no-op once the processor is closed.
+   */
+  private void publish(ResultT result) {
+    if (isClosed()) {
+      return;
+    }
+    int lag;
+    try {
+      if (flowOptions.getOverflowPolicy() == FlowOptions.OverflowPolicy.BLOCK) {
+        submit(result);
+        publishedCount.increment();
+        return;
+      }
+      lag = offer(result, flowOptions.getOfferTimeout().toNanos(), TimeUnit.NANOSECONDS,
+          (subscriber, item) -> false);
+    } catch (IllegalStateException e) {
+      if (isClosed()) {
+        return;
+      }
+      throw e;
+    }
+    if (lag < 0) {
+      if (flowOptions.getOverflowPolicy() == FlowOptions.OverflowPolicy.ERROR) {
+        fail(new IllegalStateException("A subscriber did not take a result for "
+            + flowOptions.getOfferTimeout() + "."));
+        return;
+      }
+      droppedCount.add(-lag);
+    }
+    publishedCount.increment();
+  }
+
+  private void fail(Throwable throwable) {
+    Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null
+        ? throwable.getCause()
+        : throwable;
+    Flow.Subscription subscription = this.subscription;
+    if (subscription != null) {
+      subscription.cancel();
+    }
+    closeExceptionally(cause);
+  }
+}
@@ -0,0 +1,71 @@
+package mapper.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+
+/**
+ * Keeps the metrics of every type pair in memory.
+ * The counters of a type pair are created on its first mapping,
+ * later mappings only add to LongAdders.
+ */
+public class InMemoryMappingMetrics implements MappingMetrics {
+
+  private final Map<Class<?>, Map<Class<?>, TypePairMetrics>> metrics =
+      new ConcurrentHashMap<>();
+
+  @Override
+  public void recordMapping(Class<?> sourceType, Class<?> resultType, long nanos,
+      int fieldsCopied, int fieldsSkipped, int fieldsFailed) {
+    getOrCreate(sourceType, resultType).recordMapping(nanos, fieldsCopied, fieldsSkipped,
+        fieldsFailed);
+  }
+
+  @Override
+  public void recordInstantiationFailure(Class<?> sourceType, Class<?> resultType) {
+    getOrCreate(sourceType, resultType).recordInstantiationFailure();
+  }
+
+  /**
+   * Gets the metrics of the given type pair.
+   *
+   * @param sourceType type of the source objects.
+   * @param resultType type of the result objects.
+   * @return the metrics, or null if the type pair has not been recorded yet.
+   */
+  public TypePairMetrics get(Class<?> sourceType, Class<?> resultType) {
+    Map<Class<?>, TypePairMetrics> resultMetrics = metrics.get(sourceType);
+    return resultMetrics == null ? null : resultMetrics.get(resultType);
+  }
+
+  /**
+   * Gets the metrics of every recorded type pair.
+   */
+  public List<TypePairMetrics> getAll() {
+    List<TypePairMetrics> all = new ArrayList<>();
+    for (Map<Class<?>, TypePairMetrics> resultMetrics : metrics.values()) {
+      all.addAll(resultMetrics.values());
+    }
+    return all;
+  }
+
+  /**
+   * Resets the counters of every type pair to zero.
+   */
+  public void reset() {
+    for (TypePairMetrics typePairMetrics : getAll()) {
+      typePairMetrics.reset();
+    }
+  }
+
+  private TypePairMetrics getOrCreate(Class<?> sourceType, Class<?> resultType) {
+    TypePairMetrics typePairMetrics = get(sourceType, resultType);
+    if (typePairMetrics == null) {
+      typePairMetrics = metrics.computeIfAbsent(sourceType, type -> new ConcurrentHashMap<>())
+          .computeIfAbsent(resultType, type -> new TypePairMetrics(sourceType, type));
+    }
+    return typePairMetrics;
+  }
+}
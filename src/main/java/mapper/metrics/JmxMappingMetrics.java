@@ -0,0 +1,122 @@
+package mapper.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+
+/**
+ * Exposes an InMemoryMappingMetrics as a JMX MBean,
+ * named mapper:type=MappingMetrics in the platform MBean server.
+ * Totals are summed over the type pairs when they are read.
+ */
+public class JmxMappingMetrics implements JmxMappingMetricsMBean {
+
+  public static final String OBJECT_NAME = "mapper:type=MappingMetrics";
+
+  private final InMemoryMappingMetrics metrics;
+
+  public JmxMappingMetrics(InMemoryMappingMetrics metrics) {
+    this.metrics = metrics;
+  }
+
+  /**
+   * Registers the given metrics to the platform MBean server,
+   * replacing the metrics registered before, if any.
+   *
+   * @param metrics the metrics which will be exposed.
+   * @return the registered MBean.
+   * @throws JMException throws this when the MBean can not be registered.
+   */
+  public static JmxMappingMetrics register(InMemoryMappingMetrics metrics) throws JMException {
+    JmxMappingMetrics mbean = new JmxMappingMetrics(metrics);
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    ObjectName name = new ObjectName(OBJECT_NAME);
+    if (server.isRegistered(name)) {
+      server.unregisterMBean(name);
+    }
+    server.registerMBean(mbean, name);
+    return mbean;
+  }
+
+  /**
+   * Removes the registered metrics from the platform MBean server, if any.
+   *
+   * @throws JMException throws this when the MBean can not be unregistered.
+   */
+  public static void unregister() throws JMException {
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    ObjectName name = new ObjectName(OBJECT_NAME);
+    if (server.isRegistered(name)) {
+      server.unregisterMBean(name);
+    }
+  }
+
+  @Override
+  public long getMappingCount() {
+    long count = 0;
+    for (TypePairMetrics typePairMetrics : metrics.getAll()) {
+      count += typePairMetrics.getMappingCount();
+    }
+    return count;
+  }
+
+  @Override
+  public long getFieldsCopied() {
+    long count = 0;
+    for (TypePairMetrics typePairMetrics : metrics.getAll()) {
+      count += typePairMetrics.getFieldsCopied();
+    }
+    return count;
+  }
+
+  @Override
+  public long getFieldsSkipped() {
+    long count = 0;
+    for (TypePairMetrics typePairMetrics : metrics.getAll()) {
+      count += typePairMetrics.getFieldsSkipped();
+    }
+    return count;
+  }
+
+  @Override
+  public long getFieldsFailed() {
+    long count = 0;
+    for (TypePairMetrics typePairMetrics : metrics.getAll()) {
+      count += typePairMetrics.getFieldsFailed();
+    }
+    return count;
+  }
+
+  @Override
+  public long getInstantiationFailures() {
+    long count = 0;
+    for (TypePairMetrics typePairMetrics : metrics.getAll()) {
+      count += typePairMetrics.getInstantiationFailures();
+    }
+    return count;
+  }
+
+  @Override
+  public int getTypePairCount() {
+    return metrics.getAll().size();
+  }
+
+  @Override
+  public String[] getTypePairs() {
+    List<TypePairMetrics> all = metrics.getAll();
+    String[] typePairs = new String[all.size()];
+    for (int i = 0; i < typePairs.length; i++) {
+      typePairs[i] = all.get(i).toString();
+    }
+    return typePairs;
+  }
+
+  @Override
+  public void reset() {
+    metrics.reset();
+  }
+}
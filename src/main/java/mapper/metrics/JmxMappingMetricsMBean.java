@@ -0,0 +1,26 @@
+package mapper.metrics;
+
+/**
+ * Management interface of JmxMappingMetrics.
+ */
+public interface JmxMappingMetricsMBean {
+
+  long getMappingCount();
+
+  long getFieldsCopied();
+
+  long getFieldsSkipped();
+
+  long getFieldsFailed();
+
+  long getInstantiationFailures();
+
+  int getTypePairCount();
+
+  /**
+   * Gets a line of counters per type pair.
+   */
+  String[] getTypePairs();
+
+  void reset();
+}
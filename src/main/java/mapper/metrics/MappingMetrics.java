@@ -0,0 +1,33 @@
+package mapper.metrics;
+
+/**
+ * Receives the measurements of the mappings, per source/result type pair.
+ * Implementations are called from the mapping threads, so they must be thread-safe
+ * and should not block.
+ * Metrics are recorded only while an implementation is set to MappingMetricsRegistry.
+ */
+public interface MappingMetrics {
+
+  /**
+   * Records an object which is mapped.
+   *
+   * @param sourceType    type of the source object.
+   * @param resultType    type of the result object.
+   * @param nanos         time spent copying the fields, in nanoseconds.
+   * @param fieldsCopied  number of the fields which are copied.
+   * @param fieldsSkipped number of the matched fields which are not copied
+   *                      because of a missing getter or setter.
+   * @param fieldsFailed  number of the fields which are not copied
+   *                      because their getter, setter or conversion threw an exception.
+   */
+  void recordMapping(Class<?> sourceType, Class<?> resultType, long nanos,
+      int fieldsCopied, int fieldsSkipped, int fieldsFailed);
+
+  /**
+   * Records a result object which could not be instantiated.
+   *
+   * @param sourceType type of the source object.
+   * @param resultType type of the result object.
+   */
+  void recordInstantiationFailure(Class<?> sourceType, Class<?> resultType);
+}
@@ -0,0 +1,43 @@
+package mapper.metrics;
+
+/**
+ * Holds the MappingMetrics which the mappings are recorded to.
+ * Metrics are disabled by default; then the mapping path only reads
+ * a null field and does not measure anything.
+ */
+public final class MappingMetricsRegistry {
+
+  private static volatile MappingMetrics metrics;
+
+  private MappingMetricsRegistry() {
+  }
+
+  /**
+   * Records the mappings to the given metrics from now on.
+   *
+   * @param metrics the metrics, null to disable recording.
+   */
+  public static void set(MappingMetrics metrics) {
+    MappingMetricsRegistry.metrics = metrics;
+  }
+
+  /**
+   * Stops recording the mappings.
+   */
+  public static void disable() {
+    metrics = null;
+  }
+
+  /**
+   * Gets the metrics which the mappings are recorded to.
+   *
+   * @return the metrics, or null if recording is disabled.
+   */
+  public static MappingMetrics get() {
+    return metrics;
+  }
+
+  public static boolean isEnabled() {
+    return metrics != null;
+  }
+}
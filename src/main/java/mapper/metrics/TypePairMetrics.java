@@ -0,0 +1,153 @@
+package mapper.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * Counters of the mappings of a source/result type pair.
+ * Latencies are counted in buckets of powers of two nanoseconds,
+ * bucket i counts the mappings which took less than 2^i nanoseconds.
+ * All counters are LongAdders, so recording does not lock or contend.
+ */
+public final class TypePairMetrics {
+
+  public static final int LATENCY_BUCKET_COUNT = 40;
+
+  private final Class<?> sourceType;
+  private final Class<?> resultType;
+  private final LongAdder mappingCount = new LongAdder();
+  private final LongAdder totalNanos = new LongAdder();
+  private final LongAdder fieldsCopied = new LongAdder();
+  private final LongAdder fieldsSkipped = new LongAdder();
+  private final LongAdder fieldsFailed = new LongAdder();
+  private final LongAdder instantiationFailures = new LongAdder();
+  private final LongAdder[] latencyBuckets = new LongAdder[LATENCY_BUCKET_COUNT];
+
+  TypePairMetrics(Class<?> sourceType, Class<?> resultType) {
+    this.sourceType = sourceType;
+    this.resultType = resultType;
+    for (int i = 0; i < LATENCY_BUCKET_COUNT; i++) {
+      latencyBuckets[i] = new LongAdder();
+    }
+  }
+
+  void recordMapping(long nanos, int copied, int skipped, int failed) {
+    mappingCount.increment();
+    totalNanos.add(nanos);
+    fieldsCopied.add(copied);
+    fieldsSkipped.add(skipped);
+    if (failed != 0) {
+      fieldsFailed.add(failed);
+    }
+    int bucket = 64 - Long.numberOfLeadingZeros(Math.max(nanos, 0L));
+    latencyBuckets[Math.min(bucket, LATENCY_BUCKET_COUNT - 1)].increment();
+  }
+
+  void recordInstantiationFailure() {
+    instantiationFailures.increment();
+  }
+
+  void reset() {
+    mappingCount.reset();
+    totalNanos.reset();
+    fieldsCopied.reset();
+    fieldsSkipped.reset();
+    fieldsFailed.reset();
+    instantiationFailures.reset();
+    for (LongAdder latencyBucket : latencyBuckets) {
+      latencyBucket.reset();
+    }
+  }
+
+  public Class<?> getSourceType() {
+    return sourceType;
+  }
+
+  public Class<?> getResultType() {
+    return resultType;
+  }
+
+  public long getMappingCount() {
+    return mappingCount.sum();
+  }
+
+  public long getTotalNanos() {
+    return totalNanos.sum();
+  }
+
+  /**
+   * Average time spent mapping an object.
+   *
+   * @return the mean latency in nanoseconds, 0.0 if nothing is mapped yet.
+   */
+  public double getMeanNanos() {
+    long count = getMappingCount();
+    return count == 0 ? 0.0 : (double) getTotalNanos() / count;
+  }
+
+  public long getFieldsCopied() {
+    return fieldsCopied.sum();
+  }
+
+  public long getFieldsSkipped() {
+    return fieldsSkipped.sum();
+  }
+
+  public long getFieldsFailed() {
+    return fieldsFailed.sum();
+  }
+
+  public long getInstantiationFailures() {
+    return instantiationFailures.sum();
+  }
+
+  /**
+   * Gets the number of the mappings in every latency bucket.
+   *
+   * @return an array of LATENCY_BUCKET_COUNT counts, element i counts the mappings
+   *         which took less than 2^i nanoseconds (and at least 2^(i-1)).
+   */
+  public long[] getLatencyHistogram() {
+    long[] histogram = new long[LATENCY_BUCKET_COUNT];
+    for (int i = 0; i < LATENCY_BUCKET_COUNT; i++) {
+      histogram[i] = latencyBuckets[i].sum();
+    }
+    return histogram;
+  }
+
+  /**
+   * Gets an upper bound of the given latency percentile.
+   *
+   * @param percentile a value between 0.0 and 100.0, e.g. 99.0.
+   * @return the upper bound of the latency bucket which contains the percentile,
+   *         in nanoseconds, 0 if nothing is mapped yet.
+   */
+  public long getLatencyPercentile(double percentile) {
+    long[] histogram = getLatencyHistogram();
+    long count = 0;
+    for (long bucketCount : histogram) {
+      count += bucketCount;
+    }
+    long rank = (long) Math.ceil(count * percentile / 100.0);
+    long seen = 0;
+    for (int i = 0; i < LATENCY_BUCKET_COUNT; i++) {
+      seen += histogram[i];
+      if (seen > 0 && seen >= rank) {
+        return 1L << i;
+      }
+    }
+    return 0;
+  }
+
+  @Override
+  public String toString() {
+    return sourceType.getName() + " -> " + resultType.getName()
+        + ": mappingCount=" + getMappingCount()
+        + ", meanNanos=" + Math.round(getMeanNanos())
+        + ", p99Nanos=" + getLatencyPercentile(99.0)
+        + ", fieldsCopied=" + getFieldsCopied()
+        + ", fieldsSkipped=" + getFieldsSkipped()
+        + ", fieldsFailed=" + getFieldsFailed()
+        + ", instantiationFailures=" + getInstantiationFailures();
+  }
+}
@@ -0,0 +1,319 @@
+package mapper.offheap;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import mapper.Mappable;
+import mapper.exception.ResultTypeInstantiationException;
+import mapper.plan.MappingPlan;
+import mapper.plan.MappingPlanCache;
+import mapper.plan.PropertyMapping;
+import mapper.util.Instantiator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * A batch of fixed-layout records of a Mappable type, stored in a ByteBuffer,
+ * usually a direct one so the records are off the heap and not scanned by the GC.
+ * Sources are mapped straight into the records by the MappingPlan of the source
+ * and the record type: every property the plan writes which is part of the
+ * RecordLayout of the record type is read by its value handle and put into its slot,
+ * so no result object is created per record.
+ * Records are read back through RecordView flyweights, or copied into heap objects.
+ * Adding records is not thread-safe.
+ */
+public final class OffHeapRecords<T extends Mappable> {
+
+  private static final Logger logger = LoggerFactory.getLogger(OffHeapRecords.class);
+
+  private static final MethodType objectValueType =
+      MethodType.methodType(Object.class, Object.class);
+
+  private final Class<T> type;
+  private final RecordLayout layout;
+  private final ByteBuffer buffer;
+  private final int capacity;
+  private int size;
+  private final Map<Class<?>, MethodHandle[]> handlesByType = new IdentityHashMap<>();
+  private Class<?> lastSourceType;
+  private MethodHandle[] lastHandles;
+
+  private OffHeapRecords(Class<T> type, ByteBuffer buffer, int size) {
+    this.type = type;
+    this.layout = RecordLayout.of(type);
+    this.buffer = buffer.slice().order(buffer.order());
+    this.capacity = this.buffer.capacity() / layout.getRecordSize();
+    if (size < 0 || size > capacity) {
+      throw new IllegalArgumentException(
+          "The buffer can not hold " + size + " records of " + type.getName() + ".");
+    }
+    this.size = size;
+  }
+
+  /**
+   * Allocates a direct buffer for the given number of records, in native byte order.
+   *
+   * @param type     the type which's layout the records have.
+   * @param capacity maximum number of records.
+   * @param <T>      type of the records.
+   * @return new empty records.
+   */
+  public static <T extends Mappable> OffHeapRecords<T> allocate(Class<T> type, int capacity) {
+    long bytes = (long) capacity * RecordLayout.of(type).getRecordSize();
+    if (bytes > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException(capacity + " records of " + type.getName()
+          + " do not fit into a single buffer.");
+    }
+    return new OffHeapRecords<>(type,
+        ByteBuffer.allocateDirect((int) bytes).order(ByteOrder.nativeOrder()), 0);
+  }
+
+  /**
+   * Uses the given buffer, from its position to its limit, as the storage of the records,
+   * e.g. a MappedByteBuffer of a file. The buffer is not copied.
+   *
+   * @param type   the type which's layout the records have.
+   * @param buffer the buffer holding the records, in the byte order they were written in.
+   * @param size   number of records already in the buffer.
+   * @param <T>    type of the records.
+   * @return records backed by the buffer.
+   */
+  public static <T extends Mappable> OffHeapRecords<T> wrap(Class<T> type, ByteBuffer buffer,
+      int size) {
+    return new OffHeapRecords<>(type, buffer, size);
+  }
+
+  public Class<T> getType() {
+    return type;
+  }
+
+  public RecordLayout getLayout() {
+    return layout;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public int capacity() {
+    return capacity;
+  }
+
+  /**
+   * Gets a view of the bytes of the records, from the first record to the last added one.
+   *
+   * @return a new buffer sharing the storage of the records.
+   */
+  public ByteBuffer getBuffer() {
+    ByteBuffer duplicate = buffer.duplicate().order(buffer.order());
+    duplicate.limit(size * layout.getRecordSize());
+    return duplicate;
+  }
+
+  /**
+   * Maps the given source into a new record after the last one.
+   *
+   * @param source the object which's fields will be taken as map source.
+   * @return index of the new record.
+   * @throws IllegalStateException when the records are at capacity.
+   */
+  public int add(Mappable source) {
+    if (size == capacity) {
+      throw new IllegalStateException("There is not room for more than " + capacity
+          + " records of " + type.getName() + ".");
+    }
+    write(size, source);
+    return size++;
+  }
+
+  /**
+   * Maps every given source into a new record.
+   *
+   * @param sources the objects which's fields will be taken as map source.
+   * @return number of the added records.
+   * @throws IllegalStateException when the records are at capacity.
+   */
+  public int addAll(Iterable<? extends Mappable> sources) {
+    int added = 0;
+    for (Mappable source : sources) {
+      add(source);
+      added++;
+    }
+    return added;
+  }
+
+  /**
+   * Maps the given source into the record at the given index, replacing it.
+   *
+   * @param index  index of an added record.
+   * @param source the object which's fields will be taken as map source.
+   */
+  public void set(int index, Mappable source) {
+    checkIndex(index);
+    write(index, source);
+  }
+
+  /**
+   * Removes all records; the storage is reused by the next records.
+   */
+  public void clear() {
+    size = 0;
+  }
+
+  /**
+   * Creates a flyweight view of the records, which can be moved to any of them.
+   *
+   * @return a new view, not on any record yet.
+   */
+  public RecordView view() {
+    return new RecordView(this, buffer);
+  }
+
+  /**
+   * Copies the record at the given index into a new heap object.
+   *
+   * @param index index of an added record.
+   * @return a new object of the record type.
+   * @throws ResultTypeInstantiationException throws this when can't instantiate a new object.
+   */
+  public T get(int index) throws ResultTypeInstantiationException {
+    return get(index, Instantiator.of(type).newInstance());
+  }
+
+  /**
+   * Copies the record at the given index into the given object.
+   * Fields which are not part of the layout are not written.
+   *
+   * @param index  index of an added record.
+   * @param target the object which's fields will be written.
+   * @return the given target.
+   */
+  public T get(int index, T target) {
+    checkIndex(index);
+    view().moveTo(index).copyTo(target);
+    return target;
+  }
+
+  private void checkIndex(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+    }
+  }
+
+  private void write(int index, Mappable source) {
+    int base = index * layout.getRecordSize();
+    for (int i = 0; i < layout.getRecordSize(); i += 8) {
+      buffer.putLong(base + i, 0L);
+    }
+    if (source == null) {
+      return;
+    }
+    MethodHandle[] handles = handles(source.getClass());
+    try {
+      for (int i = 0; i < handles.length; i++) {
+        if (handles[i] != null) {
+          writeField(base, i, handles[i], source);
+        }
+      }
+    } catch (RuntimeException | Error exception) {
+      throw exception;
+    } catch (Throwable throwable) {
+      throw new IllegalStateException(throwable);
+    }
+  }
+
+  private void writeField(int base, int field, MethodHandle handle, Object source)
+      throws Throwable {
+    int offset = base + layout.getOffset(field);
+    Class<?> primitiveType = layout.getPrimitiveType(field);
+    if (layout.isNullable(field)) {
+      Object value = (Object) handle.invokeExact(source);
+      if (value == null) {
+        return;
+      }
+      int nullBit = layout.getNullBit(field);
+      int bitmapIndex = base + layout.getNullBitmapOffset() + nullBit / 8;
+      buffer.put(bitmapIndex, (byte) (buffer.get(bitmapIndex) | (1 << (nullBit % 8))));
+      putBoxed(offset, primitiveType, value);
+    } else if (primitiveType == int.class) {
+      buffer.putInt(offset, (int) handle.invokeExact(source));
+    } else if (primitiveType == long.class) {
+      buffer.putLong(offset, (long) handle.invokeExact(source));
+    } else if (primitiveType == double.class) {
+      buffer.putDouble(offset, (double) handle.invokeExact(source));
+    } else if (primitiveType == float.class) {
+      buffer.putFloat(offset, (float) handle.invokeExact(source));
+    } else if (primitiveType == boolean.class) {
+      buffer.put(offset, (boolean) handle.invokeExact(source) ? (byte) 1 : (byte) 0);
+    } else if (primitiveType == char.class) {
+      buffer.putChar(offset, (char) handle.invokeExact(source));
+    } else if (primitiveType == short.class) {
+      buffer.putShort(offset, (short) handle.invokeExact(source));
+    } else {
+      buffer.put(offset, (byte) handle.invokeExact(source));
+    }
+  }
+
+  private void putBoxed(int offset, Class<?> primitiveType, Object value) {
+    if (primitiveType == int.class) {
+      buffer.putInt(offset, (Integer) value);
+    } else if (primitiveType == long.class) {
+      buffer.putLong(offset, (Long) value);
+    } else if (primitiveType == double.class) {
+      buffer.putDouble(offset, (Double) value);
+    } else if (primitiveType == float.class) {
+      buffer.putFloat(offset, (Float) value);
+    } else if (primitiveType == boolean.class) {
+      buffer.put(offset, (Boolean) value ? (byte) 1 : (byte) 0);
+    } else if (primitiveType == char.class) {
+      buffer.putChar(offset, (Character) value);
+    } else if (primitiveType == short.class) {
+      buffer.putShort(offset, (Short) value);
+    } else {
+      buffer.put(offset, (Byte) value);
+    }
+  }
+
+  /**
+   * Gets the value handles of the given source class, aligned to the fields of the layout.
+   * The handles of the last class are checked first.
+   */
+  private MethodHandle[] handles(Class<?> sourceType) {
+    if (sourceType == lastSourceType) {
+      return lastHandles;
+    }
+    MethodHandle[] handles = handlesByType.get(sourceType);
+    if (handles == null) {
+      MappingPlan plan = MappingPlanCache.getPlan(sourceType, type);
+      handles = new MethodHandle[layout.getFieldCount()];
+      for (PropertyMapping propertyMapping : plan.getPropertyMappings()) {
+        int field = layout.indexOf(propertyMapping.getResultName());
+        if (field < 0) {
+          continue;
+        }
+        try {
+          MethodHandle handle = propertyMapping.getValueHandle();
+          handles[field] = layout.isNullable(field) ? handle.asType(objectValueType) : handle;
+        } catch (IllegalAccessException e) {
+          logger.debug("Field '{}' can not be accessed directly. {}",
+              propertyMapping.getName(), e);
+        }
+      }
+      handlesByType.put(sourceType, handles);
+    }
+    lastSourceType = sourceType;
+    lastHandles = handles;
+    return handles;
+  }
+
+  @Override
+  public String toString() {
+    return "OffHeapRecords{" + type.getName() + ", " + size + "/" + capacity + " records of "
+        + layout.getRecordSize() + " bytes}";
+  }
+}
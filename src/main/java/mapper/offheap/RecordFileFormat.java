@@ -0,0 +1,279 @@
+package mapper.offheap;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import mapper.util.ClassMetadata;
+
+
+/**
+ * The binary format of the files of RecordFileWriter and RecordFileReader.
+ * A file starts with a header which describes its schema, followed by the records:
+ * <pre>
+ * header:  int magic, short version, byte byte order (1 little endian), byte 0,
+ *          long record count, int header length,
+ *          type name, int fixed record size, short field count,
+ *          (name, byte primitive type, byte nullable, int offset) per field,
+ *          short string field count, name per string field,
+ *          padding to a multiple of 8
+ * record:  int length of the rest of the record, int 0,
+ *          the fixed part laid out by the RecordLayout of the type,
+ *          (int byte count or -1 for null, UTF-8 bytes) per string field,
+ *          padding to a multiple of 8
+ * </pre>
+ * Names are written as a short byte count and UTF-8 bytes. The header is big endian,
+ * the records are in the byte order of the header, the native order of the writer.
+ * A file is read only by the type which's schema is the same as the file's.
+ */
+final class RecordFileFormat {
+
+  static final int magic = 0x4D415052;
+  static final short version = 1;
+  static final int recordCountOffset = 8;
+  static final int headerLengthOffset = 16;
+  static final int fixedHeaderLength = 20;
+  static final int recordPrefixLength = 8;
+
+  private static final List<Class<?>> primitiveTypes = Arrays.asList(boolean.class, byte.class,
+      char.class, short.class, int.class, float.class, long.class, double.class);
+
+  private RecordFileFormat() {
+  }
+
+  /**
+   * Gets the non-static String fields of the given type, which are stored after the fixed part.
+   */
+  static List<Field> stringFields(Class<?> type) {
+    List<Field> stringFields = new ArrayList<>();
+    for (Field field : ClassMetadata.of(type).getFields()) {
+      if (field.getType() == String.class && !Modifier.isStatic(field.getModifiers())) {
+        stringFields.add(field);
+      }
+    }
+    return stringFields;
+  }
+
+  /**
+   * Checks that every non-static field of the given type is stored in the records,
+   * as a primitive or primitive wrapper in the fixed part, or as a String.
+   *
+   * @throws IllegalArgumentException naming the first field which would not be stored.
+   */
+  static void checkStorable(Class<?> type) {
+    for (Field field : ClassMetadata.of(type).getFields()) {
+      if (!Modifier.isStatic(field.getModifiers()) && field.getType() != String.class
+          && RecordLayout.primitiveType(field.getType()) == null) {
+        throw new IllegalArgumentException("Field '" + field.getName() + "' of "
+            + type.getName() + " can not be stored in a record file, its type "
+            + field.getType().getName() + " is not a primitive, a primitive wrapper or String.");
+      }
+    }
+  }
+
+  /**
+   * Scans the records of the given file of the given type from the end of its header,
+   * up to the last record which is complete: its length covers the fixed part
+   * and the string fields, and it ends within the file.
+   * Bytes after that record are left by a writer which did not finish a record.
+   *
+   * @return the end of the last complete record, and the number of the complete records.
+   * @throws IOException when the file can not be read.
+   */
+  static RecordScan scan(FileChannel channel, ByteBuffer header, Class<?> type)
+      throws IOException {
+    final int recordSize = RecordLayout.of(type).getRecordSize();
+    final int stringCount = stringFields(type).size();
+    final long fileSize = channel.size();
+    long position = header.capacity();
+    long count = 0;
+    ByteBuffer buffer = ByteBuffer.allocate(1 << 16).order(byteOrder(header));
+    long bufferStart = position;
+    buffer.limit(0);
+    while (position + recordPrefixLength <= fileSize) {
+      int offset = (int) (position - bufferStart);
+      if (offset + recordPrefixLength > buffer.limit()) {
+        bufferStart = position;
+        offset = 0;
+        fill(channel, buffer, position, fileSize);
+      }
+      int length = buffer.getInt(offset);
+      if (length < recordSize || length % 8 != 0 || buffer.getInt(offset + 4) != 0
+          || position + recordPrefixLength + length > fileSize) {
+        break;
+      }
+      int recordLength = recordPrefixLength + length;
+      if (offset + recordLength > buffer.limit()) {
+        if (recordLength > buffer.capacity()) {
+          buffer = ByteBuffer.allocate(recordLength).order(buffer.order());
+        }
+        bufferStart = position;
+        offset = 0;
+        fill(channel, buffer, position, fileSize);
+      }
+      if (!hasCompleteStrings(buffer, offset + recordPrefixLength + recordSize,
+          offset + recordLength, stringCount)) {
+        break;
+      }
+      position += recordLength;
+      count++;
+    }
+    return new RecordScan(position, count);
+  }
+
+  /**
+   * Makes the header of a new file of the given type, with a record count of 0.
+   *
+   * @return a buffer from the first to the last byte of the header.
+   */
+  static ByteBuffer header(Class<?> type, ByteOrder order) {
+    RecordLayout layout = RecordLayout.of(type);
+    List<Field> stringFields = stringFields(type);
+    List<byte[]> names = new ArrayList<>();
+    int length = fixedHeaderLength + 2 + utf8(type.getName()).length + 4 + 2 + 2;
+    for (int i = 0; i < layout.getFieldCount(); i++) {
+      names.add(utf8(layout.getFieldName(i)));
+      length += 2 + names.get(i).length + 1 + 1 + 4;
+    }
+    for (Field field : stringFields) {
+      names.add(utf8(field.getName()));
+      length += 2 + names.get(names.size() - 1).length;
+    }
+    length = (length + 7) / 8 * 8;
+
+    ByteBuffer header = ByteBuffer.allocate(length);
+    header.putInt(magic).putShort(version)
+        .put(order == ByteOrder.LITTLE_ENDIAN ? (byte) 1 : (byte) 0).put((byte) 0)
+        .putLong(0L).putInt(length);
+    putName(header, utf8(type.getName()));
+    header.putInt(layout.getRecordSize()).putShort((short) layout.getFieldCount());
+    for (int i = 0; i < layout.getFieldCount(); i++) {
+      putName(header, names.get(i));
+      header.put((byte) primitiveTypes.indexOf(layout.getPrimitiveType(i)))
+          .put(layout.isNullable(i) ? (byte) 1 : (byte) 0)
+          .putInt(layout.getOffset(i));
+    }
+    header.putShort((short) stringFields.size());
+    for (int i = 0; i < stringFields.size(); i++) {
+      putName(header, names.get(layout.getFieldCount() + i));
+    }
+    header.clear();
+    return header;
+  }
+
+  /**
+   * Reads the header of the given file and checks that it is a file of the given type.
+   *
+   * @return a buffer from the first to the last byte of the header.
+   * @throws IOException when the file is not a record file of the type's current schema.
+   */
+  static ByteBuffer readHeader(FileChannel channel, Class<?> type) throws IOException {
+    ByteBuffer fixedHeader = ByteBuffer.allocate(fixedHeaderLength);
+    readFully(channel, fixedHeader, 0L);
+    if (fixedHeader.getInt(0) != magic) {
+      throw new IOException("The file is not a record file.");
+    }
+    if (fixedHeader.getShort(4) != version) {
+      throw new IOException("Record file version " + fixedHeader.getShort(4)
+          + " is not supported.");
+    }
+    ByteBuffer header = ByteBuffer.allocate(fixedHeader.getInt(headerLengthOffset));
+    readFully(channel, header, 0L);
+    ByteBuffer expected = header(type, byteOrder(header));
+    expected.putLong(recordCountOffset, header.getLong(recordCountOffset));
+    if (!expected.equals(header)) {
+      throw new IOException("The schema of the record file is not the schema of "
+          + type.getName() + ".");
+    }
+    return header;
+  }
+
+  static ByteOrder byteOrder(ByteBuffer header) {
+    return header.get(6) == 1 ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN;
+  }
+
+  static void readFully(FileChannel channel, ByteBuffer buffer, long position)
+      throws IOException {
+    long offset = position;
+    while (buffer.hasRemaining()) {
+      int read = channel.read(buffer, offset);
+      if (read < 0) {
+        throw new IOException("Unexpected end of the record file.");
+      }
+      offset += read;
+    }
+    buffer.flip();
+  }
+
+  static void writeFully(FileChannel channel, ByteBuffer buffer, long position)
+      throws IOException {
+    long offset = position;
+    while (buffer.hasRemaining()) {
+      offset += channel.write(buffer, offset);
+    }
+  }
+
+  /**
+   * Whether the given number of strings, each a byte count (-1 for null) and its bytes,
+   * fit between start and end of the buffer.
+   */
+  static boolean hasCompleteStrings(ByteBuffer buffer, int start, int end,
+      int stringCount) {
+    int offset = start;
+    for (int i = 0; i < stringCount; i++) {
+      if (offset + 4 > end) {
+        return false;
+      }
+      int byteCount = buffer.getInt(offset);
+      if (byteCount < -1 || byteCount > end - offset - 4) {
+        return false;
+      }
+      offset += 4 + Math.max(byteCount, 0);
+    }
+    return true;
+  }
+
+  private static void fill(FileChannel channel, ByteBuffer buffer, long position, long fileSize)
+      throws IOException {
+    buffer.clear();
+    buffer.limit((int) Math.min(buffer.capacity(), fileSize - position));
+    readFully(channel, buffer, position);
+  }
+
+  private static void putName(ByteBuffer header, byte[] name) {
+    header.putShort((short) name.length).put(name);
+  }
+
+  private static byte[] utf8(String string) {
+    return string.getBytes(StandardCharsets.UTF_8);
+  }
+
+  /**
+   * The result of scan: where the complete records end, and how many there are.
+   */
+  static final class RecordScan {
+
+    private final long end;
+    private final long count;
+
+    RecordScan(long end, long count) {
+      this.end = end;
+      this.count = count;
+    }
+
+    long getEnd() {
+      return end;
+    }
+
+    long getCount() {
+      return count;
+    }
+  }
+}
@@ -0,0 +1,254 @@
+package mapper.offheap;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import mapper.Mappable;
+import mapper.exception.ResultTypeInstantiationException;
+import mapper.plan.PropertyTable;
+import mapper.util.Instantiator;
+
+
+/**
+ * Reads the records of a file written by RecordFileWriter, in order.
+ * The file is memory-mapped window by window, so a file larger than the heap
+ * (or than a single MappedByteBuffer) is scanned without copying it into the heap.
+ * The fields of the current record are read through a RecordView on the mapped window,
+ * its String fields through getString; a record can also be copied into a heap object,
+ * e.g. to map it further.
+ * A reader is not thread-safe.
+ */
+public final class RecordFileReader<T extends Mappable> implements Closeable {
+
+  private static final int defaultWindowSize = 1 << 26;
+
+  private final Class<T> type;
+  private final FileChannel channel;
+  private final ByteOrder order;
+  private final long recordCount;
+  private final long dataStart;
+  private final long fileSize;
+  private final int windowSize;
+  private final RecordLayout layout;
+  private final List<Field> stringFields;
+  private final int[] stringOffsets;
+  private final RecordView view;
+  private MappedByteBuffer window;
+  private long windowStart;
+  private long position;
+  private long nextPosition;
+  private int recordIndex = -1;
+  private byte[] stringBuffer = new byte[64];
+
+  private RecordFileReader(Class<T> type, FileChannel channel, ByteBuffer header,
+      int windowSize) throws IOException {
+    this.type = type;
+    this.channel = channel;
+    this.order = RecordFileFormat.byteOrder(header);
+    this.recordCount = header.getLong(RecordFileFormat.recordCountOffset);
+    this.dataStart = header.capacity();
+    this.fileSize = channel.size();
+    this.windowSize = windowSize;
+    this.layout = RecordLayout.of(type);
+    this.stringFields = RecordFileFormat.stringFields(type);
+    this.stringOffsets = new int[stringFields.size()];
+    this.view = new RecordView(layout);
+    this.nextPosition = dataStart;
+  }
+
+  /**
+   * Opens the given file for reading records of the given type.
+   *
+   * @param path the file which the records will be read from.
+   * @param type the type which's schema the records have.
+   * @param <T>  type of the records.
+   * @return a new reader, before the first record.
+   * @throws IOException when the file can not be opened, or is of another schema.
+   */
+  public static <T extends Mappable> RecordFileReader<T> open(Path path, Class<T> type)
+      throws IOException {
+    return open(path, type, defaultWindowSize);
+  }
+
+  /**
+   * Opens the given file for reading records of the given type,
+   * mapping at least windowSize bytes of it at a time.
+   *
+   * @param path       the file which the records will be read from.
+   * @param type       the type which's schema the records have.
+   * @param windowSize number of bytes which are mapped at a time, 64 MB by default.
+   * @param <T>        type of the records.
+   * @return a new reader, before the first record.
+   * @throws IOException when the file can not be opened, or is of another schema.
+   */
+  public static <T extends Mappable> RecordFileReader<T> open(Path path, Class<T> type,
+      int windowSize) throws IOException {
+    FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+    try {
+      return new RecordFileReader<>(type, channel,
+          RecordFileFormat.readHeader(channel, type), windowSize);
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  public Class<T> getType() {
+    return type;
+  }
+
+  /**
+   * Number of the records in the file, as of the last flush of its writer.
+   */
+  public long getRecordCount() {
+    return recordCount;
+  }
+
+  /**
+   * Moves to the next record.
+   * A record which was not written completely ends the file,
+   * so does a record which's string byte counts do not fit in its length.
+   *
+   * @return false if there is not a next record.
+   * @throws IOException when the file can not be mapped.
+   */
+  public boolean next() throws IOException {
+    position = nextPosition;
+    if (position + RecordFileFormat.recordPrefixLength > fileSize) {
+      return false;
+    }
+    int base = map(position, RecordFileFormat.recordPrefixLength);
+    int length = window.getInt(base);
+    long end = position + RecordFileFormat.recordPrefixLength + length;
+    if (length < layout.getRecordSize() || length % 8 != 0 || window.getInt(base + 4) != 0
+        || end > fileSize) {
+      return false;
+    }
+    base = map(position, RecordFileFormat.recordPrefixLength + length);
+    int fixedStart = base + RecordFileFormat.recordPrefixLength;
+    int offset = fixedStart + layout.getRecordSize();
+    if (!RecordFileFormat.hasCompleteStrings(window, offset,
+        fixedStart + length, stringOffsets.length)) {
+      return false;
+    }
+    view.moveTo(window, fixedStart, ++recordIndex);
+    for (int i = 0; i < stringOffsets.length; i++) {
+      stringOffsets[i] = offset;
+      int byteCount = window.getInt(offset);
+      offset += 4 + Math.max(byteCount, 0);
+    }
+    nextPosition = end;
+    return true;
+  }
+
+  /**
+   * Gets the view of the primitive fields of the current record.
+   * The view is moved by next, it is not valid after the reader is closed.
+   */
+  public RecordView view() {
+    return view;
+  }
+
+  /**
+   * Reads the given String field of the current record.
+   *
+   * @param name name of the field.
+   * @return the value of the field, or null if it is null.
+   * @throws IllegalArgumentException when the records do not have such a String field.
+   */
+  public String getString(String name) {
+    for (int i = 0; i < stringFields.size(); i++) {
+      if (stringFields.get(i).getName().equals(name)) {
+        return stringAt(i);
+      }
+    }
+    throw new IllegalArgumentException(type.getName()
+        + " records do not have the String field '" + name + "'.");
+  }
+
+  /**
+   * Copies the current record into a new heap object.
+   *
+   * @return a new object of the record type.
+   * @throws ResultTypeInstantiationException throws this when can't instantiate a new object.
+   */
+  public T read() throws ResultTypeInstantiationException {
+    return read(Instantiator.of(type).newInstance());
+  }
+
+  /**
+   * Copies the current record into the given object.
+   * Fields which are not stored are not written.
+   *
+   * @param target the object which's fields will be written.
+   * @return the given target.
+   */
+  public T read(T target) {
+    view.copyTo(target);
+    PropertyTable table = PropertyTable.of(target.getClass());
+    for (int i = 0; i < stringFields.size(); i++) {
+      int property = table.indexOf(stringFields.get(i).getName());
+      if (property >= 0 && table.isWritable(property)) {
+        table.set(target, property, stringAt(i));
+      }
+    }
+    return target;
+  }
+
+  /**
+   * Moves back before the first record.
+   */
+  public void rewind() {
+    nextPosition = dataStart;
+    recordIndex = -1;
+  }
+
+  @Override
+  public void close() throws IOException {
+    window = null;
+    channel.close();
+  }
+
+  private String stringAt(int stringField) {
+    int offset = stringOffsets[stringField];
+    int byteCount = window.getInt(offset);
+    if (byteCount < 0) {
+      return null;
+    }
+    if (stringBuffer.length < byteCount) {
+      stringBuffer = new byte[Math.max(byteCount, stringBuffer.length * 2)];
+    }
+    window.get(offset + 4, stringBuffer, 0, byteCount);
+    return new String(stringBuffer, 0, byteCount, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Maps the window which holds the given range of the file, if it is not mapped yet.
+   *
+   * @return offset of the start of the range in the window.
+   */
+  private int map(long start, int length) throws IOException {
+    if (window == null || start < windowStart
+        || start + length > windowStart + window.capacity()) {
+      long size = Math.min(Math.max(windowSize, length), fileSize - start);
+      window = channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+      window.order(order);
+      windowStart = start;
+    }
+    return (int) (start - windowStart);
+  }
+
+  @Override
+  public String toString() {
+    return "RecordFileReader{" + type.getName() + ", " + recordCount + " records}";
+  }
+}
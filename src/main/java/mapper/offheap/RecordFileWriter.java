@@ -0,0 +1,265 @@
+package mapper.offheap;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import mapper.Mappable;
+import mapper.plan.MappingPlan;
+import mapper.plan.MappingPlanCache;
+import mapper.plan.PropertyMapping;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Appends records of a Mappable type to a file in the format of RecordFileFormat.
+ * Sources are mapped straight into the records by the MappingPlan of the source
+ * and the record type: the primitive fields into the fixed part of the record,
+ * which is laid out by the RecordLayout of the type, and the String fields after it.
+ * Types with fields of other types are rejected by open, instead of storing a lossy copy.
+ * Records are staged in a buffer and written through a FileChannel when it is full,
+ * on flush and on close. A writer is not thread-safe.
+ */
+public final class RecordFileWriter<T extends Mappable> implements Closeable {
+
+  private static final Logger logger = LoggerFactory.getLogger(RecordFileWriter.class);
+
+  private static final int defaultBufferSize = 1 << 16;
+
+  private final Class<T> type;
+  private final FileChannel channel;
+  private final RecordLayout layout;
+  private final List<Field> stringFields;
+  private final OffHeapRecords<T> fixedPart;
+  private final byte[][] stringBytes;
+  private final Map<Class<?>, MethodHandle[]> stringHandlesByType = new IdentityHashMap<>();
+  private Class<?> lastSourceType;
+  private MethodHandle[] lastStringHandles;
+  private ByteBuffer buffer;
+  private long position;
+  private long recordCount;
+
+  private RecordFileWriter(Class<T> type, FileChannel channel, ByteOrder order,
+      long position, long recordCount) {
+    this.type = type;
+    this.channel = channel;
+    this.layout = RecordLayout.of(type);
+    this.stringFields = RecordFileFormat.stringFields(type);
+    this.fixedPart = OffHeapRecords.wrap(type,
+        ByteBuffer.allocate(layout.getRecordSize()).order(order), 0);
+    this.stringBytes = new byte[stringFields.size()][];
+    this.buffer = ByteBuffer.allocate(defaultBufferSize).order(order);
+    this.position = position;
+    this.recordCount = recordCount;
+  }
+
+  /**
+   * Opens the given file for appending records of the given type.
+   * A new file is created with the header of the type;
+   * the records of an existing file must have the same schema.
+   * An existing file is truncated after its last complete record,
+   * dropping a record which an earlier writer did not finish.
+   *
+   * @param path the file which the records will be appended to.
+   * @param type the type which's schema the records have.
+   * @param <T>  type of the records.
+   * @return a new writer, positioned at the end of the file.
+   * @throws IOException when the file can not be opened, or is of another schema.
+   * @throws IllegalArgumentException when a field of the type is not a primitive,
+   *                                  a primitive wrapper or a String.
+   */
+  public static <T extends Mappable> RecordFileWriter<T> open(Path path, Class<T> type)
+      throws IOException {
+    RecordFileFormat.checkStorable(type);
+    FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+        StandardOpenOption.READ, StandardOpenOption.WRITE);
+    try {
+      if (channel.size() == 0) {
+        ByteBuffer header = RecordFileFormat.header(type, ByteOrder.nativeOrder());
+        RecordFileFormat.writeFully(channel, header, 0L);
+        return new RecordFileWriter<>(type, channel, ByteOrder.nativeOrder(),
+            header.capacity(), 0L);
+      }
+      ByteBuffer header = RecordFileFormat.readHeader(channel, type);
+      RecordFileFormat.RecordScan scan = RecordFileFormat.scan(channel, header, type);
+      if (scan.getEnd() < channel.size()) {
+        logger.warn("Record file '{}' has {} bytes of an unfinished record, truncating it"
+            + " after record {}.", path, channel.size() - scan.getEnd(), scan.getCount());
+        channel.truncate(scan.getEnd());
+      }
+      return new RecordFileWriter<>(type, channel, RecordFileFormat.byteOrder(header),
+          scan.getEnd(), scan.getCount());
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  public Class<T> getType() {
+    return type;
+  }
+
+  /**
+   * Number of the records in the file, including the ones which are not written yet.
+   */
+  public long getRecordCount() {
+    return recordCount;
+  }
+
+  /**
+   * Maps the given source into a new record at the end of the file.
+   *
+   * @param source the object which's fields will be taken as map source.
+   * @throws IOException when the staged records can not be written.
+   */
+  public void append(Mappable source) throws IOException {
+    if (fixedPart.size() == 0) {
+      fixedPart.add(source);
+    } else {
+      fixedPart.set(0, source);
+    }
+    int length = layout.getRecordSize();
+    MethodHandle[] stringHandles = source == null ? null : stringHandles(source.getClass());
+    for (int i = 0; i < stringBytes.length; i++) {
+      String value = stringHandles == null || stringHandles[i] == null
+          ? null
+          : readString(stringHandles[i], source);
+      stringBytes[i] = value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+      length += 4 + (value == null ? 0 : stringBytes[i].length);
+    }
+    length = (length + 7) / 8 * 8;
+
+    ensureRemaining(RecordFileFormat.recordPrefixLength + length);
+    final int recordStart = buffer.position();
+    buffer.putInt(length).putInt(0);
+    buffer.put(fixedPart.getBuffer());
+    for (byte[] bytes : stringBytes) {
+      if (bytes == null) {
+        buffer.putInt(-1);
+      } else {
+        buffer.putInt(bytes.length).put(bytes);
+      }
+    }
+    while (buffer.position() - recordStart < RecordFileFormat.recordPrefixLength + length) {
+      buffer.put((byte) 0);
+    }
+    recordCount++;
+  }
+
+  /**
+   * Maps every given source into a new record at the end of the file.
+   *
+   * @param sources the objects which's fields will be taken as map source.
+   * @return number of the appended records.
+   * @throws IOException when the staged records can not be written.
+   */
+  public long appendAll(Iterable<? extends Mappable> sources) throws IOException {
+    long appended = 0;
+    for (Mappable source : sources) {
+      append(source);
+      appended++;
+    }
+    return appended;
+  }
+
+  /**
+   * Writes the staged records and the record count to the file.
+   *
+   * @throws IOException when the file can not be written.
+   */
+  public void flush() throws IOException {
+    writeBuffer();
+    ByteBuffer count = ByteBuffer.allocate(8).putLong(0, recordCount);
+    RecordFileFormat.writeFully(channel, count, RecordFileFormat.recordCountOffset);
+  }
+
+  /**
+   * Flushes and closes the file.
+   *
+   * @throws IOException when the file can not be written.
+   */
+  @Override
+  public void close() throws IOException {
+    try {
+      flush();
+    } finally {
+      channel.close();
+    }
+  }
+
+  private void ensureRemaining(int length) throws IOException {
+    if (buffer.remaining() >= length) {
+      return;
+    }
+    writeBuffer();
+    if (buffer.capacity() < length) {
+      buffer = ByteBuffer.allocate(Math.max(length, buffer.capacity() * 2))
+          .order(buffer.order());
+    }
+  }
+
+  private void writeBuffer() throws IOException {
+    buffer.flip();
+    int length = buffer.remaining();
+    RecordFileFormat.writeFully(channel, buffer, position);
+    position += length;
+    buffer.clear();
+  }
+
+  private static String readString(MethodHandle handle, Object source) {
+    try {
+      return (String) handle.invokeExact(source);
+    } catch (RuntimeException | Error exception) {
+      throw exception;
+    } catch (Throwable throwable) {
+      throw new IllegalStateException(throwable);
+    }
+  }
+
+  /**
+   * Gets the value handles of the string fields of the given source class,
+   * aligned to the string fields of the record type.
+   */
+  private MethodHandle[] stringHandles(Class<?> sourceType) {
+    if (sourceType == lastSourceType) {
+      return lastStringHandles;
+    }
+    MethodHandle[] handles = stringHandlesByType.get(sourceType);
+    if (handles == null) {
+      MappingPlan plan = MappingPlanCache.getPlan(sourceType, type);
+      handles = new MethodHandle[stringFields.size()];
+      for (PropertyMapping propertyMapping : plan.getPropertyMappings()) {
+        for (int i = 0; i < stringFields.size(); i++) {
+          if (stringFields.get(i).getName().equals(propertyMapping.getResultName())) {
+            try {
+              handles[i] = propertyMapping.getValueHandle();
+            } catch (IllegalAccessException e) {
+              logger.debug("Field '{}' can not be accessed directly. {}",
+                  propertyMapping.getName(), e);
+            }
+          }
+        }
+      }
+      stringHandlesByType.put(sourceType, handles);
+    }
+    lastSourceType = sourceType;
+    lastStringHandles = handles;
+    return handles;
+  }
+
+  @Override
+  public String toString() {
+    return "RecordFileWriter{" + type.getName() + ", " + recordCount + " records}";
+  }
+}
@@ -0,0 +1,245 @@
+package mapper.offheap;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import mapper.util.ClassMetadata;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * The fixed binary layout of the records of a class, cached per class.
+ * It is computed once from the fields of the class's ClassMetadata:
+ * every instance field of a primitive or a boxed primitive type gets a slot
+ * of the size of the primitive, other fields are not part of the layout.
+ * Slots are ordered by size, largest first, so every slot is aligned to its size
+ * without padding. The slots are followed by a bitmap which has a bit per boxed field,
+ * set when the value is not null; the record size is a multiple of 8.
+ */
+public final class RecordLayout {
+
+  private static final Logger logger = LoggerFactory.getLogger(RecordLayout.class);
+
+  private static final ClassValue<RecordLayout> layouts = new ClassValue<RecordLayout>() {
+    @Override
+    protected RecordLayout computeValue(Class<?> type) {
+      return new RecordLayout(type);
+    }
+  };
+
+  private final Class<?> type;
+  private final String[] names;
+  private final Class<?>[] types;
+  private final Class<?>[] primitiveTypes;
+  private final int[] offsets;
+  private final int[] nullBits;
+  private final int nullBitmapOffset;
+  private final int recordSize;
+  private final Map<String, Integer> indexes;
+
+  private RecordLayout(Class<?> type) {
+    this.type = type;
+    List<Field> fields = new ArrayList<>();
+    for (Field field : ClassMetadata.of(type).getFields()) {
+      if (Modifier.isStatic(field.getModifiers())) {
+        continue;
+      }
+      if (primitiveType(field.getType()) == null) {
+        logger.debug("Field '{}' is not a primitive, it is not part of the record layout.",
+            field);
+        continue;
+      }
+      fields.add(field);
+    }
+    fields.sort(Comparator.comparingInt(
+        (Field field) -> sizeOf(primitiveType(field.getType()))).reversed());
+
+    int size = fields.size();
+    names = new String[size];
+    types = new Class<?>[size];
+    primitiveTypes = new Class<?>[size];
+    offsets = new int[size];
+    nullBits = new int[size];
+    indexes = new HashMap<>(size * 4 / 3 + 1);
+    int nullableCount = 0;
+    for (int i = 0; i < size; i++) {
+      Field field = fields.get(i);
+      names[i] = field.getName();
+      types[i] = field.getType();
+      primitiveTypes[i] = primitiveType(types[i]);
+      nullBits[i] = types[i].isPrimitive() ? -1 : nullableCount++;
+      indexes.put(names[i], i);
+    }
+    int offset = 0;
+    for (int i = 0; i < size; i++) {
+      offsets[i] = offset;
+      offset += sizeOf(primitiveTypes[i]);
+    }
+    nullBitmapOffset = offset;
+    recordSize = Math.max(8, align(offset + (nullableCount + 7) / 8, 8));
+  }
+
+  /**
+   * Gets the cached layout of the given type, computes it on first use.
+   *
+   * @param type the type which's records will be laid out.
+   * @return the layout of the given type.
+   */
+  public static RecordLayout of(Class<?> type) {
+    return layouts.get(type);
+  }
+
+  public Class<?> getType() {
+    return type;
+  }
+
+  /**
+   * Size of a record in bytes, including the null bitmap and the padding after it.
+   */
+  public int getRecordSize() {
+    return recordSize;
+  }
+
+  /**
+   * Offset of the null bitmap from the start of a record, after the last slot.
+   */
+  public int getNullBitmapOffset() {
+    return nullBitmapOffset;
+  }
+
+  public int getFieldCount() {
+    return names.length;
+  }
+
+  /**
+   * Names of the fields which are part of the layout, in slot order.
+   *
+   * @return an unmodifiable list of the names.
+   */
+  public List<String> getFieldNames() {
+    return Collections.unmodifiableList(Arrays.asList(names));
+  }
+
+  public String getFieldName(int field) {
+    return names[field];
+  }
+
+  /**
+   * Gets the declared type of the given field, a primitive or a boxed primitive.
+   */
+  public Class<?> getFieldType(int field) {
+    return types[field];
+  }
+
+  /**
+   * Gets the primitive type the given field is stored as.
+   */
+  public Class<?> getPrimitiveType(int field) {
+    return primitiveTypes[field];
+  }
+
+  /**
+   * Gets the offset of the slot of the given field from the start of a record.
+   */
+  public int getOffset(int field) {
+    return offsets[field];
+  }
+
+  /**
+   * Whether the given field is a boxed primitive, which has a bit in the null bitmap.
+   */
+  public boolean isNullable(int field) {
+    return nullBits[field] >= 0;
+  }
+
+  /**
+   * Gets the index of the bit of the given field in the null bitmap.
+   *
+   * @return the index of the bit, or -1 if the field is not nullable.
+   */
+  public int getNullBit(int field) {
+    return nullBits[field];
+  }
+
+  /**
+   * Finds the index of the field with the given name.
+   *
+   * @param name name of the field.
+   * @return the index, or -1 if the field is not part of the layout.
+   */
+  public int indexOf(String name) {
+    Integer index = indexes.get(name);
+    return index == null ? -1 : index;
+  }
+
+  /**
+   * Gets the primitive type which a field of the given type is stored as.
+   *
+   * @return the primitive type, or null if the type is neither a primitive nor a boxed one.
+   */
+  static Class<?> primitiveType(Class<?> type) {
+    if (type.isPrimitive()) {
+      return type == void.class ? null : type;
+    }
+    if (type == Integer.class) {
+      return int.class;
+    }
+    if (type == Long.class) {
+      return long.class;
+    }
+    if (type == Double.class) {
+      return double.class;
+    }
+    if (type == Float.class) {
+      return float.class;
+    }
+    if (type == Boolean.class) {
+      return boolean.class;
+    }
+    if (type == Character.class) {
+      return char.class;
+    }
+    if (type == Short.class) {
+      return short.class;
+    }
+    if (type == Byte.class) {
+      return byte.class;
+    }
+    return null;
+  }
+
+  static int sizeOf(Class<?> primitiveType) {
+    if (primitiveType == long.class || primitiveType == double.class) {
+      return 8;
+    }
+    if (primitiveType == int.class || primitiveType == float.class) {
+      return 4;
+    }
+    if (primitiveType == short.class || primitiveType == char.class) {
+      return 2;
+    }
+    return 1;
+  }
+
+  private static int align(int value, int alignment) {
+    return (value + alignment - 1) / alignment * alignment;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder stringBuilder = new StringBuilder("RecordLayout{")
+        .append(type.getName()).append(", ").append(recordSize).append(" bytes");
+    for (int i = 0; i < names.length; i++) {
+      stringBuilder.append(", ").append(names[i]).append('@').append(offsets[i]);
+    }
+    return stringBuilder.append('}').toString();
+  }
+}
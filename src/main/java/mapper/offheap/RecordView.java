@@ -0,0 +1,232 @@
+package mapper.offheap;
+
+import java.nio.ByteBuffer;
+
+import mapper.plan.PropertyTable;
+
+
+/**
+ * A flyweight view of a single record of OffHeapRecords or of a RecordFileReader.
+ * It is moved between the records instead of creating an object per record,
+ * and reads the fields straight from the buffer.
+ * Fields are addressed by their index in the RecordLayout,
+ * or by name, which looks the index up first.
+ * A view is not thread-safe, every thread should use its own.
+ */
+public final class RecordView {
+
+  private final OffHeapRecords<?> records;
+  private final RecordLayout layout;
+  private ByteBuffer buffer;
+  private int index = -1;
+  private int base;
+
+  RecordView(OffHeapRecords<?> records, ByteBuffer buffer) {
+    this.records = records;
+    this.layout = records.getLayout();
+    this.buffer = buffer;
+  }
+
+  RecordView(RecordLayout layout) {
+    this.records = null;
+    this.layout = layout;
+  }
+
+  /**
+   * Moves the view to the record at the given index.
+   *
+   * @param index index of the record.
+   * @return this view.
+   * @throws IndexOutOfBoundsException when there is not such a record.
+   */
+  public RecordView moveTo(int index) {
+    if (records == null) {
+      throw new UnsupportedOperationException("The records can only be read in order.");
+    }
+    if (index < 0 || index >= records.size()) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", size: " + records.size());
+    }
+    this.index = index;
+    this.base = index * layout.getRecordSize();
+    return this;
+  }
+
+  /**
+   * Moves the view to the record which starts at the given offset of the given buffer.
+   */
+  void moveTo(ByteBuffer buffer, int base, int index) {
+    this.buffer = buffer;
+    this.base = base;
+    this.index = index;
+  }
+
+  /**
+   * Gets the index of the record the view is on, -1 if it has not been moved yet.
+   */
+  public int getIndex() {
+    return index;
+  }
+
+  public RecordLayout getLayout() {
+    return layout;
+  }
+
+  /**
+   * Whether the given field of the record is null.
+   * Primitive fields are never null.
+   */
+  public boolean isNull(int field) {
+    int nullBit = layout.getNullBit(field);
+    return nullBit >= 0 && (buffer.get(base + layout.getNullBitmapOffset() + nullBit / 8)
+        & (1 << (nullBit % 8))) == 0;
+  }
+
+  public boolean isNull(String name) {
+    return isNull(fieldOf(name));
+  }
+
+  public int getInt(int field) {
+    return buffer.getInt(slot(field, int.class));
+  }
+
+  public int getInt(String name) {
+    return getInt(fieldOf(name));
+  }
+
+  public long getLong(int field) {
+    return buffer.getLong(slot(field, long.class));
+  }
+
+  public long getLong(String name) {
+    return getLong(fieldOf(name));
+  }
+
+  public double getDouble(int field) {
+    return buffer.getDouble(slot(field, double.class));
+  }
+
+  public double getDouble(String name) {
+    return getDouble(fieldOf(name));
+  }
+
+  public float getFloat(int field) {
+    return buffer.getFloat(slot(field, float.class));
+  }
+
+  public float getFloat(String name) {
+    return getFloat(fieldOf(name));
+  }
+
+  public boolean getBoolean(int field) {
+    return buffer.get(slot(field, boolean.class)) != 0;
+  }
+
+  public boolean getBoolean(String name) {
+    return getBoolean(fieldOf(name));
+  }
+
+  public char getChar(int field) {
+    return buffer.getChar(slot(field, char.class));
+  }
+
+  public char getChar(String name) {
+    return getChar(fieldOf(name));
+  }
+
+  public short getShort(int field) {
+    return buffer.getShort(slot(field, short.class));
+  }
+
+  public short getShort(String name) {
+    return getShort(fieldOf(name));
+  }
+
+  public byte getByte(int field) {
+    return buffer.get(slot(field, byte.class));
+  }
+
+  public byte getByte(String name) {
+    return getByte(fieldOf(name));
+  }
+
+  /**
+   * Reads the given field boxed.
+   *
+   * @param field index of the field in the layout.
+   * @return the value of the field, or null if it is null.
+   */
+  public Object get(int field) {
+    if (isNull(field)) {
+      return null;
+    }
+    Class<?> type = layout.getPrimitiveType(field);
+    if (type == int.class) {
+      return getInt(field);
+    }
+    if (type == long.class) {
+      return getLong(field);
+    }
+    if (type == double.class) {
+      return getDouble(field);
+    }
+    if (type == float.class) {
+      return getFloat(field);
+    }
+    if (type == boolean.class) {
+      return getBoolean(field);
+    }
+    if (type == char.class) {
+      return getChar(field);
+    }
+    if (type == short.class) {
+      return getShort(field);
+    }
+    return getByte(field);
+  }
+
+  public Object get(String name) {
+    return get(fieldOf(name));
+  }
+
+  /**
+   * Copies the fields of the record into the properties with the same names of target.
+   */
+  void copyTo(Object target) {
+    PropertyTable table = PropertyTable.of(target.getClass());
+    for (int i = 0; i < layout.getFieldCount(); i++) {
+      int property = table.indexOf(layout.getFieldName(i));
+      if (property >= 0 && table.isWritable(property)) {
+        table.set(target, property, get(i));
+      }
+    }
+  }
+
+  private int slot(int field, Class<?> type) {
+    if (layout.getPrimitiveType(field) != type) {
+      throw new IllegalArgumentException("Field '" + layout.getFieldName(field) + "' is a "
+          + layout.getPrimitiveType(field).getName() + " field.");
+    }
+    return base + layout.getOffset(field);
+  }
+
+  private int fieldOf(String name) {
+    int field = layout.indexOf(name);
+    if (field < 0) {
+      throw new IllegalArgumentException(layout.getType().getName()
+          + " records do not have the field '" + name + "'.");
+    }
+    return field;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder stringBuilder = new StringBuilder("RecordView{")
+        .append(layout.getType().getName()).append(" #").append(index);
+    if (index >= 0) {
+      for (int i = 0; i < layout.getFieldCount(); i++) {
+        stringBuilder.append(", ").append(layout.getFieldName(i)).append('=').append(get(i));
+      }
+    }
+    return stringBuilder.append('}').toString();
+  }
+}
@@ -0,0 +1,51 @@
+package mapper.plan;
+
+import mapper.MappingAccess;
+
+
+/**
+ * The ways a MappingPlan reads the fields of the source type
+ * and writes the fields of the result type.
+ * The strategy of a type is declared with MappingAccess,
+ * the source type's strategy is used for reading and the result type's for writing.
+ */
+public enum AccessStrategy {
+
+  /**
+   * Reads through public getX methods and writes through public setX methods.
+   * Fields without them are skipped.
+   */
+  GETTER_SETTER,
+
+  /**
+   * Reads and writes the fields directly through VarHandles, including private fields.
+   * Static fields, and final fields of the result type, are skipped.
+   */
+  FIELD,
+
+  /**
+   * Uses the getter or setter of a field if there is one, the field directly otherwise.
+   */
+  HYBRID;
+
+  public static final AccessStrategy DEFAULT = GETTER_SETTER;
+
+  /**
+   * Gets the strategy declared for the given type.
+   *
+   * @param type a source or result type.
+   * @return the strategy of the MappingAccess annotation of the type, or DEFAULT.
+   */
+  public static AccessStrategy of(Class<?> type) {
+    MappingAccess mappingAccess = type.getAnnotation(MappingAccess.class);
+    return mappingAccess == null ? DEFAULT : mappingAccess.value();
+  }
+
+  boolean usesMethods() {
+    return this != FIELD;
+  }
+
+  boolean usesFields() {
+    return this != GETTER_SETTER;
+  }
+}
@@ -0,0 +1,422 @@
+package mapper.plan;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * Generates the class file of a Copier which runs a MappingPlan
+ * as straight-line result.setX(source.getX()) calls,
+ * and defines it as a hidden class next to this class.
+ * Every property is copied in a try block of its own: an exception is handed to
+ * PropertyMapping.copyFailed, which logs it and skips the property, the same as the
+ * reflective copy of the property does; Errors are thrown.
+ * The skipped properties are counted in a local and returned.
+ */
+final class BytecodeCopierGenerator {
+
+  private static final String CLASS_NAME = "mapper/plan/GeneratedCopier";
+  private static final String COPIER_NAME = Copier.class.getName().replace('.', '/');
+
+  private static final int ACC_PUBLIC = 0x0001;
+  private static final int ACC_FINAL = 0x0010;
+  private static final int ACC_SUPER = 0x0020;
+
+  private static final int ICONST_0 = 0x03;
+  private static final int ILOAD = 0x15;
+  private static final int ALOAD = 0x19;
+  private static final int ALOAD_0 = 0x2a;
+  private static final int ALOAD_1 = 0x2b;
+  private static final int ALOAD_2 = 0x2c;
+  private static final int ALOAD_3 = 0x2d;
+  private static final int ISTORE = 0x36;
+  private static final int ASTORE = 0x3a;
+  private static final int ASTORE_3 = 0x4e;
+  private static final int POP = 0x57;
+  private static final int POP2 = 0x58;
+  private static final int IINC = 0x84;
+  private static final int LDC_W = 0x13;
+  private static final int GOTO = 0xa7;
+  private static final int IRETURN = 0xac;
+  private static final int RETURN = 0xb1;
+  private static final int INVOKEVIRTUAL = 0xb6;
+  private static final int INVOKESPECIAL = 0xb7;
+  private static final int INVOKESTATIC = 0xb8;
+  private static final int CHECKCAST = 0xc0;
+
+  private static final int FULL_FRAME = 255;
+  private static final int ITEM_INTEGER = 1;
+  private static final int ITEM_OBJECT = 7;
+
+  private BytecodeCopierGenerator() {
+  }
+
+  /**
+   * Generates and instantiates the Copier of the given plan.
+   *
+   * @param plan the plan which will be compiled.
+   * @return a new Copier, or null if the plan can not be run by a generated class.
+   * @throws ReflectiveOperationException when the generated class can not be defined.
+   */
+  static Copier generate(MappingPlan plan) throws ReflectiveOperationException {
+    if (!isLinkable(plan)) {
+      return null;
+    }
+    byte[] classFile;
+    try {
+      classFile = writeClassFile(plan);
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+    MethodHandles.Lookup lookup = MethodHandles.lookup().defineHiddenClass(classFile, true);
+    try {
+      return (Copier) lookup.findConstructor(lookup.lookupClass(),
+          MethodType.methodType(void.class)).invoke();
+    } catch (ReflectiveOperationException | RuntimeException | Error e) {
+      throw e;
+    } catch (Throwable e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static boolean isLinkable(MappingPlan plan) {
+    if (!isAccessible(plan.getSourceType()) || !isAccessible(plan.getResultType())) {
+      return false;
+    }
+    for (PropertyMapping propertyMapping : plan.getPropertyMappings()) {
+      if (propertyMapping.getCopyHandle() != null) {
+        return false;
+      }
+      Method getter = propertyMapping.getGetter();
+      Method setter = propertyMapping.getSetter();
+      Class<?> valueType = getter.getReturnType();
+      Class<?> parameterType = setter.getParameterTypes()[0];
+      boolean isAssignable = valueType.isPrimitive() || parameterType.isPrimitive()
+          ? valueType == parameterType
+          : parameterType.isAssignableFrom(valueType);
+      if (!isAssignable
+          || !isAccessible(valueType)
+          || !isAccessible(parameterType)
+          || !isAccessible(setter.getReturnType())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean isAccessible(Class<?> type) {
+    if (type.isPrimitive()) {
+      return true;
+    }
+    if (type.isArray()) {
+      return isAccessible(type.getComponentType());
+    }
+    if (!Modifier.isPublic(type.getModifiers())) {
+      return false;
+    }
+    try {
+      ClassLoader classLoader = BytecodeCopierGenerator.class.getClassLoader();
+      return Class.forName(type.getName(), false, classLoader) == type;
+    } catch (ClassNotFoundException e) {
+      return false;
+    }
+  }
+
+  private static byte[] writeClassFile(MappingPlan plan) throws IOException {
+    ConstantPool constantPool = new ConstantPool();
+    final int thisClass = constantPool.classInfo(CLASS_NAME);
+    final int superClass = constantPool.classInfo("java/lang/Object");
+    final int copierClass = constantPool.classInfo(COPIER_NAME);
+    final int codeName = constantPool.utf8("Code");
+    final int constructorName = constantPool.utf8("<init>");
+    final int constructorDescriptor = constantPool.utf8("()V");
+    final int copyName = constantPool.utf8("copy");
+    final int copyDescriptor = constantPool.utf8("(Ljava/lang/Object;Ljava/lang/Object;)I");
+
+    final byte[] constructorCode = writeConstructorCode(constantPool);
+    final byte[] copyCode = writeCopyCode(constantPool, plan, thisClass);
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    out.writeInt(0xCAFEBABE);
+    out.writeShort(0);
+    out.writeShort(52);
+    constantPool.writeTo(out);
+    out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+    out.writeShort(thisClass);
+    out.writeShort(superClass);
+    out.writeShort(1);
+    out.writeShort(copierClass);
+    out.writeShort(0);
+    out.writeShort(2);
+    writeMethod(out, constructorName, constructorDescriptor, codeName, constructorCode);
+    writeMethod(out, copyName, copyDescriptor, codeName, copyCode);
+    out.writeShort(0);
+    out.flush();
+    return bytes.toByteArray();
+  }
+
+  /**
+   * Writes the body of the Code attribute of the constructor.
+   */
+  private static byte[] writeConstructorCode(ConstantPool constantPool) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream code = new DataOutputStream(bytes);
+    code.writeByte(ALOAD_0);
+    code.writeByte(INVOKESPECIAL);
+    code.writeShort(constantPool.methodRef("java/lang/Object", "<init>", "()V"));
+    code.writeByte(RETURN);
+    code.flush();
+    return codeAttribute(1, 1, bytes.toByteArray(), new byte[0], 0, null, 0, 0);
+  }
+
+  /**
+   * Writes the body of the Code attribute of the copy method: the code,
+   * an exception handler per property and the stack map frames of the handlers.
+   * Local 5 counts the properties which failed.
+   */
+  private static byte[] writeCopyCode(ConstantPool constantPool, MappingPlan plan,
+      int thisClass) throws IOException {
+    String sourceName = internalName(plan.getSourceType());
+    String resultName = internalName(plan.getResultType());
+    final int[] locals = {thisClass, constantPool.classInfo("java/lang/Object"),
+        constantPool.classInfo("java/lang/Object"), constantPool.classInfo(sourceName),
+        constantPool.classInfo(resultName)};
+    final int throwableClass = constantPool.classInfo("java/lang/Throwable");
+    final int copyFailed = constantPool.methodRef("mapper/plan/PropertyMapping", "copyFailed",
+        "(Ljava/lang/Throwable;Ljava/lang/String;)V");
+    ByteArrayOutputStream exceptionBytes = new ByteArrayOutputStream();
+    DataOutputStream exceptionTable = new DataOutputStream(exceptionBytes);
+    ByteArrayOutputStream frameBytes = new ByteArrayOutputStream();
+    DataOutputStream frames = new DataOutputStream(frameBytes);
+    int lastFrame = -1;
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream code = new DataOutputStream(bytes);
+    code.writeByte(ALOAD_1);
+    code.writeByte(CHECKCAST);
+    code.writeShort(constantPool.classInfo(sourceName));
+    code.writeByte(ASTORE_3);
+    code.writeByte(ALOAD_2);
+    code.writeByte(CHECKCAST);
+    code.writeShort(constantPool.classInfo(resultName));
+    code.writeByte(ASTORE);
+    code.writeByte(4);
+    code.writeByte(ICONST_0);
+    code.writeByte(ISTORE);
+    code.writeByte(5);
+
+    for (PropertyMapping propertyMapping : plan.getPropertyMappings()) {
+      Method getter = propertyMapping.getGetter();
+      Method setter = propertyMapping.getSetter();
+      final int start = code.size();
+      code.writeByte(ALOAD);
+      code.writeByte(4);
+      code.writeByte(ALOAD_3);
+      code.writeByte(INVOKEVIRTUAL);
+      code.writeShort(constantPool.methodRef(sourceName, getter.getName(), descriptor(getter)));
+      code.writeByte(INVOKEVIRTUAL);
+      code.writeShort(constantPool.methodRef(resultName, setter.getName(), descriptor(setter)));
+      Class<?> setterReturnType = setter.getReturnType();
+      if (setterReturnType == long.class || setterReturnType == double.class) {
+        code.writeByte(POP2);
+      } else if (setterReturnType != void.class) {
+        code.writeByte(POP);
+      }
+      final int end = code.size();
+      final int handler = end + 3;
+      final int next = handler + 9;
+      code.writeByte(GOTO);
+      code.writeShort(next - end);
+      code.writeByte(LDC_W);
+      code.writeShort(constantPool.string(propertyMapping.getName()));
+      code.writeByte(INVOKESTATIC);
+      code.writeShort(copyFailed);
+      code.writeByte(IINC);
+      code.writeByte(5);
+      code.writeByte(1);
+
+      exceptionTable.writeShort(start);
+      exceptionTable.writeShort(end);
+      exceptionTable.writeShort(handler);
+      exceptionTable.writeShort(throwableClass);
+      writeFullFrame(frames, handler - lastFrame - 1, locals, throwableClass);
+      writeFullFrame(frames, next - handler - 1, locals, 0);
+      lastFrame = next;
+    }
+    code.writeByte(ILOAD);
+    code.writeByte(5);
+    code.writeByte(IRETURN);
+    code.flush();
+    int handlerCount = plan.getPropertyMappings().size();
+    return codeAttribute(4, 6, bytes.toByteArray(), exceptionBytes.toByteArray(), handlerCount,
+        frameBytes.toByteArray(), handlerCount * 2, constantPool.utf8("StackMapTable"));
+  }
+
+  /**
+   * Writes a full_frame of the given object locals followed by the int failure count,
+   * with the given class on the stack, or with an empty stack if it is 0.
+   */
+  private static void writeFullFrame(DataOutputStream frames, int offsetDelta, int[] locals,
+      int stackClass) throws IOException {
+    frames.writeByte(FULL_FRAME);
+    frames.writeShort(offsetDelta);
+    frames.writeShort(locals.length + 1);
+    for (int local : locals) {
+      frames.writeByte(ITEM_OBJECT);
+      frames.writeShort(local);
+    }
+    frames.writeByte(ITEM_INTEGER);
+    if (stackClass == 0) {
+      frames.writeShort(0);
+    } else {
+      frames.writeShort(1);
+      frames.writeByte(ITEM_OBJECT);
+      frames.writeShort(stackClass);
+    }
+  }
+
+  /**
+   * Writes the body of a Code attribute, with a StackMapTable attribute if there are frames.
+   */
+  private static byte[] codeAttribute(int maxStack, int maxLocals, byte[] code,
+      byte[] exceptionTable, int exceptionCount, byte[] frames, int frameCount,
+      int stackMapTableName) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    out.writeShort(maxStack);
+    out.writeShort(maxLocals);
+    out.writeInt(code.length);
+    out.write(code);
+    out.writeShort(exceptionCount);
+    out.write(exceptionTable);
+    if (frameCount == 0) {
+      out.writeShort(0);
+    } else {
+      out.writeShort(1);
+      out.writeShort(stackMapTableName);
+      out.writeInt(2 + frames.length);
+      out.writeShort(frameCount);
+      out.write(frames);
+    }
+    out.flush();
+    return bytes.toByteArray();
+  }
+
+  private static void writeMethod(DataOutputStream out, int name, int descriptor,
+      int codeName, byte[] codeAttribute) throws IOException {
+    out.writeShort(ACC_PUBLIC);
+    out.writeShort(name);
+    out.writeShort(descriptor);
+    out.writeShort(1);
+    out.writeShort(codeName);
+    out.writeInt(codeAttribute.length);
+    out.write(codeAttribute);
+  }
+
+  private static String internalName(Class<?> type) {
+    return type.getName().replace('.', '/');
+  }
+
+  private static String descriptor(Method method) {
+    return MethodType.methodType(method.getReturnType(), method.getParameterTypes())
+        .toMethodDescriptorString();
+  }
+
+
+  /**
+   * Constant pool of the generated class file.
+   * Equal entries are written once.
+   */
+  private static final class ConstantPool {
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_STRING = 8;
+    private static final int CONSTANT_METHODREF = 10;
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    private final DataOutputStream out = new DataOutputStream(bytes);
+    private final Map<String, Integer> indexes = new HashMap<>();
+    private int count = 1;
+
+    int utf8(String value) throws IOException {
+      Integer index = indexes.get("U" + value);
+      if (index != null) {
+        return index;
+      }
+      out.writeByte(CONSTANT_UTF8);
+      out.writeUTF(value);
+      return add("U" + value);
+    }
+
+    int classInfo(String internalName) throws IOException {
+      Integer index = indexes.get("C" + internalName);
+      if (index != null) {
+        return index;
+      }
+      int name = utf8(internalName);
+      out.writeByte(CONSTANT_CLASS);
+      out.writeShort(name);
+      return add("C" + internalName);
+    }
+
+    int string(String value) throws IOException {
+      Integer index = indexes.get("S" + value);
+      if (index != null) {
+        return index;
+      }
+      int utf8 = utf8(value);
+      out.writeByte(CONSTANT_STRING);
+      out.writeShort(utf8);
+      return add("S" + value);
+    }
+
+    int methodRef(String owner, String name, String descriptor) throws IOException {
+      String key = "M" + owner + "." + name + descriptor;
+      Integer index = indexes.get(key);
+      if (index != null) {
+        return index;
+      }
+      int ownerIndex = classInfo(owner);
+      int nameAndType = nameAndType(name, descriptor);
+      out.writeByte(CONSTANT_METHODREF);
+      out.writeShort(ownerIndex);
+      out.writeShort(nameAndType);
+      return add(key);
+    }
+
+    private int nameAndType(String name, String descriptor) throws IOException {
+      Integer index = indexes.get("N" + name + descriptor);
+      if (index != null) {
+        return index;
+      }
+      int nameIndex = utf8(name);
+      int descriptorIndex = utf8(descriptor);
+      out.writeByte(CONSTANT_NAME_AND_TYPE);
+      out.writeShort(nameIndex);
+      out.writeShort(descriptorIndex);
+      return add("N" + name + descriptor);
+    }
+
+    private int add(String key) {
+      int index = count++;
+      indexes.put(key, index);
+      return index;
+    }
+
+    void writeTo(DataOutputStream target) throws IOException {
+      out.flush();
+      target.writeShort(count);
+      bytes.writeTo(target);
+    }
+  }
+}
@@ -0,0 +1,47 @@
+package mapper.plan;
+
+/**
+ * Point in time snapshot of the MappingPlanCache statistics.
+ */
+public final class CacheStats {
+  private final long hitCount;
+  private final long missCount;
+  private final int size;
+
+  CacheStats(long hitCount, long missCount, int size) {
+    this.hitCount = hitCount;
+    this.missCount = missCount;
+    this.size = size;
+  }
+
+  public long getHitCount() {
+    return hitCount;
+  }
+
+  public long getMissCount() {
+    return missCount;
+  }
+
+  /**
+   * Number of the cached plans.
+   */
+  public int getSize() {
+    return size;
+  }
+
+  /**
+   * Ratio of the lookups which were served from the cache.
+   *
+   * @return a value between 0.0 and 1.0, 1.0 if there has not been any lookup yet.
+   */
+  public double getHitRate() {
+    long requestCount = hitCount + missCount;
+    return requestCount == 0 ? 1.0 : (double) hitCount / requestCount;
+  }
+
+  @Override
+  public String toString() {
+    return "CacheStats{hitCount=" + hitCount + ", missCount=" + missCount
+        + ", size=" + size + "}";
+  }
+}
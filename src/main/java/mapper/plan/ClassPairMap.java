@@ -0,0 +1,51 @@
+package mapper.plan;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+
+/**
+ * Thread-safe map keyed by a (source type, result type) pair.
+ * Values are kept in a map per source type, so a lookup
+ * does not allocate a key object.
+ *
+ * @param <V> value type.
+ */
+final class ClassPairMap<V> {
+
+  private final Map<Class<?>, Map<Class<?>, V>> values = new ConcurrentHashMap<>();
+
+  V get(Class<?> sourceType, Class<?> resultType) {
+    Map<Class<?>, V> resultValues = values.get(sourceType);
+    return resultValues == null ? null : resultValues.get(resultType);
+  }
+
+  /**
+   * Adds the given value if there is not any value for the type pair yet.
+   * Unlike computeIfAbsent, the value is created by the caller without holding a lock,
+   * so creating it does not block (or pin) other threads and may look up other pairs.
+   *
+   * @return the value which is in the map for the type pair.
+   */
+  V putIfAbsent(Class<?> sourceType, Class<?> resultType, V value) {
+    V existing = values.computeIfAbsent(sourceType, type -> new ConcurrentHashMap<>())
+        .putIfAbsent(resultType, value);
+    return existing == null ? value : existing;
+  }
+
+  void put(Class<?> sourceType, Class<?> resultType, V value) {
+    values.computeIfAbsent(sourceType, type -> new ConcurrentHashMap<>()).put(resultType, value);
+  }
+
+  int size() {
+    int size = 0;
+    for (Map<Class<?>, V> resultValues : values.values()) {
+      size += resultValues.size();
+    }
+    return size;
+  }
+
+  void clear() {
+    values.clear();
+  }
+}
@@ -0,0 +1,227 @@
+package mapper.plan;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import mapper.Mappable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Maps a list of sources into a ColumnarResult, a column per matched property
+ * of the result type, without instantiating a result object per row.
+ * The columns are the properties the MappingPlan of the first source's class writes;
+ * every property is read by the value handle of its PropertyMapping,
+ * which converts it the same way as mapping into an object does.
+ * Sources of other classes are read by the plan of their own class,
+ * a column their plan does not write keeps the default value (0 or null) in their rows.
+ */
+public final class ColumnarMapper {
+
+  private static final Logger logger = LoggerFactory.getLogger(ColumnarMapper.class);
+
+  private static final int defaultCapacity = 16;
+
+  private static final byte intColumn = 0;
+  private static final byte longColumn = 1;
+  private static final byte doubleColumn = 2;
+  private static final byte objectColumn = 3;
+
+  private final Class<?> resultType;
+  private final String[] names;
+  private final Class<?>[] types;
+  private final byte[] kinds;
+  private final Object[] columns;
+  private final Map<Class<?>, MethodHandle[]> handlesByType = new IdentityHashMap<>();
+  private Class<?> lastSourceType;
+  private MethodHandle[] lastHandles;
+  private boolean contextOpened;
+  private int capacity;
+  private int rowCount;
+
+  private ColumnarMapper(MappingPlan plan, int capacity) {
+    this.resultType = plan.getResultType();
+    this.capacity = capacity;
+    List<PropertyMapping> propertyMappings = plan.getPropertyMappings();
+    int size = propertyMappings.size();
+    names = new String[size];
+    types = new Class<?>[size];
+    kinds = new byte[size];
+    columns = new Object[size];
+    for (int i = 0; i < size; i++) {
+      PropertyMapping propertyMapping = propertyMappings.get(i);
+      names[i] = propertyMapping.getResultName();
+      types[i] = propertyMapping.getResultType();
+      if (types[i] == int.class) {
+        kinds[i] = intColumn;
+        columns[i] = new int[capacity];
+      } else if (types[i] == long.class) {
+        kinds[i] = longColumn;
+        columns[i] = new long[capacity];
+      } else if (types[i] == double.class) {
+        kinds[i] = doubleColumn;
+        columns[i] = new double[capacity];
+      } else {
+        kinds[i] = objectColumn;
+        columns[i] = new Object[capacity];
+      }
+    }
+  }
+
+  /**
+   * Maps the given sources into columns of the properties of resultType.
+   * The result type is not instantiated, so it does not need a no-arg constructor.
+   * A null source makes a row of default values.
+   *
+   * @param sources    the objects which's fields will be taken as map source.
+   * @param resultType the type which's properties the columns are made of.
+   * @return a ColumnarResult with a row per source, or null if sources is null.
+   */
+  public static ColumnarResult map(Iterable<? extends Mappable> sources, Class<?> resultType) {
+    if (sources == null) {
+      return null;
+    }
+    int capacity = sources instanceof Collection
+        ? ((Collection<?>) sources).size()
+        : defaultCapacity;
+    ColumnarMapper mapper = null;
+    int nullRows = 0;
+    try {
+      for (Mappable source : sources) {
+        if (mapper == null) {
+          if (source == null) {
+            nullRows++;
+            continue;
+          }
+          mapper = new ColumnarMapper(
+              MappingPlanCache.getPlan(source.getClass(), resultType), capacity);
+          mapper.rowCount = nullRows;
+        }
+        mapper.addRow(source);
+      }
+      if (mapper == null) {
+        return new ColumnarResult(resultType, nullRows, new String[0], new Class<?>[0],
+            new Object[0]);
+      }
+      return mapper.toResult();
+    } finally {
+      if (mapper != null && mapper.contextOpened) {
+        MappingContext.close();
+      }
+    }
+  }
+
+  private void addRow(Mappable source) {
+    if (rowCount >= capacity) {
+      grow();
+    }
+    if (source != null) {
+      MethodHandle[] handles = handles(source.getClass());
+      try {
+        readRow(source, handles);
+      } catch (RuntimeException | Error exception) {
+        throw exception;
+      } catch (Throwable throwable) {
+        throw new IllegalStateException(throwable);
+      }
+    }
+    rowCount++;
+  }
+
+  private void readRow(Mappable source, MethodHandle[] handles) throws Throwable {
+    int row = rowCount;
+    for (int i = 0; i < handles.length; i++) {
+      MethodHandle handle = handles[i];
+      if (handle == null) {
+        continue;
+      }
+      switch (kinds[i]) {
+        case intColumn:
+          ((int[]) columns[i])[row] = (int) handle.invokeExact((Object) source);
+          break;
+        case longColumn:
+          ((long[]) columns[i])[row] = (long) handle.invokeExact((Object) source);
+          break;
+        case doubleColumn:
+          ((double[]) columns[i])[row] = (double) handle.invokeExact((Object) source);
+          break;
+        default:
+          ((Object[]) columns[i])[row] = (Object) handle.invokeExact((Object) source);
+      }
+    }
+  }
+
+  /**
+   * Gets the value handles of the given source class, aligned to the columns.
+   * The handles of the last class are checked first, so a list of a single class
+   * does not look the map up.
+   */
+  private MethodHandle[] handles(Class<?> sourceType) {
+    if (sourceType == lastSourceType) {
+      return lastHandles;
+    }
+    MethodHandle[] handles = handlesByType.get(sourceType);
+    if (handles == null) {
+      MappingPlan plan = MappingPlanCache.getPlan(sourceType, resultType);
+      handles = new MethodHandle[names.length];
+      for (PropertyMapping propertyMapping : plan.getPropertyMappings()) {
+        int index = Arrays.asList(names).indexOf(propertyMapping.getResultName());
+        if (index < 0) {
+          continue;
+        }
+        try {
+          MethodHandle handle = propertyMapping.getValueHandle();
+          handles[index] = kinds[index] == objectColumn
+              ? handle.asType(MethodType.methodType(Object.class, Object.class))
+              : handle;
+        } catch (IllegalAccessException e) {
+          logger.debug("Field '{}' can not be accessed directly. {}",
+              propertyMapping.getName(), e);
+        }
+      }
+      if (plan.hasNestedMappings() && !contextOpened && MappingContext.current() == null) {
+        MappingContext.open(MappingEngine.DEFAULT);
+        contextOpened = true;
+      }
+      handlesByType.put(sourceType, handles);
+    }
+    lastSourceType = sourceType;
+    lastHandles = handles;
+    return handles;
+  }
+
+  private void grow() {
+    capacity = Math.max(Math.max(defaultCapacity, capacity * 2), rowCount + 1);
+    for (int i = 0; i < columns.length; i++) {
+      columns[i] = resize(columns[i], capacity);
+    }
+  }
+
+  private ColumnarResult toResult() {
+    if (capacity != rowCount) {
+      for (int i = 0; i < columns.length; i++) {
+        columns[i] = resize(columns[i], rowCount);
+      }
+    }
+    return new ColumnarResult(resultType, rowCount, names, types, columns);
+  }
+
+  private static Object resize(Object column, int length) {
+    if (column instanceof int[]) {
+      return Arrays.copyOf((int[]) column, length);
+    }
+    if (column instanceof long[]) {
+      return Arrays.copyOf((long[]) column, length);
+    }
+    if (column instanceof double[]) {
+      return Arrays.copyOf((double[]) column, length);
+    }
+    return Arrays.copyOf((Object[]) column, length);
+  }
+}
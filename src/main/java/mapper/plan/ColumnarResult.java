@@ -0,0 +1,144 @@
+package mapper.plan;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * The result of mapping a list of sources into columns instead of result objects.
+ * There is a column per property of the result type which the sources are mapped to,
+ * holding the value of every row: an int[], long[] or double[] for int, long and double
+ * properties, an Object[] for the others, with primitives of other types boxed.
+ * The arrays are exactly getRowCount long and are not copied when they are returned.
+ */
+public final class ColumnarResult {
+
+  private final Class<?> resultType;
+  private final int rowCount;
+  private final List<String> columnNames;
+  private final Class<?>[] columnTypes;
+  private final Object[] columns;
+  private final Map<String, Integer> indexes;
+
+  ColumnarResult(Class<?> resultType, int rowCount, String[] columnNames,
+      Class<?>[] columnTypes, Object[] columns) {
+    this.resultType = resultType;
+    this.rowCount = rowCount;
+    this.columnNames = Collections.unmodifiableList(Arrays.asList(columnNames));
+    this.columnTypes = columnTypes;
+    this.columns = columns;
+    this.indexes = new HashMap<>(columnNames.length * 4 / 3 + 1);
+    for (int i = 0; i < columnNames.length; i++) {
+      indexes.put(columnNames[i], i);
+    }
+  }
+
+  public Class<?> getResultType() {
+    return resultType;
+  }
+
+  public int getRowCount() {
+    return rowCount;
+  }
+
+  /**
+   * Names of the columns, which are the names of the result type's properties.
+   *
+   * @return an unmodifiable list of the names, in the order of the mapping plan.
+   */
+  public List<String> getColumnNames() {
+    return columnNames;
+  }
+
+  /**
+   * Gets the type of the result property the given column holds.
+   *
+   * @param name name of the column.
+   * @return the type of the property, e.g. int.class for an int[] column.
+   * @throws IllegalArgumentException when there is not such a column.
+   */
+  public Class<?> getColumnType(String name) {
+    return columnTypes[indexOf(name)];
+  }
+
+  /**
+   * Gets the values of the given column.
+   *
+   * @param name name of the column.
+   * @return an int[], long[], double[] or Object[].
+   * @throws IllegalArgumentException when there is not such a column.
+   */
+  public Object getColumn(String name) {
+    return columns[indexOf(name)];
+  }
+
+  /**
+   * Gets the values of the given int column.
+   *
+   * @param name name of the column.
+   * @return the values of the column.
+   * @throws IllegalArgumentException when there is not such an int column.
+   */
+  public int[] getIntColumn(String name) {
+    return column(name, int[].class);
+  }
+
+  /**
+   * Gets the values of the given long column.
+   *
+   * @param name name of the column.
+   * @return the values of the column.
+   * @throws IllegalArgumentException when there is not such a long column.
+   */
+  public long[] getLongColumn(String name) {
+    return column(name, long[].class);
+  }
+
+  /**
+   * Gets the values of the given double column.
+   *
+   * @param name name of the column.
+   * @return the values of the column.
+   * @throws IllegalArgumentException when there is not such a double column.
+   */
+  public double[] getDoubleColumn(String name) {
+    return column(name, double[].class);
+  }
+
+  /**
+   * Gets the values of the given column of a type other than int, long and double.
+   *
+   * @param name name of the column.
+   * @return the values of the column.
+   * @throws IllegalArgumentException when there is not such an Object column.
+   */
+  public Object[] getObjectColumn(String name) {
+    return column(name, Object[].class);
+  }
+
+  private <T> T column(String name, Class<T> arrayType) {
+    Object column = getColumn(name);
+    if (column.getClass() != arrayType) {
+      throw new IllegalArgumentException("Column '" + name + "' is a "
+          + column.getClass().getComponentType().getName() + " column.");
+    }
+    return arrayType.cast(column);
+  }
+
+  private int indexOf(String name) {
+    Integer index = indexes.get(name);
+    if (index == null) {
+      throw new IllegalArgumentException("There is not a column named '" + name + "'.");
+    }
+    return index;
+  }
+
+  @Override
+  public String toString() {
+    return "ColumnarResult{" + resultType.getName() + ", " + rowCount + " rows, "
+        + columnNames + "}";
+  }
+}
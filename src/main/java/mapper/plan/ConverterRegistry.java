@@ -0,0 +1,143 @@
+package mapper.plan;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+
+/**
+ * Conversions between field types which are not identical.
+ * A field of the source type is mapped to the result field with the same name
+ * if its value can be converted to the type of the result field.
+ * Built-in conversions are the primitive widenings (e.g. int to long),
+ * boxing (int to Integer) and unboxing (Integer to int, or to a wider primitive);
+ * they are done by the MethodHandle which copies the property, without allocating.
+ * A null value is not unboxed, the primitive result field is left unchanged instead.
+ * Other conversions (e.g. Instant to long) can be registered as Functions.
+ * Conversions are resolved once, when the MappingPlan of a type pair is built.
+ */
+public final class ConverterRegistry {
+
+  private static final MethodHandle functionApply;
+
+  private static final Map<Class<?>, Class<?>> wrappers = new HashMap<>();
+
+  private static final ClassPairMap<MethodHandle> converters = new ClassPairMap<>();
+
+  static {
+    wrappers.put(boolean.class, Boolean.class);
+    wrappers.put(byte.class, Byte.class);
+    wrappers.put(short.class, Short.class);
+    wrappers.put(char.class, Character.class);
+    wrappers.put(int.class, Integer.class);
+    wrappers.put(long.class, Long.class);
+    wrappers.put(float.class, Float.class);
+    wrappers.put(double.class, Double.class);
+    try {
+      functionApply = MethodHandles.publicLookup().findVirtual(Function.class, "apply",
+          MethodType.methodType(Object.class, Object.class));
+    } catch (ReflectiveOperationException e) {
+      throw new ExceptionInInitializerError(e);
+    }
+  }
+
+  private ConverterRegistry() {
+  }
+
+  /**
+   * Registers a conversion from sourceType to resultType,
+   * which replaces the registered or built-in conversion between them, if any.
+   * The cached plans are removed, so that they are built again with the conversion.
+   *
+   * @param sourceType the type of the source fields.
+   * @param resultType the type of the result fields.
+   * @param converter  converts a value of sourceType, it is given null values too.
+   * @param <S>        source field type, the wrapper type if sourceType is primitive.
+   * @param <T>        result field type, the wrapper type if resultType is primitive.
+   */
+  public static <S, T> void register(Class<S> sourceType, Class<T> resultType,
+      Function<? super S, ? extends T> converter) {
+    if (converter == null) {
+      throw new IllegalArgumentException("converter must not be null");
+    }
+    converters.put(sourceType, resultType, functionApply.bindTo(converter));
+    MappingPlanCache.clearPlans();
+  }
+
+  /**
+   * Removes all registered conversions, the built-in ones are kept.
+   */
+  public static void clear() {
+    converters.clear();
+    MappingPlanCache.clearPlans();
+  }
+
+  /**
+   * Whether a value of sourceType can be mapped to a field of resultType.
+   *
+   * @param sourceType the type of the source field.
+   * @param resultType the type of the result field.
+   * @return true if the types are identical or there is a registered or built-in conversion.
+   */
+  public static boolean canConvert(Class<?> sourceType, Class<?> resultType) {
+    return sourceType == resultType
+        || converters.get(sourceType, resultType) != null
+        || isBuiltIn(sourceType, resultType);
+  }
+
+  /**
+   * Gets the registered conversion between the given types.
+   *
+   * @return an (Object)Object handle calling the registered Function,
+   *         or null if the conversion is built-in or there is not any.
+   */
+  static MethodHandle find(Class<?> sourceType, Class<?> resultType) {
+    return converters.get(sourceType, resultType);
+  }
+
+  private static boolean isBuiltIn(Class<?> sourceType, Class<?> resultType) {
+    if (sourceType.isPrimitive() && resultType.isPrimitive()) {
+      return isWidening(sourceType, resultType);
+    }
+    if (sourceType.isPrimitive()) {
+      return wrappers.get(sourceType) == resultType;
+    }
+    if (resultType.isPrimitive()) {
+      Class<?> unboxedType = unwrap(sourceType);
+      return unboxedType == resultType
+          || unboxedType != null && isWidening(unboxedType, resultType);
+    }
+    return false;
+  }
+
+  private static Class<?> unwrap(Class<?> type) {
+    for (Map.Entry<Class<?>, Class<?>> wrapper : wrappers.entrySet()) {
+      if (wrapper.getValue() == type) {
+        return wrapper.getKey();
+      }
+    }
+    return null;
+  }
+
+  private static boolean isWidening(Class<?> sourceType, Class<?> resultType) {
+    if (sourceType == byte.class) {
+      return resultType == short.class || isWidening(short.class, resultType);
+    }
+    if (sourceType == short.class || sourceType == char.class) {
+      return resultType == int.class || isWidening(int.class, resultType);
+    }
+    if (sourceType == int.class) {
+      return resultType == long.class || resultType == float.class || resultType == double.class;
+    }
+    if (sourceType == long.class) {
+      return resultType == float.class || resultType == double.class;
+    }
+    if (sourceType == float.class) {
+      return resultType == double.class;
+    }
+    return false;
+  }
+}
@@ -0,0 +1,15 @@
+package mapper.plan;
+
+/**
+ * Copies the matched properties of a MappingPlan from a source object to a result object.
+ * Every MappingEngine compiles a plan into a Copier of its own.
+ */
+interface Copier {
+
+  /**
+   * Copies the properties, a property which fails is skipped.
+   *
+   * @return the number of the properties which failed.
+   */
+  int copy(Object source, Object result);
+}
@@ -0,0 +1,50 @@
+package mapper.plan;
+
+import mapper.Mappable;
+import mapper.exception.ResultTypeInstantiationException;
+
+
+/**
+ * Mapper implementation generated at compile time for a source/result type pair
+ * declared with GenerateMapper.
+ * Implementations are listed in META-INF/services and loaded by GeneratedMapperRegistry.
+ *
+ * @param <SourceT> source object's type.
+ * @param <ResultT> result object's type.
+ */
+public interface GeneratedMapper<SourceT extends Mappable, ResultT extends Mappable> {
+
+  Class<SourceT> getSourceType();
+
+  Class<ResultT> getResultType();
+
+  /**
+   * Instantiates a new result object.
+   *
+   * @return a new object of the result type.
+   * @throws ResultTypeInstantiationException throws this when the result type
+   *                                          does not have a public no-args constructor.
+   */
+  ResultT newResult() throws ResultTypeInstantiationException;
+
+  void map(SourceT source, ResultT result);
+
+  /**
+   * Number of the properties which map copies, recorded to the MappingMetrics
+   * as the copied fields of every mapping.
+   *
+   * @return the number of getter/setter calls of map.
+   */
+  int getPropertyCount();
+
+  /**
+   * Whether the mapper maps the same properties as the MappingPlan of its type pair.
+   * A generated mapper is not applicable once a converter is registered
+   * between the types of two fields of the same name which it does not map.
+   *
+   * @return false if the MappingPlan must be used instead.
+   */
+  default boolean isApplicable() {
+    return true;
+  }
+}
@@ -0,0 +1,56 @@
+package mapper.plan;
+
+import java.util.ServiceLoader;
+
+import mapper.Mappable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Registry of the GeneratedMappers, keyed by (source type, result type) pair.
+ * The mappers generated by mapper-processor are loaded once through ServiceLoader,
+ * others can be added with register.
+ */
+public final class GeneratedMapperRegistry {
+
+  private static final Logger logger = LoggerFactory.getLogger(GeneratedMapperRegistry.class);
+
+  private static final ClassPairMap<GeneratedMapper<?, ?>> mappers = new ClassPairMap<>();
+
+  static {
+    for (GeneratedMapper<?, ?> mapper : ServiceLoader.load(GeneratedMapper.class)) {
+      register(mapper);
+    }
+  }
+
+  private GeneratedMapperRegistry() {
+  }
+
+  /**
+   * Adds the given mapper to the registry.
+   * Replaces the mapper registered for the same type pair, if any.
+   *
+   * @param mapper the mapper which will be used for its type pair.
+   */
+  public static void register(GeneratedMapper<?, ?> mapper) {
+    logger.debug("Registered generated mapper {}.", mapper.getClass().getName());
+    mappers.put(mapper.getSourceType(), mapper.getResultType(), mapper);
+  }
+
+  /**
+   * Finds the mapper of the given type pair.
+   *
+   * @param sourceType the type of the source object.
+   * @param resultType the type of the result object.
+   * @param <ResultT>  result object's type.
+   * @return the registered mapper, or null if there is not any or it is not applicable.
+   */
+  @SuppressWarnings("unchecked")
+  public static <ResultT extends Mappable> GeneratedMapper<Mappable, ResultT>
+      find(Class<?> sourceType, Class<ResultT> resultType) {
+    GeneratedMapper<Mappable, ResultT> mapper =
+        (GeneratedMapper<Mappable, ResultT>) mappers.get(sourceType, resultType);
+    return mapper == null || !mapper.isApplicable() ? null : mapper;
+  }
+}
@@ -0,0 +1,53 @@
+package mapper.plan;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+
+/**
+ * State of a single mapping call which maps nested Mappable objects.
+ * It keeps the result of every source object mapped so far, by identity and result type,
+ * so an object referenced twice in the graph is mapped once
+ * and a cycle in the source graph becomes the same cycle in the result graph.
+ * The context is opened by the outermost plan with nested properties
+ * and is bound to the mapping thread until that plan finishes.
+ */
+final class MappingContext {
+
+  private static final ThreadLocal<MappingContext> current = new ThreadLocal<>();
+
+  private final MappingEngine engine;
+  private final Map<Class<?>, Map<Object, Object>> results = new HashMap<>();
+
+  private MappingContext(MappingEngine engine) {
+    this.engine = engine;
+  }
+
+  static MappingContext current() {
+    return current.get();
+  }
+
+  static MappingContext open(MappingEngine engine) {
+    MappingContext context = new MappingContext(engine);
+    current.set(context);
+    return context;
+  }
+
+  static void close() {
+    current.remove();
+  }
+
+  MappingEngine getEngine() {
+    return engine;
+  }
+
+  Object getResult(Object source, Class<?> resultType) {
+    Map<Object, Object> typeResults = results.get(resultType);
+    return typeResults == null ? null : typeResults.get(source);
+  }
+
+  void putResult(Object source, Class<?> resultType, Object result) {
+    results.computeIfAbsent(resultType, type -> new IdentityHashMap<>()).put(source, result);
+  }
+}
@@ -0,0 +1,71 @@
+package mapper.plan;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * The ways of running a MappingPlan.
+ * Each engine compiles a plan once, the compiled form is kept in the plan.
+ */
+public enum MappingEngine {
+
+  /**
+   * Calls the getters and setters through Method.invoke,
+   * except for primitive properties, which are copied through MethodHandles
+   * of their own types so that their values are not boxed.
+   * Works for every type pair and is the fallback of the other engines.
+   */
+  REFLECTION {
+    @Override
+    Copier compile(MappingPlan plan) {
+      return plan::copyReflectively;
+    }
+  },
+
+  /**
+   * Calls the getters and setters through Functions and BiConsumers
+   * made by LambdaMetafactory, cached per method.
+   * Useful where class generation is restricted.
+   * Falls back to REFLECTION when a getter or setter is not accessible.
+   */
+  METHOD_HANDLE {
+    @Override
+    Copier compile(MappingPlan plan) {
+      try {
+        return MethodHandleAccessors.compile(plan);
+      } catch (IllegalAccessException e) {
+        logger.debug("Can not create accessors for {}. {}", plan, e);
+      }
+      return REFLECTION.compile(plan);
+    }
+  },
+
+  /**
+   * Generates a dedicated hidden class per type pair at runtime,
+   * which maps with straight-line result.setX(source.getX()) calls.
+   * Falls back to REFLECTION when the types can not be linked from a generated class,
+   * e.g. when they are not public or are loaded by another class loader,
+   * or when a field is accessed directly or converted.
+   */
+  BYTECODE {
+    @Override
+    Copier compile(MappingPlan plan) {
+      try {
+        Copier copier = BytecodeCopierGenerator.generate(plan);
+        if (copier != null) {
+          return copier;
+        }
+      } catch (Exception | LinkageError e) {
+        logger.debug("Can not generate a mapper class for {}. {}", plan, e);
+      }
+      return REFLECTION.compile(plan);
+    }
+  };
+
+  private static final Logger logger = LoggerFactory.getLogger(MappingEngine.class);
+
+  public static final MappingEngine DEFAULT = REFLECTION;
+
+  abstract Copier compile(MappingPlan plan);
+}
@@ -0,0 +1,299 @@
+package mapper.plan;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import mapper.util.ClassMetadata;
+import mapper.util.StringUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Compiled mapping from a source type to a result type.
+ * It is the ordered list of the matched getter/setter pairs, resolved once
+ * so that mapping an object only runs the plan.
+ * Plans are immutable and can be shared between threads.
+ */
+public final class MappingPlan {
+
+  private static final Logger logger = LoggerFactory.getLogger(MappingPlan.class);
+
+  private final Class<?> sourceType;
+  private final Class<?> resultType;
+  private final List<PropertyMapping> propertyMappings;
+  private final int skippedFieldCount;
+  private final boolean hasNestedMappings;
+  private final AtomicReferenceArray<Copier> copiers =
+      new AtomicReferenceArray<>(MappingEngine.values().length);
+
+  private MappingPlan(Class<?> sourceType, Class<?> resultType,
+      List<PropertyMapping> propertyMappings, int skippedFieldCount,
+      boolean hasNestedMappings) {
+    this.sourceType = sourceType;
+    this.resultType = resultType;
+    this.propertyMappings = Collections.unmodifiableList(propertyMappings);
+    this.skippedFieldCount = skippedFieldCount;
+    this.hasNestedMappings = hasNestedMappings;
+  }
+
+  /**
+   * Resolves the fields of the given types and matches them by name and by type.
+   * Names are matched by the NameMatching of the types, through an index of the result type.
+   * A field whose type differs is matched if ConverterRegistry can convert its value,
+   * or if both are Mappable types (or collections or arrays of them),
+   * which are then mapped by their own plan.
+   * A matched field is added to the plan only if it can be read from the source type
+   * and written to the result type by their AccessStrategy: by default
+   * the source type must have a public getter and the result type a public setter for it.
+   *
+   * @param sourceType the type which's fields will be taken as map source.
+   * @param resultType the type which's fields will be taken as map target.
+   * @return a new MappingPlan.
+   */
+  static MappingPlan build(Class<?> sourceType, Class<?> resultType) {
+    List<Field> sourceFields = ClassMetadata.of(sourceType).getFields();
+
+    logger.debug("Found fields in the source type: {}", sourceFields);
+
+    ClassMetadata resultMetadata = ClassMetadata.of(resultType);
+
+    logger.debug("Found fields in the result type: {}", resultMetadata.getFields());
+
+    NameMatching nameMatching = NameMatching.of(sourceType, resultType);
+
+    AccessStrategy sourceAccess = AccessStrategy.of(sourceType);
+    AccessStrategy resultAccess = AccessStrategy.of(resultType);
+
+    List<PropertyMapping> propertyMappings = new ArrayList<>();
+    int skippedFieldCount = 0;
+    boolean hasNestedMappings = false;
+    for (Field sourceField : sourceFields) {
+      String sourceFieldName = sourceField.getName();
+      Class<?> sourceFieldType = sourceField.getType();
+
+      Field resultField =
+          resultMetadata.getField(nameMatching.normalize(sourceFieldName), nameMatching);
+      if (resultField == null) {
+        continue;
+      }
+      Class<?> resultFieldType = resultField.getType();
+
+      MethodHandle converter = sourceFieldType == resultFieldType
+          ? null
+          : ConverterRegistry.find(sourceFieldType, resultFieldType);
+      NestedMapping nestedMapping = converter == null
+          ? NestedMapping.of(sourceField, resultField)
+          : null;
+      if (nestedMapping != null) {
+        converter = nestedMapping.getHandle();
+      } else if (converter == null
+          && !ConverterRegistry.canConvert(sourceFieldType, resultFieldType)) {
+        continue;
+      }
+
+      Method sourceGetMethod = null;
+      if (sourceAccess.usesMethods()) {
+        sourceGetMethod = findAccessor(sourceType, nameMatching, "get", sourceFieldName);
+        if (sourceGetMethod == null) {
+          if (!sourceAccess.usesFields()) {
+            logger.debug("Field '{} {}' does not have a getter method.",
+                sourceType.getName(), sourceFieldName);
+            skippedFieldCount++;
+            continue;
+          }
+        }
+      }
+      if (sourceGetMethod == null && Modifier.isStatic(sourceField.getModifiers())) {
+        continue;
+      }
+
+      Method resultSetMethod = null;
+      if (resultAccess.usesMethods()) {
+        resultSetMethod = findAccessor(resultType, nameMatching, "set", resultField.getName(),
+            resultFieldType);
+        if (resultSetMethod == null) {
+          if (!resultAccess.usesFields()) {
+            logger.debug("Field '{} {}' does not have a setter method.",
+                resultType.getName(), resultField.getName());
+            skippedFieldCount++;
+            continue;
+          }
+        }
+      }
+      if (resultSetMethod == null && (Modifier.isStatic(resultField.getModifiers())
+          || Modifier.isFinal(resultField.getModifiers()))) {
+        continue;
+      }
+
+      try {
+        propertyMappings.add(new PropertyMapping(sourceFieldName, sourceFieldType,
+            sourceGetMethod, resultSetMethod, sourceField, resultField,
+            converter));
+        hasNestedMappings |= nestedMapping != null;
+      } catch (IllegalAccessException e) {
+        logger.debug("Field '{}' can not be accessed directly. {}", sourceFieldName, e);
+        skippedFieldCount++;
+      }
+    }
+
+    MappingPlan plan = new MappingPlan(sourceType, resultType, propertyMappings,
+        skippedFieldCount, hasNestedMappings);
+    logger.debug("Built {}", plan);
+    return plan;
+  }
+
+  /**
+   * Finds the public accessor of the given field, e.g. getFirstName for firstName.
+   * With RELAXED name matching, which matches snake_case names to camelCase names,
+   * getFirstName is the accessor of first_name too.
+   */
+  private static Method findAccessor(Class<?> type, NameMatching nameMatching, String prefix,
+      String fieldName, Class<?>... parameterTypes) {
+    String capitalized = StringUtil.capitalizeFirstLetter(fieldName);
+    try {
+      return type.getMethod(prefix + capitalized, parameterTypes);
+    } catch (NoSuchMethodException e) {
+      String camelCase = StringUtil.snakeToCamelCase(fieldName);
+      if (nameMatching != NameMatching.RELAXED || camelCase.equals(fieldName)) {
+        return null;
+      }
+      try {
+        return type.getMethod(prefix + StringUtil.capitalizeFirstLetter(camelCase),
+            parameterTypes);
+      } catch (NoSuchMethodException ignored) {
+        return null;
+      }
+    }
+  }
+
+  public Class<?> getSourceType() {
+    return sourceType;
+  }
+
+  public Class<?> getResultType() {
+    return resultType;
+  }
+
+  public List<PropertyMapping> getPropertyMappings() {
+    return propertyMappings;
+  }
+
+  /**
+   * Number of the fields which are matched by name and by type,
+   * but are not mapped because the source type does not have a getter
+   * or the result type does not have a setter for them.
+   */
+  public int getSkippedFieldCount() {
+    return skippedFieldCount;
+  }
+
+  /**
+   * Whether a property of the plan is mapped as a nested Mappable object.
+   */
+  public boolean hasNestedMappings() {
+    return hasNestedMappings;
+  }
+
+  /**
+   * Copies every matched property from source to result
+   * using the default MappingEngine.
+   *
+   * @param source    the object which's fields will be taken as map source.
+   * @param result    the object which's fields will be taken as map target.
+   * @param <ResultT> result object's type.
+   * @return the given result object.
+   */
+  public <ResultT> ResultT execute(Object source, ResultT result) {
+    return execute(source, result, MappingEngine.DEFAULT);
+  }
+
+  /**
+   * Copies every matched property from source to result using the given engine.
+   * The plan is compiled by the engine on first use; an engine which can not compile it
+   * (e.g. against a class of another class loader) compiles the REFLECTION copier instead.
+   * Every engine copies the properties one by one: a property which fails is logged
+   * and skipped, the other properties are still copied, each of them once.
+   * Nested Mappable objects are mapped in the same call, once per source object,
+   * so shared references and cycles of the source graph are kept in the result graph.
+   *
+   * @param source    the object which's fields will be taken as map source.
+   * @param result    the object which's fields will be taken as map target.
+   * @param engine    the engine which will run the plan.
+   * @param <ResultT> result object's type.
+   * @return the given result object.
+   */
+  public <ResultT> ResultT execute(Object source, ResultT result, MappingEngine engine) {
+    copyProperties(source, result, engine);
+    return result;
+  }
+
+  /**
+   * Copies every matched property from source to result using the given engine,
+   * the same way execute does, and counts the properties which are copied.
+   *
+   * @param source the object which's fields will be taken as map source.
+   * @param result the object which's fields will be taken as map target.
+   * @param engine the engine which will run the plan.
+   * @return the number of the properties which are copied,
+   *         the properties which failed and are skipped are not counted.
+   */
+  public int copyProperties(Object source, Object result, MappingEngine engine) {
+    if (hasNestedMappings && MappingContext.current() == null) {
+      MappingContext context = MappingContext.open(engine);
+      try {
+        context.putResult(source, resultType, result);
+        return propertyMappings.size() - copy(source, result, engine);
+      } finally {
+        MappingContext.close();
+      }
+    }
+    return propertyMappings.size() - copy(source, result, engine);
+  }
+
+  /**
+   * Copies the properties in the current MappingContext, if any.
+   *
+   * @return the number of the properties which failed.
+   */
+  int copy(Object source, Object result, MappingEngine engine) {
+    if (engine == MappingEngine.REFLECTION) {
+      return copyReflectively(source, result);
+    }
+    return getCopier(engine).copy(source, result);
+  }
+
+  int copyReflectively(Object source, Object result) {
+    int failed = 0;
+    for (int i = 0; i < propertyMappings.size(); i++) {
+      if (!propertyMappings.get(i).copy(source, result)) {
+        failed++;
+      }
+    }
+    return failed;
+  }
+
+  private Copier getCopier(MappingEngine engine) {
+    int index = engine.ordinal();
+    Copier copier = copiers.get(index);
+    if (copier == null) {
+      copier = engine.compile(this);
+      if (!copiers.compareAndSet(index, null, copier)) {
+        copier = copiers.get(index);
+      }
+    }
+    return copier;
+  }
+
+  @Override
+  public String toString() {
+    return "MappingPlan{" + sourceType.getName() + " -> " + resultType.getName()
+        + ", " + propertyMappings + "}";
+  }
+}
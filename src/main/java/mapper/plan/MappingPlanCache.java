@@ -0,0 +1,76 @@
+package mapper.plan;
+
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * Thread-safe cache of the MappingPlans, one per (source type, result type) pair.
+ * Lookups are lock-free, so the cache stays free of contention under many
+ * concurrent mappers (including virtual threads). Plans are built on first use
+ * without holding a lock; when threads race on a new pair, the first plan stored wins.
+ * The cache can be pre-warmed with warmUp and emptied with clear,
+ * e.g. when classes are reloaded.
+ */
+public final class MappingPlanCache {
+
+  private static final ClassPairMap<MappingPlan> plans = new ClassPairMap<>();
+  private static final LongAdder hitCount = new LongAdder();
+  private static final LongAdder missCount = new LongAdder();
+
+  private MappingPlanCache() {
+  }
+
+  /**
+   * Gets the plan of the given type pair, builds and caches it if it is not cached yet.
+   *
+   * @param sourceType the type which's fields will be taken as map source.
+   * @param resultType the type which's fields will be taken as map target.
+   * @return the MappingPlan of the given type pair.
+   */
+  public static MappingPlan getPlan(Class<?> sourceType, Class<?> resultType) {
+    MappingPlan plan = plans.get(sourceType, resultType);
+    if (plan != null) {
+      hitCount.increment();
+      return plan;
+    }
+    missCount.increment();
+    return plans.putIfAbsent(sourceType, resultType, MappingPlan.build(sourceType, resultType));
+  }
+
+  /**
+   * Builds and caches the plan of the given type pair ahead of the first mapping.
+   * Does not change the hit and miss counts.
+   *
+   * @param sourceType the type which's fields will be taken as map source.
+   * @param resultType the type which's fields will be taken as map target.
+   * @return the MappingPlan of the given type pair.
+   */
+  public static MappingPlan warmUp(Class<?> sourceType, Class<?> resultType) {
+    MappingPlan plan = plans.get(sourceType, resultType);
+    if (plan != null) {
+      return plan;
+    }
+    return plans.putIfAbsent(sourceType, resultType, MappingPlan.build(sourceType, resultType));
+  }
+
+  /**
+   * Removes all cached plans and accessors and resets the statistics.
+   */
+  public static void clear() {
+    plans.clear();
+    MethodHandleAccessors.clear();
+    hitCount.reset();
+    missCount.reset();
+  }
+
+  /**
+   * Removes all cached plans, e.g. when the conversions they are built with change.
+   */
+  static void clearPlans() {
+    plans.clear();
+  }
+
+  public static CacheStats getStats() {
+    return new CacheStats(hitCount.sum(), missCount.sum(), plans.size());
+  }
+}
@@ -0,0 +1,343 @@
+package mapper.plan;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.ObjDoubleConsumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ObjLongConsumer;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+
+/**
+ * Turns getters into Functions and setters into BiConsumers
+ * made by LambdaMetafactory, which are called without
+ * Method.invoke's varargs array and access checks.
+ * Properties of a primitive type get primitive-specialized accessors
+ * (e.g. ToIntFunction and ObjIntConsumer), so they are copied without boxing.
+ * When LambdaMetafactory can not be used, e.g. for a class of a child class loader,
+ * a MethodHandle is wrapped instead.
+ * Properties which access a field directly or are converted are copied by their MethodHandle.
+ * Accessors are cached per method, so the plans which share a class
+ * (e.g. a child class and its super class) share its accessors too.
+ */
+final class MethodHandleAccessors {
+
+  private static final MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+  private static final MethodType getterSamType =
+      MethodType.methodType(Object.class, Object.class);
+  private static final MethodType setterSamType =
+      MethodType.methodType(void.class, Object.class, Object.class);
+
+  private static final Map<Class<?>, Map<Method, Object>> accessors = new ConcurrentHashMap<>();
+
+  private MethodHandleAccessors() {
+  }
+
+  /**
+   * Compiles the given plan into a Copier calling the cached accessors.
+   *
+   * @param plan the plan which will be compiled.
+   * @return a new Copier.
+   * @throws IllegalAccessException when one of the getters or setters is not accessible.
+   */
+  static Copier compile(MappingPlan plan) throws IllegalAccessException {
+    int size = plan.getPropertyMappings().size();
+    Copier[] propertyCopiers = new Copier[size];
+    for (int i = 0; i < size; i++) {
+      PropertyMapping propertyMapping = plan.getPropertyMappings().get(i);
+      BiConsumer<Object, Object> copier = propertyMapping.getCopyHandle() != null
+          ? handleCopier(propertyMapping.getCopyHandle())
+          : propertyCopier(propertyMapping.getGetter(), propertyMapping.getSetter());
+      String name = propertyMapping.getName();
+      propertyCopiers[i] = (source, result) -> {
+        try {
+          copier.accept(source, result);
+          return 0;
+        } catch (RuntimeException e) {
+          PropertyMapping.copyFailed(e, name);
+          return 1;
+        }
+      };
+    }
+    return (source, result) -> {
+      int failed = 0;
+      for (Copier propertyCopier : propertyCopiers) {
+        failed += propertyCopier.copy(source, result);
+      }
+      return failed;
+    };
+  }
+
+  static Function<Object, Object> getter(Method method) throws IllegalAccessException {
+    Function<Object, Object> getter = accessor(method, Function.class, "apply", getterSamType);
+    if (getter == null) {
+      MethodHandle handle = lookup.unreflect(method).asType(getterSamType);
+      getter = object -> {
+        try {
+          return handle.invokeExact(object);
+        } catch (RuntimeException | Error exception) {
+          throw exception;
+        } catch (Throwable throwable) {
+          throw new IllegalStateException(throwable);
+        }
+      };
+    }
+    return getter;
+  }
+
+  static BiConsumer<Object, Object> setter(Method method) throws IllegalAccessException {
+    BiConsumer<Object, Object> setter =
+        accessor(method, BiConsumer.class, "accept", setterSamType);
+    if (setter == null) {
+      MethodHandle handle = lookup.unreflect(method).asType(setterSamType);
+      setter = (object, value) -> {
+        try {
+          handle.invokeExact(object, value);
+        } catch (RuntimeException | Error exception) {
+          throw exception;
+        } catch (Throwable throwable) {
+          throw new IllegalStateException(throwable);
+        }
+      };
+    }
+    return setter;
+  }
+
+  /**
+   * Removes all cached accessors.
+   */
+  static void clear() {
+    accessors.clear();
+  }
+
+  private static BiConsumer<Object, Object> propertyCopier(Method getterMethod, Method setterMethod)
+      throws IllegalAccessException {
+    Class<?> type = getterMethod.getReturnType();
+    if (type.isPrimitive() && type == setterMethod.getParameterTypes()[0]) {
+      BiConsumer<Object, Object> copier = primitiveCopier(type, getterMethod, setterMethod);
+      if (copier != null) {
+        return copier;
+      }
+    }
+    Function<Object, Object> getter = getter(getterMethod);
+    BiConsumer<Object, Object> setter = setter(setterMethod);
+    return (source, result) -> setter.accept(result, getter.apply(source));
+  }
+
+  private static BiConsumer<Object, Object> handleCopier(MethodHandle copyHandle) {
+    return (source, result) -> {
+      try {
+        copyHandle.invokeExact(source, result);
+      } catch (RuntimeException | Error exception) {
+        throw exception;
+      } catch (Throwable throwable) {
+        throw new IllegalStateException(throwable);
+      }
+    };
+  }
+
+  /**
+   * Creates a copier which moves the value of a primitive property without boxing.
+   *
+   * @return a new copier, or null if the accessors can not be made by LambdaMetafactory.
+   */
+  private static BiConsumer<Object, Object> primitiveCopier(Class<?> type, Method getterMethod,
+      Method setterMethod) throws IllegalAccessException {
+    if (type == int.class) {
+      ToIntFunction<Object> getter = primitiveGetter(getterMethod, ToIntFunction.class,
+          "applyAsInt");
+      ObjIntConsumer<Object> setter = primitiveSetter(setterMethod, ObjIntConsumer.class);
+      return getter == null || setter == null ? null
+          : (source, result) -> setter.accept(result, getter.applyAsInt(source));
+    }
+    if (type == long.class) {
+      ToLongFunction<Object> getter = primitiveGetter(getterMethod, ToLongFunction.class,
+          "applyAsLong");
+      ObjLongConsumer<Object> setter = primitiveSetter(setterMethod, ObjLongConsumer.class);
+      return getter == null || setter == null ? null
+          : (source, result) -> setter.accept(result, getter.applyAsLong(source));
+    }
+    if (type == double.class) {
+      ToDoubleFunction<Object> getter = primitiveGetter(getterMethod, ToDoubleFunction.class,
+          "applyAsDouble");
+      ObjDoubleConsumer<Object> setter = primitiveSetter(setterMethod, ObjDoubleConsumer.class);
+      return getter == null || setter == null ? null
+          : (source, result) -> setter.accept(result, getter.applyAsDouble(source));
+    }
+    if (type == boolean.class) {
+      BooleanGetter getter = primitiveGetter(getterMethod, BooleanGetter.class, "get");
+      BooleanSetter setter = primitiveSetter(setterMethod, BooleanSetter.class);
+      return getter == null || setter == null ? null
+          : (source, result) -> setter.accept(result, getter.get(source));
+    }
+    if (type == float.class) {
+      FloatGetter getter = primitiveGetter(getterMethod, FloatGetter.class, "get");
+      FloatSetter setter = primitiveSetter(setterMethod, FloatSetter.class);
+      return getter == null || setter == null ? null
+          : (source, result) -> setter.accept(result, getter.get(source));
+    }
+    if (type == char.class) {
+      CharGetter getter = primitiveGetter(getterMethod, CharGetter.class, "get");
+      CharSetter setter = primitiveSetter(setterMethod, CharSetter.class);
+      return getter == null || setter == null ? null
+          : (source, result) -> setter.accept(result, getter.get(source));
+    }
+    if (type == short.class) {
+      ShortGetter getter = primitiveGetter(getterMethod, ShortGetter.class, "get");
+      ShortSetter setter = primitiveSetter(setterMethod, ShortSetter.class);
+      return getter == null || setter == null ? null
+          : (source, result) -> setter.accept(result, getter.get(source));
+    }
+    if (type == byte.class) {
+      ByteGetter getter = primitiveGetter(getterMethod, ByteGetter.class, "get");
+      ByteSetter setter = primitiveSetter(setterMethod, ByteSetter.class);
+      return getter == null || setter == null ? null
+          : (source, result) -> setter.accept(result, getter.get(source));
+    }
+    return null;
+  }
+
+  private static <T> T primitiveGetter(Method method, Class<?> interfaceType, String name)
+      throws IllegalAccessException {
+    return accessor(method, interfaceType, name,
+        MethodType.methodType(method.getReturnType(), Object.class));
+  }
+
+  private static <T> T primitiveSetter(Method method, Class<?> interfaceType)
+      throws IllegalAccessException {
+    return accessor(method, interfaceType, "accept",
+        MethodType.methodType(void.class, Object.class, method.getParameterTypes()[0]));
+  }
+
+  /**
+   * Gets the cached accessor of the given method which implements the given interface,
+   * makes it by LambdaMetafactory if it is not cached yet.
+   *
+   * @return the accessor, or null if LambdaMetafactory can not be used for the method.
+   */
+  @SuppressWarnings("unchecked")
+  private static <T> T accessor(Method method, Class<?> interfaceType, String name,
+      MethodType samType) throws IllegalAccessException {
+    Map<Method, Object> interfaceAccessors =
+        accessors.computeIfAbsent(interfaceType, type -> new ConcurrentHashMap<>());
+    Object accessor = interfaceAccessors.get(method);
+    if (accessor == null) {
+      if (!isVisible(method)) {
+        return null;
+      }
+      accessor = metafactory(lookup.unreflect(method), interfaceType, name, samType);
+      if (accessor == null) {
+        return null;
+      }
+      interfaceAccessors.putIfAbsent(method, accessor);
+    }
+    return (T) accessor;
+  }
+
+  /**
+   * Whether the declaring class and the types of the given method can be resolved
+   * by the class loader of MethodHandleAccessors, which the lambdas are defined in.
+   * The methods of a class of a child class loader are called through a MethodHandle.
+   */
+  private static boolean isVisible(Method method) {
+    if (!isVisible(method.getDeclaringClass()) || !isVisible(method.getReturnType())) {
+      return false;
+    }
+    for (Class<?> parameterType : method.getParameterTypes()) {
+      if (!isVisible(parameterType)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean isVisible(Class<?> type) {
+    Class<?> elementType = type;
+    while (elementType.isArray()) {
+      elementType = elementType.getComponentType();
+    }
+    if (elementType.isPrimitive()) {
+      return true;
+    }
+    try {
+      ClassLoader classLoader = MethodHandleAccessors.class.getClassLoader();
+      return Class.forName(elementType.getName(), false, classLoader) == elementType;
+    } catch (ClassNotFoundException | LinkageError e) {
+      return false;
+    }
+  }
+
+  private static Object metafactory(MethodHandle handle, Class<?> interfaceType, String name,
+      MethodType samType) {
+    MethodType wrappedType = handle.type().wrap();
+    MethodType instantiatedType =
+        samType.changeParameterType(0, handle.type().parameterType(0));
+    for (int i = 1; i < samType.parameterCount(); i++) {
+      if (!samType.parameterType(i).isPrimitive()) {
+        instantiatedType = instantiatedType.changeParameterType(i, wrappedType.parameterType(i));
+      }
+    }
+    if (!samType.returnType().isPrimitive()) {
+      instantiatedType = instantiatedType.changeReturnType(wrappedType.returnType());
+    }
+    try {
+      CallSite callSite = LambdaMetafactory.metafactory(lookup, name,
+          MethodType.methodType(interfaceType), samType, handle, instantiatedType);
+      return callSite.getTarget().invoke();
+    } catch (Throwable e) {
+      return null;
+    }
+  }
+
+
+  interface BooleanGetter {
+    boolean get(Object object);
+  }
+
+  interface BooleanSetter {
+    void accept(Object object, boolean value);
+  }
+
+  interface FloatGetter {
+    float get(Object object);
+  }
+
+  interface FloatSetter {
+    void accept(Object object, float value);
+  }
+
+  interface CharGetter {
+    char get(Object object);
+  }
+
+  interface CharSetter {
+    void accept(Object object, char value);
+  }
+
+  interface ShortGetter {
+    short get(Object object);
+  }
+
+  interface ShortSetter {
+    void accept(Object object, short value);
+  }
+
+  interface ByteGetter {
+    byte get(Object object);
+  }
+
+  interface ByteSetter {
+    void accept(Object object, byte value);
+  }
+}
@@ -0,0 +1,75 @@
+package mapper.plan;
+
+import java.util.Locale;
+
+import mapper.MappingNames;
+
+
+/**
+ * The ways the fields of a source type are matched to the fields of a result type by name.
+ * The matching of a type pair is the more lenient of the ones declared
+ * with MappingNames on the two types.
+ * Names are normalized once, when the MappingPlan of a type pair is built,
+ * and looked up in a per-class index.
+ */
+public enum NameMatching {
+
+  /**
+   * Names must be equal.
+   */
+  EXACT,
+
+  /**
+   * Names must be equal ignoring case, e.g. userId and userID.
+   */
+  CASE_INSENSITIVE,
+
+  /**
+   * Names must be equal ignoring case and underscores,
+   * so snake_case names match camelCase names, e.g. first_name and firstName.
+   */
+  RELAXED;
+
+  public static final NameMatching DEFAULT = EXACT;
+
+  /**
+   * Gets the matching of the given type pair.
+   *
+   * @param sourceType the type which's fields will be taken as map source.
+   * @param resultType the type which's fields will be taken as map target.
+   * @return the more lenient of the matchings declared for the types, DEFAULT if none is.
+   */
+  public static NameMatching of(Class<?> sourceType, Class<?> resultType) {
+    NameMatching sourceMatching = of(sourceType);
+    NameMatching resultMatching = of(resultType);
+    return sourceMatching.compareTo(resultMatching) > 0 ? sourceMatching : resultMatching;
+  }
+
+  /**
+   * Gets the matching declared for the given type.
+   *
+   * @param type a source or result type.
+   * @return the matching of the MappingNames annotation of the type, or DEFAULT.
+   */
+  public static NameMatching of(Class<?> type) {
+    MappingNames mappingNames = type.getAnnotation(MappingNames.class);
+    return mappingNames == null ? DEFAULT : mappingNames.value();
+  }
+
+  /**
+   * Gets the key the given field name is matched by.
+   *
+   * @param name a field name.
+   * @return the name itself, or the name in lower case without underscores.
+   */
+  public String normalize(String name) {
+    switch (this) {
+      case CASE_INSENSITIVE:
+        return name.toLowerCase(Locale.ROOT);
+      case RELAXED:
+        return name.replace("_", "").toLowerCase(Locale.ROOT);
+      default:
+        return name;
+    }
+  }
+}
@@ -0,0 +1,233 @@
+package mapper.plan;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+
+import mapper.Mappable;
+import mapper.exception.ResultTypeInstantiationException;
+import mapper.util.Instantiator;
+
+
+/**
+ * Maps the value of a property whose source and result types are different Mappable types,
+ * or collections or arrays of them, by running the plan of the nested objects.
+ * It is resolved once when the plan of the outer type pair is built
+ * and is called through a MethodHandle, the same way as a registered conversion.
+ * The results are kept in the MappingContext of the mapping call.
+ */
+abstract class NestedMapping {
+
+  private static final MethodHandle mapHandle;
+
+  static {
+    try {
+      mapHandle = MethodHandles.lookup().findVirtual(NestedMapping.class, "map",
+          MethodType.methodType(Object.class, Object.class));
+    } catch (ReflectiveOperationException e) {
+      throw new ExceptionInInitializerError(e);
+    }
+  }
+
+  /**
+   * Resolves the nested mapping from the given source field to the given result field.
+   *
+   * @return the mapping, or null if the fields are not nested Mappables,
+   *         collections or arrays of them, or the result objects can not be instantiated.
+   */
+  static NestedMapping of(Field sourceField, Field resultField) {
+    Class<?> sourceType = sourceField.getType();
+    Class<?> resultType = resultField.getType();
+    if (sourceType.isArray() && resultType.isArray()) {
+      ObjectMapping elementMapping =
+          ObjectMapping.of(sourceType.getComponentType(), resultType.getComponentType());
+      return elementMapping == null ? null : new ArrayMapping(elementMapping);
+    }
+    if (Collection.class.isAssignableFrom(sourceType)
+        && Collection.class.isAssignableFrom(resultType)) {
+      Class<?> sourceElementType = getElementType(sourceField);
+      Class<?> resultElementType = getElementType(resultField);
+      if (sourceElementType == null || resultElementType == null) {
+        return null;
+      }
+      ObjectMapping elementMapping = ObjectMapping.of(sourceElementType, resultElementType);
+      Instantiator<?> collectionInstantiator = getCollectionInstantiator(resultType);
+      return elementMapping == null || collectionInstantiator == null
+          ? null
+          : new CollectionMapping(elementMapping, collectionInstantiator);
+    }
+    return ObjectMapping.of(sourceType, resultType);
+  }
+
+  /**
+   * Gets an (Object)Object handle calling map on this mapping.
+   */
+  MethodHandle getHandle() {
+    return mapHandle.bindTo(this);
+  }
+
+  /**
+   * Maps the given source value.
+   *
+   * @param source the value of the source field, may be null.
+   * @return the value of the result field, null if source is null.
+   */
+  abstract Object map(Object source);
+
+  private static Class<?> getElementType(Field field) {
+    Type genericType = field.getGenericType();
+    if (!(genericType instanceof ParameterizedType)) {
+      return null;
+    }
+    Type[] typeArguments = ((ParameterizedType) genericType).getActualTypeArguments();
+    return typeArguments.length == 1 && typeArguments[0] instanceof Class
+        ? (Class<?>) typeArguments[0]
+        : null;
+  }
+
+  private static Instantiator<?> getCollectionInstantiator(Class<?> collectionType) {
+    if (collectionType.isAssignableFrom(ArrayList.class)) {
+      return Instantiator.of(ArrayList.class);
+    }
+    if (collectionType.isAssignableFrom(LinkedHashSet.class)) {
+      return Instantiator.of(LinkedHashSet.class);
+    }
+    Instantiator<?> instantiator = Instantiator.of(collectionType);
+    return instantiator.isInstantiable() ? instantiator : null;
+  }
+
+  private static Object newInstance(Instantiator<?> instantiator) {
+    try {
+      return instantiator.newInstance();
+    } catch (ResultTypeInstantiationException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+
+  /**
+   * Maps a nested Mappable object through the plan of its class and the result type.
+   * The plan of the last mapped class is kept, so the objects of a homogeneous graph
+   * do not look up the plan cache.
+   */
+  static final class ObjectMapping extends NestedMapping {
+
+    private final Class<?> resultType;
+    private final Instantiator<?> instantiator;
+    private volatile MappingPlan lastPlan;
+
+    private ObjectMapping(Class<?> resultType, Instantiator<?> instantiator) {
+      this.resultType = resultType;
+      this.instantiator = instantiator;
+    }
+
+    static ObjectMapping of(Class<?> sourceType, Class<?> resultType) {
+      if (sourceType == resultType
+          || !Mappable.class.isAssignableFrom(sourceType)
+          || !Mappable.class.isAssignableFrom(resultType)
+          || Modifier.isAbstract(resultType.getModifiers())) {
+        return null;
+      }
+      Instantiator<?> instantiator = Instantiator.of(resultType);
+      return instantiator.isInstantiable() ? new ObjectMapping(resultType, instantiator) : null;
+    }
+
+    @Override
+    Object map(Object source) {
+      if (source == null) {
+        return null;
+      }
+      MappingContext context = MappingContext.current();
+      if (context == null) {
+        MappingContext.open(MappingEngine.DEFAULT);
+        try {
+          return map(source);
+        } finally {
+          MappingContext.close();
+        }
+      }
+      Object result = context.getResult(source, resultType);
+      if (result != null) {
+        return result;
+      }
+      result = newInstance(instantiator);
+      context.putResult(source, resultType, result);
+      getPlan(source.getClass()).copy(source, result, context.getEngine());
+      return result;
+    }
+
+    private MappingPlan getPlan(Class<?> sourceType) {
+      MappingPlan plan = lastPlan;
+      if (plan == null || plan.getSourceType() != sourceType) {
+        plan = MappingPlanCache.getPlan(sourceType, resultType);
+        lastPlan = plan;
+      }
+      return plan;
+    }
+  }
+
+  /**
+   * Maps the elements of a collection into a new collection of the result field's type.
+   */
+  static final class CollectionMapping extends NestedMapping {
+
+    private final ObjectMapping elementMapping;
+    private final Instantiator<?> collectionInstantiator;
+
+    private CollectionMapping(ObjectMapping elementMapping,
+        Instantiator<?> collectionInstantiator) {
+      this.elementMapping = elementMapping;
+      this.collectionInstantiator = collectionInstantiator;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    Object map(Object source) {
+      if (source == null) {
+        return null;
+      }
+      Collection<Object> results = (Collection<Object>) newInstance(collectionInstantiator);
+      if (results instanceof ArrayList) {
+        ((ArrayList<Object>) results).ensureCapacity(((Collection<?>) source).size());
+      }
+      for (Object element : (Collection<?>) source) {
+        results.add(elementMapping.map(element));
+      }
+      return results;
+    }
+  }
+
+  /**
+   * Maps the elements of an array into a new array of the result field's component type.
+   */
+  static final class ArrayMapping extends NestedMapping {
+
+    private final ObjectMapping elementMapping;
+
+    private ArrayMapping(ObjectMapping elementMapping) {
+      this.elementMapping = elementMapping;
+    }
+
+    @Override
+    Object map(Object source) {
+      if (source == null) {
+        return null;
+      }
+      int length = Array.getLength(source);
+      Object[] results = (Object[]) Array.newInstance(elementMapping.resultType, length);
+      Object[] sources = (Object[]) source;
+      for (int i = 0; i < length; i++) {
+        results[i] = elementMapping.map(sources[i]);
+      }
+      return results;
+    }
+  }
+}
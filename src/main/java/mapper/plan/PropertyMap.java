@@ -0,0 +1,157 @@
+package mapper.plan;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+
+/**
+ * A fixed-size map of the property values of an object, backed by a single array.
+ * The keys are the property names of the PropertyTable of the object's class,
+ * which is shared by every map of the class, so a map only holds its values.
+ * Values can be replaced, but keys can not be added or removed.
+ * It is a snapshot: it does not change when the object changes, and vice versa.
+ */
+public final class PropertyMap extends AbstractMap<String, Object> {
+
+  private final PropertyTable table;
+  private final Object[] values;
+  private Set<Map.Entry<String, Object>> entrySet;
+
+  PropertyMap(PropertyTable table, Object[] values) {
+    this.table = table;
+    this.values = values;
+  }
+
+  /**
+   * Gets the table which holds the keys of the map.
+   */
+  public PropertyTable getTable() {
+    return table;
+  }
+
+  Object[] getValues() {
+    return values;
+  }
+
+  @Override
+  public int size() {
+    return values.length;
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return table.indexOf(key) >= 0;
+  }
+
+  @Override
+  public Object get(Object key) {
+    int index = table.indexOf(key);
+    return index < 0 ? null : values[index];
+  }
+
+  /**
+   * Replaces the value of the given property.
+   *
+   * @throws IllegalArgumentException when the class does not have the property.
+   */
+  @Override
+  public Object put(String key, Object value) {
+    int index = table.indexOf(key);
+    if (index < 0) {
+      throw new IllegalArgumentException(
+          table.getType().getName() + " does not have the property '" + key + "'.");
+    }
+    Object previous = values[index];
+    values[index] = value;
+    return previous;
+  }
+
+  @Override
+  public Set<Map.Entry<String, Object>> entrySet() {
+    if (entrySet == null) {
+      entrySet = new EntrySet();
+    }
+    return entrySet;
+  }
+
+
+  private final class EntrySet extends AbstractSet<Map.Entry<String, Object>> {
+
+    @Override
+    public int size() {
+      return values.length;
+    }
+
+    @Override
+    public Iterator<Map.Entry<String, Object>> iterator() {
+      return new Iterator<Map.Entry<String, Object>>() {
+        private int index;
+
+        @Override
+        public boolean hasNext() {
+          return index < values.length;
+        }
+
+        @Override
+        public Map.Entry<String, Object> next() {
+          if (index >= values.length) {
+            throw new NoSuchElementException();
+          }
+          return new Entry(index++);
+        }
+      };
+    }
+  }
+
+
+  private final class Entry implements Map.Entry<String, Object> {
+
+    private final int index;
+
+    private Entry(int index) {
+      this.index = index;
+    }
+
+    @Override
+    public String getKey() {
+      return table.getName(index);
+    }
+
+    @Override
+    public Object getValue() {
+      return values[index];
+    }
+
+    @Override
+    public Object setValue(Object value) {
+      Object previous = values[index];
+      values[index] = value;
+      return previous;
+    }
+
+    @Override
+    public boolean equals(Object object) {
+      if (!(object instanceof Map.Entry)) {
+        return false;
+      }
+      Map.Entry<?, ?> entry = (Map.Entry<?, ?>) object;
+      return getKey().equals(entry.getKey())
+          && (values[index] == null ? entry.getValue() == null
+              : values[index].equals(entry.getValue()));
+    }
+
+    @Override
+    public int hashCode() {
+      return getKey().hashCode() ^ (values[index] == null ? 0 : values[index].hashCode());
+    }
+
+    @Override
+    public String toString() {
+      return getKey() + "=" + values[index];
+    }
+  }
+}
@@ -0,0 +1,326 @@
+package mapper.plan;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.VarHandle;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Objects;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * A single matched property of a MappingPlan.
+ * Holds the already resolved getter of the source type
+ * and the setter of the result type.
+ * When a side is accessed directly, its field is held instead of the method,
+ * and the property is copied by a single MethodHandle made of the VarHandles of the fields.
+ * A property which is converted to another type is copied by such a handle too,
+ * with the conversion between its reading and writing handles.
+ * A primitive property with a getter and a setter is copied reflectively
+ * through a handle of its own type as well, so that its value is not boxed.
+ */
+public final class PropertyMapping {
+
+  private static final Logger logger = LoggerFactory.getLogger(PropertyMapping.class);
+
+  private static final MethodHandle isNull;
+
+  static {
+    try {
+      isNull = MethodHandles.publicLookup().findStatic(Objects.class, "isNull",
+          MethodType.methodType(boolean.class, Object.class));
+    } catch (ReflectiveOperationException e) {
+      throw new ExceptionInInitializerError(e);
+    }
+  }
+
+  private final String name;
+  private final Class<?> type;
+  private final String resultName;
+  private final Class<?> resultType;
+  private final boolean converted;
+  private final Method getter;
+  private final Method setter;
+  private final Field sourceField;
+  private final Field resultField;
+  private final MethodHandle converter;
+  private final MethodHandle copyHandle;
+  private final MethodHandle primitiveCopyHandle;
+  private volatile MethodHandle valueHandle;
+
+  /**
+   * Creates a property which reads the given source field if getter is null
+   * and writes the given result field if setter is null.
+   * The value is converted when the types of the fields differ.
+   *
+   * @param converter the registered conversion or the nested mapping of the value,
+   *                  null if it is not converted or the conversion is built-in.
+   * @throws IllegalAccessException when a field can not be accessed through a VarHandle.
+   */
+  PropertyMapping(String name, Class<?> type, Method getter, Method setter,
+      Field sourceField, Field resultField, MethodHandle converter)
+      throws IllegalAccessException {
+    this.name = name;
+    this.type = type;
+    this.resultName = resultField.getName();
+    this.resultType = resultField.getType();
+    this.converted = type != resultType || converter != null;
+    this.getter = getter;
+    this.setter = setter;
+    this.sourceField = getter == null ? sourceField : null;
+    this.resultField = setter == null ? resultField : null;
+    this.converter = converter;
+    this.copyHandle = getter == null || setter == null || converted
+        ? copyHandle(getter, setter, this.sourceField, this.resultField, converter)
+        : null;
+    this.primitiveCopyHandle = copyHandle == null && type.isPrimitive()
+        ? primitiveCopyHandle(getter, setter)
+        : null;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public Class<?> getType() {
+    return type;
+  }
+
+  /**
+   * Gets the name of the result field, which differs from getName
+   * if the names are matched by a lenient NameMatching.
+   */
+  public String getResultName() {
+    return resultName;
+  }
+
+  /**
+   * Gets the type of the result field, which differs from getType if the value is converted.
+   */
+  public Class<?> getResultType() {
+    return resultType;
+  }
+
+  /**
+   * Whether the value is converted or mapped as a nested object before it is written.
+   */
+  public boolean isConverted() {
+    return converted;
+  }
+
+  public Method getGetter() {
+    return getter;
+  }
+
+  public Method getSetter() {
+    return setter;
+  }
+
+  /**
+   * Gets the source field which is read directly.
+   *
+   * @return the field, or null if the property is read through its getter.
+   */
+  public Field getSourceField() {
+    return sourceField;
+  }
+
+  /**
+   * Gets the result field which is written directly.
+   *
+   * @return the field, or null if the property is written through its setter.
+   */
+  public Field getResultField() {
+    return resultField;
+  }
+
+  /**
+   * Whether the source field or the result field is accessed directly.
+   */
+  public boolean isFieldAccess() {
+    return sourceField != null || resultField != null;
+  }
+
+  /**
+   * Gets the handle which copies the property when a field is accessed directly.
+   *
+   * @return a (Object source, Object result)void handle, or null if the property is copied
+   *         through its getter and setter without conversion.
+   */
+  MethodHandle getCopyHandle() {
+    return copyHandle;
+  }
+
+  /**
+   * Gets the handle which reads the property from a source object
+   * and converts it to the type of the result field, without writing it.
+   * A null value of a primitive result type is read as zero.
+   * It is built on first use.
+   *
+   * @return a (Object source)R handle, where R is getResultType.
+   * @throws IllegalAccessException when the getter or the field can not be accessed.
+   */
+  public MethodHandle getValueHandle() throws IllegalAccessException {
+    MethodHandle handle = valueHandle;
+    if (handle == null) {
+      handle = readHandle(getter, sourceField, converter);
+      Class<?> valueType = handle.type().returnType();
+      if (!valueType.isPrimitive() && resultType.isPrimitive()) {
+        MethodHandle isValueNull = isNull.asType(MethodType.methodType(boolean.class, valueType));
+        MethodHandle zero = MethodHandles.dropArguments(
+            MethodHandles.zero(resultType), 0, valueType);
+        handle = MethodHandles.filterReturnValue(handle, MethodHandles.guardWithTest(isValueNull,
+            zero, MethodHandles.identity(valueType)
+                .asType(MethodType.methodType(resultType, valueType))));
+      } else {
+        handle = handle.asType(MethodType.methodType(resultType, Object.class));
+      }
+      valueHandle = handle;
+    }
+    return handle;
+  }
+
+  /**
+   * Reads the property from source and writes it to result.
+   * Failures are logged and the property is skipped,
+   * same as the other properties of the plan; Errors such as StackOverflowError are thrown.
+   *
+   * @param source the object which's property will be read.
+   * @param result the object which's property will be written.
+   * @return false if the property failed and is skipped.
+   */
+  boolean copy(Object source, Object result) {
+    MethodHandle handle = copyHandle != null ? copyHandle : primitiveCopyHandle;
+    if (handle != null) {
+      try {
+        handle.invokeExact(source, result);
+        return true;
+      } catch (Throwable e) {
+        copyFailed(e, name);
+        return false;
+      }
+    }
+
+    Object value;
+    try {
+      value = getter.invoke(source);
+    } catch (InvocationTargetException e) {
+      logger.debug("Invokation of  '{} {}' failed. Probably it requires at least 1 arg.",
+          getter.getDeclaringClass().getName(), getter.getName());
+      return false;
+    } catch (IllegalAccessException e) {
+      logger.debug("Invokation of  '{} {}' failed. It has restricted access.",
+          getter.getDeclaringClass().getName(), getter.getName());
+      return false;
+    } catch (IllegalArgumentException e) {
+      logger.debug("Invokation of  '{} {}' failed. Illegal argument.",
+          getter.getDeclaringClass().getName(), getter.getName());
+      return false;
+    }
+
+    try {
+      setter.invoke(result, value);
+      return true;
+    } catch (InvocationTargetException e) {
+      logger.debug("Invokation of  '{} {}' failed. Probably it requires at least 1 arg.",
+          setter.getDeclaringClass().getName(), setter.getName());
+    } catch (IllegalAccessException e) {
+      logger.debug("Invokation of  '{} {}' failed. It has restricted access.",
+          setter.getDeclaringClass().getName(), setter.getName());
+    } catch (IllegalArgumentException e) {
+      logger.debug("Invokation of  '{} {}' failed. Illegal argument.",
+          setter.getDeclaringClass().getName(), setter.getName());
+    }
+    return false;
+  }
+
+  /**
+   * Handles the failure of copying a single property, by any MappingEngine:
+   * an exception is logged and the property is skipped, an Error is thrown.
+   *
+   * @param failure what the getter, the setter or the conversion threw.
+   * @param name    name of the property.
+   */
+  static void copyFailed(Throwable failure, String name) {
+    if (failure instanceof Error) {
+      throw (Error) failure;
+    }
+    logger.debug("Copying the field '{}' failed. {}", name, failure);
+  }
+
+  /**
+   * Combines the reading and writing handles into a (Object source, Object result)void handle.
+   * The value is passed between them in its own type, so primitives are not boxed;
+   * built-in conversions are done by asType, a registered one is called in between.
+   * A null value is not written to a primitive result.
+   */
+  private static MethodHandle copyHandle(Method getter, Method setter, Field sourceField,
+      Field resultField, MethodHandle converter) throws IllegalAccessException {
+    MethodHandle readHandle = readHandle(getter, sourceField, converter);
+    MethodHandle writeHandle = setter != null
+        ? lookupIn(setter.getDeclaringClass()).unreflect(setter)
+        : lookupIn(resultField.getDeclaringClass()).unreflectVarHandle(resultField)
+            .toMethodHandle(VarHandle.AccessMode.SET);
+    Class<?> valueType = readHandle.type().returnType();
+    Class<?> writeType = writeHandle.type().parameterType(1);
+    writeHandle = writeHandle.asType(MethodType.methodType(void.class, Object.class, valueType));
+    if (!valueType.isPrimitive() && writeType.isPrimitive()) {
+      MethodHandle isValueNull = MethodHandles.dropArguments(
+          isNull.asType(MethodType.methodType(boolean.class, valueType)), 0, Object.class);
+      writeHandle = MethodHandles.guardWithTest(isValueNull,
+          MethodHandles.empty(writeHandle.type()), writeHandle);
+    }
+    MethodHandle resultFirstHandle = MethodHandles.filterArguments(writeHandle, 1, readHandle);
+    return MethodHandles.permuteArguments(resultFirstHandle,
+        MethodType.methodType(void.class, Object.class, Object.class), 1, 0);
+  }
+
+  /**
+   * Combines the getter and setter of a primitive property into a copy handle,
+   * so that it is copied without Method.invoke boxing its value.
+   *
+   * @return the handle, or null if the methods can not be looked up,
+   *         then the property is copied through Method.invoke.
+   */
+  private static MethodHandle primitiveCopyHandle(Method getter, Method setter) {
+    try {
+      return copyHandle(getter, setter, null, null, null);
+    } catch (IllegalAccessException | RuntimeException e) {
+      logger.debug("Can not create a handle for '{}', copying it through Method.invoke. {}",
+          getter.getName(), e);
+      return null;
+    }
+  }
+
+  /**
+   * Makes the (Object source)V handle which reads the property,
+   * V being the type of the getter or field, or Object if a converter is applied.
+   */
+  private static MethodHandle readHandle(Method getter, Field sourceField,
+      MethodHandle converter) throws IllegalAccessException {
+    MethodHandle readHandle = getter != null
+        ? lookupIn(getter.getDeclaringClass()).unreflect(getter)
+        : lookupIn(sourceField.getDeclaringClass()).unreflectVarHandle(sourceField)
+            .toMethodHandle(VarHandle.AccessMode.GET);
+    readHandle = readHandle.asType(readHandle.type().changeParameterType(0, Object.class));
+    if (converter != null) {
+      readHandle = MethodHandles.filterReturnValue(
+          readHandle.asType(MethodType.methodType(Object.class, Object.class)), converter);
+    }
+    return readHandle;
+  }
+
+  private static MethodHandles.Lookup lookupIn(Class<?> type) throws IllegalAccessException {
+    return MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+  }
+
+  @Override
+  public String toString() {
+    return type.getName() + " " + name;
+  }
+}
@@ -0,0 +1,337 @@
+package mapper.plan;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.VarHandle;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import mapper.util.ClassMetadata;
+import mapper.util.StringUtil;
+
+
+/**
+ * The readable and writable properties of a class, cached per class,
+ * which a Mappable object is turned into a Map and populated from a Map through.
+ * Every instance field is a property: it is read through its public getter
+ * and written through its public setter if there is one and the AccessStrategy
+ * of the class uses methods, and through the field directly otherwise.
+ * Final fields without a setter are read only.
+ * The names of the properties form the shared key table of every PropertyMap of the class.
+ */
+public final class PropertyTable {
+
+  private static final MethodType getterType = MethodType.methodType(Object.class, Object.class);
+  private static final MethodType setterType =
+      MethodType.methodType(void.class, Object.class, Object.class);
+
+  private static final ClassValue<PropertyTable> tables = new ClassValue<PropertyTable>() {
+    @Override
+    protected PropertyTable computeValue(Class<?> type) {
+      return new PropertyTable(type);
+    }
+  };
+
+  private final Class<?> type;
+  private final String[] names;
+  private final Class<?>[] types;
+  private final Class<?>[] boxedTypes;
+  private final MethodHandle[] getters;
+  private final MethodHandle[] setters;
+  private final MethodHandle[] typedGetters;
+  private final MethodHandle[] typedSetters;
+  private final Map<String, Integer> indexes;
+  private final String[] staticNames;
+  private final MethodHandle[] staticGetters;
+
+  private PropertyTable(Class<?> type) {
+    this.type = type;
+    AccessStrategy accessStrategy = AccessStrategy.of(type);
+    List<Field> fields = new ArrayList<>();
+    List<Field> staticFields = new ArrayList<>();
+    for (Field field : ClassMetadata.of(type).getFields()) {
+      if (Modifier.isStatic(field.getModifiers())) {
+        staticFields.add(field);
+      } else {
+        fields.add(field);
+      }
+    }
+    staticNames = new String[staticFields.size()];
+    staticGetters = new MethodHandle[staticFields.size()];
+    for (int i = 0; i < staticNames.length; i++) {
+      Field field = staticFields.get(i);
+      staticNames[i] = field.getName();
+      try {
+        staticGetters[i] = lookupIn(field.getDeclaringClass()).unreflectVarHandle(field)
+            .toMethodHandle(VarHandle.AccessMode.GET)
+            .asType(MethodType.methodType(Object.class));
+      } catch (IllegalAccessException e) {
+        throw new IllegalStateException("Can not access the field '" + field + "'.", e);
+      }
+    }
+    int size = fields.size();
+    names = new String[size];
+    types = new Class<?>[size];
+    boxedTypes = new Class<?>[size];
+    getters = new MethodHandle[size];
+    setters = new MethodHandle[size];
+    typedGetters = new MethodHandle[size];
+    typedSetters = new MethodHandle[size];
+    indexes = new HashMap<>(size * 4 / 3 + 1);
+    for (int i = 0; i < size; i++) {
+      Field field = fields.get(i);
+      names[i] = field.getName();
+      types[i] = field.getType();
+      boxedTypes[i] = MethodType.methodType(types[i]).wrap().returnType();
+      indexes.put(names[i], i);
+      try {
+        typedGetters[i] = getter(type, field, accessStrategy);
+        typedSetters[i] = setter(type, field, accessStrategy);
+        getters[i] = typedGetters[i].asType(getterType);
+        setters[i] = typedSetters[i] == null ? null : typedSetters[i].asType(setterType);
+      } catch (IllegalAccessException e) {
+        throw new IllegalStateException("Can not access the field '" + field + "'.", e);
+      }
+    }
+  }
+
+  /**
+   * Gets the cached table of the given type, builds it on first use.
+   *
+   * @param type the type which's properties will be returned.
+   * @return the table of the given type.
+   */
+  public static PropertyTable of(Class<?> type) {
+    return tables.get(type);
+  }
+
+  public Class<?> getType() {
+    return type;
+  }
+
+  public int size() {
+    return names.length;
+  }
+
+  public String getName(int index) {
+    return names[index];
+  }
+
+  public Class<?> getPropertyType(int index) {
+    return types[index];
+  }
+
+  /**
+   * Finds the index of the property with the given name.
+   *
+   * @param name name of the property.
+   * @return the index, or -1 if the type does not have such a property.
+   */
+  public int indexOf(Object name) {
+    Integer index = indexes.get(name);
+    return index == null ? -1 : index;
+  }
+
+  /**
+   * Whether the property at the given index has a setter or a non-final field.
+   */
+  public boolean isWritable(int index) {
+    return setters[index] != null;
+  }
+
+  /**
+   * Gets the handle which reads the property at the given index in its own type,
+   * so a primitive is read without boxing.
+   *
+   * @param index index of the property.
+   * @return a (Object object)P handle, where P is getPropertyType.
+   */
+  public MethodHandle getGetterHandle(int index) {
+    return typedGetters[index];
+  }
+
+  /**
+   * Gets the handle which writes the property at the given index in its own type.
+   *
+   * @param index index of the property.
+   * @return a (Object object, P value)void handle, or null if the property is read only.
+   */
+  public MethodHandle getSetterHandle(int index) {
+    return typedSetters[index];
+  }
+
+  /**
+   * Reads the property at the given index.
+   *
+   * @param object an object of the type.
+   * @param index  index of the property.
+   * @return the value of the property, boxed if it is primitive.
+   */
+  public Object get(Object object, int index) {
+    try {
+      return (Object) getters[index].invokeExact(object);
+    } catch (RuntimeException | Error exception) {
+      throw exception;
+    } catch (Throwable throwable) {
+      throw new IllegalStateException(throwable);
+    }
+  }
+
+  /**
+   * Writes the property at the given index.
+   * A null value is not written to a primitive property.
+   *
+   * @param object an object of the type.
+   * @param index  index of the property.
+   * @param value  the new value of the property.
+   * @throws IllegalArgumentException when the value is not of the type of the property.
+   * @throws UnsupportedOperationException when the property is read only.
+   */
+  public void set(Object object, int index, Object value) {
+    if (setters[index] == null) {
+      throw new UnsupportedOperationException(
+          "Property '" + names[index] + "' of " + type.getName() + " is read only.");
+    }
+    if (value == null && types[index].isPrimitive()) {
+      return;
+    }
+    if (value != null && !boxedTypes[index].isInstance(value)) {
+      throw new IllegalArgumentException("Value of the property '" + names[index] + "' must be "
+          + types[index].getName() + ", not " + value.getClass().getName() + ".");
+    }
+    try {
+      setters[index].invokeExact(object, value);
+    } catch (RuntimeException | Error exception) {
+      throw exception;
+    } catch (Throwable throwable) {
+      throw new IllegalStateException(throwable);
+    }
+  }
+
+  /**
+   * Reads every property of the given object into a new map view.
+   *
+   * @param object an object of the type.
+   * @return a PropertyMap holding the values of the object.
+   */
+  public PropertyMap toMap(Object object) {
+    Object[] values = new Object[names.length];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = get(object, i);
+    }
+    return new PropertyMap(this, values);
+  }
+
+  /**
+   * Reads every property of the given object, and every static field of the type,
+   * into a new mutable HashMap.
+   *
+   * @param object an object of the type.
+   * @return a HashMap of the field names and values.
+   */
+  public Map<String, Object> toHashMap(Object object) {
+    Map<String, Object> map = new HashMap<>((names.length + staticNames.length) * 4 / 3 + 1);
+    for (int i = 0; i < names.length; i++) {
+      map.put(names[i], get(object, i));
+    }
+    for (int i = 0; i < staticNames.length; i++) {
+      try {
+        map.put(staticNames[i], (Object) staticGetters[i].invokeExact());
+      } catch (RuntimeException | Error exception) {
+        throw exception;
+      } catch (Throwable throwable) {
+        throw new IllegalStateException(throwable);
+      }
+    }
+    return map;
+  }
+
+  /**
+   * Writes the values of the given map to the properties with the same names.
+   * Keys which are not a writable property of the type are ignored.
+   *
+   * @param map    the values which will be written.
+   * @param object an object of the type.
+   * @return the number of the properties which are written.
+   * @throws IllegalArgumentException when a value is not of the type of its property.
+   */
+  public int populate(Map<String, ?> map, Object object) {
+    int written = 0;
+    if (map instanceof PropertyMap && ((PropertyMap) map).getTable() == this) {
+      Object[] values = ((PropertyMap) map).getValues();
+      for (int i = 0; i < values.length; i++) {
+        if (setters[i] != null) {
+          set(object, i, values[i]);
+          written++;
+        }
+      }
+      return written;
+    }
+    for (Map.Entry<String, ?> entry : map.entrySet()) {
+      int index = indexOf(entry.getKey());
+      if (index >= 0 && setters[index] != null) {
+        set(object, index, entry.getValue());
+        written++;
+      }
+    }
+    return written;
+  }
+
+  private static MethodHandle getter(Class<?> type, Field field, AccessStrategy accessStrategy)
+      throws IllegalAccessException {
+    MethodHandle handle = null;
+    if (accessStrategy.usesMethods()) {
+      try {
+        Method method =
+            type.getMethod("get" + StringUtil.capitalizeFirstLetter(field.getName()));
+        if (method.getReturnType() == field.getType()) {
+          handle = lookupIn(method.getDeclaringClass()).unreflect(method);
+        }
+      } catch (NoSuchMethodException e) {
+        handle = null;
+      }
+    }
+    if (handle == null) {
+      handle = lookupIn(field.getDeclaringClass()).unreflectVarHandle(field)
+          .toMethodHandle(VarHandle.AccessMode.GET);
+    }
+    return handle.asType(handle.type().changeParameterType(0, Object.class));
+  }
+
+  private static MethodHandle setter(Class<?> type, Field field, AccessStrategy accessStrategy)
+      throws IllegalAccessException {
+    MethodHandle handle = null;
+    if (accessStrategy.usesMethods()) {
+      try {
+        Method method = type.getMethod(
+            "set" + StringUtil.capitalizeFirstLetter(field.getName()), field.getType());
+        handle = lookupIn(method.getDeclaringClass()).unreflect(method);
+      } catch (NoSuchMethodException e) {
+        handle = null;
+      }
+    }
+    if (handle == null) {
+      if (Modifier.isFinal(field.getModifiers())) {
+        return null;
+      }
+      handle = lookupIn(field.getDeclaringClass()).unreflectVarHandle(field)
+          .toMethodHandle(VarHandle.AccessMode.SET);
+    }
+    return handle.asType(MethodType.methodType(void.class, Object.class, field.getType()));
+  }
+
+  private static MethodHandles.Lookup lookupIn(Class<?> type) throws IllegalAccessException {
+    return MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+  }
+
+  @Override
+  public String toString() {
+    return "PropertyTable{" + type.getName() + ", " + String.join(", ", names) + "}";
+  }
+}
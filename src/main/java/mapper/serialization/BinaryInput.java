@@ -0,0 +1,360 @@
+package mapper.serialization;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+
+/**
+ * A buffered binary input for MappableSerializer,
+ * reading what BinaryOutput writes from an InputStream or a ReadableByteChannel.
+ * The lengths of strings, arrays and collections read from the source are bounded
+ * by getMaxLength, and by the remaining bytes when the source is a byte array,
+ * and the values of such lengths are allocated as their bytes or elements arrive,
+ * so a corrupt or hostile source can not make the reader allocate more than it sends.
+ * An input is not thread-safe.
+ */
+public final class BinaryInput implements Closeable {
+
+  private static final int defaultBufferSize = 8192;
+  private static final int defaultMaxLength = 16 * 1024 * 1024;
+  private static final int defaultMaxDepth = 256;
+  private static final int initialChunkSize = 8192;
+
+  private final InputStream stream;
+  private final ReadableByteChannel channel;
+  private final byte[] buffer;
+  private final ByteBuffer channelBuffer;
+  private int position;
+  private int limit;
+  private int maxLength = defaultMaxLength;
+  private int maxDepth = defaultMaxDepth;
+  private int depth;
+
+  private BinaryInput(InputStream stream, ReadableByteChannel channel, byte[] buffer,
+      int limit) {
+    this.stream = stream;
+    this.channel = channel;
+    this.buffer = buffer;
+    this.channelBuffer = channel == null ? null : ByteBuffer.wrap(buffer);
+    this.limit = limit;
+  }
+
+  /**
+   * Creates an input which reads from the given stream.
+   *
+   * @param stream the stream which the bytes will be read from.
+   * @return a new input.
+   */
+  public static BinaryInput of(InputStream stream) {
+    return new BinaryInput(stream, null, new byte[defaultBufferSize], 0);
+  }
+
+  /**
+   * Creates an input which reads from the given channel.
+   *
+   * @param channel the channel which the bytes will be read from.
+   * @return a new input.
+   */
+  public static BinaryInput of(ReadableByteChannel channel) {
+    return new BinaryInput(null, channel, new byte[defaultBufferSize], 0);
+  }
+
+  /**
+   * Creates an input which reads the given bytes, without copying them.
+   *
+   * @param bytes the bytes which will be read.
+   * @return a new input.
+   */
+  public static BinaryInput of(byte[] bytes) {
+    return new BinaryInput(null, null, bytes, bytes.length);
+  }
+
+  public int getMaxLength() {
+    return maxLength;
+  }
+
+  /**
+   * Sets the largest length of a string (in bytes), an array or a collection
+   * which is read, 16M by default.
+   *
+   * @param maxLength the largest length, must be positive.
+   * @return this input.
+   */
+  public BinaryInput setMaxLength(int maxLength) {
+    if (maxLength <= 0) {
+      throw new IllegalArgumentException("maxLength must be positive.");
+    }
+    this.maxLength = maxLength;
+    return this;
+  }
+
+  public int getMaxDepth() {
+    return maxDepth;
+  }
+
+  /**
+   * Sets the deepest level of nested Mappable objects which is read, 256 by default.
+   *
+   * @param maxDepth the deepest level, must be positive.
+   * @return this input.
+   */
+  public BinaryInput setMaxDepth(int maxDepth) {
+    if (maxDepth <= 0) {
+      throw new IllegalArgumentException("maxDepth must be positive.");
+    }
+    this.maxDepth = maxDepth;
+    return this;
+  }
+
+  /**
+   * Whether there are more bytes to read, reads the next bytes into the buffer if needed.
+   */
+  public boolean hasMore() throws IOException {
+    return position < limit || fill(1);
+  }
+
+  /**
+   * Reads an unsigned varint.
+   *
+   * @throws StreamCorruptedException when the varint is longer than 5 bytes.
+   */
+  public int readVarInt() throws IOException {
+    int value = 0;
+    for (int shift = 0; shift < 35; shift += 7) {
+      byte next = readByte();
+      value |= (next & 0x7F) << shift;
+      if (next >= 0) {
+        return value;
+      }
+    }
+    throw new StreamCorruptedException("Malformed varint.");
+  }
+
+  /**
+   * Reads an unsigned varint.
+   *
+   * @throws StreamCorruptedException when the varint is longer than 10 bytes.
+   */
+  public long readVarLong() throws IOException {
+    long value = 0;
+    for (int shift = 0; shift < 70; shift += 7) {
+      byte next = readByte();
+      value |= (long) (next & 0x7F) << shift;
+      if (next >= 0) {
+        return value;
+      }
+    }
+    throw new StreamCorruptedException("Malformed varint.");
+  }
+
+  public int readSignedVarInt() throws IOException {
+    int value = readVarInt();
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+  public long readSignedVarLong() throws IOException {
+    long value = readVarLong();
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+  /**
+   * Reads a single byte.
+   *
+   * @throws EOFException when there are no more bytes.
+   */
+  public byte readByte() throws IOException {
+    if (position == limit) {
+      ensure(1);
+    }
+    return buffer[position++];
+  }
+
+  public boolean readBoolean() throws IOException {
+    return readByte() != 0;
+  }
+
+  /**
+   * Reads the little endian bits of a float.
+   */
+  public float readFloat() throws IOException {
+    ensure(4);
+    int bits = 0;
+    for (int i = 0; i < 4; i++) {
+      bits |= (buffer[position++] & 0xFF) << (i * 8);
+    }
+    return Float.intBitsToFloat(bits);
+  }
+
+  /**
+   * Reads the little endian bits of a double.
+   */
+  public double readDouble() throws IOException {
+    ensure(8);
+    long bits = 0;
+    for (int i = 0; i < 8; i++) {
+      bits |= (buffer[position++] & 0xFFL) << (i * 8);
+    }
+    return Double.longBitsToDouble(bits);
+  }
+
+  /**
+   * Reads a length written as a varint of the length plus 1, 0 for null.
+   * Every byte, element or entry of the value takes at least one byte,
+   * so the length can not be larger than the remaining bytes of a byte array source.
+   *
+   * @return the length, or -1 if null was written.
+   * @throws StreamCorruptedException when the length is larger than getMaxLength
+   *                                  or than the remaining bytes.
+   */
+  public int readLength() throws IOException {
+    int length = readVarInt() - 1;
+    if (length < -1 || length > maxLength) {
+      throw new StreamCorruptedException("Length " + (length & 0xFFFFFFFFL)
+          + " is larger than the maximum length " + maxLength + ".");
+    }
+    if (stream == null && channel == null && length > limit - position) {
+      throw new StreamCorruptedException("Length " + length
+          + " is larger than the remaining " + (limit - position) + " bytes.");
+    }
+    return length;
+  }
+
+  /**
+   * Reads a string written by BinaryOutput.writeString.
+   *
+   * @return the string, or null if null was written.
+   */
+  public String readString() throws IOException {
+    int byteCount = readLength();
+    if (byteCount < 0) {
+      return null;
+    }
+    if (byteCount <= buffer.length) {
+      ensure(byteCount);
+      String value = new String(buffer, position, byteCount, StandardCharsets.UTF_8);
+      position += byteCount;
+      return value;
+    }
+    return new String(readBytes(byteCount), StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Reads as many bytes as the given array can hold.
+   *
+   * @throws EOFException when the source ends before the array is filled.
+   */
+  public void readBytes(byte[] bytes) throws IOException {
+    readBytes(bytes, 0, bytes.length);
+  }
+
+  /**
+   * Reads the given number of bytes into a new array,
+   * which grows as the bytes arrive instead of being allocated at once.
+   *
+   * @throws EOFException when the source ends before the bytes.
+   */
+  public byte[] readBytes(int length) throws IOException {
+    byte[] bytes = new byte[Math.min(length, initialChunkSize)];
+    int offset = 0;
+    while (offset < length) {
+      if (offset == bytes.length) {
+        bytes = Arrays.copyOf(bytes, (int) Math.min(length, bytes.length * 2L));
+      }
+      offset = readBytes(bytes, offset, bytes.length);
+    }
+    return bytes;
+  }
+
+  /**
+   * Fills the given array from offset to end.
+   *
+   * @return end.
+   */
+  private int readBytes(byte[] bytes, int offset, int end) throws IOException {
+    int next = offset;
+    while (next < end) {
+      if (position == limit) {
+        ensure(1);
+      }
+      int length = Math.min(end - next, limit - position);
+      System.arraycopy(buffer, position, bytes, next, length);
+      position += length;
+      next += length;
+    }
+    return next;
+  }
+
+  /**
+   * Counts a nested Mappable object which is about to be read.
+   *
+   * @throws StreamCorruptedException when the objects are nested deeper than getMaxDepth.
+   */
+  void enterObject() throws StreamCorruptedException {
+    if (++depth > maxDepth) {
+      depth--;
+      throw new StreamCorruptedException("Objects are nested deeper than " + maxDepth + ".");
+    }
+  }
+
+  /**
+   * Counts a nested Mappable object which is read, or failed.
+   */
+  void exitObject() {
+    depth--;
+  }
+
+  /**
+   * Closes the source, if any.
+   */
+  @Override
+  public void close() throws IOException {
+    if (stream != null) {
+      stream.close();
+    } else if (channel != null) {
+      channel.close();
+    }
+  }
+
+  private void ensure(int length) throws IOException {
+    if (limit - position < length && !fill(length)) {
+      throw new EOFException();
+    }
+  }
+
+  /**
+   * Reads from the source until at least the given number of bytes are buffered.
+   *
+   * @return false if the source ended before.
+   */
+  private boolean fill(int length) throws IOException {
+    if (stream == null && channel == null) {
+      return false;
+    }
+    if (position > 0) {
+      System.arraycopy(buffer, position, buffer, 0, limit - position);
+      limit -= position;
+      position = 0;
+    }
+    while (limit < length) {
+      int read;
+      if (stream != null) {
+        read = stream.read(buffer, limit, buffer.length - limit);
+      } else {
+        channelBuffer.clear().position(limit);
+        read = channel.read(channelBuffer);
+      }
+      if (read < 0) {
+        return false;
+      }
+      limit += read;
+    }
+    return true;
+  }
+}
@@ -0,0 +1,312 @@
+package mapper.serialization;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+
+/**
+ * A buffered binary output for MappableSerializer,
+ * writing to an OutputStream or a WritableByteChannel.
+ * Integers are written as varints, signed ones zigzag encoded so small negative numbers
+ * are short too; floating point numbers are written as their little endian bits,
+ * strings as their UTF-8 byte count and bytes.
+ * The buffer is written to the target when it is full, on flush and on close.
+ * Nested Mappable objects are written up to getMaxDepth levels deep,
+ * so a cyclic object graph fails instead of overflowing the stack.
+ * An output is not thread-safe.
+ */
+public final class BinaryOutput implements Flushable, Closeable {
+
+  private static final int defaultBufferSize = 8192;
+  private static final int defaultMaxDepth = 256;
+
+  private final OutputStream stream;
+  private final WritableByteChannel channel;
+  private final byte[] buffer;
+  private final ByteBuffer channelBuffer;
+  private int position;
+  private int maxDepth = defaultMaxDepth;
+  private int depth;
+
+  private BinaryOutput(OutputStream stream, WritableByteChannel channel, int bufferSize) {
+    this.stream = stream;
+    this.channel = channel;
+    this.buffer = new byte[Math.max(16, bufferSize)];
+    this.channelBuffer = channel == null ? null : ByteBuffer.wrap(buffer);
+  }
+
+  /**
+   * Creates an output which writes to the given stream.
+   *
+   * @param stream the stream which the bytes will be written to.
+   * @return a new output.
+   */
+  public static BinaryOutput of(OutputStream stream) {
+    return new BinaryOutput(stream, null, defaultBufferSize);
+  }
+
+  /**
+   * Creates an output which writes to the given channel.
+   *
+   * @param channel the channel which the bytes will be written to.
+   * @return a new output.
+   */
+  public static BinaryOutput of(WritableByteChannel channel) {
+    return new BinaryOutput(null, channel, defaultBufferSize);
+  }
+
+  public int getMaxDepth() {
+    return maxDepth;
+  }
+
+  /**
+   * Sets the deepest level of nested Mappable objects which is written, 256 by default.
+   * It should not be deeper than the max depth of the input which reads the objects.
+   *
+   * @param maxDepth the deepest level, must be positive.
+   * @return this output.
+   */
+  public BinaryOutput setMaxDepth(int maxDepth) {
+    if (maxDepth <= 0) {
+      throw new IllegalArgumentException("maxDepth must be positive.");
+    }
+    this.maxDepth = maxDepth;
+    return this;
+  }
+
+  /**
+   * Writes an unsigned varint, 1 byte per 7 bits.
+   */
+  public void writeVarInt(int value) throws IOException {
+    ensure(5);
+    int remaining = value;
+    while ((remaining & ~0x7F) != 0) {
+      buffer[position++] = (byte) ((remaining & 0x7F) | 0x80);
+      remaining >>>= 7;
+    }
+    buffer[position++] = (byte) remaining;
+  }
+
+  /**
+   * Writes an unsigned varint, 1 byte per 7 bits.
+   */
+  public void writeVarLong(long value) throws IOException {
+    ensure(10);
+    long remaining = value;
+    while ((remaining & ~0x7FL) != 0) {
+      buffer[position++] = (byte) ((remaining & 0x7F) | 0x80);
+      remaining >>>= 7;
+    }
+    buffer[position++] = (byte) remaining;
+  }
+
+  public void writeSignedVarInt(int value) throws IOException {
+    writeVarInt((value << 1) ^ (value >> 31));
+  }
+
+  public void writeSignedVarLong(long value) throws IOException {
+    writeVarLong((value << 1) ^ (value >> 63));
+  }
+
+  public void writeByte(int value) throws IOException {
+    ensure(1);
+    buffer[position++] = (byte) value;
+  }
+
+  public void writeBoolean(boolean value) throws IOException {
+    writeByte(value ? 1 : 0);
+  }
+
+  /**
+   * Writes the bits of the given float, little endian.
+   */
+  public void writeFloat(float value) throws IOException {
+    ensure(4);
+    int bits = Float.floatToRawIntBits(value);
+    for (int i = 0; i < 4; i++) {
+      buffer[position++] = (byte) (bits >>> (i * 8));
+    }
+  }
+
+  /**
+   * Writes the bits of the given double, little endian.
+   */
+  public void writeDouble(double value) throws IOException {
+    ensure(8);
+    long bits = Double.doubleToRawLongBits(value);
+    for (int i = 0; i < 8; i++) {
+      buffer[position++] = (byte) (bits >>> (i * 8));
+    }
+  }
+
+  /**
+   * Writes the given string as a varint of its UTF-8 byte count plus 1, 0 for null,
+   * followed by its UTF-8 bytes. Strings which fit in the buffer are encoded in place.
+   */
+  public void writeString(String value) throws IOException {
+    if (value == null) {
+      writeVarInt(0);
+      return;
+    }
+    int byteCount = utf8Length(value);
+    writeVarInt(byteCount + 1);
+    if (byteCount > buffer.length) {
+      writeBytes(value.getBytes(StandardCharsets.UTF_8));
+      return;
+    }
+    ensure(byteCount);
+    for (int i = 0; i < value.length(); i++) {
+      char character = value.charAt(i);
+      if (character < 0x80) {
+        buffer[position++] = (byte) character;
+      } else if (character < 0x800) {
+        buffer[position++] = (byte) (0xC0 | (character >> 6));
+        buffer[position++] = (byte) (0x80 | (character & 0x3F));
+      } else if (Character.isSurrogate(character)) {
+        int codePoint = surrogatePair(value, i);
+        if (codePoint < 0) {
+          buffer[position++] = '?';
+        } else {
+          buffer[position++] = (byte) (0xF0 | (codePoint >> 18));
+          buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+          buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+          buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+          i++;
+        }
+      } else {
+        buffer[position++] = (byte) (0xE0 | (character >> 12));
+        buffer[position++] = (byte) (0x80 | ((character >> 6) & 0x3F));
+        buffer[position++] = (byte) (0x80 | (character & 0x3F));
+      }
+    }
+  }
+
+  /**
+   * Writes the given bytes as they are.
+   */
+  public void writeBytes(byte[] bytes) throws IOException {
+    int offset = 0;
+    while (offset < bytes.length) {
+      if (position == buffer.length) {
+        writeBuffer();
+      }
+      int length = Math.min(bytes.length - offset, buffer.length - position);
+      System.arraycopy(bytes, offset, buffer, position, length);
+      position += length;
+      offset += length;
+    }
+  }
+
+  /**
+   * Writes the buffered bytes to the target and flushes it.
+   */
+  @Override
+  public void flush() throws IOException {
+    writeBuffer();
+    if (stream != null) {
+      stream.flush();
+    }
+  }
+
+  /**
+   * Flushes the output and closes the target.
+   */
+  @Override
+  public void close() throws IOException {
+    try {
+      flush();
+    } finally {
+      if (stream != null) {
+        stream.close();
+      } else {
+        channel.close();
+      }
+    }
+  }
+
+  /**
+   * Counts a nested Mappable object which is about to be written.
+   *
+   * @throws IllegalStateException when the objects are nested deeper than getMaxDepth,
+   *                               e.g. because the object graph has a cycle.
+   */
+  void enterObject() {
+    if (++depth > maxDepth) {
+      depth--;
+      throw new IllegalStateException("Objects are nested deeper than " + maxDepth
+          + ", the object graph may have a cycle.");
+    }
+  }
+
+  /**
+   * Counts a nested Mappable object which is written, or failed.
+   */
+  void exitObject() {
+    depth--;
+  }
+
+  private void ensure(int length) throws IOException {
+    if (buffer.length - position < length) {
+      writeBuffer();
+    }
+  }
+
+  private void writeBuffer() throws IOException {
+    if (position == 0) {
+      return;
+    }
+    if (stream != null) {
+      stream.write(buffer, 0, position);
+    } else {
+      channelBuffer.clear().limit(position);
+      while (channelBuffer.hasRemaining()) {
+        channel.write(channelBuffer);
+      }
+    }
+    position = 0;
+  }
+
+  /**
+   * Counts the UTF-8 bytes of the given string, the same way writeString encodes it.
+   */
+  private static int utf8Length(String value) {
+    int length = 0;
+    for (int i = 0; i < value.length(); i++) {
+      char character = value.charAt(i);
+      if (character < 0x80) {
+        length++;
+      } else if (character < 0x800) {
+        length += 2;
+      } else if (Character.isSurrogate(character)) {
+        if (surrogatePair(value, i) < 0) {
+          length++;
+        } else {
+          length += 4;
+          i++;
+        }
+      } else {
+        length += 3;
+      }
+    }
+    return length;
+  }
+
+  /**
+   * Gets the code point of the surrogate pair at the given index.
+   *
+   * @return the code point, or -1 if the char is not the start of a valid pair.
+   */
+  private static int surrogatePair(String value, int index) {
+    char high = value.charAt(index);
+    if (Character.isHighSurrogate(high) && index + 1 < value.length()
+        && Character.isLowSurrogate(value.charAt(index + 1))) {
+      return Character.toCodePoint(high, value.charAt(index + 1));
+    }
+    return -1;
+  }
+}
@@ -0,0 +1,400 @@
+package mapper.serialization;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.OutputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Type;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import mapper.Mappable;
+import mapper.exception.ResultTypeInstantiationException;
+import mapper.plan.PropertyTable;
+import mapper.util.ClassMetadata;
+import mapper.util.Instantiator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Compact binary serialization of a Mappable type, cached per class.
+ * The writable properties of the PropertyTable of the type are written one after another,
+ * in the order of the table, without names, class descriptors or back references:
+ * integers as zigzag varints, floating point numbers as their bits,
+ * strings as UTF-8, nested Mappable objects as their own properties.
+ * Primitive properties are read and written through their typed handles, without boxing.
+ * Read only properties (final fields without a setter) are skipped,
+ * a property of an unsupported type (see ValueCodec) is rejected when the serializer is built.
+ * The writer and the reader must have the same version of the class,
+ * and the object graph must be a tree: a shared object is written once per reference,
+ * and a cycle fails once the objects are nested deeper than the max depth of the output.
+ * Serializers are immutable and can be shared between threads.
+ *
+ * @param <T> type of the serialized objects.
+ */
+public final class MappableSerializer<T extends Mappable> {
+
+  private static final Logger logger = LoggerFactory.getLogger(MappableSerializer.class);
+
+  private static final ClassValue<MappableSerializer<?>> serializers =
+      new ClassValue<MappableSerializer<?>>() {
+        @Override
+        protected MappableSerializer<?> computeValue(Class<?> type) {
+          return new MappableSerializer<>(type);
+        }
+      };
+
+  private final Class<T> type;
+  private final Instantiator<T> instantiator;
+  private final FieldCodec[] fieldCodecs;
+  private volatile boolean resolved;
+
+  @SuppressWarnings("unchecked")
+  private MappableSerializer(Class<?> type) {
+    this.type = (Class<T>) type;
+    this.instantiator = Instantiator.of(this.type);
+    PropertyTable table = PropertyTable.of(type);
+    ClassMetadata metadata = ClassMetadata.of(type);
+    List<FieldCodec> fieldCodecs = new ArrayList<>();
+    for (int i = 0; i < table.size(); i++) {
+      if (!table.isWritable(i)) {
+        logger.debug("Field '{} {}' is not serialized, it is read only.",
+            type.getName(), table.getName(i));
+        continue;
+      }
+      FieldCodec fieldCodec = FieldCodec.of(table.getGetterHandle(i), table.getSetterHandle(i),
+          metadata.getField(table.getName(i)).getGenericType());
+      if (fieldCodec == null) {
+        throw new IllegalArgumentException("Field '" + table.getName(i) + "' of "
+            + type.getName() + " can not be serialized, its type "
+            + metadata.getField(table.getName(i)).getGenericType().getTypeName()
+            + " is not supported.");
+      }
+      fieldCodecs.add(fieldCodec);
+    }
+    this.fieldCodecs = fieldCodecs.toArray(new FieldCodec[0]);
+  }
+
+  /**
+   * Gets the cached serializer of the given type, builds it on first use.
+   * The serializers of the nested Mappable types are built too,
+   * so that every property of the object graph is checked up front.
+   * It throws IllegalArgumentException naming the property
+   * when a property of the type or of a nested type can not be serialized.
+   *
+   * @param type the type which's objects will be serialized.
+   * @param <T>  type of the serialized objects.
+   * @return the serializer of the given type.
+   */
+  public static <T extends Mappable> MappableSerializer<T> of(Class<T> type) {
+    MappableSerializer<T> serializer = lookup(type);
+    if (!serializer.resolved) {
+      serializer.resolve(new HashSet<>());
+    }
+    return serializer;
+  }
+
+  /**
+   * Gets the cached serializer of the given type without building its nested serializers,
+   * which is safe while the serializer of a recursive type is being built.
+   */
+  @SuppressWarnings("unchecked")
+  static <T extends Mappable> MappableSerializer<T> lookup(Class<T> type) {
+    return (MappableSerializer<T>) serializers.get(type);
+  }
+
+  /**
+   * Builds the serializers of the nested Mappable types which are not visited yet.
+   */
+  void resolve(Set<Class<?>> visited) {
+    if (resolved || !visited.add(type)) {
+      return;
+    }
+    for (FieldCodec fieldCodec : fieldCodecs) {
+      fieldCodec.resolve(visited);
+    }
+    resolved = true;
+  }
+
+  public Class<T> getType() {
+    return type;
+  }
+
+  /**
+   * Number of the properties which are serialized.
+   */
+  public int getFieldCount() {
+    return fieldCodecs.length;
+  }
+
+  /**
+   * Writes the given object to the given output.
+   * The output is not flushed, so that many objects can be written in a row.
+   *
+   * @param object the object which will be written, must not be null.
+   * @param output the output which the object will be written to.
+   * @throws IOException when the output fails.
+   */
+  public void write(T object, BinaryOutput output) throws IOException {
+    writeFields(object, output);
+  }
+
+  /**
+   * Writes the given object to the given stream and flushes it.
+   * Use a BinaryOutput to write many objects through a single buffer.
+   *
+   * @param object the object which will be written, must not be null.
+   * @param stream the stream which the object will be written to.
+   * @throws IOException when the stream fails.
+   */
+  public void write(T object, OutputStream stream) throws IOException {
+    BinaryOutput output = BinaryOutput.of(stream);
+    writeFields(object, output);
+    output.flush();
+  }
+
+  /**
+   * Writes the given object to the given channel.
+   * Use a BinaryOutput to write many objects through a single buffer.
+   *
+   * @param object  the object which will be written, must not be null.
+   * @param channel the channel which the object will be written to.
+   * @throws IOException when the channel fails.
+   */
+  public void write(T object, WritableByteChannel channel) throws IOException {
+    BinaryOutput output = BinaryOutput.of(channel);
+    writeFields(object, output);
+    output.flush();
+  }
+
+  /**
+   * Writes the given object to a new byte array.
+   *
+   * @param object the object which will be written, must not be null.
+   * @return the bytes of the object.
+   */
+  public byte[] toBytes(T object) {
+    ByteArrayOutputStream stream = new ByteArrayOutputStream();
+    try {
+      write(object, stream);
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+    return stream.toByteArray();
+  }
+
+  /**
+   * Reads an object from the given input.
+   * The input reads its source ahead through a buffer, so the objects of a stream or a channel
+   * are read through one input, which keeps the bytes of the next objects.
+   *
+   * @param input the input which the object will be read from.
+   * @return a new object.
+   * @throws IOException when the input fails or ends before the object,
+   *                     or InvalidClassException when the type can not be instantiated.
+   */
+  public T read(BinaryInput input) throws IOException {
+    T object;
+    try {
+      object = instantiator.newInstance();
+    } catch (ResultTypeInstantiationException e) {
+      InvalidClassException exception =
+          new InvalidClassException(type.getName(), e.getMessage());
+      exception.initCause(e);
+      throw exception;
+    }
+    try {
+      for (FieldCodec fieldCodec : fieldCodecs) {
+        fieldCodec.read(object, input);
+      }
+    } catch (IOException | RuntimeException | Error exception) {
+      throw exception;
+    } catch (Throwable throwable) {
+      throw new IllegalStateException(throwable);
+    }
+    return object;
+  }
+
+  /**
+   * Reads an object from the given bytes.
+   *
+   * @param bytes the bytes of the object, as toBytes returns them.
+   * @return a new object.
+   * @throws IOException when the bytes end before the object.
+   */
+  public T fromBytes(byte[] bytes) throws IOException {
+    return read(BinaryInput.of(bytes));
+  }
+
+  void writeFields(Object object, BinaryOutput output) throws IOException {
+    try {
+      for (FieldCodec fieldCodec : fieldCodecs) {
+        fieldCodec.write(object, output);
+      }
+    } catch (IOException | RuntimeException | Error exception) {
+      throw exception;
+    } catch (Throwable throwable) {
+      throw new IllegalStateException(throwable);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "MappableSerializer{" + type.getName() + ", " + fieldCodecs.length + " fields}";
+  }
+
+
+  /**
+   * Writes and reads a single property of an object.
+   */
+  private abstract static class FieldCodec {
+
+    private static final MethodType getterType =
+        MethodType.methodType(Object.class, Object.class);
+    private static final MethodType setterType =
+        MethodType.methodType(void.class, Object.class, Object.class);
+
+    final MethodHandle getter;
+    final MethodHandle setter;
+
+    FieldCodec(MethodHandle getter, MethodHandle setter) {
+      this.getter = getter;
+      this.setter = setter;
+    }
+
+    abstract void write(Object object, BinaryOutput output) throws Throwable;
+
+    abstract void read(Object object, BinaryInput input) throws Throwable;
+
+    void resolve(Set<Class<?>> visited) {
+    }
+
+    /**
+     * Creates the codec of a property from its typed handles.
+     *
+     * @return the codec, or null if the type of the property is not supported.
+     */
+    static FieldCodec of(MethodHandle getter, MethodHandle setter, Type type) {
+      if (type == int.class) {
+        return new IntFieldCodec(getter, setter);
+      } else if (type == long.class) {
+        return new LongFieldCodec(getter, setter);
+      } else if (type == double.class) {
+        return new DoubleFieldCodec(getter, setter);
+      } else if (type == boolean.class) {
+        return new BooleanFieldCodec(getter, setter);
+      }
+      ValueCodec valueCodec = ValueCodec.of(type);
+      return valueCodec == null ? null
+          : new ValueFieldCodec(getter.asType(getterType), setter.asType(setterType), valueCodec);
+    }
+  }
+
+
+  private static final class IntFieldCodec extends FieldCodec {
+
+    IntFieldCodec(MethodHandle getter, MethodHandle setter) {
+      super(getter, setter);
+    }
+
+    @Override
+    void write(Object object, BinaryOutput output) throws Throwable {
+      output.writeSignedVarInt((int) getter.invokeExact(object));
+    }
+
+    @Override
+    void read(Object object, BinaryInput input) throws Throwable {
+      setter.invokeExact(object, input.readSignedVarInt());
+    }
+  }
+
+
+  private static final class LongFieldCodec extends FieldCodec {
+
+    LongFieldCodec(MethodHandle getter, MethodHandle setter) {
+      super(getter, setter);
+    }
+
+    @Override
+    void write(Object object, BinaryOutput output) throws Throwable {
+      output.writeSignedVarLong((long) getter.invokeExact(object));
+    }
+
+    @Override
+    void read(Object object, BinaryInput input) throws Throwable {
+      setter.invokeExact(object, input.readSignedVarLong());
+    }
+  }
+
+
+  private static final class DoubleFieldCodec extends FieldCodec {
+
+    DoubleFieldCodec(MethodHandle getter, MethodHandle setter) {
+      super(getter, setter);
+    }
+
+    @Override
+    void write(Object object, BinaryOutput output) throws Throwable {
+      output.writeDouble((double) getter.invokeExact(object));
+    }
+
+    @Override
+    void read(Object object, BinaryInput input) throws Throwable {
+      setter.invokeExact(object, input.readDouble());
+    }
+  }
+
+
+  private static final class BooleanFieldCodec extends FieldCodec {
+
+    BooleanFieldCodec(MethodHandle getter, MethodHandle setter) {
+      super(getter, setter);
+    }
+
+    @Override
+    void write(Object object, BinaryOutput output) throws Throwable {
+      output.writeBoolean((boolean) getter.invokeExact(object));
+    }
+
+    @Override
+    void read(Object object, BinaryInput input) throws Throwable {
+      setter.invokeExact(object, input.readBoolean());
+    }
+  }
+
+
+  /**
+   * Writes any other supported property through its ValueCodec,
+   * boxing the less common primitives.
+   */
+  private static final class ValueFieldCodec extends FieldCodec {
+
+    private final ValueCodec valueCodec;
+
+    ValueFieldCodec(MethodHandle getter, MethodHandle setter, ValueCodec valueCodec) {
+      super(getter, setter);
+      this.valueCodec = valueCodec;
+    }
+
+    @Override
+    void write(Object object, BinaryOutput output) throws Throwable {
+      valueCodec.write(output, (Object) getter.invokeExact(object));
+    }
+
+    @Override
+    void read(Object object, BinaryInput input) throws Throwable {
+      setter.invokeExact(object, valueCodec.read(input));
+    }
+
+    @Override
+    void resolve(Set<Class<?>> visited) {
+      valueCodec.resolve(visited);
+    }
+  }
+}
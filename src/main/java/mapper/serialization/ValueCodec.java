@@ -0,0 +1,479 @@
+package mapper.serialization;
+
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.lang.reflect.Array;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.function.IntFunction;
+
+import mapper.Mappable;
+import mapper.util.Instantiator;
+
+
+/**
+ * Writes and reads a single value of a supported type.
+ * Primitives are written without a null marker, every other value is null-safe:
+ * boxed primitives and nested Mappable objects are preceded by a presence byte,
+ * strings, enums (as their ordinal), collections and arrays (as their size)
+ * are counted from 1 so that 0 is null.
+ * Lengths are read through BinaryInput.readLength, which bounds them.
+ */
+interface ValueCodec {
+
+  /**
+   * Capacity of the collections and arrays which are read,
+   * they grow as their elements arrive.
+   */
+  int initialCapacity = 16;
+
+  void write(BinaryOutput output, Object value) throws IOException;
+
+  Object read(BinaryInput input) throws IOException;
+
+  /**
+   * Builds the serializers of the nested Mappable types of the values.
+   *
+   * @param visited the types whose serializers are already built.
+   */
+  default void resolve(Set<Class<?>> visited) {
+  }
+
+  /**
+   * Finds the codec of the given declared type.
+   * Collections must be a List, Set or Collection type which ArrayList or LinkedHashSet
+   * can be assigned to, with a supported element type argument.
+   * Nested Mappable types must be concrete and have a public no-arg constructor;
+   * their values are written as the declared type, so the fields of a subclass are lost.
+   *
+   * @param type the declared (generic) type of the values.
+   * @return the codec, or null if the type is not supported,
+   *         e.g. BigDecimal, Date or a Map.
+   */
+  static ValueCodec of(Type type) {
+    if (type instanceof ParameterizedType) {
+      ParameterizedType parameterizedType = (ParameterizedType) type;
+      Class<?> rawType = (Class<?>) parameterizedType.getRawType();
+      if (!Collection.class.isAssignableFrom(rawType)) {
+        return null;
+      }
+      ValueCodec elementCodec = of(parameterizedType.getActualTypeArguments()[0]);
+      if (elementCodec == null) {
+        return null;
+      }
+      if (rawType.isAssignableFrom(ArrayList.class)) {
+        return new CollectionCodec(elementCodec, ArrayList::new);
+      }
+      if (rawType.isAssignableFrom(LinkedHashSet.class)) {
+        return new CollectionCodec(elementCodec, LinkedHashSet::new);
+      }
+      return null;
+    }
+    if (type instanceof GenericArrayType) {
+      return null;
+    }
+    if (!(type instanceof Class)) {
+      return null;
+    }
+    Class<?> valueType = (Class<?>) type;
+    if (valueType.isPrimitive()) {
+      return primitive(valueType);
+    }
+    if (valueType == String.class) {
+      return StringCodec.instance;
+    }
+    if (valueType.isEnum()) {
+      return new EnumCodec(valueType.getEnumConstants());
+    }
+    if (valueType.isArray()) {
+      if (valueType == byte[].class) {
+        return ByteArrayCodec.instance;
+      }
+      ValueCodec elementCodec = of(valueType.getComponentType());
+      return elementCodec == null ? null
+          : new ArrayCodec(valueType.getComponentType(), elementCodec);
+    }
+    if (Mappable.class.isAssignableFrom(valueType)) {
+      return Instantiator.of(valueType).isInstantiable() ? new MappableCodec(valueType) : null;
+    }
+    Class<?> primitiveType = unbox(valueType);
+    return primitiveType == null ? null : new NullableCodec(primitive(primitiveType));
+  }
+
+  /**
+   * Gets the codec of a primitive type, which reads the value boxed.
+   */
+  static ValueCodec primitive(Class<?> type) {
+    if (type == int.class) {
+      return PrimitiveCodec.INT;
+    } else if (type == long.class) {
+      return PrimitiveCodec.LONG;
+    } else if (type == double.class) {
+      return PrimitiveCodec.DOUBLE;
+    } else if (type == float.class) {
+      return PrimitiveCodec.FLOAT;
+    } else if (type == boolean.class) {
+      return PrimitiveCodec.BOOLEAN;
+    } else if (type == short.class) {
+      return PrimitiveCodec.SHORT;
+    } else if (type == byte.class) {
+      return PrimitiveCodec.BYTE;
+    } else if (type == char.class) {
+      return PrimitiveCodec.CHAR;
+    }
+    return null;
+  }
+
+  static Class<?> unbox(Class<?> type) {
+    if (type == Integer.class) {
+      return int.class;
+    } else if (type == Long.class) {
+      return long.class;
+    } else if (type == Double.class) {
+      return double.class;
+    } else if (type == Float.class) {
+      return float.class;
+    } else if (type == Boolean.class) {
+      return boolean.class;
+    } else if (type == Short.class) {
+      return short.class;
+    } else if (type == Byte.class) {
+      return byte.class;
+    } else if (type == Character.class) {
+      return char.class;
+    }
+    return null;
+  }
+
+
+  enum PrimitiveCodec implements ValueCodec {
+    INT {
+      @Override
+      public void write(BinaryOutput output, Object value) throws IOException {
+        output.writeSignedVarInt((Integer) value);
+      }
+
+      @Override
+      public Object read(BinaryInput input) throws IOException {
+        return input.readSignedVarInt();
+      }
+    },
+    LONG {
+      @Override
+      public void write(BinaryOutput output, Object value) throws IOException {
+        output.writeSignedVarLong((Long) value);
+      }
+
+      @Override
+      public Object read(BinaryInput input) throws IOException {
+        return input.readSignedVarLong();
+      }
+    },
+    DOUBLE {
+      @Override
+      public void write(BinaryOutput output, Object value) throws IOException {
+        output.writeDouble((Double) value);
+      }
+
+      @Override
+      public Object read(BinaryInput input) throws IOException {
+        return input.readDouble();
+      }
+    },
+    FLOAT {
+      @Override
+      public void write(BinaryOutput output, Object value) throws IOException {
+        output.writeFloat((Float) value);
+      }
+
+      @Override
+      public Object read(BinaryInput input) throws IOException {
+        return input.readFloat();
+      }
+    },
+    BOOLEAN {
+      @Override
+      public void write(BinaryOutput output, Object value) throws IOException {
+        output.writeBoolean((Boolean) value);
+      }
+
+      @Override
+      public Object read(BinaryInput input) throws IOException {
+        return input.readBoolean();
+      }
+    },
+    SHORT {
+      @Override
+      public void write(BinaryOutput output, Object value) throws IOException {
+        output.writeSignedVarInt((Short) value);
+      }
+
+      @Override
+      public Object read(BinaryInput input) throws IOException {
+        return (short) input.readSignedVarInt();
+      }
+    },
+    BYTE {
+      @Override
+      public void write(BinaryOutput output, Object value) throws IOException {
+        output.writeByte((Byte) value);
+      }
+
+      @Override
+      public Object read(BinaryInput input) throws IOException {
+        return input.readByte();
+      }
+    },
+    CHAR {
+      @Override
+      public void write(BinaryOutput output, Object value) throws IOException {
+        output.writeVarInt((Character) value);
+      }
+
+      @Override
+      public Object read(BinaryInput input) throws IOException {
+        return (char) input.readVarInt();
+      }
+    }
+  }
+
+
+  final class NullableCodec implements ValueCodec {
+
+    private final ValueCodec valueCodec;
+
+    NullableCodec(ValueCodec valueCodec) {
+      this.valueCodec = valueCodec;
+    }
+
+    @Override
+    public void write(BinaryOutput output, Object value) throws IOException {
+      output.writeBoolean(value != null);
+      if (value != null) {
+        valueCodec.write(output, value);
+      }
+    }
+
+    @Override
+    public Object read(BinaryInput input) throws IOException {
+      return input.readBoolean() ? valueCodec.read(input) : null;
+    }
+  }
+
+
+  final class StringCodec implements ValueCodec {
+
+    static final StringCodec instance = new StringCodec();
+
+    @Override
+    public void write(BinaryOutput output, Object value) throws IOException {
+      output.writeString((String) value);
+    }
+
+    @Override
+    public Object read(BinaryInput input) throws IOException {
+      return input.readString();
+    }
+  }
+
+
+  final class EnumCodec implements ValueCodec {
+
+    private final Object[] constants;
+
+    EnumCodec(Object[] constants) {
+      this.constants = constants;
+    }
+
+    @Override
+    public void write(BinaryOutput output, Object value) throws IOException {
+      output.writeVarInt(value == null ? 0 : ((Enum<?>) value).ordinal() + 1);
+    }
+
+    @Override
+    public Object read(BinaryInput input) throws IOException {
+      int ordinal = input.readVarInt() - 1;
+      if (ordinal >= constants.length) {
+        throw new StreamCorruptedException("Unknown enum ordinal " + ordinal + ".");
+      }
+      return ordinal < 0 ? null : constants[ordinal];
+    }
+  }
+
+
+  final class MappableCodec implements ValueCodec {
+
+    private final Class<?> type;
+    private volatile MappableSerializer<?> serializer;
+
+    MappableCodec(Class<?> type) {
+      this.type = type;
+    }
+
+    @Override
+    public void write(BinaryOutput output, Object value) throws IOException {
+      output.writeBoolean(value != null);
+      if (value != null) {
+        output.enterObject();
+        try {
+          serializer().writeFields(value, output);
+        } finally {
+          output.exitObject();
+        }
+      }
+    }
+
+    @Override
+    public Object read(BinaryInput input) throws IOException {
+      if (!input.readBoolean()) {
+        return null;
+      }
+      input.enterObject();
+      try {
+        return serializer().read(input);
+      } finally {
+        input.exitObject();
+      }
+    }
+
+    @Override
+    public void resolve(Set<Class<?>> visited) {
+      serializer().resolve(visited);
+    }
+
+    /**
+     * Gets the serializer of the type on first use,
+     * so that a type can have fields of its own type.
+     */
+    @SuppressWarnings("unchecked")
+    private MappableSerializer<?> serializer() {
+      MappableSerializer<?> serializer = this.serializer;
+      if (serializer == null) {
+        serializer = MappableSerializer.lookup((Class<? extends Mappable>) type);
+        this.serializer = serializer;
+      }
+      return serializer;
+    }
+  }
+
+
+  final class CollectionCodec implements ValueCodec {
+
+    private final ValueCodec elementCodec;
+    private final IntFunction<Collection<Object>> factory;
+
+    CollectionCodec(ValueCodec elementCodec, IntFunction<Collection<Object>> factory) {
+      this.elementCodec = elementCodec;
+      this.factory = factory;
+    }
+
+    @Override
+    public void write(BinaryOutput output, Object value) throws IOException {
+      if (value == null) {
+        output.writeVarInt(0);
+        return;
+      }
+      Collection<?> collection = (Collection<?>) value;
+      output.writeVarInt(collection.size() + 1);
+      for (Object element : collection) {
+        elementCodec.write(output, element);
+      }
+    }
+
+    @Override
+    public Object read(BinaryInput input) throws IOException {
+      int size = input.readLength();
+      if (size < 0) {
+        return null;
+      }
+      Collection<Object> collection = factory.apply(Math.min(size, initialCapacity));
+      for (int i = 0; i < size; i++) {
+        collection.add(elementCodec.read(input));
+      }
+      return collection;
+    }
+
+    @Override
+    public void resolve(Set<Class<?>> visited) {
+      elementCodec.resolve(visited);
+    }
+  }
+
+
+  final class ArrayCodec implements ValueCodec {
+
+    private final Class<?> componentType;
+    private final ValueCodec elementCodec;
+
+    ArrayCodec(Class<?> componentType, ValueCodec elementCodec) {
+      this.componentType = componentType;
+      this.elementCodec = elementCodec;
+    }
+
+    @Override
+    public void write(BinaryOutput output, Object value) throws IOException {
+      if (value == null) {
+        output.writeVarInt(0);
+        return;
+      }
+      int length = Array.getLength(value);
+      output.writeVarInt(length + 1);
+      for (int i = 0; i < length; i++) {
+        elementCodec.write(output, Array.get(value, i));
+      }
+    }
+
+    @Override
+    public Object read(BinaryInput input) throws IOException {
+      int length = input.readLength();
+      if (length < 0) {
+        return null;
+      }
+      Object array = Array.newInstance(componentType, Math.min(length, initialCapacity));
+      for (int i = 0; i < length; i++) {
+        int capacity = Array.getLength(array);
+        if (i == capacity) {
+          Object grownArray = Array.newInstance(componentType,
+              (int) Math.min(length, capacity * 2L));
+          System.arraycopy(array, 0, grownArray, 0, capacity);
+          array = grownArray;
+        }
+        Array.set(array, i, elementCodec.read(input));
+      }
+      return array;
+    }
+
+    @Override
+    public void resolve(Set<Class<?>> visited) {
+      elementCodec.resolve(visited);
+    }
+  }
+
+
+  final class ByteArrayCodec implements ValueCodec {
+
+    static final ByteArrayCodec instance = new ByteArrayCodec();
+
+    @Override
+    public void write(BinaryOutput output, Object value) throws IOException {
+      if (value == null) {
+        output.writeVarInt(0);
+        return;
+      }
+      byte[] bytes = (byte[]) value;
+      output.writeVarInt(bytes.length + 1);
+      output.writeBytes(bytes);
+    }
+
+    @Override
+    public Object read(BinaryInput input) throws IOException {
+      int length = input.readLength();
+      return length < 0 ? null : input.readBytes(length);
+    }
+  }
+}
@@ -0,0 +1,121 @@
+package mapper.util;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import mapper.plan.NameMatching;
+
+
+/**
+ * Immutable field metadata of a class, cached per class.
+ * Holds all public, private, protected fields of the class and of its super classes,
+ * indexed by name. A field shadows the field of a super class with the same name.
+ * The metadata of a class is built once, in linear time,
+ * from the metadata of its super class.
+ * Indexes by normalized name (e.g. case-insensitive) are built on first use.
+ * The Field objects are shared by every thread, so their accessible flag must not be changed;
+ * values are read and written by the cached handles of PropertyTable and MappingPlan instead.
+ */
+public final class ClassMetadata {
+
+  private static final ClassValue<ClassMetadata> metadata = new ClassValue<ClassMetadata>() {
+    @Override
+    protected ClassMetadata computeValue(Class<?> type) {
+      return new ClassMetadata(type);
+    }
+  };
+
+  private final Class<?> type;
+  private final Map<String, Field> fieldsByName;
+  private final List<Field> fields;
+  private final AtomicReferenceArray<Map<String, Field>> normalizedIndexes =
+      new AtomicReferenceArray<>(NameMatching.values().length);
+
+  private ClassMetadata(Class<?> type) {
+    this.type = type;
+    Map<String, Field> fieldsByName = type.getSuperclass() != null
+        ? new LinkedHashMap<>(of(type.getSuperclass()).fieldsByName)
+        : new LinkedHashMap<>();
+    for (Field field : type.getDeclaredFields()) {
+      fieldsByName.remove(field.getName());
+      fieldsByName.put(field.getName(), field);
+    }
+    this.fieldsByName = Collections.unmodifiableMap(fieldsByName);
+    this.fields = Collections.unmodifiableList(new ArrayList<>(fieldsByName.values()));
+  }
+
+  /**
+   * Gets the cached metadata of the given type, builds it on first use.
+   *
+   * @param type the type which's metadata will be returned.
+   * @return the metadata of the given type.
+   */
+  public static ClassMetadata of(Class<?> type) {
+    return metadata.get(type);
+  }
+
+  public Class<?> getType() {
+    return type;
+  }
+
+  /**
+   * Fields of the type, the fields of the super classes first.
+   * The fields are shared, callers must not call setAccessible on them.
+   *
+   * @return an unmodifiable list of the fields.
+   */
+  public List<Field> getFields() {
+    return fields;
+  }
+
+  /**
+   * Finds the field with the given name.
+   *
+   * @param name name of the field.
+   * @return the field, or null if the type does not have such a field.
+   */
+  public Field getField(String name) {
+    return fieldsByName.get(name);
+  }
+
+  /**
+   * Finds the field whose name is matched by the given key.
+   * When the names of two fields have the same key, neither of them is matched.
+   *
+   * @param key          a field name normalized by nameMatching.
+   * @param nameMatching the matching which normalized the key.
+   * @return the field, or null if the type does not have a single field with the key.
+   */
+  public Field getField(String key, NameMatching nameMatching) {
+    if (nameMatching == NameMatching.EXACT) {
+      return fieldsByName.get(key);
+    }
+    Map<String, Field> index = normalizedIndexes.get(nameMatching.ordinal());
+    if (index == null) {
+      index = buildIndex(nameMatching);
+      normalizedIndexes.compareAndSet(nameMatching.ordinal(), null, index);
+    }
+    return index.get(key);
+  }
+
+  private Map<String, Field> buildIndex(NameMatching nameMatching) {
+    Map<String, Field> index = new HashMap<>();
+    Set<String> ambiguousKeys = new HashSet<>();
+    for (Field field : fields) {
+      String key = nameMatching.normalize(field.getName());
+      if (index.put(key, field) != null) {
+        ambiguousKeys.add(key);
+      }
+    }
+    index.keySet().removeAll(ambiguousKeys);
+    return index;
+  }
+}
@@ -0,0 +1,171 @@
+package mapper.util;
+
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Modifier;
+import java.util.function.Supplier;
+
+import mapper.exception.ResultTypeInstantiationException;
+
+
+/**
+ * Creates new objects of a type through its public no-arg constructor.
+ * The constructor is looked up once per type and called through a Supplier
+ * made by LambdaMetafactory (or a MethodHandle when that is not possible,
+ * e.g. for a type of a child class loader),
+ * instead of the access checks of Class.newInstance on every call.
+ * A type without a public no-arg constructor gets an Instantiator too,
+ * which keeps the cause and throws on every call.
+ *
+ * @param <T> type of the created objects.
+ */
+public final class Instantiator<T> {
+
+  private static final MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+  private static final ClassValue<Instantiator<?>> instantiators =
+      new ClassValue<Instantiator<?>>() {
+        @Override
+        protected Instantiator<?> computeValue(Class<?> type) {
+          return create(type);
+        }
+      };
+
+  private final Class<T> type;
+  private final Supplier<T> handleSupplier;
+  private final Throwable failure;
+  private volatile Supplier<T> supplier;
+
+  private Instantiator(Class<T> type, Supplier<T> supplier, Supplier<T> handleSupplier,
+      Throwable failure) {
+    this.type = type;
+    this.supplier = supplier;
+    this.handleSupplier = handleSupplier;
+    this.failure = failure;
+  }
+
+  /**
+   * Gets the cached Instantiator of the given type.
+   *
+   * @param type the type which's objects will be created.
+   * @param <T>  type of the created objects.
+   * @return the Instantiator of the type.
+   */
+  @SuppressWarnings("unchecked")
+  public static <T> Instantiator<T> of(Class<T> type) {
+    return (Instantiator<T>) instantiators.get(type);
+  }
+
+  public Class<T> getType() {
+    return type;
+  }
+
+  /**
+   * Whether the type has a public no-arg constructor which can be called.
+   */
+  public boolean isInstantiable() {
+    return supplier != null;
+  }
+
+  /**
+   * Creates a new object of the type.
+   *
+   * @return a new object, never null.
+   * @throws ResultTypeInstantiationException throws this when the type does not have
+   *                                          a public no-arg constructor or it throws.
+   */
+  public T newInstance() throws ResultTypeInstantiationException {
+    Supplier<T> supplier = this.supplier;
+    if (supplier == null) {
+      throw new ResultTypeInstantiationException(type, failure);
+    }
+    try {
+      return supplier.get();
+    } catch (RuntimeException e) {
+      throw new ResultTypeInstantiationException(type, e);
+    } catch (LinkageError e) {
+      if (supplier == handleSupplier) {
+        throw e;
+      }
+      this.supplier = handleSupplier;
+      return newInstance();
+    }
+  }
+
+  /**
+   * Gets a Supplier which creates new objects of the type the same way newInstance does.
+   * When the constructor throws, the Supplier throws an IllegalStateException
+   * which's cause is the ResultTypeInstantiationException newInstance throws.
+   *
+   * @return a Supplier of new objects, never supplying null.
+   * @throws ResultTypeInstantiationException throws this when the type does not have
+   *                                          a public no-arg constructor.
+   */
+  public Supplier<T> asSupplier() throws ResultTypeInstantiationException {
+    if (supplier == null) {
+      throw new ResultTypeInstantiationException(type, failure);
+    }
+    return () -> {
+      try {
+        return newInstance();
+      } catch (ResultTypeInstantiationException e) {
+        throw new IllegalStateException(e);
+      }
+    };
+  }
+
+  private static <T> Instantiator<T> create(Class<T> type) {
+    if (type.isInterface() || type.isArray() || type.isPrimitive()
+        || Modifier.isAbstract(type.getModifiers())) {
+      return new Instantiator<>(type, null, null,
+          new InstantiationException(type.getName() + " is not a concrete class."));
+    }
+    MethodHandle constructor;
+    try {
+      constructor = MethodHandles.publicLookup()
+          .findConstructor(type, MethodType.methodType(void.class));
+    } catch (NoSuchMethodException | IllegalAccessException e) {
+      return new Instantiator<>(type, null, null, e);
+    }
+    MethodHandle handle = constructor.asType(MethodType.methodType(Object.class));
+    Supplier<T> handleSupplier = () -> {
+      try {
+        return type.cast(handle.invokeExact());
+      } catch (RuntimeException | Error exception) {
+        throw exception;
+      } catch (Throwable throwable) {
+        throw new IllegalStateException(throwable);
+      }
+    };
+    Supplier<T> supplier = isVisible(type) ? metafactory(constructor, type) : null;
+    return new Instantiator<>(type, supplier != null ? supplier : handleSupplier,
+        handleSupplier, null);
+  }
+
+  /**
+   * Whether the given type can be resolved by the class loader of Instantiator,
+   * which the Supplier made by LambdaMetafactory is defined in.
+   * A type of a child class loader can only be created through its MethodHandle.
+   */
+  private static boolean isVisible(Class<?> type) {
+    try {
+      return Class.forName(type.getName(), false, Instantiator.class.getClassLoader()) == type;
+    } catch (ClassNotFoundException | LinkageError e) {
+      return false;
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> Supplier<T> metafactory(MethodHandle constructor, Class<T> type) {
+    try {
+      return (Supplier<T>) LambdaMetafactory.metafactory(lookup, "get",
+          MethodType.methodType(Supplier.class), MethodType.methodType(Object.class),
+          constructor, MethodType.methodType(type))
+          .getTarget().invoke();
+    } catch (Throwable e) {
+      return null;
+    }
+  }
+}
@@ -1,21 +1,26 @@
 package mapper.util;
 
 import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.HashMap;
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 import java.util.function.Supplier;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import mapper.Mappable;
 import mapper.exception.ResultTypeInstantiationException;
+import mapper.metrics.MappingMetrics;
+import mapper.metrics.MappingMetricsRegistry;
+import mapper.offheap.OffHeapRecords;
+import mapper.plan.ColumnarMapper;
+import mapper.plan.ColumnarResult;
+import mapper.plan.GeneratedMapper;
+import mapper.plan.GeneratedMapperRegistry;
+import mapper.plan.MappingEngine;
+import mapper.plan.MappingPlan;
+import mapper.plan.MappingPlanCache;
+import mapper.plan.PropertyTable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -29,34 +34,14 @@ public class MapperUtil {
 
   /**
    * Gets all public, private, protected fields of the given type.
-   * If the given type has superclass, gets it's fields too using recursive call of self.
+   * If the given type has superclass, gets it's fields too.
+   * The fields are taken from the cached ClassMetadata of the type.
    *
    * @param type The type which's fields will be returned.
    * @return List of the fields of the given type.
    */
   public static List<Field> getAllFields(Class<?> type) {
-    List<Field> fields = new ArrayList<>();
-    if (type.getSuperclass() != null) {
-      List<Field> fieldsOfSuper = getAllFields(type.getSuperclass());
-      fields.addAll(fieldsOfSuper);
-    }
-
-    List<Field> fieldsOfCurrent = Arrays.stream(type.getDeclaredFields())
-        .map(field -> {
-          Iterator<Field> iterator = fields.iterator();
-          while (iterator.hasNext()) {
-            Field tempField = iterator.next();
-            if (tempField.getName().equals(field.getName())) {
-              iterator.remove();
-              break;
-            }
-          }
-          return field;
-        }).collect(Collectors.toList());
-
-    fields.addAll(fieldsOfCurrent);
-
-    return fields;
+    return new ArrayList<>(ClassMetadata.of(type).getFields());
   }
 
 
@@ -64,6 +49,8 @@ public class MapperUtil {
    * Extracts a map of fields in given Mappable object.
    * If given object type has a super class,
    * the fields derived from the super class is extracted too.
+   * Fields are read by the cached accessors of the PropertyTable of the object's class.
+   * The returned map is a mutable copy; use toMap for an array-backed view.
    *
    * @param mappable The object which's fields are wanted to be extracted.
    * @return a Map object which contains extracted fields names and values from the given object
@@ -71,15 +58,64 @@ public class MapperUtil {
    */
   public static Map<String, Object> getFieldsMap(final Mappable mappable)
       throws IllegalAccessException {
-    final Map<String, Object> map = new HashMap<>();
-    final List<Field> fields = getAllFields(mappable.getClass());
-    for (final Field field : fields) {
-      final boolean isFieldAccessible = field.isAccessible();
-      field.setAccessible(true);
-      map.put(field.getName(), field.get(mappable));
-      field.setAccessible(isFieldAccessible);
+    return PropertyTable.of(mappable.getClass()).toHashMap(mappable);
+  }
+
+  /**
+   * Reads the instance fields of the given object into a map of field names and values.
+   * Fields are read through their getters if there are,
+   * by the cached accessors of the PropertyTable of the object's class.
+   * The returned map is backed by an array and shares its keys with
+   * the other maps of the class; its values can be replaced, but keys can not be added.
+   *
+   * @param mappable the object which's fields will be read.
+   * @return a PropertyMap of the field values.
+   */
+  public static Map<String, Object> toMap(Mappable mappable) {
+    return PropertyTable.of(mappable.getClass()).toMap(mappable);
+  }
+
+  /**
+   * Populates a newly instantiated object of type resultType from the given map,
+   * the reverse of toMap. A value which is not of the type of its field
+   * throws IllegalArgumentException.
+   *
+   * @param map        field names and values, e.g. read from JSON.
+   * @param resultType the type which will be used to instantiate a target object.
+   * @param <ResultT>  result object's type.
+   * @return an object of type resultType.
+   * @throws ResultTypeInstantiationException throws this when can't instantiate a new object.
+   */
+  public static <ResultT extends Mappable> ResultT fromMap(Map<String, ?> map,
+      Class<ResultT> resultType) throws ResultTypeInstantiationException {
+    return fromMap(map, newResult(map.getClass(), Instantiator.of(resultType)));
+  }
+
+  /**
+   * Writes the values of the given map to the fields with the same names of result.
+   * Fields are written through their setters if there are.
+   * Keys which are not a writable field of the result type are ignored.
+   * The mapping is recorded to the MappingMetrics of MappingMetricsRegistry, if any,
+   * with the class of the map as the source type.
+   *
+   * @param map       field names and values, e.g. read from JSON.
+   * @param result    the object which's fields will be written.
+   * @param <ResultT> result object's type.
+   * @return the given result object.
+   * @throws IllegalArgumentException when a value is not of the type of its field.
+   */
+  public static <ResultT extends Mappable> ResultT fromMap(Map<String, ?> map, ResultT result) {
+    if (result == null) {
+      return null;
     }
-    return map;
+    final MappingMetrics metrics = MappingMetricsRegistry.get();
+    final long startNanos = metrics == null ? 0L : System.nanoTime();
+    int fieldsCopied = PropertyTable.of(result.getClass()).populate(map, result);
+    if (metrics != null) {
+      metrics.recordMapping(map.getClass(), result.getClass(), System.nanoTime() - startNanos,
+          fieldsCopied, 0, 0);
+    }
+    return result;
   }
 
   /**
@@ -96,32 +132,55 @@ public class MapperUtil {
   public static <SourceT extends Mappable, ResultT extends Mappable>
       ResultT map(SourceT source, Class<ResultT> resultType)
       throws ResultTypeInstantiationException {
+    return map(source, resultType, MappingEngine.DEFAULT);
+  }
 
+  /**
+   * Maps given source object's suitable fields
+   * to a newly instantiated object of type resultType, using the given engine.
+   *
+   * @param source     the object which's fields will be taken as map source.
+   * @param resultType the type which will be used to instantiate a target object.
+   * @param engine     the engine which will run the mapping plan.
+   * @param <SourceT>  source object' type.
+   * @param <ResultT>  result object's type.
+   * @return an object of type resultType.
+   * @throws ResultTypeInstantiationException throws this when can't instantiate a new object.
+   */
+  public static <SourceT extends Mappable, ResultT extends Mappable>
+      ResultT map(SourceT source, Class<ResultT> resultType, MappingEngine engine)
+      throws ResultTypeInstantiationException {
 
     Class<?> sourceType = source.getClass();
-    logger.debug("Started mapping from source type '"
-        + sourceType.getName() + "' to result type '" + resultType.getName() + "'.");
-
-    ResultT result;
-
-    try {
-      result = (ResultT) resultType.newInstance();
-    } catch (Exception e) {
-      ResultTypeInstantiationException exception =
-          new ResultTypeInstantiationException(resultType, e);
-      logger.debug(exception.getMessage());
-      throw exception;
+    if (logger.isDebugEnabled()) {
+      logger.debug("Started mapping from source type '{}' to result type '{}'.",
+          sourceType.getName(), resultType.getName());
     }
 
-    result = map(source, result);
+    GeneratedMapper<Mappable, ResultT> generatedMapper =
+        GeneratedMapperRegistry.find(sourceType, resultType);
+    if (generatedMapper != null) {
+      ResultT result;
+      try {
+        result = generatedMapper.newResult();
+      } catch (ResultTypeInstantiationException e) {
+        logger.debug("{}", e.getMessage());
+        recordInstantiationFailure(sourceType, resultType);
+        throw e;
+      }
+      return mapGenerated(source, result, generatedMapper);
+    }
 
-    return result;
+    ResultT result = newResult(sourceType, Instantiator.of(resultType));
+    return map(source, result, engine);
   }
 
 
   /**
    * Maps from source to result.
    * Both source and result must be Mappable.
+   * The matched getter/setter pairs are resolved once per type pair
+   * and cached in MappingPlanCache.
    *
    * @param source    the object which's fields will be taken as map source.
    * @param result    the object which's fields will be taken as map target.
@@ -131,97 +190,42 @@ public class MapperUtil {
    */
   public static <SourceT extends Mappable, ResultT extends Mappable> ResultT
       map(SourceT source, ResultT result) {
+    return map(source, result, MappingEngine.DEFAULT);
+  }
+
+  /**
+   * Maps from source to result using the given engine.
+   * Both source and result must be Mappable.
+   * If a mapper was generated at compile time for the type pair, it is used instead.
+   * The mapping is recorded to the MappingMetrics of MappingMetricsRegistry, if any.
+   *
+   * @param source    the object which's fields will be taken as map source.
+   * @param result    the object which's fields will be taken as map target.
+   * @param engine    the engine which will run the mapping plan.
+   * @param <SourceT> source object' type.
+   * @param <ResultT> result object's type.
+   * @return an object of type resultType.
+   */
+  public static <SourceT extends Mappable, ResultT extends Mappable> ResultT
+      map(SourceT source, ResultT result, MappingEngine engine) {
     if (source == null || result == null) {
       return null;
     }
-    Class<?> sourceType = source.getClass();
-    List<Field> sourceFields = getAllFields(sourceType);
-
-    logger.debug("Found fields in the source type: " + sourceFields);
-
-    Class<?> resultType = result.getClass();
-    List<Field> resultFields = getAllFields(resultType);
-
-    logger.debug("Found fields in the result type: " + resultFields);
-
-    for (Field sourceField :
-        sourceFields) {
-      String sourceFieldName = sourceField.getName();
-      Class<?> sourceFieldType = sourceField.getType();
-
-      Stream<Field> resultFieldsStream = resultFields.stream();
-      Optional<Field> resultFieldOptional = resultFieldsStream
-          .filter(field ->
-              field.getName() == sourceFieldName
-                  && field.getType() == sourceFieldType)
-          .findFirst();
-
-      if (resultFieldOptional.isPresent()) {
-
-        String fieldNameCapitalized = StringUtil.capitalizeFirstLetter(sourceFieldName);
-
-
-        Method sourceGetMethod;
-        String sourceGetMethodName = "get" + fieldNameCapitalized;
-        try {
-          sourceGetMethod = sourceType.getMethod(sourceGetMethodName);
-        } catch (NoSuchMethodException e) {
-          logger.debug("Field '" + sourceType.getName() + " "
-              + sourceFieldName + "' does not have a getter method.");
-          continue;
-        }
-
-        Object sourceFieldVal;
-        try {
-          sourceFieldVal = sourceGetMethod.invoke(source, null);
-        } catch (InvocationTargetException e) {
-          logger.debug("Invokation of  '" + sourceType.getName()
-              + " " + sourceGetMethodName + "' failed. "
-              + "Probably it requires at least 1 arg.");
-          continue;
-        } catch (IllegalAccessException e) {
-          logger.debug("Invokation of  '"
-              + sourceType.getName() + " " + sourceGetMethodName + "' failed. "
-              + "It has restricted access.");
-          continue;
-        } catch (IllegalArgumentException e) {
-          logger.debug("Invokation of  '"
-              + sourceType.getName() + " " + sourceGetMethodName + "' failed. "
-              + "Illegal argument.");
-          continue;
-        }
-
-        Method resultSetMethod;
-        String resultSetMethodName = "set" + fieldNameCapitalized;
-        try {
-          resultSetMethod = resultType.getMethod(resultSetMethodName, sourceFieldType);
-        } catch (NoSuchMethodException e) {
-          logger.debug("Field '" + resultType.getName() + " "
-              + sourceFieldName + "' does not have a setter method.");
-          continue;
-        }
-
-
-        try {
-          resultSetMethod.invoke(result, sourceFieldVal);
-        } catch (InvocationTargetException e) {
-          logger.debug("Invokation of  '" + resultType.getName()
-              + " " + resultSetMethodName + "' failed. "
-              + "Probably it requires at least 1 arg.");
-          continue;
-        } catch (IllegalAccessException e) {
-          logger.debug("Invokation of  '" + resultType.getName()
-              + " " + resultSetMethodName + "' failed. "
-              + "It has restricted access.");
-          continue;
-        } catch (IllegalArgumentException e) {
-          logger.debug("Invokation of  '" + resultType.getName()
-              + " " + resultSetMethodName + "' failed. "
-              + "Illegal argument.");
-          continue;
-        }
-
-      }
+    @SuppressWarnings("unchecked")
+    Class<ResultT> resultType = (Class<ResultT>) result.getClass();
+    GeneratedMapper<Mappable, ResultT> generatedMapper =
+        GeneratedMapperRegistry.find(source.getClass(), resultType);
+    if (generatedMapper != null) {
+      return mapGenerated(source, result, generatedMapper);
+    }
+    final MappingMetrics metrics = MappingMetricsRegistry.get();
+    final long startNanos = metrics == null ? 0L : System.nanoTime();
+    MappingPlan plan = MappingPlanCache.getPlan(source.getClass(), result.getClass());
+    int fieldsCopied = plan.copyProperties(source, result, engine);
+    if (metrics != null) {
+      metrics.recordMapping(source.getClass(), result.getClass(),
+          System.nanoTime() - startNanos, fieldsCopied, plan.getSkippedFieldCount(),
+          plan.getPropertyMappings().size() - fieldsCopied);
     }
     return result;
   }
@@ -231,6 +235,11 @@ public class MapperUtil {
     return map(source, supplier.get());
   }
 
+  public static <SourceT extends Mappable, ResultT extends Mappable> ResultT
+      map(SourceT source, Supplier<ResultT> supplier, MappingEngine engine) {
+    return map(source, supplier.get(), engine);
+  }
+
   /**
    *
    * @param sources A list of object's to be mapped from.
@@ -243,24 +252,41 @@ public class MapperUtil {
   public static <SourceT extends Mappable, ResultT extends Mappable> Iterable<ResultT>
       map(Iterable<SourceT> sources, Class<ResultT> resultType)
       throws ResultTypeInstantiationException {
+    return map(sources, resultType, MappingEngine.DEFAULT);
+  }
 
-    try {
-      ResultT resultT = resultType.newInstance();
-    } catch (Exception e) {
-      ResultTypeInstantiationException exception =
-          new ResultTypeInstantiationException(resultType, e);
-      logger.debug(exception.getMessage());
-      throw exception;
+  /**
+   * Maps every source to a new object of type resultType, a null source to null.
+   * The sources may be of different classes, e.g. a class and its sub classes;
+   * the mapping of each class is resolved once per call and kept in a PlanInlineCache.
+   *
+   * @param sources A list of object's to be mapped from.
+   * @param resultType the type which will be used to instantiate a target object.
+   * @param engine the engine which will run the mapping plans.
+   * @param <SourceT> source object' type.
+   * @param <ResultT> result object's type.
+   * @return A List&lt;ResultT&gt; object of type resultType.
+   * @throws ResultTypeInstantiationException throws this when can't instantiate a new object.
+   */
+  public static <SourceT extends Mappable, ResultT extends Mappable> Iterable<ResultT>
+      map(Iterable<SourceT> sources, Class<ResultT> resultType, MappingEngine engine)
+      throws ResultTypeInstantiationException {
+    if (sources == null) {
+      return null;
     }
 
-    return map(sources, () -> {
-      try {
-        return resultType.newInstance();
-      } catch (Exception e) {
-        return null;
-      }
-    });
+    Instantiator<ResultT> instantiator = Instantiator.of(resultType);
+    PlanInlineCache planCache = new PlanInlineCache(engine);
+    List<ResultT> results = sources instanceof Collection
+        ? new ArrayList<ResultT>(((Collection<?>) sources).size())
+        : new ArrayList<ResultT>();
+    for (SourceT source : sources) {
+      results.add(source == null
+          ? null
+          : planCache.map(source, newResult(source.getClass(), instantiator)));
+    }
 
+    return results;
   }
 
 
@@ -274,14 +300,191 @@ public class MapperUtil {
    */
   public static <SourceT extends Mappable, ResultT extends Mappable> Iterable<ResultT>
       map(Iterable<SourceT> sources, Supplier<ResultT> supplier) {
+    return map(sources, supplier, MappingEngine.DEFAULT);
+  }
+
+  /**
+   *
+   * @param sources A list of object's to be mapped from.
+   * @param supplier Target type's supplier function.
+   * @param engine the engine which will run the mapping plans.
+   * @param <SourceT> source object' type.
+   * @param <ResultT> result object's type.
+   * @return A List&lt;ResultT&gt; object of type resultType.
+   */
+  public static <SourceT extends Mappable, ResultT extends Mappable> Iterable<ResultT>
+      map(Iterable<SourceT> sources, Supplier<ResultT> supplier, MappingEngine engine) {
     if (sources == null || supplier == null) {
       return null;
     }
 
-    List<ResultT> results = new ArrayList<ResultT>();
-    sources.forEach(source -> results.add(map(source, supplier)));
+    PlanInlineCache planCache = new PlanInlineCache(engine);
+    List<ResultT> results = sources instanceof Collection
+        ? new ArrayList<ResultT>(((Collection<?>) sources).size())
+        : new ArrayList<ResultT>();
+    sources.forEach(source -> results.add(planCache.map(source, supplier.get())));
 
     return results;
   }
 
+  /**
+   * Maps every source to the target at the same index of the given list.
+   * The targets are taken in order, the ones after the last source are not written.
+   *
+   * @param sources   A list of object's to be mapped from.
+   * @param targets   existing objects which will be written, at least as many as the sources.
+   * @param engine    the engine which will run the mapping plans.
+   * @param <SourceT> source object' type.
+   * @param <ResultT> result object's type.
+   * @return the given targets list.
+   * @throws IllegalArgumentException throws this when there are more sources than targets.
+   */
+  public static <SourceT extends Mappable, ResultT extends Mappable> List<ResultT>
+      map(Iterable<SourceT> sources, List<ResultT> targets, MappingEngine engine) {
+    if (sources == null || targets == null) {
+      return targets;
+    }
+
+    PlanInlineCache planCache = new PlanInlineCache(engine);
+    Iterator<ResultT> targetIterator = targets.iterator();
+    for (SourceT source : sources) {
+      if (!targetIterator.hasNext()) {
+        throw new IllegalArgumentException("There are more sources than targets.");
+      }
+      planCache.map(source, targetIterator.next());
+    }
+    return targets;
+  }
+
+  /**
+   * Maps every source to the target at the same index of the given array.
+   *
+   * @param sources   A list of object's to be mapped from.
+   * @param targets   existing objects which will be written, at least as many as the sources.
+   * @param engine    the engine which will run the mapping plans.
+   * @param <SourceT> source object' type.
+   * @param <ResultT> result object's type.
+   * @return the given targets array.
+   * @throws IllegalArgumentException throws this when there are more sources than targets.
+   */
+  public static <SourceT extends Mappable, ResultT extends Mappable> ResultT[]
+      map(Iterable<SourceT> sources, ResultT[] targets, MappingEngine engine) {
+    if (sources == null || targets == null) {
+      return targets;
+    }
+
+    PlanInlineCache planCache = new PlanInlineCache(engine);
+    int index = 0;
+    for (SourceT source : sources) {
+      if (index == targets.length) {
+        throw new IllegalArgumentException("There are more sources than targets.");
+      }
+      planCache.map(source, targets[index++]);
+    }
+    return targets;
+  }
+
+  /**
+   * Maps the given sources into a column per matched property of resultType,
+   * an int[], long[] or double[] for int, long and double properties
+   * and an Object[] for the others. No result object is instantiated.
+   *
+   * @param sources    A list of object's to be mapped from.
+   * @param resultType the type which's properties the columns are made of.
+   * @param <SourceT>  source object' type.
+   * @param <ResultT>  result object's type.
+   * @return the columns of the mapped rows, or null if sources is null.
+   */
+  public static <SourceT extends Mappable, ResultT extends Mappable> ColumnarResult
+      mapToColumns(Iterable<SourceT> sources, Class<ResultT> resultType) {
+    return ColumnarMapper.map(sources, resultType);
+  }
+
+  /**
+   * Maps the given sources into fixed-layout records of resultType
+   * in a newly allocated direct buffer, which is sized for the sources.
+   * Only the primitive and boxed primitive fields of resultType are part of the records.
+   *
+   * @param sources    A list of object's to be mapped from.
+   * @param resultType the type which's RecordLayout the records have.
+   * @param <SourceT>  source object' type.
+   * @param <ResultT>  result object's type.
+   * @return the records, a record per source, or null if sources is null.
+   */
+  public static <SourceT extends Mappable, ResultT extends Mappable> OffHeapRecords<ResultT>
+      mapToOffHeap(Iterable<SourceT> sources, Class<ResultT> resultType) {
+    if (sources == null) {
+      return null;
+    }
+    Collection<SourceT> sourceCollection;
+    if (sources instanceof Collection) {
+      sourceCollection = (Collection<SourceT>) sources;
+    } else {
+      sourceCollection = new ArrayList<>();
+      sources.forEach(sourceCollection::add);
+    }
+    OffHeapRecords<ResultT> records =
+        OffHeapRecords.allocate(resultType, sourceCollection.size());
+    records.addAll(sourceCollection);
+    return records;
+  }
+
+  /**
+   * Gets a supplier which instantiates new objects of the given type
+   * through its cached Instantiator.
+   *
+   * @param resultType the type which will be used to instantiate target objects.
+   * @param <ResultT>  result object's type.
+   * @return a supplier of new objects of type resultType.
+   * @throws ResultTypeInstantiationException throws this when resultType does not have
+   *                                          a public no-arg constructor.
+   */
+  static <ResultT extends Mappable> Supplier<ResultT> newInstanceSupplier(
+      Class<ResultT> resultType) throws ResultTypeInstantiationException {
+    try {
+      return Instantiator.of(resultType).asSupplier();
+    } catch (ResultTypeInstantiationException e) {
+      logger.debug("{}", e.getMessage());
+      throw e;
+    }
+  }
+
+  /**
+   * Instantiates a new result object,
+   * records the failure to the metrics if it can not be instantiated.
+   */
+  private static <ResultT> ResultT newResult(Class<?> sourceType,
+      Instantiator<ResultT> instantiator) throws ResultTypeInstantiationException {
+    try {
+      return instantiator.newInstance();
+    } catch (ResultTypeInstantiationException e) {
+      logger.debug("{}", e.getMessage());
+      recordInstantiationFailure(sourceType, instantiator.getType());
+      throw e;
+    }
+  }
+
+  private static void recordInstantiationFailure(Class<?> sourceType, Class<?> resultType) {
+    MappingMetrics metrics = MappingMetricsRegistry.get();
+    if (metrics != null) {
+      metrics.recordInstantiationFailure(sourceType, resultType);
+    }
+  }
+
+  /**
+   * Maps from source to result by the given generated mapper,
+   * and records the mapping the same way a mapping by plan is recorded.
+   */
+  private static <ResultT extends Mappable> ResultT mapGenerated(Mappable source,
+      ResultT result, GeneratedMapper<Mappable, ResultT> generatedMapper) {
+    final MappingMetrics metrics = MappingMetricsRegistry.get();
+    final long startNanos = metrics == null ? 0L : System.nanoTime();
+    generatedMapper.map(source, result);
+    if (metrics != null) {
+      metrics.recordMapping(source.getClass(), result.getClass(),
+          System.nanoTime() - startNanos, generatedMapper.getPropertyCount(), 0, 0);
+    }
+    return result;
+  }
+
 }
@@ -0,0 +1,129 @@
+package mapper.util;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
+
+import mapper.exception.ResultTypeInstantiationException;
+
+
+/**
+ * Bounded pool of reusable result objects.
+ * get() takes an idle object from the pool, or creates a new one when the pool is empty,
+ * and release() puts an object back while the pool is not full.
+ * Idle objects are kept in a fixed array of slots which are taken and filled by CAS,
+ * so neither taking nor releasing an object locks or allocates.
+ * Released objects are not cleared: a mapping only writes the matched fields,
+ * so fields which are not mapped keep the values of the previous use.
+ * Being a Supplier, a pool can be given to Mapper.mapTo(Supplier) directly.
+ *
+ * @param <T> type of the pooled objects.
+ */
+public final class ObjectPool<T> implements Supplier<T> {
+
+  private static final Map<Class<?>, ObjectPool<?>> pools = new ConcurrentHashMap<>();
+
+  private final Supplier<T> factory;
+  private final AtomicReferenceArray<T> slots;
+
+  /**
+   * Creates a pool which creates its objects with the given factory.
+   *
+   * @param factory  creates the objects when the pool is empty.
+   * @param capacity maximum number of idle objects kept by the pool.
+   */
+  public ObjectPool(Supplier<T> factory, int capacity) {
+    if (factory == null) {
+      throw new IllegalArgumentException("factory must not be null");
+    }
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("capacity must be positive");
+    }
+    this.factory = factory;
+    this.slots = new AtomicReferenceArray<>(capacity);
+  }
+
+  /**
+   * Gets the shared pool of the given type, creates it with the given capacity
+   * if the type does not have a pool yet.
+   * Its objects are created by the Instantiator of the type.
+   *
+   * @param type     type of the pooled objects.
+   * @param capacity maximum number of idle objects, used only when the pool is created.
+   * @param <T>      type of the pooled objects.
+   * @return the pool of the type.
+   * @throws ResultTypeInstantiationException throws this when the type does not have
+   *                                          a public no-arg constructor.
+   */
+  @SuppressWarnings("unchecked")
+  public static <T> ObjectPool<T> of(Class<T> type, int capacity)
+      throws ResultTypeInstantiationException {
+    ObjectPool<T> pool = (ObjectPool<T>) pools.get(type);
+    if (pool == null) {
+      Supplier<T> factory = Instantiator.of(type).asSupplier();
+      pool = (ObjectPool<T>) pools.computeIfAbsent(type,
+          key -> new ObjectPool<>(factory, capacity));
+    }
+    return pool;
+  }
+
+  /**
+   * Removes the shared pools of all types.
+   */
+  public static void clearAll() {
+    pools.clear();
+  }
+
+  /**
+   * Takes an idle object from the pool, creates a new one if there is not any.
+   *
+   * @return an object which is not used by anyone else.
+   */
+  @Override
+  public T get() {
+    for (int i = 0; i < slots.length(); i++) {
+      T object = slots.get(i);
+      if (object != null && slots.compareAndSet(i, object, null)) {
+        return object;
+      }
+    }
+    return factory.get();
+  }
+
+  /**
+   * Puts the given object back to the pool.
+   * The caller must not use the object after releasing it.
+   *
+   * @param object the object which is not used anymore.
+   * @return true if the object is kept, false if the pool is full and the object is dropped.
+   */
+  public boolean release(T object) {
+    if (object == null) {
+      return false;
+    }
+    for (int i = 0; i < slots.length(); i++) {
+      if (slots.get(i) == null && slots.compareAndSet(i, null, object)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  public int getCapacity() {
+    return slots.length();
+  }
+
+  /**
+   * Number of the objects which are in the pool now.
+   */
+  public int getIdleCount() {
+    int idleCount = 0;
+    for (int i = 0; i < slots.length(); i++) {
+      if (slots.get(i) != null) {
+        idleCount++;
+      }
+    }
+    return idleCount;
+  }
+}
@@ -0,0 +1,138 @@
+package mapper.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+import mapper.Mappable;
+import mapper.ParallelOptions;
+import mapper.exception.ResultTypeInstantiationException;
+import mapper.plan.MappingEngine;
+
+
+/**
+ * Maps lists in parallel, in chunks of consecutive elements.
+ * The results keep the order of the sources.
+ * The number of chunks running at once can be bounded,
+ * e.g. when every element is mapped on a virtual thread of its own.
+ */
+public class ParallelMapperUtil {
+
+  /**
+   * Maps the given sources in parallel to newly instantiated objects of type resultType.
+   *
+   * @param sources    A list of object's to be mapped from.
+   * @param resultType the type which will be used to instantiate target objects.
+   * @param engine     the engine which will run the mapping plans.
+   * @param options    the executor, threshold and chunk size of the mapping.
+   * @param <SourceT>  source object' type.
+   * @param <ResultT>  result object's type.
+   * @return An ArrayList&lt;ResultT&gt; object in the order of sources.
+   * @throws ResultTypeInstantiationException throws this when can't instantiate a new object,
+   *                                          e.g. when the constructor throws.
+   */
+  public static <SourceT extends Mappable, ResultT extends Mappable> Iterable<ResultT>
+      map(Iterable<SourceT> sources, Class<ResultT> resultType, MappingEngine engine,
+      ParallelOptions options) throws ResultTypeInstantiationException {
+    try {
+      return map(sources, MapperUtil.newInstanceSupplier(resultType), engine, options);
+    } catch (IllegalStateException e) {
+      if (e.getCause() instanceof ResultTypeInstantiationException) {
+        throw (ResultTypeInstantiationException) e.getCause();
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Maps the given sources in parallel to the objects supplied by supplier.
+   * The supplier is called from the threads of the executor,
+   * so it must be thread-safe.
+   *
+   * @param sources   A list of object's to be mapped from.
+   * @param supplier  Target type's supplier function.
+   * @param engine    the engine which will run the mapping plans.
+   * @param options   the executor, threshold and chunk size of the mapping.
+   * @param <SourceT> source object' type.
+   * @param <ResultT> result object's type.
+   * @return An ArrayList&lt;ResultT&gt; object in the order of sources.
+   */
+  public static <SourceT extends Mappable, ResultT extends Mappable> Iterable<ResultT>
+      map(Iterable<SourceT> sources, Supplier<ResultT> supplier, MappingEngine engine,
+      ParallelOptions options) {
+    if (sources == null || supplier == null) {
+      return null;
+    }
+
+    List<SourceT> sourceList = toRandomAccessList(sources);
+    int size = sourceList.size();
+    if (size < options.getThreshold()) {
+      return MapperUtil.map(sourceList, supplier, engine);
+    }
+
+    List<ResultT> results = new ArrayList<>(Collections.nCopies(size, null));
+    int chunkSize = options.getChunkSize(size);
+    CompletableFuture<?>[] chunks = new CompletableFuture<?>[(size + chunkSize - 1) / chunkSize];
+    Semaphore permits = options.getMaxConcurrency() > 0
+        ? new Semaphore(options.getMaxConcurrency())
+        : null;
+    for (int i = 0; i < chunks.length; i++) {
+      int from = i * chunkSize;
+      int to = Math.min(from + chunkSize, size);
+      Runnable chunk = () -> {
+        for (int index = from; index < to; index++) {
+          results.set(index, MapperUtil.map(sourceList.get(index), supplier, engine));
+        }
+      };
+      if (permits == null) {
+        chunks[i] = CompletableFuture.runAsync(chunk, options.getExecutor());
+        continue;
+      }
+      permits.acquireUninterruptibly();
+      try {
+        chunks[i] = CompletableFuture.runAsync(() -> {
+          try {
+            chunk.run();
+          } finally {
+            permits.release();
+          }
+        }, options.getExecutor());
+      } catch (RuntimeException e) {
+        permits.release();
+        throw e;
+      }
+    }
+
+    try {
+      CompletableFuture.allOf(chunks).join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      if (e.getCause() instanceof Error) {
+        throw (Error) e.getCause();
+      }
+      throw e;
+    }
+
+    return results;
+  }
+
+  private static <SourceT> List<SourceT> toRandomAccessList(Iterable<SourceT> sources) {
+    if (sources instanceof List && sources instanceof RandomAccess) {
+      return (List<SourceT>) sources;
+    }
+    if (sources instanceof Collection) {
+      return new ArrayList<>((Collection<SourceT>) sources);
+    }
+    List<SourceT> sourceList = new ArrayList<>();
+    sources.forEach(sourceList::add);
+    return sourceList;
+  }
+}
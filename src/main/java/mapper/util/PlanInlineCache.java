@@ -0,0 +1,137 @@
+package mapper.util;
+
+import mapper.Mappable;
+import mapper.metrics.MappingMetrics;
+import mapper.metrics.MappingMetricsRegistry;
+import mapper.plan.GeneratedMapper;
+import mapper.plan.GeneratedMapperRegistry;
+import mapper.plan.MappingEngine;
+import mapper.plan.MappingPlan;
+import mapper.plan.MappingPlanCache;
+
+
+/**
+ * Inline cache of the mappings used by a single list mapping call,
+ * keyed by the concrete class of the source objects.
+ * The mapping of the first source class is held in fields and checked by identity,
+ * so a list of a single class is mapped without any lookup (monomorphic fast path).
+ * The mappings of the next few classes are held in a small array searched linearly,
+ * which keeps a list mixing e.g. a class and its sub classes close to the same speed
+ * (polymorphic path). Classes beyond that are looked up from the registries
+ * for every element, same as mapping objects one by one (megamorphic fallback).
+ * It is not thread-safe; every call uses its own cache.
+ */
+final class PlanInlineCache {
+
+  static final int polymorphicLimit = 4;
+
+  private final MappingEngine engine;
+  private final MappingMetrics metrics = MappingMetricsRegistry.get();
+  private Class<?> resultType;
+
+  private Entry monomorphicEntry;
+  private final Entry[] polymorphicEntries = new Entry[polymorphicLimit];
+  private int polymorphicCount;
+
+  PlanInlineCache(MappingEngine engine) {
+    this.engine = engine;
+  }
+
+  /**
+   * Maps from source to result by the cached mapping of their classes.
+   * Results of another class than the first result are mapped through MapperUtil.
+   *
+   * @return the given result object, or null if source or result is null.
+   */
+  <ResultT extends Mappable> ResultT map(Mappable source, ResultT result) {
+    if (source == null || result == null) {
+      return null;
+    }
+    if (resultType == null) {
+      resultType = result.getClass();
+    } else if (resultType != result.getClass()) {
+      return MapperUtil.map(source, result, engine);
+    }
+    Class<?> sourceType = source.getClass();
+    Entry entry = monomorphicEntry;
+    if (entry == null || entry.sourceType != sourceType) {
+      entry = find(sourceType);
+      if (entry == null) {
+        return MapperUtil.map(source, result, engine);
+      }
+    }
+    final long startNanos = metrics == null ? 0L : System.nanoTime();
+    int fieldsCopied = entry.map(source, result, engine);
+    if (metrics != null) {
+      metrics.recordMapping(sourceType, resultType, System.nanoTime() - startNanos,
+          fieldsCopied, entry.fieldsSkipped, entry.propertyCount - fieldsCopied);
+    }
+    return result;
+  }
+
+  /**
+   * Number of the source classes which have a cached mapping.
+   */
+  int size() {
+    return (monomorphicEntry == null ? 0 : 1) + polymorphicCount;
+  }
+
+  private Entry find(Class<?> sourceType) {
+    if (monomorphicEntry == null) {
+      monomorphicEntry = new Entry(sourceType, resultType);
+      return monomorphicEntry;
+    }
+    for (int i = 0; i < polymorphicCount; i++) {
+      if (polymorphicEntries[i].sourceType == sourceType) {
+        return polymorphicEntries[i];
+      }
+    }
+    if (polymorphicCount == polymorphicLimit) {
+      return null;
+    }
+    Entry entry = new Entry(sourceType, resultType);
+    polymorphicEntries[polymorphicCount++] = entry;
+    return entry;
+  }
+
+
+  /**
+   * The resolved mapping of a source class to the result class:
+   * the generated mapper of the pair if there is one, its MappingPlan otherwise.
+   */
+  private static final class Entry {
+
+    private final Class<?> sourceType;
+    private final GeneratedMapper<Mappable, Mappable> generatedMapper;
+    private final MappingPlan plan;
+    private final int propertyCount;
+    private final int fieldsSkipped;
+
+    @SuppressWarnings("unchecked")
+    private Entry(Class<?> sourceType, Class<?> resultType) {
+      this.sourceType = sourceType;
+      this.generatedMapper = GeneratedMapperRegistry.find(sourceType,
+          (Class<Mappable>) resultType);
+      this.plan = generatedMapper == null
+          ? MappingPlanCache.getPlan(sourceType, resultType)
+          : null;
+      this.propertyCount = plan == null
+          ? generatedMapper.getPropertyCount()
+          : plan.getPropertyMappings().size();
+      this.fieldsSkipped = plan == null ? 0 : plan.getSkippedFieldCount();
+    }
+
+    /**
+     * Maps source to result.
+     *
+     * @return the number of the properties which are copied.
+     */
+    private int map(Mappable source, Mappable result, MappingEngine engine) {
+      if (generatedMapper != null) {
+        generatedMapper.map(source, result);
+        return propertyCount;
+      }
+      return plan.copyProperties(source, result, engine);
+    }
+  }
+}
@@ -0,0 +1,107 @@
+package mapper.util;
+
+import java.util.Iterator;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import mapper.Mappable;
+import mapper.exception.ResultTypeInstantiationException;
+import mapper.plan.MappingEngine;
+
+
+/**
+ * Maps lazily: an element is mapped only when it is consumed,
+ * so the sources and the results do not have to be in memory at once.
+ */
+public class StreamMapperUtil {
+
+  /**
+   * Maps the given stream lazily to newly instantiated objects of type resultType.
+   *
+   * @param sources    A stream of object's to be mapped from.
+   * @param resultType the type which will be used to instantiate target objects.
+   * @param engine     the engine which will run the mapping plans.
+   * @param <SourceT>  source object' type.
+   * @param <ResultT>  result object's type.
+   * @return A Stream&lt;ResultT&gt; which maps the sources as it is consumed.
+   * @throws ResultTypeInstantiationException throws this when can't instantiate a new object.
+   */
+  public static <SourceT extends Mappable, ResultT extends Mappable> Stream<ResultT>
+      map(Stream<SourceT> sources, Class<ResultT> resultType, MappingEngine engine)
+      throws ResultTypeInstantiationException {
+    return map(sources, MapperUtil.newInstanceSupplier(resultType), engine);
+  }
+
+  /**
+   * Maps the given stream lazily to the objects supplied by supplier.
+   * Close handlers of the source stream are kept.
+   *
+   * @param sources   A stream of object's to be mapped from.
+   * @param supplier  Target type's supplier function.
+   * @param engine    the engine which will run the mapping plans.
+   * @param <SourceT> source object' type.
+   * @param <ResultT> result object's type.
+   * @return A Stream&lt;ResultT&gt; which maps the sources as it is consumed.
+   */
+  public static <SourceT extends Mappable, ResultT extends Mappable> Stream<ResultT>
+      map(Stream<SourceT> sources, Supplier<ResultT> supplier, MappingEngine engine) {
+    if (sources == null || supplier == null) {
+      return null;
+    }
+    return sources.map(source -> MapperUtil.map(source, supplier, engine));
+  }
+
+  /**
+   * Maps the given sources lazily to newly instantiated objects of type resultType.
+   *
+   * @param sources    A list of object's to be mapped from.
+   * @param resultType the type which will be used to instantiate target objects.
+   * @param engine     the engine which will run the mapping plans.
+   * @param <SourceT>  source object' type.
+   * @param <ResultT>  result object's type.
+   * @return An Iterable&lt;ResultT&gt; whose iterators map the sources as they are consumed.
+   * @throws ResultTypeInstantiationException throws this when can't instantiate a new object.
+   */
+  public static <SourceT extends Mappable, ResultT extends Mappable> Iterable<ResultT>
+      mapLazily(Iterable<SourceT> sources, Class<ResultT> resultType, MappingEngine engine)
+      throws ResultTypeInstantiationException {
+    return mapLazily(sources, MapperUtil.newInstanceSupplier(resultType), engine);
+  }
+
+  /**
+   * Maps the given sources lazily to the objects supplied by supplier.
+   * Every iterator of the result iterates the sources again and maps them again.
+   *
+   * @param sources   A list of object's to be mapped from.
+   * @param supplier  Target type's supplier function.
+   * @param engine    the engine which will run the mapping plans.
+   * @param <SourceT> source object' type.
+   * @param <ResultT> result object's type.
+   * @return An Iterable&lt;ResultT&gt; whose iterators map the sources as they are consumed.
+   */
+  public static <SourceT extends Mappable, ResultT extends Mappable> Iterable<ResultT>
+      mapLazily(Iterable<SourceT> sources, Supplier<ResultT> supplier, MappingEngine engine) {
+    if (sources == null || supplier == null) {
+      return null;
+    }
+    return () -> {
+      Iterator<SourceT> iterator = sources.iterator();
+      return new Iterator<ResultT>() {
+        @Override
+        public boolean hasNext() {
+          return iterator.hasNext();
+        }
+
+        @Override
+        public ResultT next() {
+          return MapperUtil.map(iterator.next(), supplier, engine);
+        }
+
+        @Override
+        public void remove() {
+          iterator.remove();
+        }
+      };
+    };
+  }
+}
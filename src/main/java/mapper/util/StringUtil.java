@@ -22,4 +22,30 @@ public class StringUtil {
     }
     return stringBuilder.toString();
   }
+
+  /**
+   * Turns the given snake_case name into camelCase, e.g. first_name into firstName.
+   *
+   * @param str will be converted, may be already camelCase.
+   * @return the camelCase name.
+   */
+  public static String snakeToCamelCase(String str) {
+    if (str == null || str.indexOf('_') < 0) {
+      return str;
+    }
+    StringBuilder stringBuilder = new StringBuilder(str.length());
+    boolean upperNext = false;
+    for (int i = 0; i < str.length(); i++) {
+      char character = str.charAt(i);
+      if (character == '_') {
+        upperNext = stringBuilder.length() > 0;
+      } else if (upperNext) {
+        stringBuilder.append(Character.toUpperCase(character));
+        upperNext = false;
+      } else {
+        stringBuilder.append(character);
+      }
+    }
+    return stringBuilder.toString();
+  }
 }
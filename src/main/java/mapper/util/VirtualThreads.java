@@ -0,0 +1,64 @@
+package mapper.util;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Gives a shared executor which runs every task on a new virtual thread,
+ * so that mappings whose suppliers block on I/O do not tie up platform threads.
+ * Virtual threads are looked up at runtime; on a JDK without them
+ * (before 21) a bounded pool of daemon platform threads is used instead,
+ * one thread per available processor, so a large input does not start
+ * an OS thread per task.
+ */
+public class VirtualThreads {
+
+  private static final Logger logger = LoggerFactory.getLogger(VirtualThreads.class);
+
+  private static final ExecutorService virtualExecutor = createVirtualExecutor();
+  private static final ExecutorService executor = virtualExecutor != null
+      ? virtualExecutor
+      : createPlatformExecutor(Runtime.getRuntime().availableProcessors());
+
+  public static ExecutorService executor() {
+    return executor;
+  }
+
+  public static boolean isAvailable() {
+    return virtualExecutor != null;
+  }
+
+  private static ExecutorService createPlatformExecutor(int threadCount) {
+    ThreadFactory threadFactory = runnable -> {
+      Thread thread = new Thread(runnable, "mapper-bulk");
+      thread.setDaemon(true);
+      return thread;
+    };
+    ThreadPoolExecutor platformExecutor = new ThreadPoolExecutor(threadCount, threadCount,
+        60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), threadFactory);
+    platformExecutor.allowCoreThreadTimeOut(true);
+    return platformExecutor;
+  }
+
+  private static ExecutorService createVirtualExecutor() {
+    try {
+      return (ExecutorService) MethodHandles.publicLookup()
+          .findStatic(Executors.class, "newVirtualThreadPerTaskExecutor",
+              MethodType.methodType(ExecutorService.class))
+          .invoke();
+    } catch (Throwable e) {
+      logger.debug("Virtual threads are not available, using platform threads. {}", e);
+      return null;
+    }
+  }
+}
@@ -0,0 +1,119 @@
+package mapper;
+
+import static org.junit.Assert.*;
+
+import mapper.plan.AccessStrategy;
+import mapper.plan.MappingEngine;
+import mapper.plan.MappingPlan;
+import mapper.plan.MappingPlanCache;
+
+import org.junit.Test;
+
+
+public class AccessStrategyTest {
+
+  @Test
+  public void shouldCopyPrivateFields_whenBothTypesUseFieldAccess() {
+    for (MappingEngine engine : MappingEngine.values()) {
+      StructSource source = newStructSource();
+
+      StructResult result = Mapper.getMapperFrom(source, engine).mapTo(StructResult::new);
+
+      assertEquals(engine.name(), 7, result.count);
+      assertEquals(engine.name(), 8L, result.total);
+      assertEquals(engine.name(), "name", result.name);
+      assertEquals(engine.name(), "constant", result.constant);
+    }
+  }
+
+  @Test
+  public void shouldPreferSetter_whenResultTypeUsesHybridAccess() {
+    for (MappingEngine engine : MappingEngine.values()) {
+      StructSource source = newStructSource();
+
+      HybridResult result = Mapper.getMapperFrom(source, engine).mapTo(HybridResult::new);
+
+      assertEquals(engine.name(), 14, result.count);
+      assertEquals(engine.name(), 8L, result.total);
+    }
+  }
+
+  @Test
+  public void shouldSkipFields_whenDefaultAccessDoesNotFindAccessors() {
+    MappingPlan plan = MappingPlanCache.getPlan(StructSource.class, PlainResult.class);
+
+    assertEquals(AccessStrategy.GETTER_SETTER, AccessStrategy.of(PlainResult.class));
+    assertEquals(AccessStrategy.FIELD, AccessStrategy.of(StructSource.class));
+    assertEquals(1, plan.getPropertyMappings().size());
+    assertEquals("total", plan.getPropertyMappings().get(0).getName());
+    assertTrue(plan.getPropertyMappings().get(0).isFieldAccess());
+    assertEquals(1, plan.getSkippedFieldCount());
+  }
+
+  @Test
+  public void shouldThrowError_whenFieldAccessCopyThrowsError() {
+    for (MappingEngine engine : MappingEngine.values()) {
+      try {
+        Mapper.getMapperFrom(newStructSource(), engine).mapTo(FailingResult::new);
+        fail(engine.name());
+      } catch (StackOverflowError e) {
+        assertEquals(engine.name(), "too deep", e.getMessage());
+      }
+    }
+  }
+
+  private static StructSource newStructSource() {
+    StructSource source = new StructSource();
+    source.count = 7;
+    source.total = 8L;
+    source.name = "name";
+    return source;
+  }
+
+
+  @MappingAccess(AccessStrategy.FIELD)
+  public static class StructSource implements Mappable {
+    private static String shared = "shared";
+    private int count;
+    private long total;
+    private String name;
+    private String constant = "changed";
+  }
+
+  @MappingAccess(AccessStrategy.FIELD)
+  public static class StructResult implements Mappable {
+    private static String shared;
+    private int count;
+    private long total;
+    private String name;
+    private final String constant = "constant";
+  }
+
+  @MappingAccess(AccessStrategy.HYBRID)
+  public static class HybridResult implements Mappable {
+    private int count;
+    private long total;
+
+    public void setCount(int count) {
+      this.count = count * 2;
+    }
+  }
+
+  @MappingAccess(AccessStrategy.HYBRID)
+  public static class FailingResult implements Mappable {
+    private int count;
+
+    public void setCount(int count) {
+      throw new StackOverflowError("too deep");
+    }
+  }
+
+  public static class PlainResult implements Mappable {
+    private int count;
+    private long total;
+
+    public void setTotal(long total) {
+      this.total = total;
+    }
+  }
+}
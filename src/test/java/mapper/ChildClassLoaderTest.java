@@ -0,0 +1,160 @@
+package mapper;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+
+import mapper.plan.MappingEngine;
+import mapper.util.MapperUtil;
+import mapper.util.ObjectPool;
+
+import org.junit.Before;
+import org.junit.Test;
+
+
+public class ChildClassLoaderTest {
+
+  private Class<? extends Mappable> childType;
+
+  /**
+   * Loads a copy of Dto named Ctx, which only the child loader can resolve.
+   */
+  @Before
+  public void setUp() throws Exception {
+    String childName = Dto.class.getName().replace("$Dto", "$Ctx");
+    childType = new ChildLoader(Dto.class.getName(), childName).loadClass(childName)
+        .asSubclass(Mappable.class);
+  }
+
+  @Test
+  public void shouldMapToClass_whenResultTypeIsLoadedByChildLoader() throws Exception {
+    Mappable result = Mapper.getMapperFrom(new Dto("Ada", 36)).mapTo(childType);
+
+    Map<String, Object> fields = MapperUtil.toMap(result);
+    assertSame(childType, result.getClass());
+    assertEquals("Ada", fields.get("name"));
+    assertEquals(36, fields.get("age"));
+  }
+
+  @Test
+  public void shouldMapToList_whenResultTypeIsLoadedByChildLoader() throws Exception {
+    Iterable<? extends Mappable> results =
+        Mapper.getMapperFromList(Collections.singletonList(new Dto("Ada", 36)))
+            .mapToList(childType);
+
+    Mappable result = results.iterator().next();
+    assertSame(childType, result.getClass());
+    assertEquals("Ada", MapperUtil.toMap(result).get("name"));
+  }
+
+  @Test
+  public void shouldMapToSupplier_whenEveryEngineMapsChildLoaderType() throws Exception {
+    for (MappingEngine engine : MappingEngine.values()) {
+      Mappable result = Mapper.getMapperFrom(new Dto("Ada", 36), engine)
+          .mapTo(() -> newChild());
+
+      Map<String, Object> fields = MapperUtil.toMap(result);
+      assertEquals(engine.name(), "Ada", fields.get("name"));
+      assertEquals(engine.name(), 36, fields.get("age"));
+    }
+  }
+
+  @Test
+  public void shouldCreateObjects_whenPoolTypeIsLoadedByChildLoader() throws Exception {
+    ObjectPool<? extends Mappable> pool = ObjectPool.of(childType, 4);
+
+    assertSame(childType, pool.get().getClass());
+  }
+
+  private Mappable newChild() {
+    try {
+      return childType.getConstructor().newInstance();
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+
+  /**
+   * Defines a copy of the given class under a name of the same length,
+   * so that the loader of the test can not resolve it,
+   * and delegates every other class to the loader of the test.
+   */
+  private static final class ChildLoader extends ClassLoader {
+
+    private final String className;
+    private final String childClassName;
+
+    ChildLoader(String className, String childClassName) {
+      super(ChildClassLoaderTest.class.getClassLoader());
+      this.className = className;
+      this.childClassName = childClassName;
+    }
+
+    @Override
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+      if (!name.equals(childClassName)) {
+        return super.loadClass(name, resolve);
+      }
+      synchronized (getClassLoadingLock(name)) {
+        Class<?> type = findLoadedClass(name);
+        if (type == null) {
+          String classFile = new String(readClassFile(className), StandardCharsets.ISO_8859_1)
+              .replace(className.replace('.', '/'), childClassName.replace('.', '/'));
+          byte[] bytes = classFile.getBytes(StandardCharsets.ISO_8859_1);
+          type = defineClass(name, bytes, 0, bytes.length);
+        }
+        return type;
+      }
+    }
+
+    private byte[] readClassFile(String name) throws ClassNotFoundException {
+      String resource = name.replace('.', '/') + ".class";
+      try (InputStream stream = getParent().getResourceAsStream(resource)) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        for (int read = stream.read(buffer); read >= 0; read = stream.read(buffer)) {
+          bytes.write(buffer, 0, read);
+        }
+        return bytes.toByteArray();
+      } catch (IOException e) {
+        throw new ClassNotFoundException(name, e);
+      }
+    }
+  }
+
+
+  public static class Dto implements Mappable {
+    private String name;
+    private int age;
+
+    public Dto() {
+    }
+
+    public Dto(String name, int age) {
+      this.name = name;
+      this.age = age;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public void setName(String name) {
+      this.name = name;
+    }
+
+    public int getAge() {
+      return age;
+    }
+
+    public void setAge(int age) {
+      this.age = age;
+    }
+  }
+}
@@ -0,0 +1,139 @@
+package mapper;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import mapper.plan.ColumnarResult;
+
+import org.junit.Test;
+
+
+public class ColumnarMappingTest {
+
+  @Test
+  public void shouldMapRowsIntoPrimitiveColumns_whenPropertiesArePrimitive() {
+    List<Row> rows = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      rows.add(new Row(i, i * 10L, i / 2.0, "name" + i));
+    }
+
+    ColumnarResult result = Mapper.getMapperFromList(rows).mapToColumns(Row.class);
+
+    assertEquals(100, result.getRowCount());
+    assertEquals(Arrays.asList("id", "count", "ratio", "name"), result.getColumnNames());
+    assertEquals(int.class, result.getColumnType("id"));
+    assertEquals(100, result.getIntColumn("id").length);
+    assertEquals(42, result.getIntColumn("id")[42]);
+    assertEquals(420L, result.getLongColumn("count")[42]);
+    assertEquals(21.0, result.getDoubleColumn("ratio")[42], 0.0);
+    assertEquals("name42", result.getObjectColumn("name")[42]);
+  }
+
+  @Test
+  public void shouldConvertValues_whenSourceTypesDiffer() {
+    List<BoxedRow> rows = Arrays.asList(new BoxedRow(7, 3), new BoxedRow(null, null));
+
+    ColumnarResult result = Mapper.getMapperFromList(rows).mapToColumns(Row.class);
+
+    assertArrayEquals(new int[] {7, 0}, result.getIntColumn("id"));
+    assertArrayEquals(new long[] {3L, 0L}, result.getLongColumn("count"));
+  }
+
+  @Test
+  public void shouldGrowColumns_whenSourcesAreNotCollection() {
+    Iterable<Row> rows = () -> Collections.nCopies(40, new Row(1, 2L, 3.0, "x")).iterator();
+
+    ColumnarResult result = Mapper.getMapperFromList(rows).mapToColumns(Row.class);
+
+    assertEquals(40, result.getRowCount());
+    assertEquals(40, result.getObjectColumn("name").length);
+    assertEquals(1, result.getIntColumn("id")[39]);
+  }
+
+  @Test
+  public void shouldKeepDefaults_whenRowIsNullOrColumnIsNotMapped() {
+    List<Mappable> rows = Arrays.asList(null, new Row(1, 2L, 3.0, "x"), new BoxedRow(5, 6));
+
+    ColumnarResult result = Mapper.getMapperFromList(rows).mapToColumns(Row.class);
+
+    assertArrayEquals(new int[] {0, 1, 5}, result.getIntColumn("id"));
+    assertArrayEquals(new Object[] {null, "x", null}, result.getObjectColumn("name"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldThrowException_whenColumnHasOtherType() {
+    Mapper.getMapperFromList(Arrays.asList(new Row(1, 2L, 3.0, "x")))
+        .mapToColumns(Row.class).getLongColumn("id");
+  }
+
+  public static class Row implements Mappable {
+    private int id;
+    private long count;
+    private double ratio;
+    private String name;
+
+    public Row() {
+    }
+
+    Row(int id, long count, double ratio, String name) {
+      this.id = id;
+      this.count = count;
+      this.ratio = ratio;
+      this.name = name;
+    }
+
+    public int getId() {
+      return id;
+    }
+
+    public void setId(int id) {
+      this.id = id;
+    }
+
+    public long getCount() {
+      return count;
+    }
+
+    public void setCount(long count) {
+      this.count = count;
+    }
+
+    public double getRatio() {
+      return ratio;
+    }
+
+    public void setRatio(double ratio) {
+      this.ratio = ratio;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public void setName(String name) {
+      this.name = name;
+    }
+  }
+
+  public static class BoxedRow implements Mappable {
+    private Integer id;
+    private Integer count;
+
+    BoxedRow(Integer id, Integer count) {
+      this.id = id;
+      this.count = count;
+    }
+
+    public Integer getId() {
+      return id;
+    }
+
+    public Integer getCount() {
+      return count;
+    }
+  }
+}
@@ -0,0 +1,167 @@
+package mapper;
+
+import static org.junit.Assert.*;
+
+import java.time.Instant;
+
+import mapper.plan.ConverterRegistry;
+import mapper.plan.MappingEngine;
+import mapper.plan.MappingPlan;
+import mapper.plan.MappingPlanCache;
+
+import org.junit.After;
+import org.junit.Test;
+
+
+public class ConverterTest {
+
+  @After
+  public void tearDown() {
+    ConverterRegistry.clear();
+  }
+
+  @Test
+  public void shouldWidenBoxAndUnbox_whenFieldTypesDiffer() {
+    for (MappingEngine engine : MappingEngine.values()) {
+      Source source = new Source();
+      source.setCount(7);
+      source.setBoxed(8);
+      source.setMissing(null);
+      source.setPrimitive(9);
+      Result initial = new Result();
+      initial.setMissing(5);
+
+      Result result = Mapper.getMapperFrom(source, engine).mapInto(initial);
+
+      assertEquals(engine.name(), 7L, result.getCount());
+      assertEquals(engine.name(), 8.0, result.getBoxed(), 0.0);
+      assertEquals(engine.name(), 5, result.getMissing());
+      assertEquals(engine.name(), Integer.valueOf(9), result.getPrimitive());
+      assertNull(engine.name(), result.getCreated());
+    }
+  }
+
+  @Test
+  public void shouldUseRegisteredConverter_whenItIsRegisteredAfterMapping() {
+    Source source = new Source();
+    source.setCreated(Instant.ofEpochMilli(1234));
+    Mapper.getMapperFrom(source).mapTo(Result::new);
+
+    ConverterRegistry.register(Instant.class, Long.class,
+        instant -> instant == null ? null : instant.toEpochMilli());
+
+    for (MappingEngine engine : MappingEngine.values()) {
+      Result result = Mapper.getMapperFrom(source, engine).mapTo(Result::new);
+      assertEquals(engine.name(), Long.valueOf(1234), result.getCreated());
+    }
+    MappingPlan plan = MappingPlanCache.getPlan(Source.class, Result.class);
+    assertEquals(5, plan.getPropertyMappings().size());
+    assertTrue(plan.getPropertyMappings().stream().allMatch(mapping -> mapping.isConverted()));
+  }
+
+  @Test
+  public void shouldNotMatchField_whenTypesCanNotBeConverted() {
+    assertTrue(ConverterRegistry.canConvert(int.class, double.class));
+    assertTrue(ConverterRegistry.canConvert(Integer.class, long.class));
+    assertFalse(ConverterRegistry.canConvert(long.class, int.class));
+    assertFalse(ConverterRegistry.canConvert(int.class, Long.class));
+    assertFalse(ConverterRegistry.canConvert(Instant.class, Long.class));
+  }
+
+
+  public static class Source implements Mappable {
+    private int count;
+    private Integer boxed;
+    private Integer missing;
+    private int primitive;
+    private Instant created;
+
+    public int getCount() {
+      return count;
+    }
+
+    public void setCount(int count) {
+      this.count = count;
+    }
+
+    public Integer getBoxed() {
+      return boxed;
+    }
+
+    public void setBoxed(Integer boxed) {
+      this.boxed = boxed;
+    }
+
+    public Integer getMissing() {
+      return missing;
+    }
+
+    public void setMissing(Integer missing) {
+      this.missing = missing;
+    }
+
+    public int getPrimitive() {
+      return primitive;
+    }
+
+    public void setPrimitive(int primitive) {
+      this.primitive = primitive;
+    }
+
+    public Instant getCreated() {
+      return created;
+    }
+
+    public void setCreated(Instant created) {
+      this.created = created;
+    }
+  }
+
+  public static class Result implements Mappable {
+    private long count;
+    private double boxed;
+    private int missing;
+    private Integer primitive;
+    private Long created;
+
+    public long getCount() {
+      return count;
+    }
+
+    public void setCount(long count) {
+      this.count = count;
+    }
+
+    public double getBoxed() {
+      return boxed;
+    }
+
+    public void setBoxed(double boxed) {
+      this.boxed = boxed;
+    }
+
+    public int getMissing() {
+      return missing;
+    }
+
+    public void setMissing(int missing) {
+      this.missing = missing;
+    }
+
+    public Integer getPrimitive() {
+      return primitive;
+    }
+
+    public void setPrimitive(Integer primitive) {
+      this.primitive = primitive;
+    }
+
+    public Long getCreated() {
+      return created;
+    }
+
+    public void setCreated(Long created) {
+      this.created = created;
+    }
+  }
+}
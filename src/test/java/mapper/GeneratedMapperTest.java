@@ -0,0 +1,127 @@
+package mapper;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import mapper.exception.ResultTypeInstantiationException;
+import mapper.packagefortesting.TestAnnotatedClass;
+import mapper.packagefortesting.TestBoxingAnnotatedClass;
+import mapper.packagefortesting.TestHasNoSuperClass;
+import mapper.packagefortesting.TestNamesAnnotatedClass;
+import mapper.plan.ConverterRegistry;
+import mapper.plan.GeneratedMapperRegistry;
+import mapper.plan.MappingEngine;
+import mapper.plan.MappingPlanCache;
+import mapper.util.MapperUtil;
+
+import org.junit.Before;
+import org.junit.Test;
+
+
+public class GeneratedMapperTest {
+
+  private static final Double childField1Value = 120.3;
+  private static final List<Integer> childField2Value =
+      new ArrayList<>(Arrays.asList(6, 8, 9, 445));
+
+  private TestAnnotatedClass mapFromObj;
+
+  /**
+   * Setting mapFromObj with initial values.
+   */
+  @Before
+  public void setUp() {
+    MappingPlanCache.clear();
+    mapFromObj = new TestAnnotatedClass();
+    mapFromObj.setChildField1(childField1Value);
+    mapFromObj.setChildField2(childField2Value);
+    mapFromObj.setSuperField1("STR");
+  }
+
+  @Test
+  public void shouldRegisterGeneratedMapper_whenSourceTypeIsAnnotated() {
+    assertNotNull(GeneratedMapperRegistry.find(TestAnnotatedClass.class,
+        TestHasNoSuperClass.class));
+  }
+
+  @Test
+  public void shouldMapWithGeneratedMapper_withoutBuildingPlan()
+      throws ResultTypeInstantiationException {
+    TestHasNoSuperClass mapToObj =
+        Mapper.getMapperFrom(mapFromObj).mapTo(TestHasNoSuperClass.class);
+
+    assertEquals(childField1Value, mapToObj.getChildField1());
+    assertEquals(childField2Value, mapToObj.getChildField2());
+    assertNull(mapToObj.getSuperField1());
+    assertEquals(0, MappingPlanCache.getStats().getSize());
+  }
+
+  @Test
+  public void shouldMapSameAsPlan_whenGeneratedMapperIsUsed()
+      throws ResultTypeInstantiationException {
+    TestHasNoSuperClass generated =
+        Mapper.getMapperFrom(mapFromObj).mapTo(TestHasNoSuperClass.class);
+
+    assertMappedSameAsPlan(mapFromObj, generated);
+  }
+
+  @Test
+  public void shouldUsePlan_whenConverterIsRegisteredForUnmappedField()
+      throws ResultTypeInstantiationException {
+    mapFromObj.setSuperField1("42");
+    ConverterRegistry.register(String.class, Integer.class, Integer::valueOf);
+    try {
+      assertNull(GeneratedMapperRegistry.find(TestAnnotatedClass.class,
+          TestHasNoSuperClass.class));
+
+      TestHasNoSuperClass mapToObj =
+          Mapper.getMapperFrom(mapFromObj).mapTo(TestHasNoSuperClass.class);
+
+      assertEquals(Integer.valueOf(42), mapToObj.getSuperField1());
+      assertMappedSameAsPlan(mapFromObj, mapToObj);
+    } finally {
+      ConverterRegistry.clear();
+    }
+    assertNotNull(GeneratedMapperRegistry.find(TestAnnotatedClass.class,
+        TestHasNoSuperClass.class));
+  }
+
+  @Test
+  public void shouldNotGenerateMapper_whenPlanBoxesField()
+      throws ResultTypeInstantiationException {
+    TestBoxingAnnotatedClass source = new TestBoxingAnnotatedClass();
+    source.setChildField1(childField1Value);
+
+    TestHasNoSuperClass mapToObj = Mapper.getMapperFrom(source).mapTo(TestHasNoSuperClass.class);
+
+    assertNull(GeneratedMapperRegistry.find(TestBoxingAnnotatedClass.class,
+        TestHasNoSuperClass.class));
+    assertEquals(childField1Value, mapToObj.getChildField1());
+    assertMappedSameAsPlan(source, mapToObj);
+  }
+
+  @Test
+  public void shouldNotGenerateMapper_whenTypeHasMappingNames()
+      throws ResultTypeInstantiationException {
+    TestNamesAnnotatedClass source = new TestNamesAnnotatedClass();
+    source.setChildfield1(childField1Value);
+
+    TestHasNoSuperClass mapToObj = Mapper.getMapperFrom(source).mapTo(TestHasNoSuperClass.class);
+
+    assertNull(GeneratedMapperRegistry.find(TestNamesAnnotatedClass.class,
+        TestHasNoSuperClass.class));
+    assertEquals(childField1Value, mapToObj.getChildField1());
+    assertMappedSameAsPlan(source, mapToObj);
+  }
+
+  private static void assertMappedSameAsPlan(Mappable source, TestHasNoSuperClass mapped) {
+    TestHasNoSuperClass planned = MappingPlanCache.getPlan(source.getClass(),
+        TestHasNoSuperClass.class).execute(source, new TestHasNoSuperClass(),
+        MappingEngine.REFLECTION);
+
+    assertEquals(MapperUtil.toMap(planned), MapperUtil.toMap(mapped));
+  }
+}
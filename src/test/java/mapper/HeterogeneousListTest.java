@@ -0,0 +1,136 @@
+package mapper;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import mapper.metrics.InMemoryMappingMetrics;
+import mapper.metrics.MappingMetricsRegistry;
+import mapper.packagefortesting.TestChildClass;
+import mapper.packagefortesting.TestShadowingChildClass;
+import mapper.packagefortesting.TestSuperClass;
+import mapper.plan.MappingEngine;
+
+import org.junit.After;
+import org.junit.Test;
+
+
+public class HeterogeneousListTest {
+
+  @After
+  public void tearDown() {
+    MappingMetricsRegistry.disable();
+  }
+
+  @Test
+  public void shouldMapEveryElementByItsOwnClass_whenListMixesClasses() throws Exception {
+    TestSuperClass superObj = new TestSuperClass();
+    superObj.setSuperField1("super");
+    TestChildClass childObj = new TestChildClass();
+    childObj.setSuperField1("child");
+    childObj.setChildField1(2.0);
+
+    List<Mappable> sources = Arrays.asList(superObj, childObj, superObj, childObj);
+    List<Result> results = new ArrayList<>();
+    Mapper.getMapperFromList(sources).mapToList(Result.class)
+        .forEach(results::add);
+
+    assertEquals(4, results.size());
+    assertEquals("super", results.get(0).getSuperField1());
+    assertNull(results.get(0).getChildField1());
+    assertEquals("child", results.get(1).getSuperField1());
+    assertEquals(Double.valueOf(2.0), results.get(1).getChildField1());
+    assertEquals("super", results.get(2).getSuperField1());
+    assertEquals(Double.valueOf(2.0), results.get(3).getChildField1());
+  }
+
+  @Test
+  public void shouldMapAllElements_whenListHasMoreClassesThanInlineCache() {
+    List<Mappable> sources = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      sources.add(newSuper("super" + i));
+      sources.add(newChild("child" + i));
+      sources.add(new TestShadowingChildClass());
+      sources.add(new Level1());
+      sources.add(new Level2());
+      sources.add(new Level3());
+      sources.add(new Level4());
+    }
+
+    Result[] targets = new Result[sources.size()];
+    for (int i = 0; i < targets.length; i++) {
+      targets[i] = new Result();
+    }
+    Mapper.getMapperFromList(sources, MappingEngine.METHOD_HANDLE).mapToList(targets);
+
+    for (int i = 0; i < 3; i++) {
+      assertEquals("super" + i, targets[i * 7].getSuperField1());
+      assertEquals("child" + i, targets[i * 7 + 1].getSuperField1());
+      assertEquals("level4", targets[i * 7 + 6].getSuperField1());
+    }
+  }
+
+  @Test
+  public void shouldRecordMetricsPerSourceClass_whenListMixesClasses() {
+    InMemoryMappingMetrics metrics = new InMemoryMappingMetrics();
+    MappingMetricsRegistry.set(metrics);
+
+    List<Mappable> sources = Arrays.asList(newSuper("a"), newChild("b"), newChild("c"));
+    Mapper.getMapperFromList(sources).mapToList(Result::new);
+
+    assertEquals(1, metrics.get(TestSuperClass.class, Result.class)
+        .getMappingCount());
+    assertEquals(2, metrics.get(TestChildClass.class, Result.class)
+        .getMappingCount());
+  }
+
+  private static TestSuperClass newSuper(String value) {
+    TestSuperClass superObj = new TestSuperClass();
+    superObj.setSuperField1(value);
+    return superObj;
+  }
+
+  private static TestChildClass newChild(String value) {
+    TestChildClass childObj = new TestChildClass();
+    childObj.setSuperField1(value);
+    return childObj;
+  }
+
+  public static class Level1 extends TestSuperClass {
+  }
+
+  public static class Level2 extends Level1 {
+  }
+
+  public static class Level3 extends Level2 {
+  }
+
+  public static class Level4 extends Level3 {
+    public Level4() {
+      setSuperField1("level4");
+    }
+  }
+
+  public static class Result implements Mappable {
+    private String superField1;
+    private Double childField1;
+
+    public String getSuperField1() {
+      return superField1;
+    }
+
+    public void setSuperField1(String superField1) {
+      this.superField1 = superField1;
+    }
+
+    public Double getChildField1() {
+      return childField1;
+    }
+
+    public void setChildField1(Double childField1) {
+      this.childField1 = childField1;
+    }
+  }
+}
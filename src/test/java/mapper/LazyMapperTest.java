@@ -0,0 +1,118 @@
+package mapper;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import mapper.exception.ResultTypeInstantiationException;
+import mapper.packagefortesting.TestChildClass;
+import mapper.packagefortesting.TestHasNoSuperClass;
+
+import org.junit.Test;
+
+
+public class LazyMapperTest {
+
+  private static TestChildClass createSource(int index) {
+    TestChildClass source = new TestChildClass();
+    source.setChildField1((double) index);
+    return source;
+  }
+
+  private static List<TestChildClass> createSources(int size) {
+    List<TestChildClass> sources = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      sources.add(createSource(i));
+    }
+    return sources;
+  }
+
+  @Test
+  public void shouldMapOnlyConsumedElements_whenLazyListIsIterated() {
+    AtomicInteger suppliedCount = new AtomicInteger();
+
+    Iterable<TestHasNoSuperClass> results = Mapper.getMapperFromList(createSources(10))
+        .mapToLazyList(() -> {
+          suppliedCount.incrementAndGet();
+          return new TestHasNoSuperClass();
+        });
+    assertEquals(0, suppliedCount.get());
+
+    Iterator<TestHasNoSuperClass> iterator = results.iterator();
+    assertEquals(Double.valueOf(0), iterator.next().getChildField1());
+    assertEquals(Double.valueOf(1), iterator.next().getChildField1());
+    assertEquals(2, suppliedCount.get());
+  }
+
+  @Test
+  public void shouldWrapResultTypeInstantiationException_whenConstructorThrows()
+      throws ResultTypeInstantiationException {
+    Stream<ParallelMapperTest.ThrowingConstructorResult> results =
+        Mapper.getMapperFromList(createSources(1))
+            .mapToStream(ParallelMapperTest.ThrowingConstructorResult.class);
+
+    try {
+      results.collect(Collectors.toList());
+      fail();
+    } catch (IllegalStateException e) {
+      assertTrue(e.getCause() instanceof ResultTypeInstantiationException);
+      assertEquals("constructor failed", e.getCause().getCause().getMessage());
+    }
+  }
+
+  @Test
+  public void shouldMapOnlyConsumedElements_whenStreamIsGiven() {
+    AtomicInteger readCount = new AtomicInteger();
+    Stream<TestChildClass> sources = IntStream.range(0, 1000)
+        .mapToObj(index -> {
+          readCount.incrementAndGet();
+          return createSource(index);
+        });
+
+    List<Double> values = Mapper.getMapperFromStream(sources)
+        .mapToStream(TestHasNoSuperClass::new)
+        .limit(3)
+        .map(TestHasNoSuperClass::getChildField1)
+        .collect(Collectors.toList());
+
+    assertEquals(3, values.size());
+    assertEquals(Double.valueOf(2), values.get(2));
+    assertEquals(3, readCount.get());
+  }
+
+  @Test
+  public void shouldCloseSourceStream_whenResultStreamIsClosed()
+      throws ResultTypeInstantiationException {
+    AtomicBoolean closed = new AtomicBoolean();
+    Stream<TestChildClass> sources = createSources(3).stream()
+        .onClose(() -> closed.set(true));
+
+    try (Stream<TestHasNoSuperClass> results =
+        Mapper.getMapperFromStream(sources).mapToStream(TestHasNoSuperClass.class)) {
+      assertEquals(3, results.count());
+    }
+
+    assertTrue(closed.get());
+  }
+
+  @Test
+  public void shouldMapRemainingElements_whenIteratorIsGiven() {
+    Iterator<TestChildClass> sources = createSources(5).iterator();
+    sources.next();
+
+    Iterable<TestHasNoSuperClass> results = Mapper.getMapperFromIterator(sources)
+        .mapToList(TestHasNoSuperClass::new);
+
+    List<TestHasNoSuperClass> resultList = new ArrayList<>();
+    results.forEach(resultList::add);
+    assertEquals(4, resultList.size());
+    assertEquals(Double.valueOf(1), resultList.get(0).getChildField1());
+  }
+}
@@ -0,0 +1,89 @@
+package mapper;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import mapper.packagefortesting.TestChildClass;
+import mapper.packagefortesting.TestHasNoSuperClass;
+import mapper.plan.MappingEngine;
+import mapper.util.ObjectPool;
+
+import org.junit.After;
+import org.junit.Test;
+
+
+public class MapIntoTest {
+
+  @After
+  public void tearDown() {
+    ObjectPool.clearAll();
+  }
+
+  @Test
+  public void shouldMapIntoGivenObject_whenMapIntoIsCalled() {
+    TestChildClass source = new TestChildClass();
+    source.setChildField1(3.0);
+    TestHasNoSuperClass target = new TestHasNoSuperClass();
+
+    TestHasNoSuperClass result = Mapper.getMapperFrom(source).mapInto(target);
+
+    assertSame(target, result);
+    assertEquals(Double.valueOf(3.0), target.getChildField1());
+  }
+
+  @Test
+  public void shouldMapIntoGivenListAndArray_whenTargetsAreGiven() {
+    List<TestChildClass> sources = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      TestChildClass source = new TestChildClass();
+      source.setChildField1((double) i);
+      sources.add(source);
+    }
+    List<TestHasNoSuperClass> targetList = Arrays.asList(new TestHasNoSuperClass(),
+        new TestHasNoSuperClass(), new TestHasNoSuperClass(), new TestHasNoSuperClass());
+    TestHasNoSuperClass[] targetArray = targetList.toArray(new TestHasNoSuperClass[0]);
+
+    List<TestHasNoSuperClass> listResult =
+        Mapper.getMapperFromList(sources, MappingEngine.BYTECODE).mapToList(targetList);
+    for (int i = 0; i < 3; i++) {
+      assertEquals(Double.valueOf(i), targetList.get(i).getChildField1());
+      targetList.get(i).setChildField1(null);
+    }
+    TestHasNoSuperClass[] arrayResult = Mapper.getMapperFromList(sources).mapToList(targetArray);
+
+    assertSame(targetList, listResult);
+    assertSame(targetArray, arrayResult);
+    for (int i = 0; i < 3; i++) {
+      assertEquals(Double.valueOf(i), targetArray[i].getChildField1());
+    }
+    assertNull(targetArray[3].getChildField1());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldThrowException_whenThereAreMoreSourcesThanTargets() {
+    List<TestChildClass> sources = Arrays.asList(new TestChildClass(), new TestChildClass());
+
+    Mapper.getMapperFromList(sources).mapToList(new TestHasNoSuperClass[1]);
+  }
+
+  @Test
+  public void shouldReuseReleasedObject_whenPoolIsUsed() throws Exception {
+    ObjectPool<TestHasNoSuperClass> pool = ObjectPool.of(TestHasNoSuperClass.class, 1);
+    TestChildClass source = new TestChildClass();
+    source.setChildField1(3.0);
+
+    TestHasNoSuperClass first = Mapper.getMapperFrom(source).mapTo(pool);
+    TestHasNoSuperClass second = pool.get();
+    assertNotSame(first, second);
+    assertTrue(pool.release(first));
+    assertFalse(pool.release(second));
+
+    assertSame(pool, ObjectPool.of(TestHasNoSuperClass.class, 8));
+    assertEquals(1, pool.getIdleCount());
+    assertSame(first, Mapper.getMapperFrom(source).mapTo(pool));
+    assertEquals(0, pool.getIdleCount());
+  }
+}
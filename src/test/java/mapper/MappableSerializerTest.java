@@ -0,0 +1,524 @@
+package mapper;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.ObjectOutputStream;
+import java.io.StreamCorruptedException;
+import java.math.BigDecimal;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import mapper.serialization.BinaryInput;
+import mapper.serialization.BinaryOutput;
+import mapper.serialization.MappableSerializer;
+
+import org.junit.Test;
+
+
+public class MappableSerializerTest {
+
+  @Test
+  public void shouldReadWrittenFields_whenObjectHasAllSupportedTypes() throws Exception {
+    Order order = newOrder();
+    MappableSerializer<Order> serializer = MappableSerializer.of(Order.class);
+
+    Order copy = serializer.fromBytes(serializer.toBytes(order));
+
+    assertEquals(-7, copy.getId());
+    assertEquals(Long.MAX_VALUE, copy.getCreatedAt());
+    assertEquals(19.99, copy.getTotal(), 0.0);
+    assertTrue(copy.isPaid());
+    assertEquals('x', copy.getGrade());
+    assertEquals(Integer.valueOf(3), copy.getPriority());
+    assertNull(copy.getDiscount());
+    assertEquals("Ada Lovelace", copy.getCustomer());
+    assertEquals(Status.SHIPPED, copy.getStatus());
+    assertArrayEquals(new int[] {1, -2, 300}, copy.getQuantities());
+    assertArrayEquals(new byte[] {4, 5}, copy.getChecksum());
+    assertEquals(Arrays.asList("a", null, "c"), copy.getTags());
+    assertEquals(2, copy.getLines().size());
+    assertEquals("pen", copy.getLines().get(0).getProduct());
+    assertEquals(2, copy.getLines().get(0).getCount());
+    assertNull(copy.getLines().get(1));
+    assertEquals("gift", copy.getNote().getProduct());
+    assertEquals(0, copy.getLabels().size());
+  }
+
+  @Test
+  public void shouldKeepNulls_whenReferenceFieldsAreNull() throws Exception {
+    MappableSerializer<Order> serializer = MappableSerializer.of(Order.class);
+
+    Order copy = serializer.fromBytes(serializer.toBytes(new Order()));
+
+    assertNull(copy.getCustomer());
+    assertNull(copy.getStatus());
+    assertNull(copy.getQuantities());
+    assertNull(copy.getChecksum());
+    assertNull(copy.getTags());
+    assertNull(copy.getNote());
+    assertNull(copy.getLabels());
+  }
+
+  @Test
+  public void shouldReadRecursiveType_whenTypeHasFieldOfItsOwnType() throws Exception {
+    Node list = new Node(1, new Node(2, new Node(3, null)));
+    MappableSerializer<Node> serializer = MappableSerializer.of(Node.class);
+
+    Node copy = serializer.fromBytes(serializer.toBytes(list));
+
+    assertEquals(1, copy.getValue());
+    assertEquals(2, copy.getNext().getValue());
+    assertEquals(3, copy.getNext().getNext().getValue());
+    assertNull(copy.getNext().getNext().getNext());
+  }
+
+  @Test
+  public void shouldReadObjectsInOrder_whenManyAreWrittenToAStream() throws Exception {
+    MappableSerializer<Line> serializer = MappableSerializer.of(Line.class);
+    ByteArrayOutputStream stream = new ByteArrayOutputStream();
+    try (BinaryOutput output = BinaryOutput.of(stream)) {
+      for (int i = 0; i < 5000; i++) {
+        serializer.write(new Line("product" + i, i), output);
+      }
+    }
+
+    List<Line> lines = new ArrayList<>();
+    BinaryInput input = BinaryInput.of(new ByteArrayInputStream(stream.toByteArray()));
+    while (input.hasMore()) {
+      lines.add(serializer.read(input));
+    }
+
+    assertEquals(5000, lines.size());
+    assertEquals("product4999", lines.get(4999).getProduct());
+    assertEquals(4999, lines.get(4999).getCount());
+  }
+
+  @Test
+  public void shouldReadWrittenObject_whenChannelsAreUsed() throws Exception {
+    MappableSerializer<Order> serializer = MappableSerializer.of(Order.class);
+    ByteArrayOutputStream stream = new ByteArrayOutputStream();
+    try (WritableByteChannel channel = Channels.newChannel(stream)) {
+      serializer.write(newOrder(), channel);
+    }
+
+    Order copy;
+    try (ReadableByteChannel channel =
+        Channels.newChannel(new ByteArrayInputStream(stream.toByteArray()))) {
+      copy = serializer.read(BinaryInput.of(channel));
+    }
+
+    assertEquals("Ada Lovelace", copy.getCustomer());
+    assertEquals(Status.SHIPPED, copy.getStatus());
+  }
+
+  @Test
+  public void shouldReadLongString_whenStringIsLargerThanBuffer() throws Exception {
+    StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < 5000; i++) {
+      builder.append("ab").append((char) 0x11F);
+    }
+    Line line = new Line(builder.toString(), 1);
+    MappableSerializer<Line> serializer = MappableSerializer.of(Line.class);
+    ByteArrayOutputStream stream = new ByteArrayOutputStream();
+    serializer.write(line, stream);
+
+    Line copy = serializer.read(BinaryInput.of(new ByteArrayInputStream(stream.toByteArray())));
+
+    assertEquals(line.getProduct(), copy.getProduct());
+  }
+
+  @Test
+  public void shouldBeSmallerThanJavaSerialization_whenObjectIsWritten() throws Exception {
+    Order order = newOrder();
+    ByteArrayOutputStream stream = new ByteArrayOutputStream();
+    try (ObjectOutputStream output = new ObjectOutputStream(stream)) {
+      output.writeObject(order);
+    }
+
+    byte[] bytes = MappableSerializer.of(Order.class).toBytes(order);
+
+    assertTrue(bytes.length * 4 < stream.size());
+  }
+
+  @Test
+  public void shouldWriteSmallNumbersInOneByte_whenVarIntsAreUsed() throws Exception {
+    byte[] bytes = MappableSerializer.of(Line.class).toBytes(new Line(null, -1));
+
+    assertEquals(2, bytes.length);
+  }
+
+  @Test(expected = EOFException.class)
+  public void shouldThrowEofException_whenBytesAreTruncated() throws Exception {
+    MappableSerializer<Order> serializer = MappableSerializer.of(Order.class);
+    byte[] bytes = serializer.toBytes(newOrder());
+
+    serializer.fromBytes(Arrays.copyOf(bytes, 3));
+  }
+
+  @Test(expected = StreamCorruptedException.class)
+  public void shouldThrowStreamCorrupted_whenLengthIsLargerThanPayload() throws Exception {
+    byte[] bytes = {(byte) 0xFE, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07};
+
+    MappableSerializer.of(Line.class).fromBytes(bytes);
+  }
+
+  @Test(expected = StreamCorruptedException.class)
+  public void shouldThrowStreamCorrupted_whenLengthIsLargerThanMaxLength() throws Exception {
+    byte[] bytes = {(byte) 0xFE, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07};
+
+    MappableSerializer.of(Line.class).read(BinaryInput.of(new ByteArrayInputStream(bytes)));
+  }
+
+  @Test(expected = EOFException.class)
+  public void shouldThrowEofException_whenStreamEndsBeforeClaimedElements() throws Exception {
+    ByteArrayOutputStream stream = new ByteArrayOutputStream();
+    BinaryOutput output = BinaryOutput.of(stream);
+    output.writeVarInt(10_000_001);
+    output.writeString("a");
+    output.flush();
+
+    BinaryInput input = BinaryInput.of(new ByteArrayInputStream(stream.toByteArray()));
+    MappableSerializer.of(Basket.class).read(input);
+  }
+
+  @Test(expected = StreamCorruptedException.class)
+  public void shouldThrowStreamCorrupted_whenObjectsAreNestedTooDeep() throws Exception {
+    Node list = null;
+    for (int i = 0; i < 100; i++) {
+      list = new Node(i, list);
+    }
+    byte[] bytes = MappableSerializer.of(Node.class).toBytes(list);
+
+    MappableSerializer.of(Node.class).read(BinaryInput.of(bytes).setMaxDepth(50));
+  }
+
+  @Test
+  public void shouldThrowIllegalState_whenObjectGraphHasCycle() throws Exception {
+    Node first = new Node(1, null);
+    first.setNext(new Node(2, first));
+
+    try {
+      MappableSerializer.of(Node.class).toBytes(first);
+      fail();
+    } catch (IllegalStateException e) {
+      assertTrue(e.getMessage(), e.getMessage().contains("cycle"));
+    }
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void shouldThrowIllegalState_whenObjectsAreNestedDeeperThanMaxDepth() throws Exception {
+    Node list = null;
+    for (int i = 0; i < 100; i++) {
+      list = new Node(i, list);
+    }
+    BinaryOutput output = BinaryOutput.of(new ByteArrayOutputStream()).setMaxDepth(50);
+
+    MappableSerializer.of(Node.class).write(list, output);
+  }
+
+  @Test
+  public void shouldThrowIllegalArgument_whenFieldTypeIsNotSupported() {
+    try {
+      MappableSerializer.of(Payment.class);
+      fail();
+    } catch (IllegalArgumentException e) {
+      assertTrue(e.getMessage(), e.getMessage().contains("'amount'"));
+      assertTrue(e.getMessage(), e.getMessage().contains(BigDecimal.class.getName()));
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldThrowIllegalArgument_whenNestedFieldTypeIsNotSupported() {
+    MappableSerializer.of(Invoice.class);
+  }
+
+  private static Order newOrder() {
+    Order order = new Order();
+    order.setId(-7);
+    order.setCreatedAt(Long.MAX_VALUE);
+    order.setTotal(19.99);
+    order.setPaid(true);
+    order.setGrade('x');
+    order.setPriority(3);
+    order.setCustomer("Ada Lovelace");
+    order.setStatus(Status.SHIPPED);
+    order.setQuantities(new int[] {1, -2, 300});
+    order.setChecksum(new byte[] {4, 5});
+    order.setTags(Arrays.asList("a", null, "c"));
+    order.setLines(Arrays.asList(new Line("pen", 2), null));
+    order.setNote(new Line("gift", 0));
+    order.setLabels(new HashSet<>());
+    return order;
+  }
+
+
+  public enum Status {
+    NEW, SHIPPED
+  }
+
+
+  public static class Order implements Mappable {
+    private int id;
+    private long createdAt;
+    private double total;
+    private boolean paid;
+    private char grade;
+    private Integer priority;
+    private Double discount;
+    private String customer;
+    private Status status;
+    private int[] quantities;
+    private byte[] checksum;
+    private List<String> tags;
+    private List<Line> lines;
+    private Line note;
+    private Set<String> labels;
+
+    public int getId() {
+      return id;
+    }
+
+    public void setId(int id) {
+      this.id = id;
+    }
+
+    public long getCreatedAt() {
+      return createdAt;
+    }
+
+    public void setCreatedAt(long createdAt) {
+      this.createdAt = createdAt;
+    }
+
+    public double getTotal() {
+      return total;
+    }
+
+    public void setTotal(double total) {
+      this.total = total;
+    }
+
+    public boolean isPaid() {
+      return paid;
+    }
+
+    public void setPaid(boolean paid) {
+      this.paid = paid;
+    }
+
+    public char getGrade() {
+      return grade;
+    }
+
+    public void setGrade(char grade) {
+      this.grade = grade;
+    }
+
+    public Integer getPriority() {
+      return priority;
+    }
+
+    public void setPriority(Integer priority) {
+      this.priority = priority;
+    }
+
+    public Double getDiscount() {
+      return discount;
+    }
+
+    public void setDiscount(Double discount) {
+      this.discount = discount;
+    }
+
+    public String getCustomer() {
+      return customer;
+    }
+
+    public void setCustomer(String customer) {
+      this.customer = customer;
+    }
+
+    public Status getStatus() {
+      return status;
+    }
+
+    public void setStatus(Status status) {
+      this.status = status;
+    }
+
+    public int[] getQuantities() {
+      return quantities;
+    }
+
+    public void setQuantities(int[] quantities) {
+      this.quantities = quantities;
+    }
+
+    public byte[] getChecksum() {
+      return checksum;
+    }
+
+    public void setChecksum(byte[] checksum) {
+      this.checksum = checksum;
+    }
+
+    public List<String> getTags() {
+      return tags;
+    }
+
+    public void setTags(List<String> tags) {
+      this.tags = tags;
+    }
+
+    public List<Line> getLines() {
+      return lines;
+    }
+
+    public void setLines(List<Line> lines) {
+      this.lines = lines;
+    }
+
+    public Line getNote() {
+      return note;
+    }
+
+    public void setNote(Line note) {
+      this.note = note;
+    }
+
+    public Set<String> getLabels() {
+      return labels;
+    }
+
+    public void setLabels(Set<String> labels) {
+      this.labels = labels;
+    }
+  }
+
+
+  public static class Line implements Mappable {
+    private String product;
+    private int count;
+
+    public Line() {
+    }
+
+    public Line(String product, int count) {
+      this.product = product;
+      this.count = count;
+    }
+
+    public String getProduct() {
+      return product;
+    }
+
+    public void setProduct(String product) {
+      this.product = product;
+    }
+
+    public int getCount() {
+      return count;
+    }
+
+    public void setCount(int count) {
+      this.count = count;
+    }
+  }
+
+
+  public static class Basket implements Mappable {
+    private List<String> items;
+
+    public List<String> getItems() {
+      return items;
+    }
+
+    public void setItems(List<String> items) {
+      this.items = items;
+    }
+  }
+
+
+  public static class Payment implements Mappable {
+    private String reference;
+    private BigDecimal amount;
+    private Date when;
+
+    public String getReference() {
+      return reference;
+    }
+
+    public void setReference(String reference) {
+      this.reference = reference;
+    }
+
+    public BigDecimal getAmount() {
+      return amount;
+    }
+
+    public void setAmount(BigDecimal amount) {
+      this.amount = amount;
+    }
+
+    public Date getWhen() {
+      return when;
+    }
+
+    public void setWhen(Date when) {
+      this.when = when;
+    }
+  }
+
+
+  public static class Invoice implements Mappable {
+    private List<Payment> payments;
+
+    public List<Payment> getPayments() {
+      return payments;
+    }
+
+    public void setPayments(List<Payment> payments) {
+      this.payments = payments;
+    }
+  }
+
+
+  public static class Node implements Mappable {
+    private int value;
+    private Node next;
+
+    public Node() {
+    }
+
+    public Node(int value, Node next) {
+      this.value = value;
+      this.next = next;
+    }
+
+    public int getValue() {
+      return value;
+    }
+
+    public void setValue(int value) {
+      this.value = value;
+    }
+
+    public Node getNext() {
+      return next;
+    }
+
+    public void setNext(Node next) {
+      this.next = next;
+    }
+  }
+}
@@ -6,15 +6,22 @@ import java.lang.reflect.Field;
 import java.lang.reflect.Type;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import mapper.exception.ResultTypeInstantiationException;
 import mapper.packagefortesting.TestChildClass;
 import mapper.packagefortesting.TestHasNoSuperClass;
 import mapper.packagefortesting.TestHasNotPublicNoArgsConstructorClass;
+import mapper.packagefortesting.TestShadowingChildClass;
 import mapper.packagefortesting.TestSuperClass;
+import mapper.util.ClassMetadata;
+import mapper.util.Instantiator;
 import mapper.util.MapperUtil;
 
 import org.junit.Test;
@@ -74,6 +81,28 @@ public class MapperUtilTest {
   }
 
 
+  @Test
+  public void shouldGetAllFields_whenFieldIsShadowed_returnsOnlySubclassField() {
+    List<Field> fields = MapperUtil.getAllFields(TestShadowingChildClass.class);
+
+    List<String> fieldNames = new ArrayList<>();
+    fields.forEach(field -> fieldNames.add(field.getName()));
+
+    assertEquals(Arrays.asList("superField1", "superField2", "childField1"), fieldNames);
+    assertEquals(Long.class, fields.get(1).getType());
+  }
+
+  @Test
+  public void shouldGetClassMetadata_whenCalledTwice_returnsCachedMetadata() {
+    ClassMetadata metadata = ClassMetadata.of(TestChildClass.class);
+
+    assertSame(metadata, ClassMetadata.of(TestChildClass.class));
+    assertEquals(Double.class, metadata.getField("childField1").getType());
+    assertEquals(String.class, metadata.getField("superField1").getType());
+    assertNull(metadata.getField("notAField"));
+  }
+
+
   @Test
   public void shoulGetFieldsMap_whenHasSuperClass_returnsCorrectMap()
       throws IllegalAccessException {
@@ -121,6 +150,59 @@ public class MapperUtilTest {
     assertEquals(expectedMap, actualMap);
   }
 
+  @Test
+  public void shouldGetFieldsMap_returnsMutableMap() throws IllegalAccessException {
+    TestSuperClass testSuperObj = new TestSuperClass();
+    testSuperObj.setSuperField1("string");
+
+    Map<String, Object> actualMap = MapperUtil.getFieldsMap(testSuperObj);
+    actualMap.put("notAField", 1);
+    actualMap.remove("superField1");
+
+    assertEquals(1, actualMap.get("notAField"));
+    assertFalse(actualMap.containsKey("superField1"));
+    assertEquals("string", MapperUtil.getFieldsMap(testSuperObj).get("superField1"));
+  }
+
+  @Test
+  public void shouldGetFieldsMap_whenTypeHasStaticField_returnsStaticFieldToo()
+      throws IllegalAccessException {
+    HasStaticField hasStaticField = new HasStaticField();
+    hasStaticField.name = "name";
+
+    Map<String, Object> expectedMap = new HashMap<>();
+    expectedMap.put("name", "name");
+    expectedMap.put("prefix", "prefix");
+
+    assertEquals(expectedMap, MapperUtil.getFieldsMap(hasStaticField));
+  }
+
+  @Test
+  public void shouldGetFieldsMap_whenCalledFromManyThreads_leavesSharedFieldsUntouched()
+      throws Exception {
+    TestChildClass testChildObj = new TestChildClass();
+    testChildObj.setSuperField1("string");
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < 8; i++) {
+        futures.add(executor.submit(() -> {
+          for (int j = 0; j < 20000; j++) {
+            assertEquals("string", MapperUtil.getFieldsMap(testChildObj).get("superField1"));
+          }
+          return null;
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+    for (Field field : ClassMetadata.of(TestChildClass.class).getFields()) {
+      assertFalse(field.isAccessible());
+    }
+  }
 
   @Test(expected = ResultTypeInstantiationException.class)
   public void shoulThrowException_whenResultTypeHasNotPublicNoArgConstructor()
@@ -209,4 +291,49 @@ public class MapperUtilTest {
     assertNull(testHasNoSuperClassObj);
   }
 
-}
\ No newline at end of file
+  @Test
+  public void shouldThrowExceptionWithMessage_whenListResultTypeHasNotPublicNoArgConstructor() {
+    TestChildClass testChildObj = new TestChildClass();
+
+    try {
+      MapperUtil.map(Arrays.asList(testChildObj, testChildObj),
+          TestHasNotPublicNoArgsConstructorClass.class);
+      fail("map method should throw exception");
+    } catch (ResultTypeInstantiationException e) {
+      assertNotNull(e.getMessage());
+      assertTrue(e.getMessage()
+          .contains(TestHasNotPublicNoArgsConstructorClass.class.getTypeName()));
+    }
+  }
+
+  @Test
+  public void shouldMapNullToNull_whenListHasNullElement() throws Exception {
+    TestChildClass testChildObj = new TestChildClass();
+    testChildObj.setChildField1(3.0);
+
+    Iterable<TestHasNoSuperClass> results = MapperUtil.map(
+        Arrays.asList(testChildObj, null, testChildObj), TestHasNoSuperClass.class);
+
+    List<TestHasNoSuperClass> resultList = new ArrayList<>();
+    results.forEach(resultList::add);
+    assertEquals(3, resultList.size());
+    assertEquals(Double.valueOf(3.0), resultList.get(0).getChildField1());
+    assertNull(resultList.get(1));
+    assertEquals(Double.valueOf(3.0), resultList.get(2).getChildField1());
+  }
+
+  @Test
+  public void shouldCacheInstantiator_whenSameTypeIsInstantiatedTwice() throws Exception {
+    Instantiator<TestHasNoSuperClass> instantiator = Instantiator.of(TestHasNoSuperClass.class);
+
+    assertSame(instantiator, Instantiator.of(TestHasNoSuperClass.class));
+    assertTrue(instantiator.isInstantiable());
+    assertNotSame(instantiator.newInstance(), instantiator.newInstance());
+    assertFalse(Instantiator.of(TestHasNotPublicNoArgsConstructorClass.class).isInstantiable());
+  }
+
+  public static class HasStaticField implements Mappable {
+    private static String prefix = "prefix";
+    private String name;
+  }
+}
@@ -0,0 +1,203 @@
+package mapper;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import mapper.exception.ResultTypeInstantiationException;
+import mapper.packagefortesting.TestChildClass;
+import mapper.packagefortesting.TestHasNoSuperClass;
+import mapper.plan.MappingEngine;
+
+import org.junit.Before;
+import org.junit.Test;
+
+
+public class MappingEngineTest {
+
+  private static final Double childField1Value = 120.3;
+  private static final List<Integer> childField2Value =
+      new ArrayList<>(Arrays.asList(6, 8, 9, 445));
+
+  private TestChildClass mapFromObj;
+
+  /**
+   * Setting mapFromObj with initial values.
+   */
+  @Before
+  public void setUp() {
+    mapFromObj = new TestChildClass();
+    mapFromObj.setSuperField1("STR");
+    mapFromObj.setSuperField2(99);
+    mapFromObj.setChildField1(childField1Value);
+    mapFromObj.setChildField2(childField2Value);
+  }
+
+  @Test
+  public void shouldMapMatchedFields_withEveryEngine() throws ResultTypeInstantiationException {
+    for (MappingEngine engine : MappingEngine.values()) {
+      TestHasNoSuperClass mapToObj =
+          Mapper.getMapperFrom(mapFromObj, engine).mapTo(TestHasNoSuperClass.class);
+
+      assertEquals(engine.name(), childField1Value, mapToObj.getChildField1());
+      assertEquals(engine.name(), childField2Value, mapToObj.getChildField2());
+      assertNull(engine.name(), mapToObj.getSuperField1());
+    }
+  }
+
+  @Test
+  public void shouldMapInheritedFields_withMethodHandleEngine() {
+    TestChildClass mapToObj = Mapper.getMapperFrom(mapFromObj, MappingEngine.METHOD_HANDLE)
+        .mapTo(TestChildClass::new);
+
+    assertEquals("STR", mapToObj.getSuperField1());
+    assertEquals(Integer.valueOf(99), mapToObj.getSuperField2());
+    assertEquals(childField1Value, mapToObj.getChildField1());
+    assertEquals(childField2Value, mapToObj.getChildField2());
+  }
+
+  @Test
+  public void shouldMapList_withBytecodeEngine() {
+    List<TestChildClass> sources = Arrays.asList(mapFromObj, mapFromObj);
+
+    Iterable<TestHasNoSuperClass> results =
+        Mapper.getMapperFromList(sources, MappingEngine.BYTECODE)
+            .mapToList(TestHasNoSuperClass::new);
+
+    results.forEach(result -> assertEquals(childField1Value, result.getChildField1()));
+  }
+
+  @Test
+  public void shouldFallBackToReflection_whenGetterTypeIsWiderThanSetterType() {
+    WideGetterSource source = new WideGetterSource();
+    source.setNumber(5);
+
+    TestResult result = Mapper.getMapperFrom(source, MappingEngine.BYTECODE)
+        .mapTo(TestResult::new);
+
+    assertEquals(Integer.valueOf(5), result.getNumber());
+  }
+
+  @Test
+  public void shouldSkipFailingProperty_whenGeneratedMapperThrows() {
+    ThrowingSource source = new ThrowingSource();
+    source.setValue("value");
+
+    TestResult result = Mapper.getMapperFrom(source, MappingEngine.BYTECODE)
+        .mapTo(TestResult::new);
+
+    assertEquals("value", result.getValue());
+  }
+
+  @Test
+  public void shouldCallEverySetterOnce_whenALaterPropertyFails() {
+    for (MappingEngine engine : MappingEngine.values()) {
+      LateThrowingSource source = new LateThrowingSource();
+      source.setValue("value");
+
+      CountingResult result = Mapper.getMapperFrom(source, engine).mapTo(CountingResult::new);
+
+      assertEquals(engine.name(), "value", result.getValue());
+      assertEquals(engine.name(), 1, result.valueSetCount);
+      if (engine == MappingEngine.BYTECODE) {
+        assertTrue(result.setByGeneratedCopier);
+      }
+    }
+  }
+
+
+  public static class WideGetterSource implements Mappable {
+    private Integer number;
+
+    public Object getNumber() {
+      return number;
+    }
+
+    public void setNumber(Integer number) {
+      this.number = number;
+    }
+  }
+
+  public static class TestResult implements Mappable {
+    private String value;
+    private Integer number;
+
+    public String getValue() {
+      return value;
+    }
+
+    public void setValue(String value) {
+      this.value = value;
+    }
+
+    public Integer getNumber() {
+      return number;
+    }
+
+    public void setNumber(Integer number) {
+      this.number = number;
+    }
+  }
+
+  public static class ThrowingSource implements Mappable {
+    private Integer number;
+    private String value;
+
+    public Integer getNumber() {
+      throw new IllegalStateException("number is not available");
+    }
+
+    public String getValue() {
+      return value;
+    }
+
+    public void setValue(String value) {
+      this.value = value;
+    }
+  }
+
+  public static class LateThrowingSource implements Mappable {
+    private String value;
+    private Integer number;
+
+    public String getValue() {
+      return value;
+    }
+
+    public void setValue(String value) {
+      this.value = value;
+    }
+
+    public Integer getNumber() {
+      throw new IllegalStateException("number is not available");
+    }
+  }
+
+  public static class CountingResult implements Mappable {
+    private String value;
+    private Integer number;
+    private int valueSetCount;
+    private boolean setByGeneratedCopier;
+
+    public String getValue() {
+      return value;
+    }
+
+    /**
+     * Counts the calls, and records whether the caller is a generated copier.
+     */
+    public void setValue(String value) {
+      this.value = value;
+      valueSetCount++;
+      setByGeneratedCopier = StackWalker.getInstance(StackWalker.Option.SHOW_HIDDEN_FRAMES)
+          .walk(frames -> frames.skip(1).findFirst()).get().getClassName()
+          .contains("GeneratedCopier");
+    }
+
+    public void setNumber(Integer number) {
+      this.number = number;
+    }
+  }
+}
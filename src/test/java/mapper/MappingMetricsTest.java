@@ -0,0 +1,186 @@
+package mapper;
+
+import static org.junit.Assert.*;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.management.ObjectName;
+
+import mapper.exception.ResultTypeInstantiationException;
+import mapper.metrics.InMemoryMappingMetrics;
+import mapper.metrics.JmxMappingMetrics;
+import mapper.metrics.MappingMetricsRegistry;
+import mapper.metrics.TypePairMetrics;
+import mapper.packagefortesting.TestAnnotatedClass;
+import mapper.packagefortesting.TestChildClass;
+import mapper.packagefortesting.TestHasNoSuperClass;
+import mapper.packagefortesting.TestHasNotPublicNoArgsConstructorClass;
+import mapper.plan.GeneratedMapperRegistry;
+import mapper.plan.MappingEngine;
+import mapper.util.MapperUtil;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+
+public class MappingMetricsTest {
+
+  private InMemoryMappingMetrics metrics;
+
+  @Before
+  public void setUp() {
+    metrics = new InMemoryMappingMetrics();
+    MappingMetricsRegistry.set(metrics);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    MappingMetricsRegistry.disable();
+    JmxMappingMetrics.unregister();
+  }
+
+  @Test
+  public void shouldRecordCopiedAndSkippedFields_whenObjectsAreMapped() throws Exception {
+    Source source = new Source();
+    source.setCopied("copied");
+    source.setSkipped("skipped");
+
+    Mapper.getMapperFrom(source).mapTo(Result.class);
+    Mapper.getMapperFromList(Arrays.asList(source, source)).mapToList(Result::new);
+
+    TypePairMetrics typePairMetrics = metrics.get(Source.class, Result.class);
+    assertEquals(3, typePairMetrics.getMappingCount());
+    assertEquals(3, typePairMetrics.getFieldsCopied());
+    assertEquals(3, typePairMetrics.getFieldsSkipped());
+    assertEquals(3, Arrays.stream(typePairMetrics.getLatencyHistogram()).sum());
+    assertTrue(typePairMetrics.getLatencyPercentile(99.0) > 0);
+  }
+
+  @Test
+  public void shouldRecordInstantiationFailure_whenResultTypeCanNotBeInstantiated() {
+    TestChildClass source = new TestChildClass();
+
+    try {
+      Mapper.getMapperFrom(source).mapTo(TestHasNotPublicNoArgsConstructorClass.class);
+      fail();
+    } catch (ResultTypeInstantiationException e) {
+      TypePairMetrics typePairMetrics =
+          metrics.get(TestChildClass.class, TestHasNotPublicNoArgsConstructorClass.class);
+      assertEquals(1, typePairMetrics.getInstantiationFailures());
+      assertEquals(0, typePairMetrics.getMappingCount());
+    }
+  }
+
+  @Test
+  public void shouldRecordMapping_whenGeneratedMapperIsUsed() throws Exception {
+    assertNotNull(GeneratedMapperRegistry.find(TestAnnotatedClass.class,
+        TestHasNoSuperClass.class));
+
+    Mapper.getMapperFrom(new TestAnnotatedClass()).mapTo(TestHasNoSuperClass.class);
+    Mapper.getMapperFrom(new TestAnnotatedClass()).mapTo(TestHasNoSuperClass::new);
+
+    TypePairMetrics typePairMetrics =
+        metrics.get(TestAnnotatedClass.class, TestHasNoSuperClass.class);
+    assertEquals(2, typePairMetrics.getMappingCount());
+    assertEquals(4, typePairMetrics.getFieldsCopied());
+  }
+
+  @Test
+  public void shouldRecordFailedFields_whenAGetterThrows() throws Exception {
+    FailingSource source = new FailingSource();
+    source.setCopied("copied");
+
+    Mapper.getMapperFrom(source).mapTo(Result.class);
+    Mapper.getMapperFromList(Arrays.asList(source, source)).mapToList(Result::new);
+    for (MappingEngine engine : MappingEngine.values()) {
+      MapperUtil.map(source, new Result(), engine);
+    }
+
+    TypePairMetrics typePairMetrics = metrics.get(FailingSource.class, Result.class);
+    int mappingCount = 3 + MappingEngine.values().length;
+    assertEquals(mappingCount, typePairMetrics.getMappingCount());
+    assertEquals(mappingCount, typePairMetrics.getFieldsCopied());
+    assertEquals(mappingCount, typePairMetrics.getFieldsFailed());
+  }
+
+  @Test
+  public void shouldRecordMapClassAsSourceType_whenMappedFromMap() throws Exception {
+    Map<String, Object> map = new HashMap<>();
+    map.put("copied", "copied");
+
+    MapperUtil.fromMap(map, Result.class);
+
+    TypePairMetrics typePairMetrics = metrics.get(HashMap.class, Result.class);
+    assertEquals(1, typePairMetrics.getMappingCount());
+    assertEquals(1, typePairMetrics.getFieldsCopied());
+    assertNull(metrics.get(Map.class, Result.class));
+  }
+
+  @Test
+  public void shouldNotRecord_whenMetricsAreDisabled() {
+    MappingMetricsRegistry.disable();
+
+    Mapper.getMapperFrom(new Source()).mapTo(Result::new);
+
+    assertNull(metrics.get(Source.class, Result.class));
+  }
+
+  @Test
+  public void shouldExposeTotals_whenRegisteredToJmx() throws Exception {
+    JmxMappingMetrics.register(metrics);
+    Mapper.getMapperFrom(new Source()).mapTo(Result::new);
+
+    ObjectName name = new ObjectName(JmxMappingMetrics.OBJECT_NAME);
+    assertEquals(1L, ManagementFactory.getPlatformMBeanServer()
+        .getAttribute(name, "MappingCount"));
+    String[] typePairs = (String[]) ManagementFactory.getPlatformMBeanServer()
+        .getAttribute(name, "TypePairs");
+    assertEquals(1, typePairs.length);
+    assertTrue(typePairs[0].contains(Result.class.getName()));
+  }
+
+
+  public static class Source implements Mappable {
+    private String copied;
+    private String skipped;
+
+    public String getCopied() {
+      return copied;
+    }
+
+    public void setCopied(String copied) {
+      this.copied = copied;
+    }
+
+    public void setSkipped(String skipped) {
+      this.skipped = skipped;
+    }
+  }
+
+  public static class FailingSource extends Source {
+    public String getSkipped() {
+      throw new IllegalStateException("not readable");
+    }
+  }
+
+  public static class Result implements Mappable {
+    private String copied;
+    private String skipped;
+
+    public String getCopied() {
+      return copied;
+    }
+
+    public void setCopied(String copied) {
+      this.copied = copied;
+    }
+
+    public void setSkipped(String skipped) {
+      this.skipped = skipped;
+    }
+  }
+}
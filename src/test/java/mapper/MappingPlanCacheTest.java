@@ -0,0 +1,79 @@
+package mapper;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import mapper.packagefortesting.TestChildClass;
+import mapper.packagefortesting.TestHasNoSuperClass;
+import mapper.plan.CacheStats;
+import mapper.plan.MappingPlan;
+import mapper.plan.MappingPlanCache;
+import mapper.plan.PropertyMapping;
+import mapper.util.MapperUtil;
+
+import org.junit.Before;
+import org.junit.Test;
+
+
+public class MappingPlanCacheTest {
+
+  @Before
+  public void setUp() {
+    MappingPlanCache.clear();
+  }
+
+  @Test
+  public void shouldBuildPlanOnce_whenSameTypePairIsMappedTwice() {
+    TestChildClass source = new TestChildClass();
+    source.setChildField1(3.0);
+
+    MapperUtil.map(source, new TestHasNoSuperClass());
+    MapperUtil.map(source, new TestHasNoSuperClass());
+
+    CacheStats stats = MappingPlanCache.getStats();
+    assertEquals(1, stats.getMissCount());
+    assertEquals(1, stats.getHitCount());
+    assertEquals(1, stats.getSize());
+  }
+
+  @Test
+  public void shouldContainOnlyFieldsMatchedByNameAndByType() {
+    MappingPlan plan = MappingPlanCache.getPlan(TestChildClass.class, TestHasNoSuperClass.class);
+
+    List<String> names = plan.getPropertyMappings().stream()
+        .map(PropertyMapping::getName)
+        .collect(Collectors.toList());
+
+    List<String> expectedNames = new ArrayList<>();
+    expectedNames.add("childField1");
+    expectedNames.add("childField2");
+    assertEquals(expectedNames, names);
+  }
+
+  @Test
+  public void shouldNotCountLookup_whenPlanIsWarmedUp() {
+    MappingPlan warmedUp =
+        MappingPlanCache.warmUp(TestChildClass.class, TestHasNoSuperClass.class);
+    MappingPlan cached =
+        MappingPlanCache.getPlan(TestChildClass.class, TestHasNoSuperClass.class);
+
+    assertSame(warmedUp, cached);
+    assertEquals(0, MappingPlanCache.getStats().getMissCount());
+    assertEquals(1, MappingPlanCache.getStats().getHitCount());
+  }
+
+  @Test
+  public void shouldRemovePlansAndResetStats_whenCleared() {
+    MappingPlanCache.getPlan(TestChildClass.class, TestHasNoSuperClass.class);
+
+    MappingPlanCache.clear();
+
+    CacheStats stats = MappingPlanCache.getStats();
+    assertEquals(0, stats.getSize());
+    assertEquals(0, stats.getMissCount());
+    assertEquals(0, stats.getHitCount());
+  }
+}
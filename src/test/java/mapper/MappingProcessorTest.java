@@ -0,0 +1,299 @@
+package mapper;
+
+import static org.junit.Assert.*;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+import mapper.flow.FlowOptions;
+import mapper.flow.MappingProcessor;
+import mapper.packagefortesting.TestChildClass;
+import mapper.packagefortesting.TestHasNoSuperClass;
+import mapper.plan.MappingEngine;
+
+import org.junit.Test;
+
+
+public class MappingProcessorTest {
+
+  private static List<TestHasNoSuperClass> publishAndCollect(
+      MappingProcessor<TestChildClass, TestHasNoSuperClass> processor, int size)
+      throws InterruptedException {
+    List<TestHasNoSuperClass> results = new CopyOnWriteArrayList<>();
+    CountDownLatch completed = new CountDownLatch(1);
+    processor.subscribe(new Flow.Subscriber<TestHasNoSuperClass>() {
+      @Override
+      public void onSubscribe(Flow.Subscription subscription) {
+        subscription.request(Long.MAX_VALUE);
+      }
+
+      @Override
+      public void onNext(TestHasNoSuperClass item) {
+        results.add(item);
+      }
+
+      @Override
+      public void onError(Throwable throwable) {
+        completed.countDown();
+      }
+
+      @Override
+      public void onComplete() {
+        completed.countDown();
+      }
+    });
+
+    try (SubmissionPublisher<TestChildClass> publisher = new SubmissionPublisher<>()) {
+      publisher.subscribe(processor);
+      for (int i = 0; i < size; i++) {
+        TestChildClass source = new TestChildClass();
+        source.setChildField1((double) i);
+        publisher.submit(source);
+      }
+    }
+    assertTrue(completed.await(10, TimeUnit.SECONDS));
+    return results;
+  }
+
+  @Test
+  public void shouldPublishMappedItemsInOrder() throws InterruptedException {
+    MappingProcessor<TestChildClass, TestHasNoSuperClass> processor =
+        new MappingProcessor<>(TestHasNoSuperClass::new);
+
+    List<TestHasNoSuperClass> results = publishAndCollect(processor, 100);
+
+    assertEquals(100, results.size());
+    for (int i = 0; i < results.size(); i++) {
+      assertEquals(Double.valueOf(i), results.get(i).getChildField1());
+    }
+    assertEquals(100, processor.getReceivedCount());
+    assertEquals(100, processor.getPublishedCount());
+  }
+
+  @Test
+  public void shouldMapInBatches_whenBatchSizeIsGiven() throws InterruptedException {
+    MappingProcessor<TestChildClass, TestHasNoSuperClass> processor =
+        new MappingProcessor<>(TestHasNoSuperClass::new, MappingEngine.METHOD_HANDLE,
+            ParallelOptions.defaults().withThreshold(0).withChunkSize(4),
+            FlowOptions.defaults().withBatchSize(16).withMaxLatency(Duration.ofMinutes(1)));
+
+    List<TestHasNoSuperClass> results = publishAndCollect(processor, 100);
+
+    assertEquals(100, results.size());
+    for (int i = 0; i < results.size(); i++) {
+      assertEquals(Double.valueOf(i), results.get(i).getChildField1());
+    }
+    assertEquals(7, processor.getBatchCount());
+  }
+
+  @Test
+  public void shouldRequestNextBatch_whenBatchIsPublished() throws InterruptedException {
+    MappingProcessor<TestChildClass, TestHasNoSuperClass> processor =
+        new MappingProcessor<>(TestHasNoSuperClass::new, MappingEngine.DEFAULT,
+            ParallelOptions.defaults(), FlowOptions.defaults().withBatchSize(8)
+            .withMaxLatency(Duration.ofMinutes(1)).withMaxPendingBatches(1));
+    AtomicLong requested = new AtomicLong();
+    processor.onSubscribe(subscription(requested));
+    assertEquals(8, requested.get());
+
+    for (int i = 0; i < 7; i++) {
+      processor.onNext(new TestChildClass());
+    }
+    assertEquals(8, requested.get());
+
+    processor.onNext(new TestChildClass());
+    assertTrue(await(() -> requested.get() == 16));
+    assertEquals(1, processor.getBatchCount());
+  }
+
+  @Test
+  public void shouldMapOnExecutor_whenBatchIsBelowThreshold() throws InterruptedException {
+    List<Thread> threads = new CopyOnWriteArrayList<>();
+    MappingProcessor<TestChildClass, TestHasNoSuperClass> processor =
+        new MappingProcessor<>(() -> {
+          threads.add(Thread.currentThread());
+          return new TestHasNoSuperClass();
+        }, MappingEngine.DEFAULT, 2, ParallelOptions.defaults());
+    processor.onSubscribe(subscription(new AtomicLong()));
+
+    processor.onNext(new TestChildClass());
+    processor.onNext(new TestChildClass());
+
+    assertTrue(await(() -> processor.getBatchCount() == 1));
+    assertEquals(2, threads.size());
+    assertFalse(threads.contains(Thread.currentThread()));
+  }
+
+  @Test
+  public void shouldPublishPartialBatch_whenMaxLatencyElapses() throws InterruptedException {
+    MappingProcessor<TestChildClass, TestHasNoSuperClass> processor =
+        new MappingProcessor<>(TestHasNoSuperClass::new, MappingEngine.DEFAULT,
+            ParallelOptions.defaults(), FlowOptions.defaults().withBatchSize(16)
+            .withMaxLatency(Duration.ofMillis(20)));
+    processor.onSubscribe(subscription(new AtomicLong()));
+
+    for (int i = 0; i < 3; i++) {
+      processor.onNext(new TestChildClass());
+    }
+
+    assertTrue(await(() -> processor.getPublishedCount() == 3));
+    assertEquals(1, processor.getBatchCount());
+  }
+
+  @Test
+  public void shouldIgnoreItems_whenMappingHasFailed() throws InterruptedException {
+    MappingProcessor<TestChildClass, TestHasNoSuperClass> processor =
+        new MappingProcessor<>(() -> {
+          throw new IllegalStateException("supplier failed");
+        });
+    processor.onSubscribe(subscription(new AtomicLong()));
+
+    processor.onNext(new TestChildClass());
+    assertTrue(await(() -> processor.getClosedException() != null));
+    processor.onNext(new TestChildClass());
+    processor.onComplete();
+
+    assertEquals("supplier failed", processor.getClosedException().getMessage());
+    assertEquals(0, processor.getPublishedCount());
+  }
+
+  @Test
+  public void shouldSlowUpstreamDown_whenSubscriberIsSlow() throws InterruptedException {
+    MappingProcessor<TestChildClass, TestHasNoSuperClass> processor =
+        new MappingProcessor<>(TestHasNoSuperClass::new);
+    AtomicLong requested = new AtomicLong();
+    processor.onSubscribe(subscription(requested));
+    List<Flow.Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    processor.subscribe(new Flow.Subscriber<TestHasNoSuperClass>() {
+      @Override
+      public void onSubscribe(Flow.Subscription subscription) {
+        subscriptions.add(subscription);
+      }
+
+      @Override
+      public void onNext(TestHasNoSuperClass item) {
+      }
+
+      @Override
+      public void onError(Throwable throwable) {
+      }
+
+      @Override
+      public void onComplete() {
+      }
+    });
+    assertTrue(await(() -> subscriptions.size() == 1));
+
+    final int count = Flow.defaultBufferSize() * 4;
+    final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(1500);
+    long received = 0;
+    while (received < count && System.nanoTime() < deadline) {
+      if (received < requested.get()) {
+        processor.onNext(new TestChildClass());
+        received++;
+      } else {
+        Thread.sleep(1);
+      }
+    }
+    assertTrue(received < count);
+    assertNull(processor.getClosedException());
+
+    subscriptions.get(0).request(Long.MAX_VALUE);
+    while (received < count) {
+      final long fed = received;
+      assertTrue(await(() -> requested.get() > fed));
+      processor.onNext(new TestChildClass());
+      received++;
+    }
+    assertTrue(await(() -> processor.getPublishedCount() == count));
+    assertNull(processor.getClosedException());
+  }
+
+  @Test
+  public void shouldDropResults_whenSubscriberIsFullAndPolicyIsDrop()
+      throws InterruptedException {
+    MappingProcessor<TestChildClass, TestHasNoSuperClass> processor =
+        new MappingProcessor<>(TestHasNoSuperClass::new, MappingEngine.DEFAULT,
+            ParallelOptions.defaults(), FlowOptions.defaults()
+            .withOverflow(Duration.ZERO, FlowOptions.OverflowPolicy.DROP));
+    processor.onSubscribe(subscription(new AtomicLong()));
+    processor.subscribe(idleSubscriber());
+
+    final int count = Flow.defaultBufferSize() + 10;
+    for (int i = 0; i < count; i++) {
+      processor.onNext(new TestChildClass());
+    }
+
+    assertTrue(await(() -> processor.getPublishedCount() == count));
+    assertTrue(processor.getDroppedCount() > 0);
+    assertNull(processor.getClosedException());
+  }
+
+  @Test
+  public void shouldFail_whenSubscriberIsFullAndPolicyIsError() throws InterruptedException {
+    MappingProcessor<TestChildClass, TestHasNoSuperClass> processor =
+        new MappingProcessor<>(TestHasNoSuperClass::new, MappingEngine.DEFAULT,
+            ParallelOptions.defaults(), FlowOptions.defaults()
+            .withOverflow(Duration.ZERO, FlowOptions.OverflowPolicy.ERROR));
+    processor.onSubscribe(subscription(new AtomicLong()));
+    processor.subscribe(idleSubscriber());
+
+    for (int i = 0; i < Flow.defaultBufferSize() + 10; i++) {
+      processor.onNext(new TestChildClass());
+    }
+
+    assertTrue(await(() -> processor.getClosedException() != null));
+    assertTrue(processor.getClosedException() instanceof IllegalStateException);
+  }
+
+  private static Flow.Subscription subscription(AtomicLong requested) {
+    return new Flow.Subscription() {
+      @Override
+      public void request(long count) {
+        requested.addAndGet(count);
+      }
+
+      @Override
+      public void cancel() {
+      }
+    };
+  }
+
+  private static Flow.Subscriber<TestHasNoSuperClass> idleSubscriber() {
+    return new Flow.Subscriber<TestHasNoSuperClass>() {
+      @Override
+      public void onSubscribe(Flow.Subscription subscription) {
+      }
+
+      @Override
+      public void onNext(TestHasNoSuperClass item) {
+      }
+
+      @Override
+      public void onError(Throwable throwable) {
+      }
+
+      @Override
+      public void onComplete() {
+      }
+    };
+  }
+
+  private static boolean await(BooleanSupplier condition) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while (!condition.getAsBoolean()) {
+      if (System.nanoTime() > deadline) {
+        return false;
+      }
+      Thread.sleep(5);
+    }
+    return true;
+  }
+}
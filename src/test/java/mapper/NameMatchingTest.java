@@ -0,0 +1,131 @@
+package mapper;
+
+import static org.junit.Assert.*;
+
+import mapper.plan.MappingPlan;
+import mapper.plan.MappingPlanCache;
+import mapper.plan.NameMatching;
+import mapper.util.ClassMetadata;
+import mapper.util.MapperUtil;
+import mapper.util.StringUtil;
+
+import org.junit.Test;
+
+
+public class NameMatchingTest {
+
+  @Test
+  public void shouldMapOnlyEqualNames_whenNoMatchingIsDeclared() {
+    CamelCaseDto source = new CamelCaseDto();
+    source.setUserName("ada");
+
+    LowerCaseDto result = MapperUtil.map(source, new LowerCaseDto());
+
+    assertNull(result.getUsername());
+  }
+
+  @Test
+  public void shouldMapNamesIgnoringCase_whenCaseInsensitiveIsDeclared() {
+    CamelCaseDto source = new CamelCaseDto();
+    source.setUserName("ada");
+
+    CaseInsensitiveDto result = MapperUtil.map(source, new CaseInsensitiveDto());
+
+    assertEquals("ada", result.getUsername());
+  }
+
+  @Test
+  public void shouldMapNamesIgnoringCase_whenCaseInsensitiveIsDeclaredOnSourceType() {
+    CaseInsensitiveDto source = new CaseInsensitiveDto();
+    source.setUsername("ada");
+
+    CamelCaseDto result = MapperUtil.map(source, new CamelCaseDto());
+
+    assertEquals("ada", result.getUserName());
+  }
+
+  @Test
+  public void shouldFindCamelCaseField_whenSnakeCaseNameIsRelaxed() {
+    ClassMetadata metadata = ClassMetadata.of(CamelCaseDto.class);
+
+    String key = NameMatching.RELAXED.normalize("user_name");
+
+    assertEquals("username", key);
+    assertEquals("userName", metadata.getField(key, NameMatching.RELAXED).getName());
+    assertNull(metadata.getField("user_name", NameMatching.EXACT));
+    assertEquals("userName", StringUtil.snakeToCamelCase("user_name"));
+    assertEquals("userName", StringUtil.snakeToCamelCase("userName"));
+  }
+
+  @Test
+  public void shouldNotMatchAnyField_whenNormalizedNameIsAmbiguous() {
+    ClassMetadata metadata = ClassMetadata.of(AmbiguousDto.class);
+
+    assertNull(metadata.getField("username", NameMatching.CASE_INSENSITIVE));
+    assertNotNull(metadata.getField("userName", NameMatching.EXACT));
+    assertEquals("email", metadata.getField("email", NameMatching.CASE_INSENSITIVE).getName());
+
+    MappingPlan plan = MappingPlanCache.getPlan(CaseInsensitiveDto.class, AmbiguousDto.class);
+    assertEquals(0, plan.getPropertyMappings().size());
+  }
+
+  @Test
+  public void shouldUseMoreLenientMatching_whenTypesDeclareDifferentMatchings() {
+    assertEquals(NameMatching.EXACT,
+        NameMatching.of(CamelCaseDto.class, LowerCaseDto.class));
+    assertEquals(NameMatching.CASE_INSENSITIVE,
+        NameMatching.of(CamelCaseDto.class, CaseInsensitiveDto.class));
+    assertEquals(NameMatching.RELAXED,
+        NameMatching.of(CaseInsensitiveDto.class, RelaxedDto.class));
+  }
+
+  public static class CamelCaseDto implements Mappable {
+    private String userName;
+
+    public String getUserName() {
+      return userName;
+    }
+
+    public void setUserName(String userName) {
+      this.userName = userName;
+    }
+  }
+
+  public static class LowerCaseDto implements Mappable {
+    private String username;
+
+    public String getUsername() {
+      return username;
+    }
+
+    public void setUsername(String username) {
+      this.username = username;
+    }
+  }
+
+  @MappingNames(NameMatching.CASE_INSENSITIVE)
+  public static class CaseInsensitiveDto extends LowerCaseDto {
+  }
+
+  @MappingNames(NameMatching.RELAXED)
+  public static class RelaxedDto extends LowerCaseDto {
+  }
+
+  public static class AmbiguousDto implements Mappable {
+    private String userName;
+    private String username;
+    private String email;
+
+    public void setUserName(String userName) {
+      this.userName = userName;
+    }
+
+    public void setUsername(String username) {
+      this.username = username;
+    }
+
+    public void setEmail(String email) {
+      this.email = email;
+    }
+  }
+}
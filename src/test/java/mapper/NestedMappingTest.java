@@ -0,0 +1,197 @@
+package mapper;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import mapper.plan.MappingEngine;
+import mapper.plan.MappingPlanCache;
+
+import org.junit.Test;
+
+
+public class NestedMappingTest {
+
+  @Test
+  public void shouldMapNestedObjectsAndCollections_whenFieldTypesAreDifferentMappables() {
+    for (MappingEngine engine : MappingEngine.values()) {
+      Address home = new Address();
+      home.setCity("Istanbul");
+      Address work = new Address();
+      work.setCity("Ankara");
+      Customer customer = new Customer();
+      customer.setAddress(home);
+      customer.setAddresses(Arrays.asList(home, work));
+      customer.setAddressArray(new Address[] {work, null});
+
+      CustomerDto dto = Mapper.getMapperFrom(customer, engine).mapTo(CustomerDto::new);
+
+      assertEquals(engine.name(), "Istanbul", dto.getAddress().getCity());
+      assertEquals(engine.name(), 2, dto.getAddresses().size());
+      assertSame(engine.name(), dto.getAddress(), dto.getAddresses().get(0));
+      assertEquals(engine.name(), "Ankara", dto.getAddresses().get(1).getCity());
+      assertSame(engine.name(), dto.getAddresses().get(1), dto.getAddressArray()[0]);
+      assertNull(engine.name(), dto.getAddressArray()[1]);
+    }
+  }
+
+  @Test
+  public void shouldKeepCycles_whenSourceGraphHasCycle() {
+    Customer customer = new Customer();
+    Address address = new Address();
+    address.setCity("Izmir");
+    address.setOwner(customer);
+    customer.setAddress(address);
+
+    CustomerDto dto = Mapper.getMapperFrom(customer).mapTo(CustomerDto::new);
+
+    assertSame(dto, dto.getAddress().getOwner());
+    assertTrue(MappingPlanCache.getPlan(Customer.class, CustomerDto.class).hasNestedMappings());
+  }
+
+  @Test
+  public void shouldMapEveryElement_whenNestedCollectionIsLarge() {
+    Customer customer = new Customer();
+    List<Address> addresses = new ArrayList<>();
+    for (int i = 0; i < 10000; i++) {
+      Address address = new Address();
+      address.setCity("city" + i);
+      addresses.add(address);
+    }
+    customer.setAddresses(addresses);
+    customer.setAddressSet(new HashSet<>(addresses.subList(0, 10)));
+
+    CustomerDto dto = Mapper.getMapperFrom(customer, MappingEngine.METHOD_HANDLE)
+        .mapTo(CustomerDto::new);
+
+    assertEquals(10000, dto.getAddresses().size());
+    assertEquals("city9999", dto.getAddresses().get(9999).getCity());
+    assertEquals(10, dto.getAddressSet().size());
+    assertTrue(dto.getAddresses().containsAll(dto.getAddressSet()));
+  }
+
+
+  public static class Customer implements Mappable {
+    private Address address;
+    private List<Address> addresses;
+    private Set<Address> addressSet;
+    private Address[] addressArray;
+
+    public Address getAddress() {
+      return address;
+    }
+
+    public void setAddress(Address address) {
+      this.address = address;
+    }
+
+    public List<Address> getAddresses() {
+      return addresses;
+    }
+
+    public void setAddresses(List<Address> addresses) {
+      this.addresses = addresses;
+    }
+
+    public Set<Address> getAddressSet() {
+      return addressSet;
+    }
+
+    public void setAddressSet(Set<Address> addressSet) {
+      this.addressSet = addressSet;
+    }
+
+    public Address[] getAddressArray() {
+      return addressArray;
+    }
+
+    public void setAddressArray(Address[] addressArray) {
+      this.addressArray = addressArray;
+    }
+  }
+
+  public static class Address implements Mappable {
+    private String city;
+    private Customer owner;
+
+    public String getCity() {
+      return city;
+    }
+
+    public void setCity(String city) {
+      this.city = city;
+    }
+
+    public Customer getOwner() {
+      return owner;
+    }
+
+    public void setOwner(Customer owner) {
+      this.owner = owner;
+    }
+  }
+
+  public static class CustomerDto implements Mappable {
+    private AddressDto address;
+    private List<AddressDto> addresses;
+    private Set<AddressDto> addressSet;
+    private AddressDto[] addressArray;
+
+    public AddressDto getAddress() {
+      return address;
+    }
+
+    public void setAddress(AddressDto address) {
+      this.address = address;
+    }
+
+    public List<AddressDto> getAddresses() {
+      return addresses;
+    }
+
+    public void setAddresses(List<AddressDto> addresses) {
+      this.addresses = addresses;
+    }
+
+    public Set<AddressDto> getAddressSet() {
+      return addressSet;
+    }
+
+    public void setAddressSet(Set<AddressDto> addressSet) {
+      this.addressSet = addressSet;
+    }
+
+    public AddressDto[] getAddressArray() {
+      return addressArray;
+    }
+
+    public void setAddressArray(AddressDto[] addressArray) {
+      this.addressArray = addressArray;
+    }
+  }
+
+  public static class AddressDto implements Mappable {
+    private String city;
+    private CustomerDto owner;
+
+    public String getCity() {
+      return city;
+    }
+
+    public void setCity(String city) {
+      this.city = city;
+    }
+
+    public CustomerDto getOwner() {
+      return owner;
+    }
+
+    public void setOwner(CustomerDto owner) {
+      this.owner = owner;
+    }
+  }
+}
@@ -0,0 +1,197 @@
+package mapper;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import mapper.offheap.OffHeapRecords;
+import mapper.offheap.RecordLayout;
+import mapper.offheap.RecordView;
+
+import org.junit.Test;
+
+
+public class OffHeapRecordsTest {
+
+  @Test
+  public void shouldLayOutPrimitiveFields_whenLayoutIsComputed() {
+    RecordLayout layout = RecordLayout.of(Quote.class);
+
+    assertSame(layout, RecordLayout.of(Quote.class));
+    assertEquals(Arrays.asList("price", "volume", "id", "bid", "flag"), layout.getFieldNames());
+    assertEquals(-1, layout.indexOf("symbol"));
+    assertEquals(0, layout.getOffset(layout.indexOf("price")));
+    assertEquals(20, layout.getOffset(layout.indexOf("bid")));
+    assertEquals(25, layout.getNullBitmapOffset());
+    assertEquals(32, layout.getRecordSize());
+    assertTrue(layout.isNullable(layout.indexOf("volume")));
+    assertFalse(layout.isNullable(layout.indexOf("id")));
+  }
+
+  @Test
+  public void shouldReadFieldsThroughView_whenSourcesAreMappedOffHeap() {
+    List<Quote> quotes = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      quotes.add(new Quote(i, i * 1.5, i % 2 == 0 ? (long) i * 100 : null, i % 3 == 0));
+    }
+
+    OffHeapRecords<Quote> records = Mapper.getMapperFromList(quotes).mapToOffHeap(Quote.class);
+
+    assertEquals(10, records.size());
+    assertTrue(records.getBuffer().isDirect());
+    RecordView view = records.view();
+    view.moveTo(4);
+    assertEquals(4, view.getInt("id"));
+    assertEquals(6.0, view.getDouble("price"), 0.0);
+    assertEquals(400L, view.getLong("volume"));
+    assertEquals(Long.valueOf(400L), view.get("volume"));
+    view.moveTo(3);
+    assertTrue(view.isNull("volume"));
+    assertNull(view.get("volume"));
+    assertTrue(view.getBoolean("flag"));
+    assertEquals(Float.valueOf(3.25f), view.get("bid"));
+  }
+
+  @Test
+  public void shouldCopyRecordIntoHeapObject_whenRecordIsRead() throws Exception {
+    OffHeapRecords<Quote> records = OffHeapRecords.allocate(Quote.class, 2);
+    records.add(new Quote(7, 2.5, 700L, true));
+    records.add(new Quote(8, 3.5, null, false));
+
+    Quote first = records.get(0);
+    final Quote second = records.get(1);
+
+    assertEquals(7, first.getId());
+    assertEquals(2.5, first.getPrice(), 0.0);
+    assertEquals(Long.valueOf(700L), first.getVolume());
+    assertNull(first.getSymbol());
+    assertNull(second.getVolume());
+    assertEquals(Float.valueOf(8.25f), second.getBid());
+  }
+
+  @Test
+  public void shouldMapOtherSourceType_whenFieldsMatchByName() {
+    OffHeapRecords<Quote> records = OffHeapRecords.allocate(Quote.class, 1);
+    records.add(new BoxedQuote(5, 9L));
+
+    RecordView view = records.view().moveTo(0);
+    assertEquals(5, view.getInt("id"));
+    assertEquals(9L, view.getLong("volume"));
+    assertEquals(0.0, view.getDouble("price"), 0.0);
+    assertTrue(view.isNull("bid"));
+  }
+
+  @Test
+  public void shouldReplaceRecord_whenSetIsCalled() {
+    OffHeapRecords<Quote> records = OffHeapRecords.allocate(Quote.class, 1);
+    records.add(new Quote(1, 1.0, 1L, true));
+    records.set(0, new BoxedQuote(2, null));
+
+    RecordView view = records.view().moveTo(0);
+    assertEquals(2, view.getInt("id"));
+    assertTrue(view.isNull("volume"));
+    assertFalse(view.getBoolean("flag"));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void shouldThrowException_whenRecordsAreFull() {
+    OffHeapRecords<Quote> records = OffHeapRecords.allocate(Quote.class, 1);
+    records.add(new Quote(1, 1.0, 1L, true));
+    records.add(new Quote(2, 1.0, 1L, true));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldThrowException_whenFieldIsReadAsOtherType() {
+    OffHeapRecords<Quote> records = OffHeapRecords.allocate(Quote.class, 1);
+    records.add(new Quote(1, 1.0, 1L, true));
+    records.view().moveTo(0).getLong("id");
+  }
+
+  public static class Quote implements Mappable {
+    private int id;
+    private double price;
+    private Long volume;
+    private Float bid;
+    private boolean flag;
+    private String symbol;
+
+    public Quote() {
+    }
+
+    Quote(int id, double price, Long volume, boolean flag) {
+      this.id = id;
+      this.price = price;
+      this.volume = volume;
+      this.bid = id + 0.25f;
+      this.flag = flag;
+    }
+
+    public int getId() {
+      return id;
+    }
+
+    public void setId(int id) {
+      this.id = id;
+    }
+
+    public double getPrice() {
+      return price;
+    }
+
+    public void setPrice(double price) {
+      this.price = price;
+    }
+
+    public Long getVolume() {
+      return volume;
+    }
+
+    public void setVolume(Long volume) {
+      this.volume = volume;
+    }
+
+    public Float getBid() {
+      return bid;
+    }
+
+    public void setBid(Float bid) {
+      this.bid = bid;
+    }
+
+    public boolean getFlag() {
+      return flag;
+    }
+
+    public void setFlag(boolean flag) {
+      this.flag = flag;
+    }
+
+    public String getSymbol() {
+      return symbol;
+    }
+
+    public void setSymbol(String symbol) {
+      this.symbol = symbol;
+    }
+  }
+
+  public static class BoxedQuote implements Mappable {
+    private Integer id;
+    private Long volume;
+
+    BoxedQuote(Integer id, Long volume) {
+      this.id = id;
+      this.volume = volume;
+    }
+
+    public Integer getId() {
+      return id;
+    }
+
+    public Long getVolume() {
+      return volume;
+    }
+  }
+}
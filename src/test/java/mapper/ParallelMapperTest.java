@@ -0,0 +1,144 @@
+package mapper;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import mapper.exception.ResultTypeInstantiationException;
+import mapper.packagefortesting.TestChildClass;
+import mapper.packagefortesting.TestHasNoSuperClass;
+
+import org.junit.Test;
+
+
+public class ParallelMapperTest {
+
+  private static List<TestChildClass> createSources(int size) {
+    List<TestChildClass> sources = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      TestChildClass source = new TestChildClass();
+      source.setChildField1((double) i);
+      sources.add(source);
+    }
+    return sources;
+  }
+
+  @Test
+  public void shouldKeepInputOrder_whenListIsMappedInParallel()
+      throws ResultTypeInstantiationException {
+    List<TestChildClass> sources = createSources(10000);
+
+    Iterable<TestHasNoSuperClass> results = Mapper.getMapperFromList(sources)
+        .mapToListParallel(TestHasNoSuperClass.class,
+            ParallelOptions.defaults().withThreshold(100).withChunkSize(64));
+
+    int index = 0;
+    for (TestHasNoSuperClass result : results) {
+      assertEquals(Double.valueOf(index), result.getChildField1());
+      index++;
+    }
+    assertEquals(sources.size(), index);
+  }
+
+  @Test
+  public void shouldMapOnCallingThread_whenListIsSmallerThanThreshold() {
+    Set<Thread> threads = ConcurrentHashMap.newKeySet();
+
+    Mapper.getMapperFromList(createSources(10)).mapToListParallel(() -> {
+      threads.add(Thread.currentThread());
+      return new TestHasNoSuperClass();
+    });
+
+    assertEquals(1, threads.size());
+    assertTrue(threads.contains(Thread.currentThread()));
+  }
+
+  @Test
+  public void shouldMapOnGivenExecutor() {
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    Set<Thread> threads = ConcurrentHashMap.newKeySet();
+    try {
+      Mapper.getMapperFromList(createSources(1000)).mapToListParallel(() -> {
+        threads.add(Thread.currentThread());
+        return new TestHasNoSuperClass();
+      }, ParallelOptions.defaults().withExecutor(executor).withThreshold(0));
+    } finally {
+      executor.shutdown();
+    }
+
+    assertFalse(threads.contains(Thread.currentThread()));
+  }
+
+  @Test
+  public void shouldReturnArrayList_whetherListIsMappedInParallelOrNot() {
+    ParallelOptions options = ParallelOptions.defaults().withThreshold(100).withChunkSize(16);
+
+    Iterable<TestHasNoSuperClass> small = Mapper.getMapperFromList(createSources(10))
+        .mapToListParallel(TestHasNoSuperClass::new, options);
+    Iterable<TestHasNoSuperClass> large = Mapper.getMapperFromList(createSources(1000))
+        .mapToListParallel(TestHasNoSuperClass::new, options);
+
+    assertEquals(ArrayList.class, small.getClass());
+    assertEquals(ArrayList.class, large.getClass());
+    ((List<TestHasNoSuperClass>) large).add(new TestHasNoSuperClass());
+    assertEquals(1001, ((List<TestHasNoSuperClass>) large).size());
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void shouldRethrowException_whenChunkFails() {
+    Mapper.getMapperFromList(createSources(1000)).mapToListParallel(() -> {
+      throw new IllegalStateException("supplier failed");
+    }, ParallelOptions.defaults().withThreshold(0));
+  }
+
+  @Test(expected = ResultTypeInstantiationException.class)
+  public void shouldThrowResultTypeInstantiationException_whenConstructorThrows()
+      throws ResultTypeInstantiationException {
+    Mapper.getMapperFromList(createSources(1000)).mapToListParallel(
+        ThrowingConstructorResult.class, ParallelOptions.defaults().withThreshold(0));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldThrowException_whenVirtualThreadsAreUnbounded() {
+    ParallelOptions.virtualThreads(0);
+  }
+
+  @Test
+  public void shouldBoundConcurrency_whenVirtualThreadsAreUsed() {
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+
+    Iterable<TestHasNoSuperClass> results = Mapper.getMapperFromList(createSources(200))
+        .mapToListParallel(() -> {
+          maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+          try {
+            Thread.sleep(1);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+          running.decrementAndGet();
+          return new TestHasNoSuperClass();
+        }, ParallelOptions.virtualThreads(4));
+
+    int index = 0;
+    for (TestHasNoSuperClass result : results) {
+      assertEquals(Double.valueOf(index), result.getChildField1());
+      index++;
+    }
+    assertEquals(200, index);
+    assertTrue(maxRunning.get() <= 4);
+  }
+
+
+  public static class ThrowingConstructorResult implements Mappable {
+    public ThrowingConstructorResult() {
+      throw new IllegalStateException("constructor failed");
+    }
+  }
+}
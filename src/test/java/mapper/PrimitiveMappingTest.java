@@ -0,0 +1,79 @@
+package mapper;
+
+import static org.junit.Assert.*;
+
+import java.lang.management.ManagementFactory;
+
+import mapper.packagefortesting.TestPrimitiveClass;
+import mapper.plan.MappingEngine;
+import mapper.util.MapperUtil;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+
+public class PrimitiveMappingTest {
+
+  private TestPrimitiveClass mapFromObj;
+
+  /**
+   * Setting mapFromObj with initial values out of the boxing caches.
+   */
+  @Before
+  public void setUp() {
+    mapFromObj = new TestPrimitiveClass();
+    mapFromObj.setIntField(100000);
+    mapFromObj.setLongField(10000000000L);
+    mapFromObj.setDoubleField(3.5);
+    mapFromObj.setBooleanField(true);
+    mapFromObj.setFloatField(2.5f);
+    mapFromObj.setCharField('z');
+    mapFromObj.setShortField((short) 1000);
+    mapFromObj.setByteField((byte) -3);
+  }
+
+  @Test
+  public void shouldMapPrimitiveFields_withEveryEngine() {
+    for (MappingEngine engine : MappingEngine.values()) {
+      TestPrimitiveClass mapToObj =
+          Mapper.getMapperFrom(mapFromObj, engine).mapTo(TestPrimitiveClass::new);
+
+      assertEquals(engine.name(), 100000, mapToObj.getIntField());
+      assertEquals(engine.name(), 10000000000L, mapToObj.getLongField());
+      assertEquals(engine.name(), 3.5, mapToObj.getDoubleField(), 0.0);
+      assertTrue(engine.name(), mapToObj.getBooleanField());
+      assertEquals(engine.name(), 2.5f, mapToObj.getFloatField(), 0.0f);
+      assertEquals(engine.name(), 'z', mapToObj.getCharField());
+      assertEquals(engine.name(), 1000, mapToObj.getShortField());
+      assertEquals(engine.name(), -3, mapToObj.getByteField());
+    }
+  }
+
+  @Test
+  public void shouldNotAllocate_whenMappingPrimitiveFieldsIntoExistingResult() {
+    java.lang.management.ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+    Assume.assumeTrue(threadBean instanceof com.sun.management.ThreadMXBean);
+    com.sun.management.ThreadMXBean allocationBean =
+        (com.sun.management.ThreadMXBean) threadBean;
+    Assume.assumeTrue(allocationBean.isThreadAllocatedMemorySupported());
+
+    for (MappingEngine engine
+        : new MappingEngine[] {MappingEngine.DEFAULT, MappingEngine.METHOD_HANDLE,
+            MappingEngine.BYTECODE}) {
+      TestPrimitiveClass mapToObj = new TestPrimitiveClass();
+      for (int i = 0; i < 20000; i++) {
+        MapperUtil.map(mapFromObj, mapToObj, engine);
+      }
+
+      long threadId = Thread.currentThread().getId();
+      long allocatedBefore = allocationBean.getThreadAllocatedBytes(threadId);
+      for (int i = 0; i < 10000; i++) {
+        MapperUtil.map(mapFromObj, mapToObj, engine);
+      }
+      long allocated = allocationBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+      assertTrue(engine.name() + " allocated " + allocated + " bytes", allocated < 64 * 1024);
+    }
+  }
+}
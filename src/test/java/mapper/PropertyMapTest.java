@@ -0,0 +1,140 @@
+package mapper;
+
+import static org.junit.Assert.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import mapper.packagefortesting.TestChildClass;
+import mapper.plan.PropertyMap;
+import mapper.plan.PropertyTable;
+import mapper.util.MapperUtil;
+
+import org.junit.Test;
+
+
+public class PropertyMapTest {
+
+  @Test
+  public void shouldShareKeyTable_whenObjectsOfSameClassAreMapped() {
+    PropertyMap first = (PropertyMap) MapperUtil.toMap(new TestChildClass());
+    PropertyMap second = (PropertyMap) MapperUtil.toMap(new TestChildClass());
+
+    assertSame(first.getTable(), second.getTable());
+    assertSame(PropertyTable.of(TestChildClass.class), first.getTable());
+    assertEquals(4, first.size());
+  }
+
+  @Test
+  public void shouldReadThroughGetters_whenGetterExists() {
+    AccessorDto dto = new AccessorDto();
+    dto.setName("ada");
+    dto.setAge(36);
+
+    Map<String, Object> map = MapperUtil.toMap(dto);
+
+    assertEquals("ADA", map.get("name"));
+    assertEquals(36, map.get("age"));
+    assertEquals(7L, map.get("id"));
+    assertTrue(map.containsKey("id"));
+    assertFalse(map.containsKey("notAField"));
+    assertNull(map.get("notAField"));
+  }
+
+  @Test
+  public void shouldEqualHashMap_whenSameEntriesAreHeld() {
+    AccessorDto dto = new AccessorDto();
+    dto.setName("ada");
+
+    Map<String, Object> expected = new HashMap<>();
+    expected.put("name", "ADA");
+    expected.put("age", 0);
+    expected.put("id", 7L);
+
+    Map<String, Object> map = MapperUtil.toMap(dto);
+
+    assertEquals(expected, map);
+    assertEquals(map, expected);
+    assertEquals(expected.hashCode(), map.hashCode());
+  }
+
+  @Test
+  public void shouldPopulateMappable_whenMapIsGiven() throws Exception {
+    Map<String, Object> map = new HashMap<>();
+    map.put("name", "grace");
+    map.put("age", 45);
+    map.put("unknown", "ignored");
+
+    AccessorDto dto = MapperUtil.fromMap(map, AccessorDto.class);
+
+    assertEquals("GRACE", dto.getName());
+    assertEquals(45, dto.getAge());
+    assertEquals(7L, dto.getId());
+  }
+
+  @Test
+  public void shouldRoundTrip_whenMapOfSameClassIsGiven() {
+    AccessorDto dto = new AccessorDto();
+    dto.setName("ada");
+    dto.setAge(36);
+
+    Map<String, Object> map = MapperUtil.toMap(dto);
+    map.put("age", 37);
+    AccessorDto copy = MapperUtil.fromMap(map, new AccessorDto());
+
+    assertEquals(37, copy.getAge());
+    assertEquals("ADA", copy.getName());
+  }
+
+  @Test
+  public void shouldSkipNull_whenFieldIsPrimitive() {
+    AccessorDto dto = new AccessorDto();
+    dto.setAge(36);
+    Map<String, Object> map = new HashMap<>();
+    map.put("age", null);
+
+    MapperUtil.fromMap(map, dto);
+
+    assertEquals(36, dto.getAge());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldThrowException_whenValueHasWrongType() {
+    Map<String, Object> map = new HashMap<>();
+    map.put("age", "36");
+
+    MapperUtil.fromMap(map, new AccessorDto());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldThrowException_whenUnknownKeyIsPut() {
+    MapperUtil.toMap(new AccessorDto()).put("notAField", 1);
+  }
+
+  public static class AccessorDto implements Mappable {
+    private static int instanceCount;
+    private final long id = 7L;
+    private String name;
+    private int age;
+
+    public long getId() {
+      return id;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public void setName(String name) {
+      this.name = name == null ? null : name.toUpperCase();
+    }
+
+    public int getAge() {
+      return age;
+    }
+
+    public void setAge(int age) {
+      this.age = age;
+    }
+  }
+}
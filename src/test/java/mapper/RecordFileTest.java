@@ -0,0 +1,249 @@
+package mapper;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import mapper.offheap.RecordFileReader;
+import mapper.offheap.RecordFileWriter;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+
+public class RecordFileTest {
+
+  private Path path;
+
+  @Before
+  public void setUp() throws IOException {
+    path = Files.createTempFile("records", ".bin");
+    Files.delete(path);
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(path);
+  }
+
+  @Test
+  public void shouldReadWrittenRecords_whenFileIsMapped() throws Exception {
+    final String turkishName = new String(new int[] {0xC7, 'a', 0x11F, 'r', 0x131}, 0, 5);
+    try (RecordFileWriter<Customer> writer = RecordFileWriter.open(path, Customer.class)) {
+      writer.append(new Customer(1, "Ada", 12.5, "London"));
+      writer.append(new Customer(2, "Grace", null, null));
+      writer.append(new Customer(3, turkishName, 7.0, ""));
+    }
+
+    try (RecordFileReader<Customer> reader = RecordFileReader.open(path, Customer.class)) {
+      assertEquals(3, reader.getRecordCount());
+
+      assertTrue(reader.next());
+      assertEquals(1L, reader.view().getLong("id"));
+      assertEquals("Ada", reader.getString("name"));
+      assertEquals(12.5, reader.view().getDouble("balance"), 0.0);
+      assertEquals("London", reader.getString("city"));
+
+      assertTrue(reader.next());
+      Customer grace = reader.read();
+      assertEquals(2L, grace.getId());
+      assertEquals("Grace", grace.getName());
+      assertNull(grace.getBalance());
+      assertNull(grace.getCity());
+
+      assertTrue(reader.next());
+      assertEquals(turkishName, reader.getString("name"));
+      assertEquals("", reader.getString("city"));
+      assertFalse(reader.next());
+    }
+  }
+
+  @Test
+  public void shouldAppendToExistingFile_whenFileIsOpenedAgain() throws Exception {
+    try (RecordFileWriter<Customer> writer = RecordFileWriter.open(path, Customer.class)) {
+      writer.append(new Customer(1, "Ada", 1.0, "London"));
+    }
+    try (RecordFileWriter<Customer> writer = RecordFileWriter.open(path, Customer.class)) {
+      assertEquals(1, writer.getRecordCount());
+      writer.append(new Customer(2, "Grace", 2.0, "New York"));
+    }
+
+    List<String> names = new ArrayList<>();
+    try (RecordFileReader<Customer> reader = RecordFileReader.open(path, Customer.class)) {
+      assertEquals(2, reader.getRecordCount());
+      while (reader.next()) {
+        names.add(reader.getString("name"));
+      }
+    }
+    assertEquals(2, names.size());
+    assertEquals("Grace", names.get(1));
+  }
+
+  @Test
+  public void shouldScanAllRecords_whenRecordsSpanManyWindows() throws Exception {
+    try (RecordFileWriter<Customer> writer = RecordFileWriter.open(path, Customer.class)) {
+      for (int i = 0; i < 5000; i++) {
+        writer.append(new Customer(i, "customer" + i, (double) i, "city" + (i % 10)));
+      }
+    }
+
+    long idSum = 0;
+    int count = 0;
+    try (RecordFileReader<Customer> reader =
+        RecordFileReader.open(path, Customer.class, 4096)) {
+      while (reader.next()) {
+        idSum += reader.view().getLong("id");
+        assertEquals("customer" + count, reader.getString("name"));
+        count++;
+      }
+    }
+    assertEquals(5000, count);
+    assertEquals(4999L * 5000 / 2, idSum);
+  }
+
+  @Test
+  public void shouldTruncateUnfinishedRecord_whenFileIsOpenedAgain() throws Exception {
+    try (RecordFileWriter<Customer> writer = RecordFileWriter.open(path, Customer.class)) {
+      writer.append(new Customer(1, "Ada", 1.0, "London"));
+      writer.append(new Customer(2, "Grace", 2.0, "New York"));
+    }
+    final long completeSize = Files.size(path);
+    ByteBuffer tornRecord = ByteBuffer.allocate(12).order(ByteOrder.nativeOrder())
+        .putInt(64).putInt(0).putInt(7);
+    tornRecord.flip();
+    Files.write(path, tornRecord.array(), StandardOpenOption.APPEND);
+
+    try (RecordFileWriter<Customer> writer = RecordFileWriter.open(path, Customer.class)) {
+      assertEquals(completeSize, Files.size(path));
+      assertEquals(2, writer.getRecordCount());
+      writer.append(new Customer(3, "Edsger", 3.0, "Austin"));
+    }
+
+    List<String> names = new ArrayList<>();
+    try (RecordFileReader<Customer> reader = RecordFileReader.open(path, Customer.class)) {
+      assertEquals(3, reader.getRecordCount());
+      while (reader.next()) {
+        names.add(reader.getString("name"));
+      }
+    }
+    assertEquals(3, names.size());
+    assertEquals("Edsger", names.get(2));
+  }
+
+  @Test
+  public void shouldEndAtRecord_whenStringByteCountDoesNotFitInRecord() throws Exception {
+    try (RecordFileWriter<Customer> writer = RecordFileWriter.open(path, Customer.class)) {
+      writer.append(new Customer(1, "Ada", 1.0, "London"));
+      writer.append(new Customer(2, "Grace", 2.0, "New York"));
+    }
+    byte[] bytes = Files.readAllBytes(path);
+    int graceOffset = indexOf(bytes, "Grace".getBytes(StandardCharsets.UTF_8));
+    ByteBuffer.wrap(bytes).order(ByteOrder.nativeOrder()).putInt(graceOffset - 4, 1 << 30);
+    Files.write(path, bytes);
+
+    List<String> names = new ArrayList<>();
+    try (RecordFileReader<Customer> reader = RecordFileReader.open(path, Customer.class)) {
+      while (reader.next()) {
+        names.add(reader.getString("name"));
+      }
+    }
+    assertEquals(1, names.size());
+    assertEquals("Ada", names.get(0));
+  }
+
+  @Test
+  public void shouldThrowException_whenTypeHasFieldWhichCanNotBeStored() throws Exception {
+    try {
+      RecordFileWriter.open(path, Event.class);
+      fail();
+    } catch (IllegalArgumentException e) {
+      assertTrue(e.getMessage().contains("'time'"));
+    }
+    assertFalse(Files.exists(path));
+  }
+
+  @Test(expected = IOException.class)
+  public void shouldThrowException_whenFileHasOtherSchema() throws Exception {
+    try (RecordFileWriter<Customer> writer = RecordFileWriter.open(path, Customer.class)) {
+      writer.append(new Customer(1, "Ada", 1.0, "London"));
+    }
+    RecordFileReader.open(path, OffHeapRecordsTest.Quote.class);
+  }
+
+  private static int indexOf(byte[] bytes, byte[] part) {
+    for (int i = 0; i + part.length <= bytes.length; i++) {
+      int length = 0;
+      while (length < part.length && bytes[i + length] == part[length]) {
+        length++;
+      }
+      if (length == part.length) {
+        return i;
+      }
+    }
+    throw new IllegalArgumentException("not found");
+  }
+
+  public static class Customer implements Mappable {
+    private long id;
+    private String name;
+    private Double balance;
+    private String city;
+
+    public Customer() {
+    }
+
+    Customer(long id, String name, Double balance, String city) {
+      this.id = id;
+      this.name = name;
+      this.balance = balance;
+      this.city = city;
+    }
+
+    public long getId() {
+      return id;
+    }
+
+    public void setId(long id) {
+      this.id = id;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public void setName(String name) {
+      this.name = name;
+    }
+
+    public Double getBalance() {
+      return balance;
+    }
+
+    public void setBalance(Double balance) {
+      this.balance = balance;
+    }
+
+    public String getCity() {
+      return city;
+    }
+
+    public void setCity(String city) {
+      this.city = city;
+    }
+  }
+
+  public static class Event implements Mappable {
+    private long id;
+    private Date time;
+  }
+}
@@ -0,0 +1,40 @@
+package mapper.packagefortesting;
+
+import java.util.List;
+
+import mapper.GenerateMapper;
+import mapper.Mappable;
+
+/**
+ * Source type which has a mapper generated at compile time.
+ */
+@GenerateMapper(TestHasNoSuperClass.class)
+public class TestAnnotatedClass implements Mappable {
+  private Double childField1;
+  private List<Integer> childField2;
+  private String superField1;
+
+  public Double getChildField1() {
+    return childField1;
+  }
+
+  public void setChildField1(Double childField1) {
+    this.childField1 = childField1;
+  }
+
+  public List<Integer> getChildField2() {
+    return childField2;
+  }
+
+  public void setChildField2(List<Integer> childField2) {
+    this.childField2 = childField2;
+  }
+
+  public String getSuperField1() {
+    return superField1;
+  }
+
+  public void setSuperField1(String superField1) {
+    this.superField1 = superField1;
+  }
+}
@@ -0,0 +1,21 @@
+package mapper.packagefortesting;
+
+import mapper.GenerateMapper;
+import mapper.Mappable;
+
+/**
+ * Source type whose field is boxed when it is mapped,
+ * so no mapper is generated for it.
+ */
+@GenerateMapper(TestHasNoSuperClass.class)
+public class TestBoxingAnnotatedClass implements Mappable {
+  private double childField1;
+
+  public double getChildField1() {
+    return childField1;
+  }
+
+  public void setChildField1(double childField1) {
+    this.childField1 = childField1;
+  }
+}
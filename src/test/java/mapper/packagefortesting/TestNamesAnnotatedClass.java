@@ -0,0 +1,24 @@
+package mapper.packagefortesting;
+
+import mapper.GenerateMapper;
+import mapper.Mappable;
+import mapper.MappingNames;
+import mapper.plan.NameMatching;
+
+/**
+ * Source type whose field names are matched case-insensitively,
+ * so no mapper is generated for it.
+ */
+@GenerateMapper(TestHasNoSuperClass.class)
+@MappingNames(NameMatching.CASE_INSENSITIVE)
+public class TestNamesAnnotatedClass implements Mappable {
+  private Double childfield1;
+
+  public Double getChildfield1() {
+    return childfield1;
+  }
+
+  public void setChildfield1(Double childfield1) {
+    this.childfield1 = childfield1;
+  }
+}
@@ -0,0 +1,81 @@
+package mapper.packagefortesting;
+
+import mapper.Mappable;
+
+/**
+ * Has only primitive fields.
+ */
+public class TestPrimitiveClass implements Mappable {
+  private int intField;
+  private long longField;
+  private double doubleField;
+  private boolean booleanField;
+  private float floatField;
+  private char charField;
+  private short shortField;
+  private byte byteField;
+
+  public int getIntField() {
+    return intField;
+  }
+
+  public void setIntField(int intField) {
+    this.intField = intField;
+  }
+
+  public long getLongField() {
+    return longField;
+  }
+
+  public void setLongField(long longField) {
+    this.longField = longField;
+  }
+
+  public double getDoubleField() {
+    return doubleField;
+  }
+
+  public void setDoubleField(double doubleField) {
+    this.doubleField = doubleField;
+  }
+
+  public boolean getBooleanField() {
+    return booleanField;
+  }
+
+  public void setBooleanField(boolean booleanField) {
+    this.booleanField = booleanField;
+  }
+
+  public float getFloatField() {
+    return floatField;
+  }
+
+  public void setFloatField(float floatField) {
+    this.floatField = floatField;
+  }
+
+  public char getCharField() {
+    return charField;
+  }
+
+  public void setCharField(char charField) {
+    this.charField = charField;
+  }
+
+  public short getShortField() {
+    return shortField;
+  }
+
+  public void setShortField(short shortField) {
+    this.shortField = shortField;
+  }
+
+  public byte getByteField() {
+    return byteField;
+  }
+
+  public void setByteField(byte byteField) {
+    this.byteField = byteField;
+  }
+}
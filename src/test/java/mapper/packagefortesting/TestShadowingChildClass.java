@@ -0,0 +1,9 @@
+package mapper.packagefortesting;
+
+/**
+ * Declares a field with the same name as a field of its super class.
+ */
+public class TestShadowingChildClass extends TestSuperClass {
+  private Long superField2;
+  private String childField1;
+}